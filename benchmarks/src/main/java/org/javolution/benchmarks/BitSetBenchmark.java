@@ -0,0 +1,135 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.javolution.util.FastBitSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code FastBitSet} against {@code java.util.BitSet}: point access, logical operations, cardinality and
+ * iteration over set bits, for sparse and dense sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitSetBenchmark {
+
+    private static final int BITS = 1 << 20;
+    private static final int INDICES = 1024; // Power of two.
+
+    @Param({ "0.001", "0.5" })
+    public double density;
+
+    private FastBitSet fast, fastOther, fastResult;
+    private BitSet util, utilOther, utilResult;
+    private int[] indices;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        fast = new FastBitSet();
+        fastOther = new FastBitSet();
+        util = new BitSet();
+        utilOther = new BitSet();
+        for (int i = 0; i < BITS; i++) {
+            if (random.nextDouble() < density) {
+                fast.set(i);
+                util.set(i);
+            }
+            if (random.nextDouble() < density) {
+                fastOther.set(i);
+                utilOther.set(i);
+            }
+        }
+        indices = new int[INDICES];
+        for (int i = 0; i < INDICES; i++)
+            indices[i] = random.nextInt(BITS);
+    }
+
+    @Benchmark
+    public boolean fastGetFlip() {
+        int i = indices[cursor++ & (INDICES - 1)];
+        fast.flip(i);
+        return fast.get(i);
+    }
+
+    @Benchmark
+    public boolean utilGetFlip() {
+        int i = indices[cursor++ & (INDICES - 1)];
+        util.flip(i);
+        return util.get(i);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int fastAndOr() {
+        fastResult = fast.clone();
+        fastResult.and(fastOther);
+        fastResult.or(fast);
+        return fastResult.cardinality();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int utilAndOr() {
+        utilResult = (BitSet) util.clone();
+        utilResult.and(utilOther);
+        utilResult.or(util);
+        return utilResult.cardinality();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int fastCardinality() {
+        return fast.cardinality();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int utilCardinality() {
+        return util.cardinality();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long fastIterateSetBits() {
+        long sum = 0;
+        for (int i = fast.nextSetBit(0); i >= 0; i = fast.nextSetBit(i + 1))
+            sum += i;
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long utilIterateSetBits() {
+        long sum = 0;
+        for (int i = util.nextSetBit(0); i >= 0; i = util.nextSetBit(i + 1))
+            sum += i;
+        return sum;
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Thread-safe maps under contention: three readers and one writer sharing the same map
+ * ({@code FastMap} atomic/shared views and concurrent copies against {@code java.util.concurrent} maps).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContendedMapBenchmark {
+
+    private static final int KEYS = 10000;
+
+    @Param({ "Fast.atomic", "Fast.shared", "Fast.concurrent", "ConcurrentHashMap", "ConcurrentSkipListMap" })
+    public String impl;
+
+    private Map<Integer, Integer> map;
+
+    @Setup
+    public void setup() {
+        map = Implementations.newMap(impl);
+        for (int i = 0; i < KEYS; i++)
+            map.put(i, i);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Integer read() {
+        return map.get(ThreadLocalRandom.current().nextInt(KEYS));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public Integer write() {
+        int key = ThreadLocalRandom.current().nextInt(KEYS);
+        return map.put(key, key);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.javolution.util.FastMap;
+import org.javolution.util.FastSet;
+import org.javolution.util.FastTable;
+
+/**
+ * Factories for the collections being compared; names are used as JMH {@code @Param} values.
+ */
+final class Implementations {
+
+    static final String FAST = "Fast";
+    static final String FAST_ATOMIC = "Fast.atomic";
+    static final String FAST_SHARED = "Fast.shared";
+    static final String FAST_CONCURRENT = "Fast.concurrent";
+
+    private Implementations() {
+    }
+
+    /** Returns a new empty list ({@code Fast, Fast.atomic, Fast.shared, ArrayList, CopyOnWriteArrayList,
+     *  synchronizedList}). */
+    static <E> List<E> newList(String name) {
+        if (name.equals(FAST)) return new FastTable<E>();
+        if (name.equals(FAST_ATOMIC)) return new FastTable<E>().atomic();
+        if (name.equals(FAST_SHARED)) return new FastTable<E>().shared();
+        if (name.equals("ArrayList")) return new ArrayList<E>();
+        if (name.equals("CopyOnWriteArrayList")) return new CopyOnWriteArrayList<E>();
+        if (name.equals("synchronizedList")) return Collections.synchronizedList(new ArrayList<E>());
+        throw new IllegalArgumentException("Unknown list: " + name);
+    }
+
+    /** Returns a new empty set ({@code Fast, Fast.atomic, Fast.shared, Fast.concurrent, HashSet, TreeSet,
+     *  ConcurrentSkipListSet, ConcurrentHashMap.newKeySet}). */
+    static <E extends Comparable<E>> Set<E> newSet(String name) {
+        if (name.equals(FAST)) return new FastSet<E>();
+        if (name.equals(FAST_ATOMIC)) return new FastSet<E>().atomic();
+        if (name.equals(FAST_SHARED)) return new FastSet<E>().shared();
+        if (name.equals(FAST_CONCURRENT)) return new FastSet<E>().concurrentCopy();
+        if (name.equals("HashSet")) return new HashSet<E>();
+        if (name.equals("TreeSet")) return new TreeSet<E>();
+        if (name.equals("ConcurrentSkipListSet")) return new ConcurrentSkipListSet<E>();
+        if (name.equals("ConcurrentHashMap.newKeySet")) return ConcurrentHashMap.<E>newKeySet();
+        throw new IllegalArgumentException("Unknown set: " + name);
+    }
+
+    /** Returns a new empty map ({@code Fast, Fast.atomic, Fast.shared, Fast.concurrent, HashMap, TreeMap,
+     *  ConcurrentHashMap, ConcurrentSkipListMap}). */
+    static <K extends Comparable<K>, V> Map<K, V> newMap(String name) {
+        if (name.equals(FAST)) return new FastMap<K, V>();
+        if (name.equals(FAST_ATOMIC)) return new FastMap<K, V>().atomic();
+        if (name.equals(FAST_SHARED)) return new FastMap<K, V>().shared();
+        if (name.equals(FAST_CONCURRENT)) return new FastMap<K, V>().concurrentCopy();
+        if (name.equals("HashMap")) return new HashMap<K, V>();
+        if (name.equals("TreeMap")) return new TreeMap<K, V>();
+        if (name.equals("ConcurrentHashMap")) return new ConcurrentHashMap<K, V>();
+        if (name.equals("ConcurrentSkipListMap")) return new ConcurrentSkipListMap<K, V>();
+        throw new IllegalArgumentException("Unknown map: " + name);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Maps ({@code FastMap} and its views) against {@code java.util} and {@code java.util.concurrent} maps:
+ * insertion/deletion, lookup, iteration and bulk operations (single thread).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    private static final int KEYS = 1024; // Power of two.
+
+    @Param({ "Fast", "Fast.atomic", "Fast.shared", "Fast.concurrent", "HashMap", "TreeMap", "ConcurrentHashMap",
+            "ConcurrentSkipListMap" })
+    public String impl;
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Map<Integer, Integer> map;
+    private Map<Integer, Integer> copy;
+    private Integer[] present;
+    private Integer[] absent;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        map = Implementations.newMap(impl);
+        copy = Implementations.newMap(impl);
+        while (map.size() < size)
+            map.put(random.nextInt() & ~1, 0); // Even keys.
+        Integer[] keys = map.keySet().toArray(new Integer[size]);
+        present = new Integer[KEYS];
+        absent = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            present[i] = keys[random.nextInt(size)];
+            absent[i] = random.nextInt() | 1; // Odd keys.
+        }
+    }
+
+    /** Inserts then removes a key not in the map (the size is unchanged). */
+    @Benchmark
+    public Integer putRemove() {
+        Integer key = absent[cursor++ & (KEYS - 1)];
+        map.put(key, key);
+        return map.remove(key);
+    }
+
+    @Benchmark
+    public Integer getPresent() {
+        return map.get(present[cursor++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public Integer getAbsent() {
+        return map.get(absent[cursor++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole blackhole) {
+        for (Map.Entry<Integer, Integer> entry : map.entrySet())
+            blackhole.consume(entry.getKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int putAll() {
+        copy.clear();
+        copy.putAll(map);
+        return copy.size();
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.javolution.util.FastTable;
+import org.javolution.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parallel views ({@code FastTable.parallel()}, executed through {@code ConcurrentContext}) against
+ * {@code java.util} parallel streams: traversal, reduction, filtering and sorting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int size;
+
+    private FastTable<Integer> table;
+    private ArrayList<Integer> list;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        table = new FastTable<Integer>();
+        list = new ArrayList<Integer>();
+        for (int i = 0; i < size; i++) {
+            Integer value = random.nextInt();
+            table.add(value);
+            list.add(value);
+        }
+    }
+
+    @Benchmark
+    public long fastForEach() {
+        final LongAdder sum = new LongAdder();
+        table.parallel().forEach(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer value) {
+                sum.add(value);
+            }
+        });
+        return sum.sum();
+    }
+
+    @Benchmark
+    public long streamForEach() {
+        final LongAdder sum = new LongAdder();
+        list.parallelStream().forEach(value -> sum.add(value));
+        return sum.sum();
+    }
+
+    @Benchmark
+    public Integer fastReduce() {
+        return table.parallel().reduce((a, b) -> a ^ b);
+    }
+
+    @Benchmark
+    public Integer streamReduce() {
+        return list.parallelStream().reduce((a, b) -> a ^ b).get();
+    }
+
+    @Benchmark
+    public int fastFilterCollect() {
+        return table.filter(value -> (value & 1) == 0).parallel().collect().size();
+    }
+
+    @Benchmark
+    public int streamFilterCollect() {
+        return list.parallelStream().filter(value -> (value & 1) == 0).toArray().length;
+    }
+
+    @Benchmark
+    public int fastSort() {
+        FastTable<Integer> copy = table.clone();
+        copy.parallel().sort(Comparator.<Integer>naturalOrder());
+        return copy.size();
+    }
+
+    @Benchmark
+    public int arraysParallelSort() {
+        Integer[] copy = list.toArray(new Integer[size]);
+        Arrays.parallelSort(copy, Comparator.<Integer>naturalOrder());
+        return copy.length;
+    }
+
+}
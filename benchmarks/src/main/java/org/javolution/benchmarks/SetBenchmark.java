@@ -0,0 +1,99 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sets ({@code FastSet} and its views) against {@code java.util} and {@code java.util.concurrent} sets:
+ * insertion/deletion, membership, iteration and bulk operations (single thread).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetBenchmark {
+
+    private static final int ELEMENTS = 1024; // Power of two.
+
+    @Param({ "Fast", "Fast.atomic", "Fast.shared", "Fast.concurrent", "HashSet", "TreeSet", "ConcurrentSkipListSet",
+            "ConcurrentHashMap.newKeySet" })
+    public String impl;
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Set<Integer> set;
+    private Set<Integer> copy;
+    private Integer[] present;
+    private Integer[] absent;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        set = Implementations.newSet(impl);
+        copy = Implementations.newSet(impl);
+        while (set.size() < size)
+            set.add(random.nextInt() & ~1); // Even elements.
+        Integer[] elements = set.toArray(new Integer[size]);
+        present = new Integer[ELEMENTS];
+        absent = new Integer[ELEMENTS];
+        for (int i = 0; i < ELEMENTS; i++) {
+            present[i] = elements[random.nextInt(size)];
+            absent[i] = random.nextInt() | 1; // Odd elements.
+        }
+    }
+
+    /** Inserts then removes an element not in the set (the size is unchanged). */
+    @Benchmark
+    public boolean addRemove() {
+        Integer element = absent[cursor++ & (ELEMENTS - 1)];
+        set.add(element);
+        return set.remove(element);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return set.contains(present[cursor++ & (ELEMENTS - 1)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole blackhole) {
+        for (Integer element : set)
+            blackhole.consume(element);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int addAll() {
+        copy.clear();
+        copy.addAll(set);
+        return copy.size();
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.javolution.util.FastMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Locking of the shared views under contention: seven readers and one writer sharing the same {@code FastMap}.
+ * The {@code shared()} view (optimistic reads) is compared to the same map guarded by the previous monitor-based
+ * readers-writer lock ({@code synchronized/wait/notifyAll}, readers always lock) and by a
+ * {@code ReentrantReadWriteLock}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedLockBenchmark {
+
+    private static final int KEYS = 10000;
+
+    @Param({ "Fast.shared", "MonitorLock", "ReentrantReadWriteLock" })
+    public String impl;
+
+    private Map<Integer, Integer> map;
+    private ReadWriteLock lock; // Null for the shared view.
+
+    @Setup
+    public void setup() {
+        FastMap<Integer, Integer> fastMap = new FastMap<Integer, Integer>();
+        for (int i = 0; i < KEYS; i++)
+            fastMap.put(i, i);
+        if (impl.equals("Fast.shared")) {
+            map = fastMap.shared();
+        } else if (impl.equals("MonitorLock")) {
+            map = fastMap;
+            lock = new MonitorReadWriteLock();
+        } else if (impl.equals("ReentrantReadWriteLock")) {
+            map = fastMap;
+            lock = new ReentrantReadWriteLock();
+        } else {
+            throw new IllegalArgumentException("Unknown lock: " + impl);
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(7)
+    public Integer read() {
+        Integer key = ThreadLocalRandom.current().nextInt(KEYS);
+        if (lock == null) return map.get(key);
+        lock.readLock().lock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public Integer write() {
+        Integer key = ThreadLocalRandom.current().nextInt(KEYS);
+        if (lock == null) return map.put(key, key);
+        lock.writeLock().lock();
+        try {
+            return map.put(key, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** The readers-writer lock used by the shared views before optimistic reads (priority to writers). */
+    private static final class MonitorReadWriteLock implements ReadWriteLock {
+        private int givenLocks;
+        private int waitingWriters;
+        private Thread writerThread;
+
+        private final Lock readLock = new MonitorLock() {
+            @Override
+            public void lock() {
+                synchronized (MonitorReadWriteLock.this) {
+                    while ((writerThread != null) || (waitingWriters != 0))
+                        await();
+                    givenLocks++;
+                }
+            }
+
+            @Override
+            public void unlock() {
+                synchronized (MonitorReadWriteLock.this) {
+                    givenLocks--;
+                    MonitorReadWriteLock.this.notifyAll();
+                }
+            }
+        };
+
+        private final Lock writeLock = new MonitorLock() {
+            @Override
+            public void lock() {
+                synchronized (MonitorReadWriteLock.this) {
+                    waitingWriters++;
+                    while (givenLocks != 0)
+                        await();
+                    waitingWriters--;
+                    writerThread = Thread.currentThread();
+                }
+            }
+
+            @Override
+            public void unlock() {
+                synchronized (MonitorReadWriteLock.this) {
+                    writerThread = null;
+                    MonitorReadWriteLock.this.notifyAll();
+                }
+            }
+        };
+
+        @Override
+        public Lock readLock() {
+            return readLock;
+        }
+
+        @Override
+        public Lock writeLock() {
+            return writeLock;
+        }
+
+        private void await() {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /** Only lock/unlock are supported. */
+        private abstract class MonitorLock implements Lock {
+
+            @Override
+            public void lockInterruptibly() {
+                lock();
+            }
+
+            @Override
+            public boolean tryLock() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean tryLock(long time, TimeUnit unit) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public java.util.concurrent.locks.Condition newCondition() {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+
+}
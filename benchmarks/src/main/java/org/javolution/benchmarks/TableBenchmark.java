@@ -0,0 +1,110 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.benchmarks;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Tables ({@code FastTable} and its views) against {@code java.util} lists: random insertion/deletion,
+ * random access, iteration and bulk operations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    private static final int INDICES = 1024; // Power of two.
+
+    @Param({ "Fast", "Fast.atomic", "Fast.shared", "ArrayList", "CopyOnWriteArrayList" })
+    public String impl;
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private List<Integer> list;
+    private List<Integer> copy;
+    private int[] indices;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        list = Implementations.newList(impl);
+        copy = Implementations.newList(impl);
+        for (int i = 0; i < size; i++)
+            list.add(random.nextInt());
+        indices = new int[INDICES];
+        for (int i = 0; i < INDICES; i++)
+            indices[i] = random.nextInt(size);
+    }
+
+    /** Inserts then removes an element at random positions (the size is unchanged). */
+    @Benchmark
+    public Integer randomInsertDelete() {
+        int i = indices[cursor++ & (INDICES - 1)];
+        list.add(i, i);
+        return list.remove(indices[cursor & (INDICES - 1)]);
+    }
+
+    /** Deque-like usage: insertion at the head, removal at the tail. */
+    @Benchmark
+    public Integer addFirstRemoveLast() {
+        list.add(0, cursor++);
+        return list.remove(list.size() - 1);
+    }
+
+    @Benchmark
+    public Integer randomGet() {
+        return list.get(indices[cursor++ & (INDICES - 1)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole blackhole) {
+        for (Integer element : list)
+            blackhole.consume(element);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int addAll() {
+        copy.clear();
+        copy.addAll(list);
+        return copy.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int sort() {
+        copy.clear();
+        copy.addAll(list);
+        copy.sort(Comparator.<Integer>naturalOrder());
+        return copy.size();
+    }
+
+}
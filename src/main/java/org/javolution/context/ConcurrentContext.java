@@ -16,9 +16,11 @@ import org.javolution.osgi.internal.OSGiServices;
  * A context able to take advantage of concurrent algorithms on multi-processors systems.
  *     
  * When a thread enters a concurrent context, it may performs concurrent executions by calling the 
- * {@link #execute(Runnable)} static method. The logic is then executed by a concurrent thread or by the current 
- * thread itself if there is no concurrent thread immediately available (the number of concurrent threads is limited, 
- * see {@link #CONCURRENCY}).
+ * {@link #execute(Runnable)} static method. The logic is then scheduled for execution by a concurrent thread 
+ * (idle concurrent threads steal work from busy ones) or executed by the current thread itself if enough concurrent 
+ * executions are already pending (the number of concurrent threads is limited, see {@link #CONCURRENCY}).
+ * Upon exit, the current thread helps executing the pending work, nested concurrent contexts do not 
+ * collapse to sequential executions.
  * 
  * ```java
  * ConcurrentContext ctx = ConcurrentContext.enter(); 
@@ -219,9 +221,10 @@ public abstract class ConcurrentContext extends AbstractContext {
     }
 
     /**
-     * Executes the specified logic by a concurrent thread if one available; otherwise the logic is executed by 
-     * the current thread. Any exception or error occurring during the concurrent execution is propagated to 
-     * the current thread upon exit of the concurrent context.
+     * Schedules the specified logic for execution by a concurrent thread if the {@link #getConcurrency() 
+     * concurrency} allows for it; otherwise the logic is executed by the current thread. Any exception or error 
+     * occurring during the concurrent execution is propagated to the current thread upon exit of the concurrent 
+     * context.
      * 
      * @param  logic the logic to be executed concurrently when possible.
      */
@@ -235,6 +238,69 @@ public abstract class ConcurrentContext extends AbstractContext {
      */
     public abstract void setConcurrency(int concurrency);
 
+    /**
+     * Enables or disables the execution of each concurrent logic on its own virtual thread. This mode is 
+     * intended for blocking-heavy logics (e.g. I/O fan-out), the number of concurrent executions is then
+     * not limited by the {@link #getConcurrency() concurrency}. This setting is inherited by inner contexts
+     * and has no effect if the virtual threads are not supported by the JVM (the executions are then 
+     * performed by the concurrent threads as usual).
+     * 
+     * ```java
+     * ConcurrentContext ctx = ConcurrentContext.enter(); 
+     * try { 
+     *    ctx.setVirtual(true);
+     *    for (final URL url : urls) 
+     *        ctx.execute(new Runnable() { public void run() { download(url); } });
+     * } finally {
+     *    ctx.exit(); // Waits for all the downloads to complete.  
+     * }
+     * ```
+     * 
+     * @param virtual {@code true} to execute concurrent logics on virtual threads if supported; 
+     *        {@code false} to use the concurrent threads.
+     */
+    public abstract void setVirtual(boolean virtual);
+
+    /**
+     * Indicates if the concurrent logics are executed on virtual threads.
+     * 
+     * @return {@code true} if the virtual mode is enabled and supported by the JVM; {@code false} otherwise.
+     */
+    public abstract boolean isVirtual();
+
+    /**
+     * Signals the concurrent executions of this context (and of its inner contexts) that their work is no longer 
+     * needed. The logics not started yet are skipped; the running ones may stop early by polling 
+     * {@link #isCancelled()}. This is typically used by short-circuiting searches as soon as a match is found.
+     * 
+     * ```java
+     * final ConcurrentContext ctx = ConcurrentContext.enter(); 
+     * try { 
+     *    for (final AbstractCollection<Rule> rules : allRules.trySplit(ctx.getConcurrency() + 1)) 
+     *        ctx.execute(new Runnable() { 
+     *            public void run() { 
+     *                rules.iterator().hasNext(new Predicate<Rule>() { 
+     *                    public boolean test(Rule rule) {
+     *                        if (ctx.isCancelled()) return true; // Another execution found it. 
+     *                        if (!rule.matches(transaction)) return false;
+     *                        ctx.cancel();
+     *                        return true;
+     *                    }});
+     *            }});
+     * } finally {
+     *    ctx.exit(); // Pending executions are skipped once cancelled.
+     * }
+     * ```
+     */
+    public abstract void cancel();
+
+    /**
+     * Indicates if this context or any of its outer concurrent contexts has been {@link #cancel() cancelled}.
+     * 
+     * @return {@code true} if the concurrent executions should stop; {@code false} otherwise.
+     */
+    public abstract boolean isCancelled();
+
     /**
      * Returns the current concurrency which is basically the number of concurrent threads authorised 
      * to do concurrent work (on top of all others threads of course).
@@ -8,32 +8,69 @@
  */
 package org.javolution.context.internal;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.javolution.context.AbstractContext;
 import org.javolution.context.ConcurrentContext;
 import org.javolution.lang.MathLib;
+import org.javolution.util.function.Predicate;
 
 /**
- * Holds the default implementation of ConcurrentContext.
+ * Holds the default implementation of ConcurrentContext (work-stealing).
+ *
+ * Concurrent executions are pushed onto the deque of the current worker (or of a worker selected in turn when
+ * the current thread is not a worker); idle workers steal from the other workers deques. Upon exit, the
+ * current thread helps executing the pending tasks of the exiting context (or of its inner contexts) instead
+ * of blocking, which keeps all the workers busy with nested/recursive concurrent contexts. Tasks of unrelated
+ * contexts are never run while exiting (the stack depth is bounded by the contexts nesting).
+ * 
+ * Cancellation is checked before running any logic, pending tasks of a cancelled context complete immediately.
+ * 
+ * In virtual mode, each concurrent execution runs on a new virtual thread (Java 21+, the method
+ * {@code Thread.startVirtualThread} is resolved by reflection to keep compatibility with older JVMs).
  */
 public final class ConcurrentContextImpl extends ConcurrentContext {
 
-    private int completedCount; // Nbr of concurrent task completed.
-    private Throwable error; // Any error raised.
+    private static final long HELP_PERIOD = 100000; // Period (in ns) to check for tasks to steal while exiting.
+    private static final Method START_VIRTUAL_THREAD = startVirtualThreadMethod(); // Null if not supported.
 
-    private int initiatedCount; // Nbr of concurrent task initiated.
     private final ConcurrentContextImpl parent;
-    private ConcurrentThreadImpl[] threads;
-    private int lastThreadInitiated; // Holds index of the last thread initiated. 
+    private final ConcurrentThreadImpl[] workers; // Shared by all the contexts.
+    private int concurrency; // Maximum number of concurrent tasks pending.
+    private boolean virtual; // Executes on virtual threads.
+    private final AtomicInteger pendingCount = new AtomicInteger(); // Nbr of concurrent task not completed.
+    private volatile Throwable error; // Any error raised.
+    private volatile Thread exiting; // The thread waiting for completion.
+    private volatile boolean cancelled; // Executions not started are skipped.
+    private int lastWorkerInitiated; // Holds index of the last worker a task has been pushed to.
+    private final Predicate<Runnable> helpable = new Predicate<Runnable>() { // Tasks which can be run on exit.
+        @Override
+        public boolean test(Runnable task) {
+            return (task instanceof TaskImpl) && ((TaskImpl) task).context.isWithin(ConcurrentContextImpl.this);
+        }
+    };
 
     /**
      * Default constructor (root).
      */
     public ConcurrentContextImpl() {
+        this(ConcurrentContext.CONCURRENCY.get());
+    }
+
+    /**
+     * Creates a root context with the specified number of concurrent threads.
+     */
+    public ConcurrentContextImpl(int nbThreads) {
         this.parent = null;
-        int nbThreads = ConcurrentContext.CONCURRENCY.get();
-        threads = new ConcurrentThreadImpl[nbThreads];
+        this.concurrency = nbThreads;
+        workers = new ConcurrentThreadImpl[nbThreads];
+        for (int i = 0; i < nbThreads; i++) {
+            workers[i] = new ConcurrentThreadImpl();
+        }
         for (int i = 0; i < nbThreads; i++) {
-            threads[i] = new ConcurrentThreadImpl();
-            threads[i].start();
+            workers[i].start(workers);
         }
     }
 
@@ -42,34 +79,39 @@ public final class ConcurrentContextImpl extends ConcurrentContext {
      */
     public ConcurrentContextImpl(ConcurrentContextImpl parent) {
         this.parent = parent;
-        this.threads = parent.threads; // Inherit threads from parents.
+        this.workers = parent.workers; // Inherit threads from parents.
+        this.concurrency = parent.concurrency;
+        this.virtual = parent.virtual;
     }
 
     // Informs this context of the completion of a task (with possible error).
-    public synchronized void completed(Throwable error) {
+    public void completed(Throwable error) {
         if (error != null) {
             this.error = error;
         }
-        completedCount++;
-        this.notify();
+        if (pendingCount.decrementAndGet() == 0) {
+            Thread thread = exiting;
+            if (thread != null) LockSupport.unpark(thread);
+        }
     }
 
     @Override
     public void execute(Runnable logic) {
-        if (threads.length > 0) { 
-            int i = lastThreadInitiated;
-            while (true) { // Searches available thread. 
-                i++;
-                if (i >= threads.length) i = 0;
-                if (threads[i].execute(logic, this)) {
-                    initiatedCount++;
-                    lastThreadInitiated = i;
-                    return;
-                }
-                if (i == lastThreadInitiated) break; // Cycled through.    
+        if (isCancelled()) return; // Not needed anymore.
+        if (virtual && startVirtual(logic)) return;
+        if (pendingCount.get() < concurrency) {
+            pendingCount.incrementAndGet();
+            Thread current = Thread.currentThread();
+            TaskImpl task = new TaskImpl(logic, this, current.getPriority());
+            if ((current instanceof ConcurrentThreadImpl) && ((ConcurrentThreadImpl) current).belongsTo(workers)) {
+                ((ConcurrentThreadImpl) current).push(task);
+            } else {
+                if (++lastWorkerInitiated >= workers.length) lastWorkerInitiated = 0;
+                workers[lastWorkerInitiated].push(task);
             }
+            return;
         }
-        // No concurrent thread to do the job, lets do it ourself.
+        // Enough concurrent tasks pending, lets do it ourself.
         try {
             logic.run();
         } catch (Throwable e) {
@@ -78,15 +120,24 @@ public final class ConcurrentContextImpl extends ConcurrentContext {
     }
 
     @Override
-    public synchronized void exit() {
-        super.exit();
-        try {
-            while (initiatedCount != completedCount) {
-                this.wait();
+    public void exit() {
+        Thread current = Thread.currentThread();
+        boolean interrupted = false;
+        exiting = current;
+        while (pendingCount.get() != 0) { // Helps while waiting.
+            Runnable task = (current instanceof ConcurrentThreadImpl) ? ((ConcurrentThreadImpl) current).pop(helpable)
+                    : null;
+            if (task == null) task = ConcurrentThreadImpl.steal(workers, lastWorkerInitiated, helpable);
+            if (task != null) {
+                task.run();
+            } else {
+                LockSupport.parkNanos(this, HELP_PERIOD);
+                interrupted |= Thread.interrupted();
             }
-        } catch (InterruptedException ex) {
-            this.error = ex;
         }
+        exiting = null;
+        if (interrupted) current.interrupt(); // Restores interrupt status.
+        super.exit(); // After completion (concurrent executions may still access the outer contexts).
         if (error == null)
             return; // Everything fine.
         if (error instanceof RuntimeException)
@@ -98,18 +149,46 @@ public final class ConcurrentContextImpl extends ConcurrentContext {
 
     @Override
     public int getConcurrency() {
-        return threads.length;
+        return concurrency;
     }
 
     @Override
     public void setConcurrency(int concurrency) {
-        // The setting of the concurrency can only reduce the number 
+        // The setting of the concurrency can only reduce the number
         // of threads available in the context.
-        int nbThreads = MathLib.min(parent.threads.length, concurrency);
-        threads = new ConcurrentThreadImpl[nbThreads];
-        for (int i = 0; i < nbThreads; i++) { // Reused from parent threads.
-            threads[i] = parent.threads[i];
-        }
+        this.concurrency = MathLib.max(0, MathLib.min(parent.concurrency, concurrency));
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled || ((parent != null) && parent.isCancelled());
+    }
+
+    @Override
+    public void setVirtual(boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return virtual && (START_VIRTUAL_THREAD != null);
+    }
+
+    /** Indicates if virtual threads can be started on this platform (probed once at class initialization). */
+    public static boolean isVirtualSupported() {
+        return START_VIRTUAL_THREAD != null;
+    }
+
+    /** Indicates if this context is the specified context or one of its inner contexts. */
+    private boolean isWithin(ConcurrentContextImpl that) {
+        for (ConcurrentContextImpl ctx = this; ctx != null; ctx = ctx.parent)
+            if (ctx == that) return true;
+        return false;
     }
 
     @Override
@@ -117,4 +196,63 @@ public final class ConcurrentContextImpl extends ConcurrentContext {
         return new ConcurrentContextImpl(this);
     }
 
+    /** Executes the specified logic on a new virtual thread, returns {@code false} if not supported. */
+    private boolean startVirtual(Runnable logic) {
+        if (START_VIRTUAL_THREAD == null) return false;
+        pendingCount.incrementAndGet();
+        try {
+            START_VIRTUAL_THREAD.invoke(null, new TaskImpl(logic, this, Thread.NORM_PRIORITY));
+            return true;
+        } catch (Exception e) { // Thread not started.
+            pendingCount.decrementAndGet();
+            return false;
+        }
+    }
+
+    /** Returns the method to start virtual threads or {@code null} if the JVM does not support virtual threads. */
+    private static Method startVirtualThreadMethod() {
+        try {
+            Method method = Thread.class.getMethod("startVirtualThread", Runnable.class);
+            method.invoke(null, new Runnable() { // Preview feature on some JVMs (may not be enabled).
+                @Override
+                public void run() {}
+            });
+            return method;
+        } catch (Throwable e) {
+            return null; // Not supported.
+        }
+    }
+
+    /** A concurrent execution running in the context of the thread which initiated it. */
+    private static final class TaskImpl implements Runnable {
+        private final Runnable logic;
+        private final ConcurrentContextImpl context;
+        private final int priority;
+
+        TaskImpl(Runnable logic, ConcurrentContextImpl context, int priority) {
+            this.logic = logic;
+            this.context = context;
+            this.priority = priority;
+        }
+
+        @Override
+        public void run() {
+            Thread thread = Thread.currentThread();
+            AbstractContext previous = AbstractContext.current(); // Not null when helping.
+            int previousPriority = thread.getPriority();
+            if (thread instanceof ConcurrentThreadImpl) thread.setPriority(priority);
+            AbstractContext.inherit(context);
+            Throwable error = null;
+            try {
+                if (!context.isCancelled()) logic.run(); // Skipped if cancelled while pending.
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                AbstractContext.inherit(previous);
+                if (thread instanceof ConcurrentThreadImpl) thread.setPriority(previousPriority);
+            }
+            context.completed(error);
+        }
+    }
+
 }
@@ -8,22 +8,27 @@
  */
 package org.javolution.context.internal;
 
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.realtime.RealtimeThread;
 
-import org.javolution.context.AbstractContext;
+import org.javolution.util.function.Predicate;
 
 /**
- * A worker thread executing in a concurrent context.
+ * A worker thread executing in a concurrent context. Each worker owns a deque of tasks; the worker pushes and
+ * pops its tasks at the head (most recent first) while other threads steal from the tail (oldest first,
+ * typically the largest pieces of recursive work).
  */
-public class ConcurrentThreadImpl extends RealtimeThread { 
+public class ConcurrentThreadImpl extends RealtimeThread {
 
     private static int count;
-    private ConcurrentContextImpl context;
-    private AtomicBoolean isBusy = new AtomicBoolean();
-    private Runnable logic;
-    private int priority;
+    private final ConcurrentLinkedDeque<Runnable> tasks = new ConcurrentLinkedDeque<Runnable>();
+    private final AtomicBoolean isIdle = new AtomicBoolean();
+    private ConcurrentThreadImpl[] workers; // The pool this worker belongs to.
+    private int victim; // Index of the next worker to steal from.
 
     /**
      * Default constructor.
@@ -34,41 +39,110 @@ public class ConcurrentThreadImpl extends RealtimeThread {
     }
 
     /**
-     * Executes the specified logic by this thread if ready; returns
-     * {@code false} if this thread is busy.
+     * Starts this worker as part of the specified pool.
      */
-    public boolean execute(Runnable logic, ConcurrentContextImpl inContext) {
-        if (!isBusy.compareAndSet(false, true))
-            return false;
-        synchronized (this) {
-            this.priority = Thread.currentThread().getPriority();
-            this.context = inContext;
-            this.logic = logic;
-            this.notify();
+    public void start(ConcurrentThreadImpl[] workers) {
+        this.workers = workers;
+        start();
+    }
+
+    /**
+     * Indicates if this worker is part of the specified pool.
+     */
+    public boolean belongsTo(ConcurrentThreadImpl[] pool) {
+        return workers == pool;
+    }
+
+    /**
+     * Pushes the specified task onto this worker deque and wakes up an idle worker (if any) to process it.
+     */
+    public void push(Runnable task) {
+        tasks.offerFirst(task);
+        for (ConcurrentThreadImpl worker : workers) {
+            if (worker.isIdle.compareAndSet(true, false)) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the most recent task pushed onto this worker deque or {@code null} if none.
+     */
+    public Runnable pop() {
+        return tasks.pollFirst();
+    }
+
+    /**
+     * Steals the oldest task of any worker of the specified pool starting the search at the specified position.
+     *
+     * @return the task stolen or {@code null} if all the deques are empty.
+     */
+    public static Runnable steal(ConcurrentThreadImpl[] pool, int start) {
+        for (int i = 0, n = pool.length; i < n; i++) {
+            Runnable task = pool[(start + i) % n].tasks.pollLast();
+            if (task != null) return task;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the most recent task of this worker deque satisfying the specified condition (linear search).
+     *
+     * @return the task removed or {@code null} if none.
+     */
+    public Runnable pop(Predicate<Runnable> matching) {
+        return remove(tasks.iterator(), matching);
+    }
+
+    /**
+     * Steals the oldest task satisfying the specified condition of any worker of the specified pool starting 
+     * the search at the specified position (linear search).
+     *
+     * @return the task stolen or {@code null} if none.
+     */
+    public static Runnable steal(ConcurrentThreadImpl[] pool, int start, Predicate<Runnable> matching) {
+        for (int i = 0, n = pool.length; i < n; i++) {
+            ConcurrentThreadImpl worker = pool[(start + i) % n];
+            Runnable task = worker.remove(worker.tasks.descendingIterator(), matching);
+            if (task != null) return task;
         }
-        return true;
+        return null;
     }
 
     @Override
     public void run() {
         while (true) { // Main loop.
-            try {
-                synchronized (this) {
-                    while (logic == null) this.wait();
+            Runnable task = nextTask();
+            if (task == null) {
+                isIdle.set(true);
+                task = nextTask(); // Avoids missing a task pushed before being marked idle.
+                if (task == null) {
+                    LockSupport.park(this);
+                    isIdle.set(false);
+                    continue;
                 }
-                this.setPriority(priority);
-                AbstractContext.inherit(context);
-                logic.run();
-                context.completed(null);
-            } catch (Throwable error) {
-                context.completed(error);
+                isIdle.set(false);
             }
-            // Clean up.
-            logic = null;
-            context = null;
-            AbstractContext.inherit(null);
-            isBusy.set(false);
+            task.run(); // Task implementations do not throw.
+        }
+    }
+
+    /** Removes the first task iterated satisfying the specified condition (unless taken by another thread). */
+    private Runnable remove(Iterator<Runnable> iterator, Predicate<Runnable> matching) {
+        while (iterator.hasNext()) {
+            Runnable task = iterator.next();
+            if (matching.test(task) && tasks.removeFirstOccurrence(task)) return task;
         }
+        return null;
+    }
+
+    /** Returns own task or stolen task. */
+    private Runnable nextTask() {
+        Runnable task = pop();
+        if (task != null) return task;
+        if (++victim >= workers.length) victim = 0;
+        return steal(workers, victim);
     }
 
 }
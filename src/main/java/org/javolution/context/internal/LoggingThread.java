@@ -8,20 +8,32 @@
  */
 package org.javolution.context.internal;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
 import org.javolution.context.LogContext.Level;
 import org.javolution.osgi.internal.OSGiServices;
 import org.javolution.text.TextBuilder;
-import org.javolution.util.FastTable;
+import org.javolution.util.AbstractQueue;
+import org.javolution.util.AbstractQueue.Access;
+import org.javolution.util.function.Consumer;
 import org.osgi.service.log.LogService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /** 
- * Thread providing asynchronous processing of the log events.
+ * Thread providing asynchronous processing of the log events. Events are handed-off through a lock-free
+ * ring buffer; when the buffer is full (logging burst) events go to an unbounded overflow queue, which is
+ * used by producers until the logging thread has emptied it (the events of a thread are processed in order).
+ * Producers never wait, the logging thread parks when idle.
  */
 class LoggingThread extends Thread {
     private static final Logger LOG = LoggerFactory.getLogger(LoggingThread.class);
-    private final FastTable<Event> eventQueue = new FastTable<Event>();
+    private static final int CAPACITY = 1024;
+    private static final long FLUSH_POLL = 1000000L; // Nanoseconds.
+    private final AbstractQueue<Event> eventQueue = AbstractQueue.ringBuffer(CAPACITY, Access.MULTI_PRODUCER);
+    private final ConcurrentLinkedQueue<Event> overflow = new ConcurrentLinkedQueue<Event>();
+    private volatile boolean idle; // Parked or about to park (checked by producers after claiming their slot).
 
     /** Default Constructor.*/
     public LoggingThread() {
@@ -31,13 +43,8 @@ class LoggingThread extends Thread {
         Thread hook = new Thread(new Runnable() {
             @Override
             public void run() { // Maintains the VM alive until the event queue is flushed 
-                synchronized (eventQueue) {
-                    try {
-                        while (!eventQueue.isEmpty())
-                            eventQueue.wait();
-                    } catch (InterruptedException e) {
-                    }
-                }
+                while ((eventQueue.size() != 0) || !overflow.isEmpty())
+                    LockSupport.parkNanos(this, FLUSH_POLL);
             }
         });
         Runtime.getRuntime().addShutdownHook(hook);
@@ -45,28 +52,18 @@ class LoggingThread extends Thread {
 
     @Override
     public void run() {
-        while (true) {
-            try {
-                Event event;
-                synchronized (eventQueue) {
-                    while (eventQueue.isEmpty())
-                        eventQueue.wait();
-                    event = eventQueue.pollLast();
-                    eventQueue.notify();
-                }
-               TextBuilder tmp = new TextBuilder(event.prefix);
-               for (Object obj : event.messages) 
-                   tmp.append(obj);
-               tmp.append(event.suffix);
-               String message = tmp.toString();
-               Object[] logServices = OSGiServices.getLogServices();
-               for (Object obj : logServices) {
-                   log((LogService)obj, event.level, message, event.error);
-               }
-               logSLF4J(event.level, message, event.error);    
-            } catch (InterruptedException error) {
-                LOG.error("An Error Occurred While Logging", error);
+        Consumer<Event> processor = new Consumer<Event>() {
+            @Override
+            public void accept(Event event) {
+                process(event);
             }
+        };
+        while (true) {
+            if (eventQueue.drainTo(processor) != 0) continue;
+            if (drainOverflow()) continue;
+            idle = true; // Volatile write before reading the queues (producers add their event before reading idle).
+            if ((eventQueue.size() == 0) && overflow.isEmpty()) LockSupport.park(this); // Claimed events count.
+            idle = false;
         }
     }
 
@@ -77,10 +74,32 @@ class LoggingThread extends Thread {
         event.suffix = suffix;
         event.messages = messages;
         event.error = error;
-        synchronized (eventQueue) {
-              eventQueue.addFirst(event);
-              eventQueue.notify();
+        if (!overflow.isEmpty() || !eventQueue.offer(event)) // Overflow used until emptied (preserves order).
+            overflow.add(event);
+        if (idle) LockSupport.unpark(this);
+    }
+
+    /** Processes the events in the overflow queue until empty, returns {@code true} if any. */
+    private boolean drainOverflow() {
+        boolean processed = false;
+        for (Event event = overflow.poll(); event != null; event = overflow.poll()) {
+            process(event);
+            processed = true;
+        }
+        return processed;
+    }
+
+    private void process(Event event) {
+        TextBuilder tmp = new TextBuilder(event.prefix);
+        for (Object obj : event.messages) 
+            tmp.append(obj);
+        tmp.append(event.suffix);
+        String message = tmp.toString();
+        Object[] logServices = OSGiServices.getLogServices();
+        for (Object obj : logServices) {
+            log((LogService)obj, event.level, message, event.error);
         }
+        logSLF4J(event.level, message, event.error);    
     }
     
     private void log(LogService logService, Level level, String message, Throwable error) {
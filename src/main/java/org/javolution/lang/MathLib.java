@@ -242,6 +242,101 @@ public final class MathLib {
         return n;
     }
 
+    /**
+     * Interleaves the bits of the two specified 32-bits unsigned values (64-bits Morton code).
+     * 
+     * @param x the first unsigned value.
+     * @param y the second unsigned value.
+     * @return the corresponding morton code.
+     * @see  #deinterleave(long, int)
+     * @throws IllegalArgumentException if any of the arguments is negative 
+     *         or greater than 4294967295.
+     */
+    public static long interleave(long x, long y) {
+        if (((x | y) >>> 32) != 0)
+            throw new IllegalArgumentException("Overflow");
+        return part1by1(x) | (part1by1(y) << 1);
+    }
+
+    /**
+     * Interleaves the bits of the three specified 21-bits unsigned values (63-bits Morton code).
+     * 
+     * @param x the first unsigned value.
+     * @param y the second unsigned value.
+     * @param z the third unsigned value.
+     * @return the corresponding morton code.
+     * @see  #deinterleave(long, int)
+     * @throws IllegalArgumentException if any of the arguments is negative 
+     *         or greater than 2097151.
+     */
+    public static long interleave(long x, long y, long z) {
+        if (((x | y | z) >>> 21) != 0)
+            throw new IllegalArgumentException("Overflow");
+        return part1by2(x) | (part1by2(y) << 1) | (part1by2(z) << 2);
+    }
+
+    /**
+     * Returns the first value of the specified 64-bits Morton code interleaving the specified number of values
+     * (the other values are obtained by shifting the code right).
+     * 
+     * ```java
+     * long code = MathLib.interleave(x, y, z); 
+     * long y = MathLib.deinterleave(code >>> 1, 3);
+     * ```
+     * 
+     * @param interleaved the 64-bits Morton code.
+     * @param n the number of values interleaved ({@code 2} or {@code 3}).
+     * @return the first value interleaved.
+     * @see   #interleave(long,long)
+     * @see   #interleave(long,long,long)
+     * @throws IllegalArgumentException if the number of values is not supported.
+     */
+    public static long deinterleave(long interleaved, int n) {
+        if (n == 2) return unpart1by1(interleaved);
+        if (n == 3) return unpart1by2(interleaved);
+        throw new IllegalArgumentException("Two or three values interleaved");
+    }
+
+    private static long part1by1(long n) {
+        n &= 0x00000000FFFFFFFFL;
+        n = (n | (n << 16)) & 0x0000FFFF0000FFFFL;
+        n = (n | (n << 8)) & 0x00FF00FF00FF00FFL;
+        n = (n | (n << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        n = (n | (n << 2)) & 0x3333333333333333L;
+        n = (n | (n << 1)) & 0x5555555555555555L;
+        return n;
+    }
+
+    private static long unpart1by1(long n) {
+        n &= 0x5555555555555555L;
+        n = (n | (n >>> 1)) & 0x3333333333333333L;
+        n = (n | (n >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        n = (n | (n >>> 4)) & 0x00FF00FF00FF00FFL;
+        n = (n | (n >>> 8)) & 0x0000FFFF0000FFFFL;
+        n = (n | (n >>> 16)) & 0x00000000FFFFFFFFL;
+        return n;
+    }
+
+    private static long part1by2(long n) {
+        n &= 0x00000000001FFFFFL;
+        n = (n | (n << 32)) & 0x001F00000000FFFFL;
+        n = (n | (n << 16)) & 0x001F0000FF0000FFL;
+        n = (n | (n << 8)) & 0x100F00F00F00F00FL;
+        n = (n | (n << 4)) & 0x10C30C30C30C30C3L;
+        n = (n | (n << 2)) & 0x1249249249249249L;
+        return n;
+    }
+
+    private static long unpart1by2(long n) {
+        n &= 0x1249249249249249L;
+        n = (n | (n >>> 2)) & 0x10C30C30C30C30C3L;
+        n = (n | (n >>> 4)) & 0x100F00F00F00F00FL;
+        n = (n | (n >>> 8)) & 0x001F0000FF0000FFL;
+        n = (n | (n >>> 16)) & 0x001F00000000FFFFL;
+        n = (n | (n >>> 32)) & 0x00000000001FFFFFL;
+        return n;
+    }
+
     /**
      * Returns the number of bits in the minimal two's-complement representation of the specified <code>int</code>, 
      * excluding a sign bit. For positive <code>int</code>, this is equivalent to the number of bits
@@ -0,0 +1,107 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import org.javolution.annotations.Realtime;
+
+/**
+ * A map bounded by a maximum size or weight; when an entry added exceeds the bound, entries are evicted
+ * (in constant time) according to the cache {@link Eviction eviction policy}.
+ *
+ * ```java
+ * AbstractCache<String, Image> images = new FastMap<String, Image>().cache(1000, Eviction.WINDOW_TINY_LFU);
+ * Image img = images.get(url); // Hit or miss recorded.
+ * if (img == null) images.put(url, img = load(url));
+ * ...
+ * System.out.println("Hit rate: " + images.hitRate());
+ * ```
+ *
+ * Caches are not thread-safe, the {@link #shared shared} view allows for multiple threads to access the same cache
+ * and the {@link #concurrentCopy concurrent} cache is striped over several caches (each one bounded by its fraction
+ * of the maximum weight) to let writers scale with the number of cores.
+ *
+ * Only key lookups ({@link #get get}, {@link #getEntry getEntry}) are recorded as hits or misses; entries are
+ * iterated in key order, iterating does not affect the eviction order. A cache holds at most one entry per key,
+ * {@link #addEntry addEntry} replaces any entry having the same key.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle </a>
+ * @version 7.0, September 13, 2015
+ */
+@Realtime
+public abstract class AbstractCache<K, V> extends AbstractMap<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /**
+     * The policies selecting the entries to evict.
+     */
+    public enum Eviction {
+
+        /** Evicts the least recently used entry. */
+        LRU,
+
+        /** Evicts the least frequently used entry (least recently used among the entries of same frequency). */
+        LFU,
+
+        /**
+         * Evicts according to the <a href="https://arxiv.org/abs/1512.00727">W-TinyLFU</a> policy: new entries
+         * go to a small LRU window (1% of the weight); leaving the window, they are admitted to the main segmented
+         * LRU only if their estimated frequency (count-min sketch periodically aged) is higher than the frequency
+         * of the main victim. Robust to scans and to changing access patterns.
+         */
+        WINDOW_TINY_LFU
+    }
+
+    /** Returns the eviction policy of this cache. */
+    @Realtime(limit = CONSTANT)
+    public abstract Eviction eviction();
+
+    /** Returns the maximum weight of this cache (the maximum size if entries are not weighed). */
+    @Realtime(limit = CONSTANT)
+    public abstract long maxWeight();
+
+    /** Returns the current weight of this cache (the number of entries if entries are not weighed). */
+    @Realtime(limit = LINEAR, comment = "Sums the weights of the stripes (concurrent caches)")
+    public abstract long weight();
+
+    /** Returns the number of lookups which have found their entry. */
+    @Realtime(limit = LINEAR, comment = "Sums the counts of the stripes (concurrent caches)")
+    public abstract long hitCount();
+
+    /** Returns the number of lookups which have not found their entry. */
+    @Realtime(limit = LINEAR, comment = "Sums the counts of the stripes (concurrent caches)")
+    public abstract long missCount();
+
+    /** Returns the number of entries evicted (explicit removals are not counted). */
+    @Realtime(limit = LINEAR, comment = "Sums the counts of the stripes (concurrent caches)")
+    public abstract long evictionCount();
+
+    /** Returns the ratio of lookups which have found their entry ({@code 1.0} if no lookup). */
+    @Realtime(limit = LINEAR, comment = "Sums the counts of the stripes (concurrent caches)")
+    public double hitRate() {
+        long hits = hitCount();
+        long lookups = hits + missCount();
+        return (lookups == 0) ? 1.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns a concurrent copy of this cache (not a view), striped over several caches having the same
+     * eviction policy and sharing the maximum weight. Lookups and updates only lock the stripe of the key.
+     */
+    @Override
+    @Realtime(limit = LINEAR)
+    public abstract AbstractCache<K, V> concurrentCopy();
+
+}
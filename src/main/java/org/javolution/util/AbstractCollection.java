@@ -39,6 +39,7 @@ import org.javolution.util.internal.collection.FilteredCollectionImpl;
 import org.javolution.util.internal.collection.LinkedCollectionImpl;
 import org.javolution.util.internal.collection.MappedCollectionImpl;
 import org.javolution.util.internal.collection.ParallelCollectionImpl;
+import org.javolution.util.internal.collection.PipelineImpl;
 import org.javolution.util.internal.collection.ReversedCollectionImpl;
 import org.javolution.util.internal.collection.SharedCollectionImpl;
 import org.javolution.util.internal.collection.SortedCollectionImpl;
@@ -88,6 +89,9 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
     /**
      * Returns an atomic view over this collection. All operations that write or access multiple elements 
      * in the collection (such as {@code addAll(), retainAll()}) are atomic. All read operations are mutex-free.
+     * Readers access an immutable copy republished after each update; for fast collections the copies 
+     * share their structure with the original and updates are performed in O(Log(n)) (except for insertions or 
+     * removals in the middle of tables, which move the {@code k} elements on the shortest side in O(k Log(n))).
      */
     public AbstractCollection<E> atomic() {
         return new AtomicCollectionImpl<E>(this);
@@ -216,6 +220,10 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
     @Parallel
     @Realtime(limit = LINEAR)
     public void forEach(final Consumer<? super E> consumer) {
+        if (this instanceof PipelineImpl.Stage) { // Chain of views evaluated in a single pass.
+            PipelineImpl.of(this).forEach(consumer);
+            return;
+        }
         iterator().hasNext(new Predicate<E>() {
             @Override
             public boolean test(E param) {
@@ -234,6 +242,7 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
     @Parallel
     @Realtime(limit = LINEAR)
     public E reduce(BinaryOperator<E> operator) {
+        if (this instanceof PipelineImpl.Stage) return PipelineImpl.of(this).reduce(operator);
         Reduction<E> reduction = new Reduction<E>(operator);
         iterator().hasNext(reduction);
         return reduction.accumulator;
@@ -260,6 +269,7 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
     @Parallel
     @Realtime(limit = LINEAR)
     public E findAny() {
+        if (this instanceof PipelineImpl.Stage) return PipelineImpl.of(this).findAny();
         FastIterator<E> itr = iterator();
         return itr.hasNext() ? itr.next() : null;
     }
@@ -270,6 +280,7 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
     @Parallel
     @Realtime(limit = LINEAR)
     public boolean anyMatch(Predicate<? super E> predicate) {
+        if (this instanceof PipelineImpl.Stage) return PipelineImpl.of(this).anyMatch(predicate);
         return iterator().hasNext(predicate);
     }
     
@@ -332,6 +343,7 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
     @Parallel
     @Realtime(limit = LINEAR)
     public AbstractCollection<E> collect() {
+        if (this instanceof PipelineImpl.Stage) return PipelineImpl.of(this).collect();
         final FastTable<E> collection = new FastTable<E>();
         iterator().hasNext(new Predicate<E>() {
             @Override
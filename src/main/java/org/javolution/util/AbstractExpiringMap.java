@@ -0,0 +1,105 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javolution.annotations.Realtime;
+
+/**
+ * A map whose entries expire after a fixed duration since their creation or last update (time-to-live)
+ * and/or since their last access (time-to-idle). Expired entries are never returned; they are removed from
+ * the backing map in amortized constant time (hierarchical timing wheel) when the map is updated or
+ * {@link #expire expired}, possibly by a background {@link #sweeper sweeper}.
+ *
+ * ```java
+ * AbstractExpiringMap<String, Session> sessions = new FastMap<String, Session>().expiring(0, 30, MINUTES);
+ * AbstractMap<String, Session> shared = sessions.shared(); // For concurrent accesses (lock shared with sweepers).
+ * Thread sweeper = sessions.sweeper(1, MINUTES);
+ * sweeper.start();
+ * try {
+ *     ... // Serves requests using the shared view.
+ * } finally {
+ *     sweeper.interrupt(); // Stops the sweeper.
+ * }
+ * ```
+ *
+ * Lookups do not modify the map structure (they only record the access time) and can be performed concurrently
+ * through the {@link #shared shared} view. Iterations exclude the expired entries; the {@link #size size} is 
+ * the number of entries held (constant time), it includes the entries expired since the last update 
+ * (within the timing wheel resolution) or the last {@link #expire expiration}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle </a>
+ * @version 7.0, September 13, 2015
+ */
+@Realtime
+public abstract class AbstractExpiringMap<K, V> extends AbstractMap<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /**
+     * The time source of expiring maps (e.g. deterministic clock for testing).
+     */
+    public interface Clock {
+
+        /** The clock based on {@link System#nanoTime()}. */
+        public static final Clock SYSTEM = new Clock() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+        };
+
+        /** Returns the current time in nanoseconds (from an arbitrary origin). */
+        long nanoTime();
+
+    }
+
+    /** Returns the time-to-live of the entries in the specified unit ({@code 0} if none). */
+    @Realtime(limit = CONSTANT)
+    public abstract long timeToLive(TimeUnit unit);
+
+    /** Returns the time-to-idle of the entries in the specified unit ({@code 0} if none). */
+    @Realtime(limit = CONSTANT)
+    public abstract long timeToIdle(TimeUnit unit);
+
+    /**
+     * Removes the expired entries from the backing map (holding the lock of the {@link #shared shared} view).
+     *
+     * @return the number of entries removed.
+     */
+    @Realtime(limit = LINEAR, comment = "Amortized constant time per expired entry")
+    public abstract int expire();
+
+    /**
+     * Returns a daemon thread (not started) periodically {@link #expire expiring} this map until interrupted.
+     * The sweeper is not executed by a {@link org.javolution.context.ConcurrentContext ConcurrentContext}: 
+     * it sleeps for most of the map lifetime, as a concurrent execution it would hold one of the workers shared 
+     * by all the concurrent contexts (and keep the enclosing context from exiting) until cancelled.
+     *
+     * @param period the period between sweeps.
+     * @param unit the unit of the period.
+     */
+    @Realtime(limit = CONSTANT)
+    public abstract Thread sweeper(long period, TimeUnit unit);
+
+    /**
+     * Returns a thread-safe view over this map sharing its lock with the {@link #sweeper sweepers} of this map.
+     */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public abstract AbstractMap<K, V> shared();
+
+}
@@ -15,15 +15,22 @@ import java.io.Serializable;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentMap;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.annotations.ReadOnly;
 import org.javolution.annotations.Realtime;
+import org.javolution.util.AbstractCache.Eviction;
+import org.javolution.util.AbstractExpiringMap.Clock;
 import org.javolution.util.function.Equality;
+import org.javolution.util.function.Function;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.UnaryOperator;
 import org.javolution.util.internal.map.AtomicMapImpl;
+import org.javolution.util.internal.map.CacheMapImpl;
+import org.javolution.util.internal.map.ConcurrentMapImpl;
+import org.javolution.util.internal.map.ExpiringMapImpl;
 import org.javolution.util.internal.map.KeySetImpl;
 import org.javolution.util.internal.map.LinkedMapImpl;
 import org.javolution.util.internal.map.MultiMapImpl;
@@ -103,13 +110,26 @@ public abstract class AbstractMap<K, V> implements ConcurrentMap<K, V>, SortedMa
      
     /**
      * Returns an atomic view over this map. All operations that write or access multiple elements in the map 
-     * are atomic. All read operations are mutex-free.
+     * are atomic. All read operations are mutex-free (performed on an immutable copy sharing its structure 
+     * with this map).
      */
     @Realtime(limit = CONSTANT)
     public AbstractMap<K, V> atomic() {
         return new AtomicMapImpl<K, V>(this);
     }
 
+    /**
+     * Returns a concurrent copy of this map (not a view, updates of the copy and of this map are independent). 
+     * The copy is striped over maps with their own lock: lookups are lock-free (optimistic) and updates only 
+     * lock the stripe holding the key being updated, allowing writers to scale with the number of cores. 
+     * The entries, keys and values of the copy are live views over its stripes; {@code size} and 
+     * {@code isEmpty} are atomic, bulk operations (e.g. {@code putAll, clear}) are not.
+     */
+    @Realtime(limit = LINEAR)
+    public AbstractMap<K, V> concurrentCopy() {
+        return new ConcurrentMapImpl<K, V>(this);
+    }
+
     /**
      * Returns a thread-safe view over this map. The shared view allows for concurrent read as long as 
      * there is no writer. The default implementation is based on <a href=
@@ -130,6 +150,62 @@ public abstract class AbstractMap<K, V> implements ConcurrentMap<K, V>, SortedMa
         return new LinkedMapImpl<K, V>(this);
     }
 
+    /**
+     * Returns a cache view over this map holding at most the specified number of entries; the entries to evict
+     * are selected in constant time by the specified policy. The entries already in this map are considered
+     * added in iteration order. For multi-threaded use, the cache can be {@link #shared shared} or made
+     * {@link AbstractCache#concurrentCopy concurrent}.
+     * 
+     * @param maxSize the maximum number of entries.
+     * @param eviction the eviction policy.
+     * @throws IllegalArgumentException if {@code maxSize <= 0}
+     */
+    @Realtime(limit = LINEAR)
+    public AbstractCache<K, V> cache(int maxSize, Eviction eviction) {
+        return new CacheMapImpl<K, V>(this, maxSize, null, eviction);
+    }
+
+    /**
+     * Returns a cache view over this map whose total weight of entries is bounded by the specified maximum
+     * (e.g. memory footprint); the weight of an entry is evaluated when the entry is added or its value updated.
+     * 
+     * @param maxWeight the maximum total weight.
+     * @param weigher the function returning the (non-negative) weight of an entry.
+     * @param eviction the eviction policy.
+     * @throws IllegalArgumentException if {@code maxWeight <= 0}
+     * @see #cache(int, Eviction)
+     */
+    @Realtime(limit = LINEAR)
+    public AbstractCache<K, V> cache(long maxWeight, Function<? super Entry<K, V>, Integer> weigher, 
+            Eviction eviction) {
+        return new CacheMapImpl<K, V>(this, maxWeight, weigher, eviction);
+    }
+
+    /**
+     * Returns an expiring view over this map; entries expire after the specified duration since their creation
+     * or last update (time-to-live) and/or since their last access (time-to-idle). The entries already in this
+     * map are considered added now.
+     * 
+     * @param timeToLive the time-to-live of the entries ({@code 0} for no limit).
+     * @param timeToIdle the time-to-idle of the entries ({@code 0} for no limit).
+     * @param unit the unit of the durations.
+     * @throws IllegalArgumentException if any duration is negative or if both durations are {@code 0}.
+     */
+    @Realtime(limit = LINEAR)
+    public AbstractExpiringMap<K, V> expiring(long timeToLive, long timeToIdle, TimeUnit unit) {
+        return new ExpiringMapImpl<K, V>(this, timeToLive, timeToIdle, unit, Clock.SYSTEM);
+    }
+
+    /**
+     * Returns an expiring view over this map using the specified clock (e.g. for deterministic testing).
+     * 
+     * @see #expiring(long, long, TimeUnit)
+     */
+    @Realtime(limit = LINEAR)
+    public AbstractExpiringMap<K, V> expiring(long timeToLive, long timeToIdle, TimeUnit unit, Clock clock) {
+        return new ExpiringMapImpl<K, V>(this, timeToLive, timeToIdle, unit, clock);
+    }
+
     /**
      * Returns an unmodifiable view over this map. Attempts to modify the map directly through this view will 
      * result into a {@link java.lang.UnsupportedOperationException} being raised.
@@ -0,0 +1,288 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.NoSuchElementException;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.MathLib;
+import org.javolution.util.function.Consumer;
+import org.javolution.util.function.Equality;
+import org.javolution.util.internal.table.MpmcRingBufferImpl;
+import org.javolution.util.internal.table.MpscRingBufferImpl;
+import org.javolution.util.internal.table.SpscRingBufferImpl;
+
+/**
+ * A bounded first-in-first-out queue for the hand-off of elements between threads. Elements are added
+ * at the tail ({@link #offer offer}, {@link #addLast addLast}) and removed from the head ({@link #poll poll},
+ * {@link #drainTo(Consumer) drainTo}); other table updates are not supported.
+ *
+ * ```java
+ * AbstractQueue<Event> events = AbstractQueue.ringBuffer(1024, Access.MULTI_PRODUCER);
+ * ...
+ * if (!events.offer(event)) ... // Full (any thread).
+ * ...
+ * events.drainTo(processor); // Processes the events available (consumer thread).
+ * ```
+ *
+ * Ring buffer queues are lock-free and allocation-free: their capacity is a power of two, the head and tail
+ * sequences are padded (no false sharing between producers and consumers) and a batch drain advances the head
+ * once. The {@link Access access} specifies how many threads may concurrently produce/consume; using a queue
+ * beyond its access results in undefined behavior.
+ *
+ * The size, indexed accesses and iterations are weakly consistent (they reflect the state of the queue at
+ * some point during the call). Elements cannot be {@code null}.
+ *
+ * @param <E> the type of queue elements ({@code null} instances are not supported)
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 7.0, September 13, 2015
+ */
+@Realtime
+public abstract class AbstractQueue<E> extends AbstractTable<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /**
+     * The concurrent accesses supported by a queue.
+     */
+    public enum Access {
+
+        /** A single producer thread and a single consumer thread (wait-free). */
+        SINGLE_PRODUCER,
+
+        /** Any number of producer threads and a single consumer thread. */
+        MULTI_PRODUCER,
+
+        /** Any number of producer threads and consumer threads. */
+        MULTI_PRODUCER_MULTI_CONSUMER
+    }
+
+    /**
+     * Returns a ring buffer queue holding at most the specified number of elements (rounded up to a power
+     * of two).
+     *
+     * @param capacity the minimum capacity of the queue.
+     * @param access the concurrent accesses supported.
+     * @throws IllegalArgumentException if {@code (capacity <= 0) || (capacity > 2^30)}
+     */
+    @Realtime(limit = LINEAR)
+    public static <E> AbstractQueue<E> ringBuffer(int capacity, Access access) {
+        switch (access) {
+        case SINGLE_PRODUCER:
+            return new SpscRingBufferImpl<E>(capacity);
+        case MULTI_PRODUCER:
+            return new MpscRingBufferImpl<E>(capacity);
+        default:
+            return new MpmcRingBufferImpl<E>(capacity);
+        }
+    }
+
+    /** Returns the concurrent accesses supported by this queue. */
+    @Realtime(limit = CONSTANT)
+    public abstract Access access();
+
+    /** Returns the maximum number of elements this queue can hold (power of two). */
+    @Realtime(limit = CONSTANT)
+    public abstract int capacity();
+
+    /** Returns the number of elements which can be added before this queue is full. */
+    @Realtime(limit = CONSTANT)
+    public int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if not full (producer thread).
+     *
+     * @return {@code true} if the element has been added; {@code false} if the queue is full.
+     * @throws NullPointerException if the specified element is {@code null}
+     */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public abstract boolean offerLast(E element);
+
+    /** Removes and returns the head of this queue or {@code null} if empty (consumer thread). */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public abstract @Nullable E pollFirst();
+
+    /** Returns the head of this queue or {@code null} if empty. */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public abstract @Nullable E peekFirst();
+
+    /**
+     * Removes at most the specified number of elements from this queue and passes them (in order) to the
+     * specified consumer (consumer thread).
+     *
+     * @return the number of elements removed.
+     */
+    @Realtime(limit = LINEAR)
+    public abstract int drainTo(Consumer<? super E> consumer, int maxElements);
+
+    /**
+     * Removes all the available elements from this queue and passes them (in order) to the specified consumer
+     * (consumer thread). Elements added while draining may or may not be drained.
+     *
+     * @return the number of elements removed.
+     */
+    @Realtime(limit = LINEAR)
+    public int drainTo(Consumer<? super E> consumer) {
+        return drainTo(consumer, capacity());
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Deque Interface (FIFO).
+    //
+
+    /**
+     * Inserts the specified element at the tail of this queue (producer thread).
+     *
+     * @throws IllegalStateException if the queue is full
+     * @throws NullPointerException if the specified element is {@code null}
+     */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public void addLast(E element) {
+        if (!offerLast(element)) throw new IllegalStateException("Queue full");
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public boolean add(E element) {
+        addLast(element);
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public @Nullable E getFirst() {
+        E first = peekFirst();
+        if (first == null) throw new NoSuchElementException();
+        return first;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public @Nullable E removeFirst() {
+        E first = pollFirst();
+        if (first == null) throw new NoSuchElementException();
+        return first;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public boolean isEmpty() {
+        return peekFirst() == null;
+    }
+
+    /** Removes all the elements available (consumer thread). */
+    @Override
+    @Realtime(limit = LINEAR)
+    public void clear() {
+        while (pollFirst() != null) {}
+    }
+
+    /** Inserts at the tail if {@code index == size()}; other insertions are not supported. */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public void add(int index, E element) {
+        if (index != size()) throw new UnsupportedOperationException("Queue (insertions at the tail only)");
+        addLast(element);
+    }
+
+    /** Removes the head if {@code index == 0}; other removals are not supported. */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public E remove(int index) {
+        if (index != 0) throw new UnsupportedOperationException("Queue (removals at the head only)");
+        return removeFirst();
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public E set(int index, E element) {
+        throw new UnsupportedOperationException("Queue");
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public void addFirst(E element) {
+        throw new UnsupportedOperationException("Queue (insertions at the tail only)");
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public boolean offerFirst(E element) {
+        throw new UnsupportedOperationException("Queue (insertions at the tail only)");
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public E pollLast() {
+        throw new UnsupportedOperationException("Queue (removals at the head only)");
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public E removeLast() {
+        throw new UnsupportedOperationException("Queue (removals at the head only)");
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Misc.
+    //
+
+    /** Returns a snapshot of the elements of this queue (weakly consistent). */
+    @Override
+    @Realtime(limit = LINEAR)
+    public FastListIterator<E> listIterator(int index) {
+        int n = size();
+        if ((index < 0) || (index > n)) throw new IndexOutOfBoundsException();
+        FastTable<E> snapshot = new FastTable<E>();
+        for (int i = 0; i < n; i++) {
+            E e = peek(i);
+            if (e == null) break; // Removed concurrently.
+            snapshot.addLast(e);
+        }
+        return snapshot.unmodifiable().listIterator(MathLib.min(index, snapshot.size()));
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public @Nullable E get(int index) {
+        if ((index < 0) || (index >= size())) throw new IndexOutOfBoundsException();
+        return peek(index);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public Equality<? super E> equality() {
+        return Equality.standard();
+    }
+
+    /** Returns a queue with the same capacity and access holding the elements of this queue. */
+    @Override
+    @Realtime(limit = LINEAR)
+    public AbstractQueue<E> clone() {
+        AbstractQueue<E> copy = ringBuffer(capacity(), access());
+        for (FastIterator<E> itr = iterator(); itr.hasNext();)
+            copy.offerLast(itr.next());
+        return copy;
+    }
+
+    /** Returns the element at the specified position from the head or {@code null} if none (weakly consistent). */
+    protected abstract @Nullable E peek(int index);
+
+}
@@ -25,6 +25,7 @@ import org.javolution.util.function.Equality;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.Predicate;
 import org.javolution.util.internal.set.AtomicSetImpl;
+import org.javolution.util.internal.set.ConcurrentSetImpl;
 import org.javolution.util.internal.set.FilteredSetImpl;
 import org.javolution.util.internal.set.LinkedSetImpl;
 import org.javolution.util.internal.set.MultiSetImpl;
@@ -103,6 +104,17 @@ public abstract class AbstractSet<E> extends AbstractCollection<E> implements So
         return new AtomicSetImpl<E>(this);
     }
 
+    /**
+     * Returns a concurrent copy of this set (not a view, updates of the copy and of this set are independent). 
+     * The copy is striped over sets with their own lock: lookups are lock-free (optimistic) and updates only 
+     * lock the stripe of the element being updated, allowing writers to scale with the number of cores. 
+     * {@code size} and {@code isEmpty} are atomic, bulk operations (e.g. {@code addAll, clear}) are not.
+     */
+    @Realtime(limit = LINEAR)
+    public AbstractSet<E> concurrentCopy() {
+        return new ConcurrentSetImpl<E>(this);
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public AbstractSet<E> headSet(E toElement) {
@@ -220,21 +232,23 @@ public abstract class AbstractSet<E> extends AbstractCollection<E> implements So
     }
     
     /**  
-     * Splits into filtered sets with filter based on the system identity hash code of the set element
-     * (to ensure balanced distribution).
+     * Splits into filtered sets with filter based on the hashed {@link #order() order} index of the set elements
+     * (to ensure balanced distribution, elements may be created on the fly e.g. entries of primitive maps).
      */
     @Override
     @SuppressWarnings("unchecked")
     @Realtime(limit = CONSTANT)
     public AbstractSet<E>[] trySplit(final int n) {
         AbstractSet<E>[] split = new AbstractSet[n];        
+        final Order<? super E> order = order();
         for (int i=0; i < n; i++) {
             final int m = i;
             split[i] = this.filter(new Predicate<E>() {
                 @Override
                 public boolean test(E param) {
-                    int hash = MathLib.hash(System.identityHashCode(param));
-                    return Math.abs(hash) % n == m;
+                    long index = order.indexOf(param);
+                    int hash = MathLib.hash((int) (index ^ (index >>> 32)));
+                    return (hash & 0x7FFFFFFF) % n == m;
                 }}).unmodifiable();
         }
         return split;
@@ -10,9 +10,7 @@ package org.javolution.util;
 
 import static org.javolution.annotations.Realtime.Limit.CONSTANT;
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
-import static org.javolution.annotations.Realtime.Limit.LOG_N;
 import static org.javolution.annotations.Realtime.Limit.N_LOG_N;
-import static org.javolution.annotations.Realtime.Limit.N_SQUARE;
 
 import java.util.Collection;
 import java.util.Comparator;
@@ -21,6 +19,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.RandomAccess;
+import java.util.Spliterator;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.annotations.Parallel;
@@ -33,9 +32,11 @@ import org.javolution.util.function.Predicate;
 import org.javolution.util.internal.table.AtomicTableImpl;
 import org.javolution.util.internal.table.CustomEqualityTableImpl;
 import org.javolution.util.internal.table.MappedTableImpl;
-import org.javolution.util.internal.table.QuickSortImpl;
+import org.javolution.util.internal.table.MergeSortImpl;
+import org.javolution.util.internal.table.ParallelTableImpl;
 import org.javolution.util.internal.table.SharedTableImpl;
 import org.javolution.util.internal.table.SubTableImpl;
+import org.javolution.util.internal.table.TableSpliteratorImpl;
 import org.javolution.util.internal.table.UnmodifiableTableImpl;
 
 /**
@@ -111,6 +112,12 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
         return new SharedTableImpl<E>(this);
     }
 
+    @Override
+    @Realtime(limit = CONSTANT)
+    public AbstractTable<E> parallel() {
+        return new ParallelTableImpl<E>(this);
+    }
+
     ////////////////////////////////////////////////////////////////////////////
     // Change in time limit behavior.
     //
@@ -155,7 +162,7 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
     //
 
     @Override
-    @Realtime(limit = LOG_N)
+    @Realtime(limit = LINEAR, comment = "Insertions in the middle may shift the elements on the shortest side")
     public abstract void add(int index, @Nullable E element);
 
     @Override
@@ -165,7 +172,7 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
     }
 
     @Override
-    @Realtime(limit = LOG_N)
+    @Realtime(limit = LINEAR, comment = "Removals in the middle may shift the elements on the shortest side")
     public abstract @Nullable E remove(int index);
 
     @Override
@@ -176,6 +183,21 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
     @Realtime(limit = CONSTANT)
     public abstract @Nullable E set(int index, @Nullable E element);
 
+    /**
+     * Replaces the elements of this table starting at the specified index with the specified elements 
+     * (bulk operation, {@link FastTable} copies the elements block by block).
+     * 
+     * @param index the index of the first element replaced.
+     * @param elements the new elements.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index + elements.length > size())}
+     */
+    @Realtime(limit = LINEAR)
+    public void setAll(int index, E[] elements) {
+        if ((index < 0) || (index > size() - elements.length)) throw new IndexOutOfBoundsException();
+        for (int i = 0; i < elements.length; i++)
+            set(index + i, elements[i]);
+    }
+
     /**
      *  Returns the index of the first occurrence of the specified object in this table, or -1 if this table does not
      *  contain the element. This methods uses this table {@link #equality()} to perform the comparison.
@@ -228,6 +250,17 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
     @Realtime(limit = LINEAR, comment="A copy/clone of this table may have to be performed (e.g. shared() views)")
     public abstract FastListIterator<E> listIterator(int index);
 
+    /**
+     * Returns a spliterator over this table elements splitting the index range in halves; the sizes of the 
+     * sub-spliterators are exact ({@link Spliterator#SUBSIZED SUBSIZED}) which allows for even splitting 
+     * by {@code java.util.stream} parallel streams.
+     */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public Spliterator<E> spliterator() {
+        return new TableSpliteratorImpl<E>(this, 0, size());
+    }
+
     /**
      * Compares the specified object with this table for equality.
      *  
@@ -448,12 +481,28 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
     }
 
     /**
-     * Sorts this table in place (quick sort).
+     * Sorts this table in place (stable merge sort). The elements are copied into a contiguous array, sorted and
+     * written back in a single pass. For large tables, the sort can be performed concurrently through the 
+     * {@link #parallel parallel} view.
+     * 
+     * ```java
+     * FastTable<CharSequence> names = ...;
+     * names.parallel().sort(Order.lexical()); // Blocks sorted concurrently, then merged.
+     * ```
      */
-    @Realtime(limit = N_SQUARE)
+    @Realtime(limit = N_LOG_N)
     public void sort(Comparator<? super E> cmp) {
-        QuickSortImpl<E> qs = new QuickSortImpl<E>(this, cmp);
-        qs.sort();
+        new MergeSortImpl<E>(this, cmp).sort();
+    }
+
+    /**
+     * Sorts this table in place, the blocks being sorted concurrently then merged (stable). This method is
+     * called by the {@link #parallel parallel} view's {@link #sort sort}; thread-safe views perform it atomically.
+     */
+    @Parallel
+    @Realtime(limit = N_LOG_N)
+    public void parallelSort(Comparator<? super E> cmp) {
+        new MergeSortImpl<E>(this, cmp).parallelSort();
     }
 
     @Override
@@ -0,0 +1,256 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Equality;
+import org.javolution.util.internal.table.RotatingArrayImpl;
+import org.javolution.util.internal.table.TableIteratorImpl;
+
+/**
+ * A high-performance table of primitive {@code double} values based upon a fast-rotating primitive array
+ * (no boxing, 8 bytes per element).
+ *
+ * Primitive tables support all the {@link AbstractTable} views ({@link #subTable subTable},
+ * {@link #parallel parallel}, ...) as well as the {@link java.util.Deque Deque} interface with
+ * insertions/removals at both ends performed in constant time. Insertions/removals in the middle of the table
+ * shift the elements on the shortest side, in linear time {@code O(n)} (unlike {@link FastTable} whose
+ * insertions/removals are in {@code O(log n)}). Unboxed accessors and bulk copies to/from primitive arrays
+ * should be used for numeric workloads.
+ *
+ * ```java
+ * DoubleTable samples = new DoubleTable();
+ * for (double x = 0; x < 1; x += 0.001) samples.addDouble(Math.sin(x));
+ * double sum = 0;
+ * for (int i = 0, n = samples.size(); i < n; i++) sum += samples.getDouble(i); // No boxing.
+ * ```
+ *
+ * Primitive tables do not support {@code null} elements ({@link NullPointerException} raised).
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 7.0, September 13, 2015
+ * @see IntTable
+ * @see LongTable
+ */
+public class DoubleTable extends AbstractTable<Double> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final double[] NONE = new double[0];
+
+    private RotatingArrayImpl array = new RotatingArrayImpl(NONE);
+
+    /** Creates an empty table. */
+    public DoubleTable() {
+    }
+
+    /** Creates a table holding the specified values. */
+    public DoubleTable(double... values) {
+        addDoubles(values, 0, values.length);
+    }
+
+    @Override
+    public DoubleTable with(Double... elements) {
+        addAll(elements);
+        return this;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Unboxed operations.
+    //
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index the index of the value to return.
+     * @return the value at the specified position.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final double getDouble(int index) {
+        return ((double[]) array.elements())[array.position(index)];
+    }
+
+    /**
+     * Replaces the value at the specified index.
+     *
+     * @param index the index of the value to replace.
+     * @param value the new value.
+     * @return the previous value at the specified position.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final double setDouble(int index, double value) {
+        double[] elements = (double[]) array.elements();
+        int i = array.position(index);
+        double previous = elements[i];
+        elements[i] = value;
+        return previous;
+    }
+
+    /**
+     * Appends the specified value to the end of this table.
+     *
+     * @param value the value to append.
+     */
+    @Realtime(limit = CONSTANT, comment = "Amortized (capacity doubling)")
+    public final void addDouble(double value) {
+        int index = array.append(1);
+        ((double[]) array.elements())[array.position(index)] = value;
+    }
+
+    /**
+     * Inserts the specified value at the specified position; the elements on the shortest side (head or tail)
+     * are shifted.
+     *
+     * @param index the index at which the value is inserted.
+     * @param value the value to insert.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index > size())}
+     */
+    @Realtime(limit = LINEAR, comment = "Constant time for insertions at both ends")
+    public final void addDouble(int index, double value) {
+        int i = array.insert(index);
+        ((double[]) array.elements())[i] = value;
+    }
+
+    /**
+     * Removes the value at the specified position; the elements on the shortest side (head or tail) are shifted.
+     *
+     * @param index the index of the value to remove.
+     * @return the value removed.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = LINEAR, comment = "Constant time for removals at both ends")
+    public final double removeDouble(int index) {
+        double removed = ((double[]) array.elements())[array.position(index)];
+        array.delete(index);
+        return removed;
+    }
+
+    /**
+     * Copies values from this table into the specified array.
+     *
+     * @param fromIndex the index of the first value to copy.
+     * @param dest the destination array.
+     * @param destPos the starting position in the destination array.
+     * @param count the number of values to copy.
+     * @throws IndexOutOfBoundsException if the specified range is not within this table or the destination array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void getDoubles(int fromIndex, double[] dest, int destPos, int count) {
+        array.get(fromIndex, dest, destPos, count);
+    }
+
+    /**
+     * Replaces values of this table with the values from the specified array.
+     *
+     * @param fromIndex the index of the first value to replace.
+     * @param src the source array.
+     * @param srcPos the starting position in the source array.
+     * @param count the number of values to replace.
+     * @throws IndexOutOfBoundsException if the specified range is not within this table or the source array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void setDoubles(int fromIndex, double[] src, int srcPos, int count) {
+        array.set(fromIndex, src, srcPos, count);
+    }
+
+    /**
+     * Appends values from the specified array to the end of this table.
+     *
+     * @param src the source array.
+     * @param srcPos the starting position in the source array.
+     * @param count the number of values to append.
+     * @throws IndexOutOfBoundsException if the specified range is not within the source array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void addDoubles(double[] src, int srcPos, int count) {
+        if (srcPos < 0 || count < 0 || srcPos > src.length - count) throw new IndexOutOfBoundsException();
+        array.set(array.append(count), src, srcPos, count);
+    }
+
+    /** Returns the values of this table as a new primitive array. */
+    @Realtime(limit = LINEAR)
+    public final double[] toDoubleArray() {
+        double[] values = new double[array.size()];
+        array.get(0, values, 0, values.length);
+        return values;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // AbstractTable (boxed) operations.
+    //
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final boolean add(Double element) {
+        addDouble(element.doubleValue());
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR, comment = "Constant time for insertions at both ends")
+    public final void add(int index, Double element) {
+        addDouble(index, element.doubleValue());
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public void clear() {
+        array.clear();
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public DoubleTable clone() {
+        DoubleTable copy = (DoubleTable) super.clone();
+        copy.array = array.clone();
+        return copy;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Equality<? super Double> equality() {
+        return Equality.standard();
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final FastListIterator<Double> listIterator(int index) {
+        if (index < 0 || index > array.size()) throw new IndexOutOfBoundsException();
+        return new TableIteratorImpl<Double>(this, index);
+    }
+
+    @Override
+    @Realtime(limit = LINEAR, comment = "Constant time for removals at both ends")
+    public final Double remove(int index) {
+        return removeDouble(index);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Double set(int index, Double element) {
+        return setDouble(index, element.doubleValue());
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final int size() {
+        return array.size();
+    }
+
+}
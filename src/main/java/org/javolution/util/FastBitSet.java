@@ -9,21 +9,53 @@
 package org.javolution.util;
 
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
+import static org.javolution.lang.MathLib.unsignedLessThan;
 
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.annotations.Realtime;
+import org.javolution.context.ConcurrentContext;
 import org.javolution.lang.Index;
 import org.javolution.lang.MathLib;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.bitset.CompressedBitSetImpl;
 
 /**
  * A high-performance bit-set integrated with the collection framework as a set of {@link Index indices} 
  * and obeying the collection semantic for methods such as {@link #size} (cardinality) or {@link #equals}
  * (same set of indices).</p>
+ * 
+ * Bit-sets are dense by default (one flat {@code long[]} sized to the highest bit set). Once 
+ * {@link #compress compressed}, the bits are held per chunk of 64K bits in the smallest of a sorted array,
+ * a bitmap or a list of runs; sparse or clustered sets of identifiers then use a fraction of the memory
+ * and logical operations skip or share the chunks present in only one operand.
+ * 
+ * ```java
+ * FastBitSet activeUsers = new FastBitSet().compress(); 
+ * activeUsers.set(2000000000); // No 256 MB allocation.
+ * activeUsers.set(1000, 50000); // Single run.
+ * ```
+ * 
+ * The {@code long} methods address the whole unsigned 64-bits {@link Index} range; setting a bit beyond the
+ * {@code int} range switches the bit-set to the compressed representation (chunks held by a sparse fractal array).
+ * 
+ * ```java
+ * FastBitSet seen = new FastBitSet();
+ * seen.set(entity.hash64()); // Any 64-bits value.
+ * for (long i = seen.nextSetBit(0L); i != -1; i = seen.nextSetBit(i + 1)) { ... } // Ignores Index.MAX 
+ * ```
+ * 
+ * Logical operations on large dense bit-sets are partitioned in ranges of words processed concurrently
+ * (see {@link ConcurrentContext}); they compute the cardinality of the result in the same pass 
+ * (the cardinality is cached until the next update). Fused operations such as {@link #andCardinality}
+ * or {@link #orNot} do not create intermediate bit-sets.
+ * 
+ * ```java
+ * int audience = segment.andCardinality(subscribers); // Size of the intersection.
+ * ```
  *   
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 7.0, September 13, 2015
@@ -32,9 +64,23 @@ public class FastBitSet extends AbstractSet<Index> {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private static final long[] ALL_CLEARED = new long[0];
+    private static final int MAX_LENGTH = (1 << 25) + 1; // Number of words for the int range.
+    private static final int PARALLEL_THRESHOLD = 1 << 16; // Minimum number of words to process concurrently.
+    private static final int AND = 0;
+    private static final int OR = 1;
+    private static final int XOR = 2;
+    private static final int AND_NOT = 3;
+    private static final int OR_NOT = 4;
+    private static final int AND_COUNT = 5;
     
     /** Holds the bits (64 bits per long). */
     private long[] bits;
+
+    /** Holds the compressed bits ({@code null} if not compressed). */
+    private CompressedBitSetImpl compressed;
+    
+    /** Holds the cached cardinality ({@code -1} if unknown). */
+    private long cardinality = -1;
     
     /** 
      * Creates a new bit-set (all bits cleared).
@@ -43,13 +89,31 @@ public class FastBitSet extends AbstractSet<Index> {
         bits = ALL_CLEARED;
     }
 
+    /**
+     * Switches this bit-set to the compressed representation (cannot be reversed) and returns this bit-set.
+     * The API is unchanged; the results of logical operations keep the representation of the bit-set updated.
+     */
+    @Realtime(limit = LINEAR)
+    public final FastBitSet compress() {
+        if (compressed == null) {
+            compressed = CompressedBitSetImpl.valueOf(toLongArray());
+            bits = ALL_CLEARED;
+        }
+        return this;
+    }
+
+    /** Indicates if this bit-set uses the compressed representation. */
+    public final boolean isCompressed() {
+        return compressed != null;
+    }
+
       ////////////////////////////////////////////////////////////////////////////
      // Set operations.
      //
 
     @Override
      public final boolean add(Index index, boolean allowDuplicate) {
-        return !getAndSet(index.intValue(), true); // allowDuplicate flag ignored.
+        return !getAndSet(index.longValue(), true); // allowDuplicate flag ignored.
      }
 
      /**
@@ -61,14 +125,12 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final void and(FastBitSet that) {
-        long[] thatBits = that.toLongArray();
-        int n = MathLib.min(this.bits.length, thatBits.length);
-        for (int i = 0; i < n; i++) {
-            this.bits[i] &= thatBits[i];
-        }
-        for (int i = n; i < bits.length; i++) {
-            this.bits[i] = 0L;
+        if (compressed != null) {
+            compressed.and(compressedBits(that));
+            cardinality = -1;
+            return;
         }
+        cardinality = apply(AND, bits, bitsOf(that, bits.length), bits.length);
     }
 
  	/**
@@ -81,30 +143,83 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final void andNot(FastBitSet that) {
-        long[] thatBits = that.toLongArray();
-        int n = MathLib.min(this.bits.length, thatBits.length);
-        for (int i = 0; i < n; i++) {
-            this.bits[i] &= ~thatBits[i];
+        if (compressed != null) {
+            compressed.andNot(compressedBits(that));
+            cardinality = -1;
+            return;
         }
+        cardinality = apply(AND_NOT, bits, bitsOf(that, bits.length), bits.length);
+    }
+
+    /**
+     * Returns the number of bits set in both this bit set and the given bit set 
+     * (cardinality of the intersection computed without intermediate bit set).
+     *
+     * @param that the second bit set.
+     * @return {@code this.clone().and(that).cardinality()}
+     */
+    @Realtime(limit = LINEAR)
+    public final int andCardinality(FastBitSet that) {
+        return clamp(longAndCardinality(that));
+    }
+
+    /**
+     * Returns the number of bits set in both this bit set and the given bit set as a {@code long}
+     * (the intersection of compressed bit-sets may hold more than {@code Integer.MAX_VALUE} bits).
+     *
+     * @param that the second bit set.
+     * @return {@code this.clone().and(that).longCardinality()}
+     */
+    @Realtime(limit = LINEAR)
+    public final long longAndCardinality(FastBitSet that) {
+        if (compressed != null) 
+            return (that.compressed != null) ? compressed.andCardinality(that.compressed) 
+                    : compressed.andCardinality(that.bits);
+        if (that.compressed != null) return that.compressed.andCardinality(bits);
+        return apply(AND_COUNT, bits, that.bits, MathLib.min(bits.length, that.bits.length));
+    }
+
+    /**
+     * Returns the number of bits set in this bit set which are not set in the given bit set 
+     * (cardinality of the difference computed without intermediate bit set).
+     *
+     * @param that the second bit set.
+     * @return {@code this.clone().andNot(that).cardinality()}
+     */
+    @Realtime(limit = LINEAR)
+    public final int andNotCardinality(FastBitSet that) {
+        return clamp(longCardinality() - longAndCardinality(that));
     }
 
      /**
      * Returns the number of bits set to {@code true} (or the size of this 
-     * set).
+     * set). The cardinality is cached until this bit set is modified.
      *
-     * @return the number of bits being set.
+     * @return the number of bits being set or {@code Integer.MAX_VALUE} if more (see {@link #longCardinality}).
      */
     public final int cardinality() {
-        int sum = 0;
-        for (int i = 0; i < bits.length; i++) {
-            sum += MathLib.bitCount(bits[i]);
-        }
-        return sum;
+        return clamp(longCardinality());
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} as a {@code long} (compressed bit-sets
+     * may hold more than {@code Integer.MAX_VALUE} bits). The cardinality is cached until this 
+     * bit set is modified.
+     *
+     * @return the number of bits being set.
+     */
+    public final long longCardinality() {
+        if (cardinality < 0) 
+            cardinality = (compressed != null) ? compressed.cardinality() 
+                    : apply(AND_COUNT, bits, bits, bits.length); // (w & w) == w
+        return cardinality;
     }
 
      @Override
      public final void clear() {
          bits = ALL_CLEARED;
+         if (compressed != null) compressed.clear();
+         cardinality = 0;
      }
 
      /**
@@ -115,9 +230,14 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code index < 0}
      */
     public final void clear(int bitIndex) {
+        if (compressed != null) {
+            updated(compressed.set(bitIndex, false), false);
+            return;
+        }
         int longIndex = bitIndex >> 6;
         if (longIndex >= bits.length)
             return;
+        updated((bits[longIndex] & (1L << bitIndex)) != 0, false);
         bits[longIndex] &= ~(1L << bitIndex);
     }
 
@@ -134,6 +254,11 @@ public class FastBitSet extends AbstractSet<Index> {
     public final void clear(int fromIndex, int toIndex) {
         if ((fromIndex < 0) || (toIndex < fromIndex))
             throw new IndexOutOfBoundsException();
+        cardinality = -1;
+        if (compressed != null) {
+            compressed.clear(fromIndex, toIndex);
+            return;
+        }
         int i = fromIndex >>> 6;
         if (i >= bits.length)
             return; // Ensures that i < _length
@@ -155,6 +280,8 @@ public class FastBitSet extends AbstractSet<Index> {
  	public final FastBitSet clone() {
  	    FastBitSet copy = new FastBitSet();
  	    copy.bits = this.bits.clone();
+ 	    copy.cardinality = cardinality;
+ 	    if (compressed != null) copy.compressed = compressed.clone();
  	    return copy;
  	}
 	
@@ -164,7 +291,7 @@ public class FastBitSet extends AbstractSet<Index> {
 
     @Override
     public final FastIterator<Index> descendingIterator(@Nullable Index from) {
-        int start = (from == null) ? this.length() - 1 : from.intValue();
+        long start = (from == null) ? -1L : from.longValue();
         return new IteratorImpl(this, start, true);
     }
 
@@ -175,6 +302,12 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code bitIndex < 0}
      */
     public final void flip(int bitIndex) {
+        boolean previous = get(bitIndex);
+        updated(previous, !previous);
+        if (compressed != null) {
+            compressed.set(bitIndex, !previous);
+            return;
+        }
         int i = bitIndex >> 6;
         ensureCapacity(i + 1);
         bits[i] ^= 1L << bitIndex;
@@ -192,6 +325,11 @@ public class FastBitSet extends AbstractSet<Index> {
     public final void flip(int fromIndex, int toIndex) {
         if ((fromIndex < 0) || (toIndex < fromIndex))
             throw new IndexOutOfBoundsException();
+        cardinality = -1;
+        if (compressed != null) {
+            compressed.flip(fromIndex, toIndex);
+            return;
+        }
         int i = fromIndex >>> 6;
         int j = toIndex >>> 6;
         ensureCapacity(j + 1);
@@ -215,6 +353,7 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code bitIndex < 0}
      */
     public final boolean get(int bitIndex) {
+        if (compressed != null) return compressed.get(bitIndex);
         int i = bitIndex >> 6;
         return (i >= bits.length) ? false : (bits[i] & (1L << bitIndex)) != 0;
     }
@@ -233,6 +372,12 @@ public class FastBitSet extends AbstractSet<Index> {
         if (fromIndex < 0 || fromIndex > toIndex)
             throw new IndexOutOfBoundsException();
         FastBitSet bitSet = new FastBitSet();
+        if (compressed != null) {
+            bitSet.compressed = compressed.clone();
+            bitSet.compressed.clear(0, fromIndex);
+            bitSet.compressed.clear(toIndex, -1L);
+            return bitSet;
+        }
         int length = MathLib.min(bits.length, (toIndex >>> 6) + 1);
         bitSet.bits = new long[length];
         System.arraycopy(bits, 0, bitSet.bits, 0, length);
@@ -245,6 +390,11 @@ public class FastBitSet extends AbstractSet<Index> {
      * Sets the specified bit, returns <code>true</code>
      * if previously set. */
     public final boolean getAndSet(int bitIndex, boolean value) {
+        if (compressed != null) {
+            boolean previous = compressed.set(bitIndex, value);
+            updated(previous, value);
+            return previous;
+        }
         int i = bitIndex >> 6;
         ensureCapacity(i + 1);
         boolean previous = (bits[i] & (1L << bitIndex)) != 0;
@@ -253,12 +403,13 @@ public class FastBitSet extends AbstractSet<Index> {
         } else {
             bits[i] &= ~(1L << bitIndex);
         }
+        updated(previous, value);
         return previous;
     }
    
     @Override
     public Index getAny(Index index) {
-        return get(index.intValue()) ? index : null;
+        return get(index.longValue()) ? index : null;
     }
 
     /**
@@ -270,6 +421,7 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final boolean intersects(FastBitSet that) {
+        if (compressed != null) return compressed.intersects(compressedBits(that));
         long[] thatBits = that.toLongArray();
         int i = MathLib.min(this.bits.length, thatBits.length);
         while (--i >= 0) {
@@ -285,7 +437,7 @@ public class FastBitSet extends AbstractSet<Index> {
 
     @Override
     public final FastIterator<Index> iterator(@Nullable Index from) {
-        int start = (from == null) ? 0: from.intValue();
+        long start = (from == null) ? 0 : from.longValue();
         return new IteratorImpl(this, start, false);
     }
     
@@ -299,6 +451,7 @@ public class FastBitSet extends AbstractSet<Index> {
      * @return the index of the highest set bit plus one.
      */
     public final int length() {
+        if (compressed != null) return (int) compressed.length();
         trim();
         if (bits.length == 0) return 0;
         return (bits.length << 6) - MathLib.numberOfLeadingZeros(bits[bits.length -1]);
@@ -313,19 +466,15 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < 0} 
      */
     public final int nextClearBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset < bits.length) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) == 0) { return fromIndex; }
-                mask <<= 1;
-                fromIndex++;
-            } while (mask != 0);
-            mask = 1;
-            offset++;
+        if (compressed != null) return (int) compressed.nextClear(fromIndex);
+        int i = fromIndex >> 6;
+        if (i >= bits.length) return fromIndex;
+        long w = ~bits[i] & (-1L << fromIndex);
+        while (true) {
+            if (w != 0) return (i << 6) + MathLib.numberOfTrailingZeros(w);
+            if (++i == bits.length) return i << 6;
+            w = ~bits[i];
         }
-        return fromIndex;
     }
 
     /**
@@ -341,20 +490,15 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < 0} 
      */
     public final int nextSetBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset < bits.length) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) != 0)
-                    return fromIndex;
-                mask <<= 1;
-                fromIndex++;
-            } while (mask != 0);
-            mask = 1;
-            offset++;
+        if (compressed != null) return (int) compressed.next(fromIndex);
+        int i = fromIndex >> 6;
+        if (i >= bits.length) return -1;
+        long w = bits[i] & (-1L << fromIndex);
+        while (true) {
+            if (w != 0) return (i << 6) + MathLib.numberOfTrailingZeros(w);
+            if (++i == bits.length) return -1;
+            w = bits[i];
         }
-        return -1;
     }
 
     /**
@@ -366,12 +510,54 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final void or(FastBitSet that) {
-        long[] thatBits = (that instanceof FastBitSet) ? ((FastBitSet) that).bits
-                : that.toLongArray();
+        if (compressed != null) {
+            compressed.or(compressedBits(that));
+            cardinality = -1;
+            return;
+        }
+        if (isLarge(that)) {
+            compress().or(that);
+            return;
+        }
+        long[] thatBits = bitsOf(that, MAX_LENGTH);
         ensureCapacity(thatBits.length);
-        for (int i = thatBits.length; --i >= 0;) {
-            bits[i] |= thatBits[i];
+        cardinality = apply(OR, bits, thatBits, bits.length);
+    }
+
+    /**
+     * Returns the number of bits set in this bit set or in the given bit set 
+     * (cardinality of the union computed without intermediate bit set).
+     *
+     * @param that the second bit set.
+     * @return {@code this.clone().or(that).cardinality()}
+     */
+    @Realtime(limit = LINEAR)
+    public final int orCardinality(FastBitSet that) {
+        return clamp(longCardinality() + that.longCardinality() - longAndCardinality(that));
+    }
+
+    /**
+     * Performs the logical OR operation of this bit set with the complement of the given bit set 
+     * for the bits from {@code 0} to the specified 64-bits unsigned index (exclusive).
+     * The complement of the given bit set is never created.
+     *
+     * @param that the second bit set.
+     * @param toIndex the high index (exclusive).
+     */
+    @Realtime(limit = LINEAR)
+    public final void orNot(FastBitSet that, long toIndex) {
+        cardinality = -1;
+        if ((compressed != null) || !isInt(toIndex)) {
+            compress().compressed.orNot(compressedBits(that), 0, toIndex);
+            return;
         }
+        int length = (int) ((toIndex + 63) >>> 6);
+        ensureCapacity(length);
+        long[] thatBits = bitsOf(that, length);
+        int n = (int) (toIndex >>> 6); // Full words.
+        apply(OR_NOT, bits, thatBits, n);
+        if (n < length) 
+            bits[n] |= ~((n < thatBits.length) ? thatBits[n] : 0) & ((1L << toIndex) - 1);
     }
 
     @Override
@@ -388,20 +574,16 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < -1} 
      */
     public final int previousClearBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset >= 0) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) == 0)
-                    return fromIndex;
-                mask >>= 1;
-                fromIndex--;
-            } while (mask != 0);
-            mask = 1L << 63;
-            offset--;
+        if (compressed != null) return (fromIndex >= 0) ? (int) compressed.previousClear(fromIndex) : -1;
+        int i = fromIndex >> 6;
+        if (i >= bits.length) return fromIndex;
+        if (i < 0) return -1;
+        long w = ~bits[i] & (-1L >>> (63 - (fromIndex & 63)));
+        while (true) {
+            if (w != 0) return (i << 6) + 63 - MathLib.numberOfLeadingZeros(w);
+            if (--i < 0) return -1;
+            w = ~bits[i];
         }
-        return -1;
     }
 
     /**
@@ -417,25 +599,27 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < -1} 
      */
     public final int previousSetBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset >= 0) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) != 0)
-                    return fromIndex;
-                mask >>= 1;
-                fromIndex--;
-            } while (mask != 0);
-            mask = 1L << 63;
-            offset--;
-        }
-        return -1;
+        if (compressed != null) return (fromIndex >= 0) ? (int) compressed.previous(fromIndex) : -1;
+        if (fromIndex < 0) return -1;
+        int i = fromIndex >> 6;
+        long w;
+        if (i < bits.length) {
+            w = bits[i] & (-1L >>> (63 - (fromIndex & 63)));
+        } else if (bits.length != 0) {
+            w = bits[i = bits.length - 1];
+        } else {
+            return -1;
+        }
+        while (true) {
+            if (w != 0) return (i << 6) + 63 - MathLib.numberOfLeadingZeros(w);
+            if (--i < 0) return -1;
+            w = bits[i];
+        }
     }
 
     @Override
     public Index removeAny(Index index) {
-        return getAndSet(index.intValue(), false) ? index : null;
+        return getAndSet(index.longValue(), false) ? index : null;
     }
 
     @Override
@@ -443,7 +627,7 @@ public class FastBitSet extends AbstractSet<Index> {
         boolean modified = false;
         FastIterator<Index> itr = iterator();
         while (itr.hasNext(filter)) {
-            clear(itr.next().intValue());
+            clear(itr.next().longValue());
             modified = true;
         }
         return modified;
@@ -457,8 +641,13 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code bitIndex < 0}
      */
     public final void set(int bitIndex) {
+        if (compressed != null) {
+            updated(compressed.set(bitIndex, true), true);
+            return;
+        }
         int i = bitIndex >> 6;
         ensureCapacity(i + 1);
+        updated((bits[i] & (1L << bitIndex)) != 0, true);
         bits[i] |= 1L << bitIndex;
     }
 
@@ -490,6 +679,11 @@ public class FastBitSet extends AbstractSet<Index> {
     public final void set(int fromIndex, int toIndex) {
         if ((fromIndex < 0) || (toIndex < fromIndex))
         	throw new IndexOutOfBoundsException();
+        cardinality = -1;
+        if (compressed != null) {
+            compressed.set(fromIndex, toIndex);
+            return;
+        }
         int i = fromIndex >>> 6;
         int j = toIndex >>> 6;
         ensureCapacity(j + 1);
@@ -522,16 +716,19 @@ public class FastBitSet extends AbstractSet<Index> {
         }
     }
 
+    /** Returns the {@link #cardinality} of this bit-set ({@code Integer.MAX_VALUE} if more bits are set). */
     @Override
  	public final int size() {
         return cardinality();
  	}
 
-    /** Returns the minimal length <code>long[]</code> representation of this bitset.
+    /** Returns the minimal length <code>long[]</code> representation of this bitset
+     * (bits beyond the {@code int} range are not included).
      * 
      * @return Array of longs representing this bitset 
      */
     public final long[] toLongArray() {
+        if (compressed != null) return compressed.toLongArray(MAX_LENGTH);
         trim();
         return bits;
     }
@@ -546,14 +743,294 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final void xor(FastBitSet that) {
-        long[] thatBits = (that instanceof FastBitSet) ? ((FastBitSet) that).bits
-                : that.toLongArray();
+        if (compressed != null) {
+            compressed.xor(compressedBits(that));
+            cardinality = -1;
+            return;
+        }
+        if (isLarge(that)) {
+            compress().xor(that);
+            return;
+        }
+        long[] thatBits = bitsOf(that, MAX_LENGTH);
         ensureCapacity(thatBits.length);
-        for (int i = thatBits.length; --i >= 0;) {
-            bits[i] ^= thatBits[i];
+        cardinality = apply(XOR, bits, thatBits, bits.length);
+    }
+
+      ////////////////////////////////////////////////////////////////////////////
+     // 64-bits Operations (indices are unsigned, -1L being Index.MAX).
+     //
+
+    /**
+     * Clears the bit at the specified 64-bits unsigned index.
+     *
+     * @param index the index of the bit to clear.
+     */
+    public final void clear(long index) {
+        getAndSet(index, false);
+    }
+
+    /**
+     * Clears the bits from the specified 64-bits unsigned {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive).
+     *
+     * @param  fromIndex index of the first bit to be cleared.
+     * @param  toIndex index after the last bit to be cleared.
+     * @throws IndexOutOfBoundsException if {@code toIndex} is (unsigned) less than {@code fromIndex}
+     */
+    @Realtime(limit = LINEAR)
+    public final void clear(long fromIndex, long toIndex) {
+        if (unsignedLessThan(toIndex, fromIndex)) throw new IndexOutOfBoundsException();
+        if (compressed != null) {
+            compressed.clear(fromIndex, toIndex);
+            cardinality = -1;
+        } else if (isInt(toIndex)) {
+            clear((int) fromIndex, (int) toIndex);
+        } else if (isInt(fromIndex)) { // Dense bits are all in the int range.
+            clear((int) fromIndex, Integer.MAX_VALUE);
+            clear(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Sets the bit at the specified 64-bits unsigned index to the opposite value.
+     *
+     * @param index the index of the bit.
+     */
+    public final void flip(long index) {
+        getAndSet(index, !get(index));
+    }
+
+    /**
+     * Sets the bits from the specified 64-bits unsigned {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to the opposite value.
+     *
+     * @param fromIndex the low index (inclusive).
+     * @param toIndex the high index (exclusive).
+     * @throws IndexOutOfBoundsException if {@code toIndex} is (unsigned) less than {@code fromIndex}
+     */
+    @Realtime(limit = LINEAR)
+    public final void flip(long fromIndex, long toIndex) {
+        if (unsignedLessThan(toIndex, fromIndex)) throw new IndexOutOfBoundsException();
+        if ((compressed == null) && isInt(toIndex)) {
+            flip((int) fromIndex, (int) toIndex);
+        } else {
+            compress().compressed.flip(fromIndex, toIndex);
+            cardinality = -1;
+        }
+    }
+
+    /**
+     * Returns the value of the bit at the specified 64-bits unsigned index.
+     *
+     * @param index the index of the bit.
+     * @return the value of the bit at the specified index.
+     */
+    public final boolean get(long index) {
+        if (compressed != null) return compressed.get(index);
+        return isInt(index) && get((int) index);
+    }
+
+    /** 
+     * Sets the bit at the specified 64-bits unsigned index, returns <code>true</code> if previously set. 
+     */
+    public final boolean getAndSet(long index, boolean value) {
+        if (compressed == null) {
+            if (isInt(index)) return getAndSet((int) index, value);
+            if (!value) return false; // Not in the dense range.
+            compress();
+        }
+        boolean previous = compressed.set(index, value);
+        updated(previous, value);
+        return previous;
+    }
+
+    /**
+     * Returns the index of the next {@code false} bit from the specified 64-bits unsigned index (inclusive)
+     * or {@code -1} if none.
+     *
+     * @param fromIndex the start location.
+     * @return the next {@code false} bit.
+     */
+    public final long nextClearBit(long fromIndex) {
+        if (compressed != null) return compressed.nextClear(fromIndex);
+        return isInt(fromIndex) ? nextClearBit((int) fromIndex) : fromIndex;
+    }
+
+    /**
+     * Returns the index of the next {@code true} bit from the specified 64-bits unsigned index (inclusive)
+     * or {@code -1} if none ({@code -1} is also returned when the next bit set is {@link Index#MAX}).
+     *
+     * @param fromIndex the start location.
+     * @return the next {@code true} bit.
+     */
+    public final long nextSetBit(long fromIndex) {
+        if (compressed != null) return compressed.next(fromIndex);
+        return isInt(fromIndex) ? nextSetBit((int) fromIndex) : -1;
+    }
+
+    /**
+     * Returns the index of the previous {@code false} bit from the specified 64-bits unsigned index (inclusive)
+     * or {@code -1} if none.
+     *
+     * @param fromIndex the start location.
+     * @return the previous {@code false} bit.
+     */
+    public final long previousClearBit(long fromIndex) {
+        if (compressed != null) return compressed.previousClear(fromIndex);
+        return (isInt(fromIndex) && (fromIndex < length())) ? previousClearBit((int) fromIndex) : fromIndex;
+    }
+
+    /**
+     * Returns the index of the previous {@code true} bit from the specified 64-bits unsigned index (inclusive)
+     * or {@code -1} if none ({@code -1} is also returned when the previous bit set is {@link Index#MAX}).
+     *
+     * @param fromIndex the start location ({@code -1L} to start from the highest bit set).
+     * @return the previous {@code true} bit.
+     */
+    public final long previousSetBit(long fromIndex) {
+        if (compressed != null) return compressed.previous(fromIndex);
+        int last = length() - 1;
+        if (last < 0) return -1;
+        return previousSetBit(unsignedLessThan(fromIndex, last) ? (int) fromIndex : last);
+    }
+
+    /**
+     * Sets the bit at the specified 64-bits unsigned index.
+     *
+     * @param index the index of the bit to set.
+     */
+    public final void set(long index) {
+        getAndSet(index, true);
+    }
+
+    /**
+     * Sets the bit at the specified 64-bits unsigned index to the specified value.
+     *
+     * @param index the position to set.
+     * @param value the value to set it to.
+     */
+    public final void set(long index, boolean value) {
+        getAndSet(index, value);
+    }
+
+    /**
+     * Sets the bits from the specified 64-bits unsigned {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to {@code true}.
+     *
+     * @param  fromIndex index of the first bit to be set.
+     * @param  toIndex index after the last bit to be set.
+     * @throws IndexOutOfBoundsException if {@code toIndex} is (unsigned) less than {@code fromIndex}
+     */
+    @Realtime(limit = LINEAR)
+    public final void set(long fromIndex, long toIndex) {
+        if (unsignedLessThan(toIndex, fromIndex)) throw new IndexOutOfBoundsException();
+        if ((compressed == null) && isInt(toIndex)) {
+            set((int) fromIndex, (int) toIndex);
+        } else {
+            compress().compressed.set(fromIndex, toIndex);
+            cardinality = -1;
         }
     }
 
+    // Indicates if the specified unsigned index is in the int range.
+    private static boolean isInt(long index) {
+        return (index >>> 31) == 0;
+    }
+
+    // Indicates if the specified bit-set has bits set beyond the int range.
+    private static boolean isLarge(FastBitSet that) {
+        return (that.compressed != null) && !that.compressed.isEmpty() && !isInt(that.compressed.previous(-1L));
+    }
+
+    // Returns the dense bits of the specified bit-set (at most the specified number of words if compressed).
+    private static long[] bitsOf(FastBitSet that, int length) {
+        return (that.compressed != null) ? that.compressed.toLongArray(length) : that.bits;
+    }
+
+    // Returns the specified count or Integer.MAX_VALUE if greater.
+    private static int clamp(long count) {
+        return (int) MathLib.min(count, Integer.MAX_VALUE);
+    }
+
+    // Updates the cached cardinality after a single bit update.
+    private void updated(boolean previous, boolean value) {
+        if ((cardinality >= 0) && (previous != value)) cardinality += value ? 1 : -1;
+    }
+
+    // Performs the specified operation on the specified number of words (concurrently for large bit-sets),
+    // returns the number of bits set in the result.
+    private static long apply(final int op, final long[] bits, final long[] thatBits, int length) {
+        if (length < PARALLEL_THRESHOLD) return apply(op, bits, thatBits, 0, length);
+        final int[] counts;
+        ConcurrentContext ctx = ConcurrentContext.enter();
+        try { // Range partitioning.
+            int n = ctx.getConcurrency() + 1;
+            counts = new int[n];
+            for (int c = 1; c < n; c++) {
+                final int chunk = c;
+                final int from = (int) ((long) c * length / n);
+                final int to = (int) ((long) (c + 1) * length / n);
+                ctx.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        counts[chunk] = apply(op, bits, thatBits, from, to);
+                    }
+                });
+            }
+            counts[0] = apply(op, bits, thatBits, 0, (int) ((long) length / n)); // Current thread needs to work too!
+        } finally {
+            ctx.exit();
+        }
+        long sum = 0;
+        for (int count : counts)
+            sum += count;
+        return sum;
+    }
+
+    // Performs the specified operation on the words in the specified range, returns the number of bits set
+    // in the result (the words of that bit-set beyond its length are zeros).
+    private static int apply(int op, long[] bits, long[] thatBits, int from, int to) {
+        int n = MathLib.max(from, MathLib.min(to, thatBits.length));
+        int sum = 0;
+        switch (op) {
+            case AND:
+                for (int i = from; i < n; i++)
+                    sum += Long.bitCount(bits[i] &= thatBits[i]);
+                Arrays.fill(bits, n, to, 0L);
+                return sum;
+            case OR:
+                for (int i = from; i < n; i++)
+                    sum += Long.bitCount(bits[i] |= thatBits[i]);
+                break;
+            case XOR:
+                for (int i = from; i < n; i++)
+                    sum += Long.bitCount(bits[i] ^= thatBits[i]);
+                break;
+            case AND_NOT:
+                for (int i = from; i < n; i++)
+                    sum += Long.bitCount(bits[i] &= ~thatBits[i]);
+                break;
+            case OR_NOT:
+                for (int i = from; i < n; i++)
+                    sum += Long.bitCount(bits[i] |= ~thatBits[i]);
+                Arrays.fill(bits, n, to, -1L);
+                return sum + 64 * (to - n);
+            default: // AND_COUNT
+                for (int i = from; i < n; i++)
+                    sum += Long.bitCount(bits[i] & thatBits[i]);
+                return sum;
+        }
+        for (int i = n; i < to; i++) // Unchanged words.
+            sum += Long.bitCount(bits[i]);
+        return sum;
+    }
+
+    // Returns the compressed bits of the specified bit-set.
+    private static CompressedBitSetImpl compressedBits(FastBitSet that) {
+        return (that.compressed != null) ? that.compressed : CompressedBitSetImpl.valueOf(that.bits);
+    }
+
     // Checks capacity.
     private void ensureCapacity(int capacity) {
         if (bits.length < capacity) {
@@ -574,18 +1051,21 @@ public class FastBitSet extends AbstractSet<Index> {
     private static final class IteratorImpl implements FastIterator<Index> {
 
         private final FastBitSet that;
-        private int nextIndex;
-        private int currentIndex = -1;
+        private long nextIndex;
+        private boolean hasNext;
+        private long currentIndex;
+        private boolean hasCurrent;
         private boolean reversed;
 
-        public IteratorImpl(FastBitSet that, int from, boolean reversed) {
+        public IteratorImpl(FastBitSet that, long from, boolean reversed) {
             this.that = that;
-            this.nextIndex = reversed ? that.previousSetBit(from) : that.nextSetBit(from);
             this.reversed = reversed;
+            nextIndex = reversed ? that.previousSetBit(from) : that.nextSetBit(from);
+            hasNext = (nextIndex != -1) || ((from == -1L) || !reversed) && that.get(-1L); // Index.MAX
         }
 
         public boolean hasNext() {
-            return (nextIndex >= 0);
+            return hasNext;
         }
 
         @Override
@@ -598,18 +1078,25 @@ public class FastBitSet extends AbstractSet<Index> {
         }
 
         public Index next() {
-            if (nextIndex < 0)
+            if (!hasNext)
                 throw new NoSuchElementException();
             currentIndex = nextIndex;
-            nextIndex = reversed ? that.previousSetBit(nextIndex - 1) : that.nextSetBit(nextIndex + 1);
+            hasCurrent = true;
+            if (reversed) {
+                nextIndex = that.previousSetBit(currentIndex - 1);
+                hasNext = (currentIndex != 0) && (nextIndex != -1);
+            } else {
+                nextIndex = that.nextSetBit(currentIndex + 1);
+                hasNext = (currentIndex != -1L) && ((nextIndex != -1) || that.get(-1L));
+            }
             return Index.of(currentIndex);
         }
 
         public void remove() {
-            if (currentIndex < 0)
+            if (!hasCurrent)
                 throw new IllegalStateException();
             that.clear(currentIndex);
-            currentIndex = -1;
+            hasCurrent = false;
         }
 
     }
@@ -0,0 +1,453 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+import static org.javolution.annotations.Realtime.Limit.LOG_N;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.context.ConcurrentContext;
+import org.javolution.lang.MathLib;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A priority queue (binary heap) whose head is the smallest element according to the heap comparator
+ * (e.g. an {@link Order}).
+ *
+ * Elements are inserted with a {@link Handle handle} allowing for their {@link #update update} (e.g. decrease-key)
+ * or {@link #remove(Handle) removal} in logarithmic time.
+ *
+ * ```java
+ * FastHeap<Task> tasks = new FastHeap<Task>(Task.BY_DEADLINE);
+ * FastHeap.Handle<Task> handle = tasks.insert(task);
+ * ...
+ * task.postpone(); // Changes the task order.
+ * tasks.update(handle, task); // Restores the heap order.
+ * Task next = tasks.poll(); // Task with the earliest deadline.
+ * ```
+ *
+ * Bounded heaps retain the {@link #maxSize maxSize} greatest elements (top-K); when full, an element greater
+ * than the head replaces the head, smaller elements are rejected.
+ *
+ * ```java
+ * FastHeap<Score> top10 = new FastHeap<Score>(Score.BY_VALUE, 10);
+ * for (Score score : scores) top10.add(score); // O(n log k)
+ * ```
+ *
+ * Adding a large collection at once ({@link #addAll(Collection) addAll}) builds the heap bottom-up in linear time,
+ * independent subtrees being heapified {@link ConcurrentContext concurrently}.
+ *
+ * Iterations are performed in heap order (the head first, otherwise unsorted).
+ *
+ * @param <E> the type of heap elements ({@code null} instances are not supported)
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 7.0, September 13, 2015
+ */
+public class FastHeap<E> extends AbstractCollection<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /** The minimum number of elements per concurrent subtree when heapifying. */
+    private static final int MIN_SUBTREE_SIZE = 4096;
+
+    /**
+     * The position of an element in a heap.
+     */
+    public static final class Handle<E> implements Serializable {
+        private static final long serialVersionUID = 0x700L; // Version.
+        private E element;
+        private int index; // Negative if removed.
+
+        private Handle(E element, int index) {
+            this.element = element;
+            this.index = index;
+        }
+
+        /** Returns the element at this position. */
+        @Realtime(limit = CONSTANT)
+        public E get() {
+            return element;
+        }
+
+        /** Indicates if the element at this position is still in the heap. */
+        @Realtime(limit = CONSTANT)
+        public boolean isValid() {
+            return index >= 0;
+        }
+    }
+
+    private final Comparator<? super E> comparator;
+    private final int maxSize;
+    private Handle<E>[] heap;
+    private int size;
+
+    /** Creates an empty heap ordered according to the elements natural order ({@link Comparable}). */
+    public FastHeap() {
+        this(new NaturalOrder<E>());
+    }
+
+    /** Creates an empty heap using the specified comparator. */
+    public FastHeap(Comparator<? super E> comparator) {
+        this(comparator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an empty heap retaining at most the specified number of elements (the greatest ones).
+     *
+     * @throws IllegalArgumentException if {@code maxSize <= 0}
+     */
+    @SuppressWarnings("unchecked")
+    public FastHeap(Comparator<? super E> comparator, int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Maximum size should be positive");
+        this.comparator = comparator;
+        this.maxSize = maxSize;
+        this.heap = new Handle[MathLib.min(16, maxSize)];
+    }
+
+    @Override
+    public FastHeap<E> with(@SuppressWarnings("unchecked") E... elements) {
+        addAll(elements);
+        return this;
+    }
+
+    /** Returns the comparator of this heap. */
+    @Realtime(limit = CONSTANT)
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /** Returns the maximum number of elements retained ({@code Integer.MAX_VALUE} if unbounded). */
+    @Realtime(limit = CONSTANT)
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Inserts the specified element.
+     *
+     * @return the handle of the element inserted or {@code null} if the heap is full and the element not greater
+     *         than the head (bounded heap).
+     * @throws NullPointerException if the specified element is {@code null}
+     */
+    @Realtime(limit = LOG_N)
+    public @Nullable Handle<E> insert(E element) {
+        if (element == null) throw new NullPointerException();
+        if (size == maxSize) { // Top-K.
+            if (comparator.compare(element, heap[0].element) <= 0) return null;
+            heap[0].index = -1;
+            Handle<E> handle = new Handle<E>(element, 0);
+            siftDown(handle, 0);
+            return handle;
+        }
+        if (size == heap.length) heap = Arrays.copyOf(heap, (int) MathLib.min(maxSize, 2L * size));
+        Handle<E> handle = new Handle<E>(element, size++);
+        siftUp(handle, size - 1);
+        return handle;
+    }
+
+    /** Returns the smallest element or {@code null} if this heap is empty. */
+    @Realtime(limit = CONSTANT)
+    public @Nullable E peek() {
+        return (size == 0) ? null : heap[0].element;
+    }
+
+    /** Returns the handle of the smallest element or {@code null} if this heap is empty. */
+    @Realtime(limit = CONSTANT)
+    public @Nullable Handle<E> peekHandle() {
+        return (size == 0) ? null : heap[0];
+    }
+
+    /** Removes and returns the smallest element or {@code null} if this heap is empty. */
+    @Realtime(limit = LOG_N)
+    public @Nullable E poll() {
+        return (size == 0) ? null : removeAt(0);
+    }
+
+    /**
+     * Replaces the element at the specified position and restores the heap order (the new element may be
+     * the same instance whose order has changed).
+     *
+     * @throws IllegalArgumentException if the handle is not valid for this heap
+     * @throws NullPointerException if the specified element is {@code null}
+     */
+    @Realtime(limit = LOG_N)
+    public void update(Handle<E> handle, E element) {
+        if (element == null) throw new NullPointerException();
+        int i = indexOf(handle);
+        handle.element = element;
+        siftUp(handle, i);
+        if (handle.index == i) siftDown(handle, i);
+    }
+
+    /**
+     * Removes the element at the specified position.
+     *
+     * @return the element removed.
+     * @throws IllegalArgumentException if the handle is not valid for this heap
+     */
+    @Realtime(limit = LOG_N)
+    public E remove(Handle<E> handle) {
+        return removeAt(indexOf(handle));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Collection Interface.
+    //
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public boolean add(E element) {
+        return insert(element) != null;
+    }
+
+    /** Adds the elements of the specified collection; if the collection is larger than this heap, the heap
+     *  is rebuilt bottom-up (concurrently for large heaps). */
+    @Override
+    @Realtime(limit = LINEAR)
+    public boolean addAll(Collection<? extends E> that) {
+        int n = that.size();
+        if ((maxSize != Integer.MAX_VALUE) || (n <= size)) return super.addAll(that);
+        if (size + n > heap.length) heap = Arrays.copyOf(heap, size + n);
+        for (E e : that) {
+            if (e == null) throw new NullPointerException();
+            heap[size] = new Handle<E>(e, size);
+            size++;
+        }
+        heapify();
+        return n != 0;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public boolean removeIf(Predicate<? super E> filter) {
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            Handle<E> handle = heap[i];
+            if (filter.test(handle.element)) {
+                handle.index = -1;
+                continue;
+            }
+            handle.index = j;
+            heap[j++] = handle;
+        }
+        if (j == size) return false;
+        Arrays.fill(heap, j, size, null);
+        size = j;
+        heapify();
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].index = -1;
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    /** Returns an iterator in heap order (the head first). */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public FastIterator<E> iterator() {
+        return new IteratorImpl(0, 1);
+    }
+
+    /** Returns an iterator in reverse heap order (the head last). */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public FastIterator<E> descendingIterator() {
+        return new IteratorImpl(size - 1, -1);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public Equality<? super E> equality() {
+        return Equality.standard();
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public AbstractCollection<E>[] trySplit(int n) {
+        FastTable<E> snapshot = new FastTable<E>();
+        for (int i = 0; i < size; i++)
+            snapshot.addLast(heap[i].element);
+        return snapshot.trySplit(n);
+    }
+
+    /** Returns a copy of this heap (the handles of this heap are not valid for the copy). */
+    @Override
+    @Realtime(limit = LINEAR)
+    public FastHeap<E> clone() {
+        FastHeap<E> copy = (FastHeap<E>) super.clone();
+        copy.heap = Arrays.copyOf(heap, heap.length);
+        for (int i = 0; i < size; i++)
+            copy.heap[i] = new Handle<E>(heap[i].element, i);
+        return copy;
+    }
+
+    /** Returns the index of the specified handle. */
+    private int indexOf(Handle<E> handle) {
+        int i = handle.index;
+        if ((i < 0) || (i >= size) || (heap[i] != handle)) throw new IllegalArgumentException("Invalid handle");
+        return i;
+    }
+
+    private E removeAt(int i) {
+        Handle<E> removed = heap[i];
+        removed.index = -1;
+        Handle<E> last = heap[--size];
+        heap[size] = null;
+        if (i != size) {
+            siftDown(last, i);
+            if (last.index == i) siftUp(last, i);
+        }
+        return removed.element;
+    }
+
+    /** Moves up the specified handle from the specified index (hole) to its position. */
+    private void siftUp(Handle<E> handle, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Handle<E> p = heap[parent];
+            if (comparator.compare(handle.element, p.element) >= 0) break;
+            heap[i] = p;
+            p.index = i;
+            i = parent;
+        }
+        heap[i] = handle;
+        handle.index = i;
+    }
+
+    /** Moves down the specified handle from the specified index (hole) to its position. */
+    private void siftDown(Handle<E> handle, int i) {
+        for (int half = size >>> 1; i < half;) {
+            int child = 2 * i + 1;
+            Handle<E> c = heap[child];
+            int right = child + 1;
+            if ((right < size) && (comparator.compare(heap[right].element, c.element) < 0)) c = heap[child = right];
+            if (comparator.compare(handle.element, c.element) <= 0) break;
+            heap[i] = c;
+            c.index = i;
+            i = child;
+        }
+        heap[i] = handle;
+        handle.index = i;
+    }
+
+    /** Restores the heap order bottom-up (Floyd). The subtrees rooted at the same level are disjoint and
+     *  heapified concurrently, then the nodes above them. */
+    private void heapify() {
+        int subtrees = 1;
+        if (size >= 2 * MIN_SUBTREE_SIZE) {
+            ConcurrentContext ctx = ConcurrentContext.enter();
+            try {
+                subtrees = Integer.highestOneBit(MathLib.min(ctx.getConcurrency() + 1, size / MIN_SUBTREE_SIZE));
+                for (int i = 1; i < subtrees; i++) {
+                    final int root = subtrees - 1 + i;
+                    ctx.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            heapify(root);
+                        }
+                    });
+                }
+                heapify(subtrees - 1); // Current thread needs to work too!
+            } finally {
+                ctx.exit(); // Waits for concurrent completion.
+            }
+        } else {
+            heapify(0);
+        }
+        for (int i = subtrees - 2; i >= 0; i--)
+            siftDown(heap[i], i);
+    }
+
+    /** Heapifies the subtree rooted at the specified index (deepest level first). */
+    private void heapify(int root) {
+        for (int depth = 31 - Integer.numberOfLeadingZeros(size); depth >= 0; depth--) {
+            long first = ((root + 1L) << depth) - 1;
+            long last = MathLib.min(first + (1L << depth), size >>> 1) - 1; // Nodes with children.
+            for (long i = last; i >= first; i--)
+                siftDown(heap[(int) i], (int) i);
+        }
+    }
+
+    /** Iterator in heap (array) order. */
+    private final class IteratorImpl implements FastIterator<E> {
+        private int next;
+        private final int increment;
+
+        private IteratorImpl(int next, int increment) {
+            this.next = next;
+            this.increment = increment;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (next >= 0) && (next < size);
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            for (; hasNext(); next += increment)
+                if (matching.test(heap[next].element)) return true;
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E element = heap[next].element;
+            next += increment;
+            return element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /** The natural order of comparable elements. */
+    private static final class NaturalOrder<E> implements Comparator<E>, Serializable {
+        private static final long serialVersionUID = 0x700L; // Version.
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public int compare(E left, E right) {
+            return ((Comparable<E>) left).compareTo(right);
+        }
+    }
+
+}
@@ -10,10 +10,14 @@ package org.javolution.util;
 
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
 
+import java.io.Serializable;
+
 import org.javolution.annotations.Realtime;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Indexer;
 import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.function.SpatialOrder;
 
 /**
  * High-performance ordered map / multimap based upon fast-access {@link FractalArray}. 
@@ -130,6 +134,7 @@ public class FastMap<K, V> extends AbstractMap<K, V> {
     private final Order<? super K> keyOrder; 
     private final Equality<? super V> valuesEquality; 
     private final FastSet<Entry<K,V>> entries; 
+    private final KeyProbeImpl<K,V> keyProbe; // Searches entries by key (no allocation).
     
     /** Creates a {@link Equality#STANDARD standard} map arbitrarily ordered. */
     public FastMap() {
@@ -152,6 +157,7 @@ public class FastMap<K, V> extends AbstractMap<K, V> {
     public FastMap(Order<? super K> keyOrder, Equality<? super V> valuesEquality) {
         this.keyOrder = keyOrder;
         this.valuesEquality = valuesEquality;
+        this.keyProbe = new KeyProbeImpl<K,V>(keyOrder);
         this.entries = new FastSet<Entry<K,V>>(new Order<Entry<K,V>>() {
             private static final long serialVersionUID = FastMap.serialVersionUID;
 
@@ -186,6 +192,7 @@ public class FastMap<K, V> extends AbstractMap<K, V> {
        this.keyOrder = keyOrder;
        this.valuesEquality = valuesEquality;
        this.entries = entries;
+       this.keyProbe = new KeyProbeImpl<K,V>(keyOrder);
     }
     
     @Override
@@ -193,7 +200,9 @@ public class FastMap<K, V> extends AbstractMap<K, V> {
         return entries;
     }
 
-    /** Freezes this map and returns the corresponding {@link Immutable} instance (cannot be reversed). */
+    /** Freezes this map and returns the corresponding {@link Immutable} instance (cannot be reversed).
+     *  The entries are {@link FractalArray#compact compacted} (see {@link FastSet#freeze}). */
+    @Realtime(limit = LINEAR)
     public final Immutable<K,V> freeze() {
         return new Immutable<K,V>(keyOrder, valuesEquality, entries.freeze());
     }
@@ -220,6 +229,101 @@ public class FastMap<K, V> extends AbstractMap<K, V> {
         return new FastMap<K,V>(keyOrder, valuesEquality, entries.clone());
     }
 
+    /**
+     * Returns the map holding the entries of this map and the entries of the specified map whose key is not 
+     * a key of this map (union of the key sets). When both maps have the same key order, their entries are 
+     * merged in index order (see {@link FastSet#union}).
+     */
+    @Realtime(limit = LINEAR)
+    public FastMap<K, V> union(FastMap<K, V> that) {
+        if (that.keyOrder == keyOrder) 
+            return new FastMap<K,V>(keyOrder, valuesEquality, entries.merge(that.entries, true, true, keyMatching()));
+        FastMap<K, V> union = clone();
+        for (Entry<K, V> entry : that.entries) 
+            if (union.getEntry(entry.getKey()) == null) union.addEntry(entry.getKey(), entry.getValue());
+        return union;
+    }
+
+    /**
+     * Returns the map holding the entries of this map whose key is a key of the specified map (intersection of 
+     * the key sets). When both maps have the same key order, their entries are merged in index order.
+     */
+    @Realtime(limit = LINEAR)
+    public FastMap<K, V> intersect(final FastMap<K, V> that) {
+        if (that.keyOrder == keyOrder) 
+            return new FastMap<K,V>(keyOrder, valuesEquality, entries.merge(that.entries, false, false, keyMatching()));
+        FastMap<K, V> intersection = clone();
+        intersection.entries.removeIf(new Predicate<Entry<K, V>>() {
+            @Override
+            public boolean test(Entry<K, V> entry) {
+                return that.getEntry(entry.getKey()) == null;
+            }
+        });
+        return intersection;
+    }
+
+    /**
+     * Returns the map holding the entries of this map whose key is not a key of the specified map (difference of 
+     * the key sets). When both maps have the same key order, their entries are merged in index order.
+     */
+    @Realtime(limit = LINEAR)
+    public FastMap<K, V> subtract(final FastMap<K, V> that) {
+        if (that.keyOrder == keyOrder) 
+            return new FastMap<K,V>(keyOrder, valuesEquality, entries.merge(that.entries, true, false, keyMatching()));
+        FastMap<K, V> difference = clone();
+        difference.entries.removeIf(new Predicate<Entry<K, V>>() {
+            @Override
+            public boolean test(Entry<K, V> entry) {
+                return that.getEntry(entry.getKey()) != null;
+            }
+        });
+        return difference;
+    }
+
+    /**
+     * Returns the map holding the entries of this map whose key is inside the bounding box having the specified 
+     * lower and upper corners (inclusive); the map key order should be a {@link SpatialOrder spatial order}.
+     * The search skips the indices outside the box (see {@link FastSet#within}).
+     * 
+     * ```java
+     * FastMap<Binary<Index, Index>, Store> stores = new FastMap<>(Order.quadtree());
+     * ...
+     * FastMap<Binary<Index, Index>, Store> storesInArea = stores.within(southWest, northEast);
+     * ```
+     * 
+     * @throws UnsupportedOperationException if the key order is not a {@link SpatialOrder}.
+     */
+    @Realtime(limit = LINEAR, comment = "Linear in the number of entries inside or near the box")
+    public FastMap<K, V> within(K min, K max) {
+        return new FastMap<K,V>(keyOrder, valuesEquality, 
+                entries.within(FastSet.spatialOrder(keyOrder), keyOrder.indexOf(min), keyOrder.indexOf(max)));
+    }
+
+    /**
+     * Returns the entries of this map whose keys are the nearest to the specified key, closest first; 
+     * the map key order should be a {@link SpatialOrder spatial order} (see {@link FastSet#nearest}).
+     * 
+     * @param key the point whose neighbours are returned.
+     * @param k the maximum number of entries returned.
+     * @throws UnsupportedOperationException if the key order is not a {@link SpatialOrder}.
+     */
+    @Realtime(limit = LINEAR, comment = "Linear in the number of entries in the search box")
+    public FastTable<Entry<K, V>> nearest(K key, int k) {
+        return entries.nearest(FastSet.spatialOrder(keyOrder), keyOrder.indexOf(key), k);
+    }
+
+    /** Returns the equality matching entries by key. */
+    private Equality<Entry<K, V>> keyMatching() {
+        return new Equality<Entry<K, V>>() {
+            private static final long serialVersionUID = FastMap.serialVersionUID;
+
+            @Override
+            public boolean areEqual(Entry<K, V> left, Entry<K, V> right) {
+                return keyOrder.areEqual(left.getKey(), right.getKey());
+            }
+        };
+    }
+
     public static class EntryWithoutValue<K, V> extends Entry<K, V> {
 
         public EntryWithoutValue(K key) {
@@ -227,14 +331,35 @@ public class FastMap<K, V> extends AbstractMap<K, V> {
         }
     }
 
+    /** Probes entries directly by key, the key order being used only for the key comparison. */
+    private static final class KeyProbeImpl<K, V> implements FastSet.KeyProbe<Entry<K,V>, K>, Serializable {
+        private static final long serialVersionUID = FastMap.serialVersionUID;
+        private final Order<? super K> keyOrder;
+
+        private KeyProbeImpl(Order<? super K> keyOrder) {
+            this.keyOrder = keyOrder;
+        }
+
+        @Override
+        public boolean hasKey(Entry<K, V> entry, K key) {
+            return keyOrder.areEqual(key, entry.getKey());
+        }
+
+        @Override
+        public Entry<K, V> searchElement(K key) {
+            return new EntryWithoutValue<K,V>(key);
+        }
+        
+    }
+
     @Override
     public final Entry<K, V> getEntry(K key) {
-        return entries.getAny(new EntryWithoutValue<K,V>(key));
+        return entries.getAny(keyOrder.indexOf(key), key, keyProbe);
     }
    
     @Override
     public final Entry<K, V> removeEntry(K key) {
-        return entries.removeAny(new EntryWithoutValue<>(key));
+        return entries.removeAny(keyOrder.indexOf(key), key, keyProbe);
     }
 
     @Override
@@ -12,7 +12,10 @@ import static org.javolution.annotations.Realtime.Limit.CONSTANT;
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
 import static org.javolution.lang.MathLib.unsignedLessThan;
 
+import java.util.Comparator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.annotations.Parallel;
@@ -22,6 +25,7 @@ import org.javolution.util.function.Equality;
 import org.javolution.util.function.Indexer;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.function.SpatialOrder;
 import org.javolution.util.internal.set.SortedSetImpl;
 
 /**
@@ -62,6 +66,15 @@ import org.javolution.util.internal.set.SortedSetImpl;
  * names.filter(str -> str.length < 5).parallel().clear(); // Same as above but removal performed concurrently.
  * ``` 
  *      
+ * Sets having a {@link SpatialOrder spatial order} support bounding-box and nearest neighbours queries. 
+ * 
+ * ```java
+ * FastSet<Binary<Index, Index>> locations = new FastSet<>(Order.quadtree());
+ * ...
+ * FastSet<Binary<Index, Index>> visible = locations.within(topLeft, bottomRight);
+ * FastTable<Binary<Index, Index>> closest = locations.nearest(here, 10); // Closest first.
+ * ``` 
+ *      
  * Multiple instances of set's elements are supported (multiset). For two sets / multisets to be considered equal 
  * the cardinality of each of their elements must be the same (the cardinality of standard sets elements is one).
  * 
@@ -102,6 +115,20 @@ public class FastSet<E> extends AbstractSet<E> {
         }
     }
 
+    /** 
+     * Key-based probe (package private) allowing elements to be searched by key without allocating a search
+     * element (e.g. map entries searched by key).
+     */
+    interface KeyProbe<E, K> {
+        
+        /** Indicates if the specified element has the specified key. */
+        boolean hasKey(E element, K key);
+
+        /** Returns a search element for the specified key (called only when there are collisions). */
+        E searchElement(K key);
+
+    }
+
     final Order<? super E> order;
     FractalArray<E> singles; // Hold instances for which there is no collisions.  
     FractalArray<AbstractSet<E>> multiples; // Holds instances for which there are collisions (same index value). 
@@ -136,14 +163,19 @@ public class FastSet<E> extends AbstractSet<E> {
        this.size = size;
     }
 
-    /** Freezes this set and returns the corresponding {@link Immutable} instance (cannot be reversed). */
+    /** Freezes this set and returns the corresponding {@link Immutable} instance (cannot be reversed).
+     *  The elements are {@link FractalArray#compact compacted} into an open-addressed table (or a contiguous
+     *  array if their indices are dense), lookups read one or two cache lines. */
+    @Realtime(limit = LINEAR)
     public final Immutable<E> freeze() {
-        singles = singles.unmodifiable();
         for (FractalArray.Iterator<AbstractSet<E>> itr = multiples.iterator(); itr.hasNext();) {
             long index = itr.nextIndex();
-            multiples.set(index, itr.next().unmodifiable()); // Replaces.
+            AbstractSet<E> multiple = itr.next();
+            multiples = multiples.set(index, (multiple instanceof FastSet) ? ((FastSet<E>) multiple).freeze()
+                    : multiple.unmodifiable()); // Replaces.
         }
-        multiples = multiples.unmodifiable();
+        singles = singles.compact();
+        multiples = multiples.compact();
         return new Immutable<E>(order, singles, multiples, size);
     }
 
@@ -173,6 +205,8 @@ public class FastSet<E> extends AbstractSet<E> {
                 singles = singles.clear(index); // No more single.
                 Order<? super E> subOrder = order.subOrder(element); 
                 multiple = (subOrder != null) ? new FastSet<E>(subOrder) : new SortedSetImpl<E>(order);
+                multiple.add(single, true);
+                multiple.add(element, true);
                 multiples = multiples.set(index, multiple);
             } else { // Empty slot.
                 singles = singles.set(index, element);
@@ -197,6 +231,35 @@ public class FastSet<E> extends AbstractSet<E> {
         }
     }
     
+    /** 
+     * Returns any element at the specified index having the specified key (package private); no allocation 
+     * is performed unless there are collisions at the specified index.
+     */
+    @Realtime(limit = CONSTANT)
+    final <K> E getAny(long index, K key, KeyProbe<E, K> probe) {
+        E single = singles.get(index);
+        if (single != null) return probe.hasKey(single, key) ? single : null;
+        AbstractSet<E> multiple = multiples.get(index);
+        return (multiple != null) ? multiple.getAny(probe.searchElement(key)) : null;
+    }
+
+    /** 
+     * Removes any element at the specified index having the specified key (package private); no allocation 
+     * is performed unless there are collisions at the specified index.
+     */
+    @Realtime(limit = CONSTANT)
+    final <K> E removeAny(long index, K key, KeyProbe<E, K> probe) {
+        E single = singles.get(index);
+        if (single != null) {
+            if (!probe.hasKey(single, key)) return null;
+            singles = singles.clear(index);
+            --size;
+            return single;
+        }
+        AbstractSet<E> multiple = multiples.get(index);
+        return (multiple != null) ? removeMultiple(index, multiple, probe.searchElement(key)) : null;
+    }
+
     @Override
     public void clear() {
         singles = FractalArray.empty();
@@ -205,7 +268,7 @@ public class FastSet<E> extends AbstractSet<E> {
     }
 
     @Override
-    @Realtime(limit = LINEAR)
+    @Realtime(limit = LINEAR, comment = "Linear in the number of collisions (copies share their structure with the original)")
     public FastSet<E> clone() {
         FastSet<E> copy = (FastSet<E>) super.clone();
         copy.singles = singles.clone();
@@ -213,11 +276,238 @@ public class FastSet<E> extends AbstractSet<E> {
         for (FractalArray.Iterator<AbstractSet<E>> itr = multiples.iterator(); itr.hasNext();) {
             long index = itr.nextIndex();
             AbstractSet<E> multiple = itr.next();
-            copy.multiples.set(index, multiple.clone()); // Replaces.
+            copy.multiples = copy.multiples.set(index, multiple.clone()); // Replaces.
         }
         return copy;
     }
 
+    /**
+     * Returns the union of this set with the specified set (the elements of this set and the elements of the 
+     * specified set having no equal in this set). When both sets have the same order, their fractal arrays are 
+     * merged in index order; the portions which do not intersect are shared (or skipped) as a whole and large 
+     * sets are merged concurrently.
+     * 
+     * ```java
+     * FastSet<String> all = primaryNames.union(secondaryNames); // Operands are not modified. 
+     * ```
+     */
+    @Realtime(limit = LINEAR)
+    public FastSet<E> union(FastSet<E> that) {
+        if (that.order == order) return merge(that, true, true, order);
+        FastSet<E> union = clone();
+        for (E element : that) 
+            union.add(element);
+        return union;
+    }
+
+    /**
+     * Returns the intersection of this set with the specified set (the elements of this set having an equal in the
+     * specified set). When both sets have the same order, their fractal arrays are merged in index order.
+     */
+    @Realtime(limit = LINEAR)
+    public FastSet<E> intersect(FastSet<E> that) {
+        if (that.order == order) return merge(that, false, false, order);
+        FastSet<E> intersection = clone();
+        intersection.retainAll(that);
+        return intersection;
+    }
+
+    /**
+     * Returns the difference of this set with the specified set (the elements of this set having no equal in the 
+     * specified set). When both sets have the same order, their fractal arrays are merged in index order.
+     */
+    @Realtime(limit = LINEAR)
+    public FastSet<E> subtract(FastSet<E> that) {
+        if (that.order == order) return merge(that, true, false, order);
+        FastSet<E> difference = clone();
+        difference.removeAll(that);
+        return difference;
+    }
+
+    /** 
+     * Merges this set with the specified set indexed the same way (package private); the elements of both sets
+     * are matched using the specified equality (e.g. map entries matched by key). The singles are merged in index 
+     * order, the collisions (rare) are processed element by element.
+     */
+    final FastSet<E> merge(FastSet<E> that, final boolean keepThis, final boolean keepThat, 
+            final Equality<? super E> matching) {
+        final FastTable<E> pending = new FastTable<E>(); // Elements to be added once the singles are merged.
+        FractalArray<E> merged = singles.merge(that.singles, keepThis, keepThat, new FractalArray.Merger<E>() {
+            @Override
+            public E merge(long index, E left, E right) { // Can be called concurrently.
+                if (matching.areEqual(left, right)) return (keepThat || !keepThis) ? left : null;
+                if (keepThat) {
+                    synchronized (pending) {
+                        pending.add(right); // Collision.
+                    }
+                }
+                return keepThis ? left : null;
+            }
+        });
+        FastSet<E> result = new FastSet<E>(order, merged, FractalArray.<AbstractSet<E>>empty(), 
+                (int) merged.count(0, -1));
+        for (FractalArray.Iterator<AbstractSet<E>> itr = multiples.iterator(); itr.hasNext();) {
+            long index = itr.nextIndex();
+            AbstractSet<E> multiple = itr.next();
+            E single = result.singles.get(index); // From the specified set.
+            if (single != null) {
+                result.singles = result.singles.clear(index);
+                result.size--;
+                pending.add(single);
+            }
+            for (E element : multiple) 
+                if (keepThis ? (keepThat || !that.hasMatch(element, matching)) : that.hasMatch(element, matching)) 
+                    result.add(element, true);
+        }
+        for (FractalArray.Iterator<AbstractSet<E>> itr = that.multiples.iterator(); itr.hasNext();) {
+            long index = itr.nextIndex();
+            AbstractSet<E> multiple = itr.next();
+            if (keepThat) { 
+                pending.addAll(multiple);
+                continue;
+            }
+            E single = singles.get(index); // From this set.
+            if ((single == null) || !that.hasMatch(single, matching)) continue;
+            if (keepThis) { // Difference.
+                result.singles = result.singles.clear(index);
+                result.size--;
+            } else { // Intersection.
+                result.add(single, true);
+            }
+        }
+        for (E element : pending) 
+            if (!result.hasMatch(element, matching)) result.add(element, true);
+        return result;
+    }
+
+    /**
+     * Returns the elements of this set inside the bounding box having the specified lower and upper corners 
+     * (inclusive). The indices outside the box are not scanned; each time an element outside the box is found,
+     * the search resumes at the next index (Morton code) inside the box.
+     * 
+     * @param min the lower corner of the bounding box.
+     * @param max the upper corner of the bounding box.
+     * @return a new set holding the elements inside the box.
+     * @throws UnsupportedOperationException if this set order is not a {@link SpatialOrder}.
+     */
+    @Realtime(limit = LINEAR, comment = "Linear in the number of elements inside or near the box")
+    public FastSet<E> within(E min, E max) {
+        return within(spatialOrder(order), order.indexOf(min), order.indexOf(max));
+    }
+
+    /**
+     * Returns the elements of this set nearest to the specified point, closest first. The neighbours along the 
+     * Morton curve provide an upper bound of the search radius; the elements are then searched 
+     * {@link #within within} the corresponding bounding box.
+     * 
+     * @param point the point whose neighbours are returned.
+     * @param k the maximum number of elements returned.
+     * @return a new table holding the {@code k} (at most) nearest elements sorted by distance.
+     * @throws UnsupportedOperationException if this set order is not a {@link SpatialOrder}.
+     */
+    @Realtime(limit = LINEAR, comment = "Linear in the number of elements in the search box")
+    public FastTable<E> nearest(E point, int k) {
+        return nearest(spatialOrder(order), order.indexOf(point), k);
+    }
+
+    /** Returns the specified order as a spatial order (package private). */
+    static SpatialOrder<?> spatialOrder(Order<?> order) {
+        if (!(order instanceof SpatialOrder)) throw new UnsupportedOperationException("Spatial order required");
+        return (SpatialOrder<?>) order;
+    }
+
+    /** 
+     * Returns the elements whose index is inside the box having the specified corners' indices with regard to the 
+     * specified spatial order (package private).
+     */
+    final FastSet<E> within(SpatialOrder<?> spatial, long min, long max) {
+        FastSet<E> result = new FastSet<E>(order);
+        if (!spatial.isInside(min, min, max)) return result; // Empty box.
+        for (FractalArray.Iterator<E> itr = singles.iterator(min); itr.hasNext();) {
+            long index = itr.nextIndex();
+            if (unsignedLessThan(max, index)) break;
+            if (spatial.isInside(index, min, max)) {
+                result.singles = result.singles.set(index, itr.next());
+                result.size++;
+            } else { // Skips the indices outside the box.
+                itr = singles.iterator(spatial.nextInside(index, min, max));
+            }
+        }
+        for (FractalArray.Iterator<AbstractSet<E>> itr = multiples.iterator(min); itr.hasNext();) {
+            long index = itr.nextIndex();
+            if (unsignedLessThan(max, index)) break;
+            if (spatial.isInside(index, min, max)) {
+                AbstractSet<E> multiple = itr.next();
+                result.multiples = result.multiples.set(index, multiple.clone());
+                result.size += multiple.size();
+            } else {
+                itr = multiples.iterator(spatial.nextInside(index, min, max));
+            }
+        }
+        return result;
+    }
+
+    /** 
+     * Returns the {@code k} elements nearest to the point having the specified index with regard to the specified
+     * spatial order (package private).
+     */
+    final FastTable<E> nearest(final SpatialOrder<?> spatial, final long point, int k) {
+        FastTable<E> nearest = new FastTable<E>();
+        if ((k <= 0) || (size == 0)) return nearest;
+        double radius = Double.POSITIVE_INFINITY; // Whole space.
+        if (k < size) { // The k-th closest of the 2k neighbours along the curve bounds the radius. 
+            FastTable<E> neighbours = new FastTable<E>();
+            FastIterator<E> next = new AscendingIteratorImpl(point, null);
+            while (next.hasNext() && (neighbours.size() < k)) 
+                neighbours.add(next.next());
+            if (point != 0) {
+                FastIterator<E> previous = new DescendingIteratorImpl(point - 1, null);
+                for (int i = 0; previous.hasNext() && (i < k); i++) 
+                    neighbours.add(previous.next());
+            }
+            if (neighbours.size() >= k) {
+                sortByDistance(neighbours, spatial, point);
+                radius = spatial.distance(point, order.indexOf(neighbours.get(k - 1)));
+            }
+        }
+        long[] lower = new long[spatial.dimension()];
+        long[] upper = new long[spatial.dimension()];
+        long delta = (long) MathLib.min(MathLib.ceil(radius), spatial.maxCoordinate());
+        for (int axis = 0; axis < lower.length; axis++) {
+            long coordinate = spatial.coordinate(point, axis);
+            lower[axis] = MathLib.max(coordinate - delta, 0);
+            upper[axis] = MathLib.min(coordinate + delta, spatial.maxCoordinate());
+        }
+        nearest.addAll(within(spatial, spatial.index(lower), spatial.index(upper)));
+        sortByDistance(nearest, spatial, point);
+        while (nearest.size() > k) 
+            nearest.removeLast();
+        return nearest;
+    }
+
+    /** Sorts the specified elements by distance to the point having the specified index. */
+    private void sortByDistance(FastTable<E> elements, final SpatialOrder<?> spatial, final long point) {
+        elements.sort(new Comparator<E>() {
+            @Override
+            public int compare(E left, E right) {
+                return Double.compare(spatial.distance(point, order.indexOf(left)), 
+                        spatial.distance(point, order.indexOf(right)));
+            }
+        });
+    }
+
+    /** Indicates if this set holds an element matching the specified element (collisions are searched). */
+    private boolean hasMatch(E element, Equality<? super E> matching) {
+        long index = order.indexOf(element);
+        E single = singles.get(index);
+        if (single != null) return matching.areEqual(single, element);
+        AbstractSet<E> multiple = multiples.get(index);
+        if (multiple == null) return false;
+        for (E e : multiple) 
+            if (matching.areEqual(e, element)) return true;
+        return false;
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public final Order<? super E> order() {
@@ -255,24 +545,38 @@ public class FastSet<E> extends AbstractSet<E> {
         return new AscendingIteratorImpl(from);
     }
         
+    /**
+     * Returns a spliterator over this set elements splitting the range of indices in halves; the sizes of the 
+     * sub-spliterators are exact ({@link Spliterator#SUBSIZED SUBSIZED}) which allows for even splitting 
+     * by {@code java.util.stream} parallel streams.
+     */
+    @Realtime(limit = CONSTANT)
+    @Override
+    public final Spliterator<E> spliterator() {
+        return new SpliteratorImpl(singles, multiples, 0, -1, size);
+    }
+
     @Parallel(false)
     @Override
     @Realtime(limit = CONSTANT)
     public final E removeAny(E element) {
-        E removed;
         long index = order.indexOf(element);
         AbstractSet<E> multiple = multiples.get(index);
-        if (multiple != null) {
-            removed = multiple.removeAny(element);
-            if (removed == null) return null;
-            if (multiple.size() == 1) { // Go back to single.
-                singles = singles.set(index, multiple.findAny());
-                multiples = multiples.clear(index);
-            }
-        } else {
-            removed = singles.get(index);
-            if ((removed == null) || !order.areEqual(element, removed)) return null;
-            singles = singles.clear(index);
+        if (multiple != null) return removeMultiple(index, multiple, element);
+        E removed = singles.get(index);
+        if ((removed == null) || !order.areEqual(element, removed)) return null;
+        singles = singles.clear(index);
+        --size;
+        return removed;
+    }
+    
+    /** Removes the specified element from the specified multiple (collisions) at the specified index. */
+    private E removeMultiple(long index, AbstractSet<E> multiple, E element) {
+        E removed = multiple.removeAny(element);
+        if (removed == null) return null;
+        if (multiple.size() == 1) { // Go back to single.
+            singles = singles.set(index, multiple.findAny());
+            multiples = multiples.clear(index);
         }
         --size;
         return removed;
@@ -330,12 +634,16 @@ public class FastSet<E> extends AbstractSet<E> {
         private FractalArray.Iterator<AbstractSet<E>> multipleItr;
         private FastIterator<E> subItr; // Takes precedence when subItr.hasNext()
         
-        @SuppressWarnings("unchecked")
         public AscendingIteratorImpl(@Nullable E from) {
-            long i = (from != null) ? order.indexOf(from) : 0;
+            this((from != null) ? order.indexOf(from) : 0, from);
+        }
+
+        @SuppressWarnings("unchecked")
+        public AscendingIteratorImpl(long i, @Nullable E from) {
             singleItr = singles.iterator(i);
             multipleItr = multiples.iterator(i);            
-            if (multipleItr.hasNext() && !unsignedLessThan(singleItr.nextIndex(), multipleItr.nextIndex())) {
+            if (multipleItr.hasNext() && (!singleItr.hasNext() || 
+                    !unsignedLessThan(singleItr.nextIndex(), multipleItr.nextIndex()))) {
                 subItr = multipleItr.next().iterator(from);
             } else {
                 subItr = (FastIterator<E>) EMPTY_ITERATOR; 
@@ -355,7 +663,8 @@ public class FastSet<E> extends AbstractSet<E> {
         @Override
         public E next() {
             if (subItr.hasNext()) return subItr.next();
-            if (multipleItr.hasNext() && !unsignedLessThan(singleItr.nextIndex(), multipleItr.nextIndex())) {
+            if (multipleItr.hasNext() && (!singleItr.hasNext() || 
+                    !unsignedLessThan(singleItr.nextIndex(), multipleItr.nextIndex()))) {
                 subItr = multipleItr.next().iterator();
                 return subItr.next();
             }
@@ -366,11 +675,12 @@ public class FastSet<E> extends AbstractSet<E> {
         public boolean hasNext(Predicate<? super E> matching) {
             while (true) {
                 if (subItr.hasNext(matching)) return true;
-                if (multipleItr.hasNext() && !unsignedLessThan(singleItr.nextIndex(), multipleItr.nextIndex())) {
+                boolean single = singleItr.hasNext(matching); // Positioned on the next matching single.
+                if (multipleItr.hasNext() && (!single || 
+                        unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex()))) {
                     subItr = multipleItr.next().iterator();
                 } else {
-                    if (!singleItr.hasNext()) return false;
-                    if (matching.test(singleItr.next())) return true;
+                    return single;
                 }
             }    
        }
@@ -383,12 +693,16 @@ public class FastSet<E> extends AbstractSet<E> {
         private FractalArray.Iterator<AbstractSet<E>> multipleItr;
         private FastIterator<E> subItr; // Takes precedence when subItr.hasNext()
         
-        @SuppressWarnings("unchecked")
         public DescendingIteratorImpl(@Nullable E from) {
-            long i = (from != null) ? order.indexOf(from) : -1;
+            this((from != null) ? order.indexOf(from) : -1, from);
+        }
+
+        @SuppressWarnings("unchecked")
+        public DescendingIteratorImpl(long i, @Nullable E from) {
             singleItr = singles.descendingIterator(i);
             multipleItr = multiples.descendingIterator(i);            
-            if (multipleItr.hasNext() && !unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex())) {
+            if (multipleItr.hasNext() && (!singleItr.hasNext() || 
+                    !unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex()))) {
                 subItr = multipleItr.next().descendingIterator(from);
             } else {
                 subItr = (FastIterator<E>) EMPTY_ITERATOR; 
@@ -408,7 +722,8 @@ public class FastSet<E> extends AbstractSet<E> {
         @Override
         public E next() {
             if (subItr.hasNext()) return subItr.next();
-            if (multipleItr.hasNext() && !unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex())) {
+            if (multipleItr.hasNext() && (!singleItr.hasNext() || 
+                    !unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex()))) {
                 subItr = multipleItr.next().descendingIterator();
                 return subItr.next();
             }
@@ -419,17 +734,109 @@ public class FastSet<E> extends AbstractSet<E> {
         public boolean hasNext(Predicate<? super E> matching) {
             while (true) {
                 if (subItr.hasNext(matching)) return true;
-                if (multipleItr.hasNext() && !unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex())) {
+                boolean single = singleItr.hasNext(matching); // Positioned on the previous matching single.
+                if (multipleItr.hasNext() && (!single || 
+                        unsignedLessThan(singleItr.nextIndex(), multipleItr.nextIndex()))) {
                     subItr = multipleItr.next().descendingIterator();
                 } else {
-                    if (!singleItr.hasNext()) return false;
-                    if (matching.test(singleItr.next())) return true;
+                    return single;
                 }
             }    
        }
 
     }
     
+    /** Spliterator implementation over a range of indices (unsigned 64-bits, inclusive). */
+    private final class SpliteratorImpl implements Spliterator<E> {
+        private final FractalArray<E> singles;
+        private final FractalArray<AbstractSet<E>> multiples;
+        private long from; 
+        private long to;
+        private int remaining; // Exact number of elements in range not yet consumed.
+        private FractalArray.Iterator<E> singleItr; // Null until the iteration starts.
+        private FractalArray.Iterator<AbstractSet<E>> multipleItr;
+        private FastIterator<E> subItr;
+
+        public SpliteratorImpl(FractalArray<E> singles, FractalArray<AbstractSet<E>> multiples, long from, long to, 
+                int remaining) {
+            this.singles = singles;
+            this.multiples = multiples;
+            this.from = from;
+            this.to = to;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            while (tryAdvance(action)) {}
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (remaining <= 0) return false;
+            if (singleItr == null) { // Starts iterating.
+                singleItr = singles.iterator(from);
+                multipleItr = multiples.iterator(from);
+                subItr = (FastIterator<E>) EMPTY_ITERATOR;
+            }
+            E next;
+            if (subItr.hasNext()) {
+                next = subItr.next();
+            } else if (multipleItr.hasNext() && 
+                    (!singleItr.hasNext() || unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex()))) {
+                subItr = multipleItr.next().iterator();
+                next = subItr.next();
+            } else {
+                next = singleItr.next();
+            }
+            remaining--;
+            action.accept(next);
+            return true;
+        }
+
+        @Override
+        public SpliteratorImpl trySplit() {
+            if ((singleItr != null) || (remaining < 2)) return null;
+            while (unsignedLessThan(from, to)) {
+                long mid = from + ((to - from) >>> 1);
+                int n = count(from, mid);
+                if (n == 0) { 
+                    from = mid + 1; // Empty lower half.
+                } else if (n == remaining) {
+                    to = mid; // Empty upper half.
+                } else {
+                    SpliteratorImpl prefix = new SpliteratorImpl(singles, multiples, from, mid, n);
+                    from = mid + 1;
+                    remaining -= n;
+                    return prefix;
+                }
+            }
+            return null; // All the remaining elements have the same index.
+        }
+
+        /** Returns the number of elements in the specified range. */
+        private int count(long first, long last) {
+            int n = (int) singles.count(first, last);
+            for (FractalArray.Iterator<AbstractSet<E>> itr = multiples.iterator(first); 
+                    itr.hasNext() && !unsignedLessThan(last, itr.nextIndex());) {
+                n += itr.next().size();
+            }
+            return n;
+        }
+
+    }
+
     /** Iterator over empty collection. */
     private static final FastIterator<Object> EMPTY_ITERATOR = new FastIterator<Object> () {
 
@@ -10,12 +10,15 @@ package org.javolution.util;
 
 import static org.javolution.annotations.Realtime.Limit.CONSTANT;
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
-import static org.javolution.annotations.Realtime.Limit.LOG_N;
 
+import java.util.Collection;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Parallel;
 import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Consumer;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Predicate;
 
@@ -95,9 +98,28 @@ public class FastTable<E> extends AbstractTable<E> {
        this.length = length;
     }
 
-    /** Freezes this table and returns the corresponding {@link Immutable} instance (cannot be reversed). */
+    /** Returns a new table holding the concatenation of the specified tables. The new table is sized once, then
+     *  each table copies its elements into its own range (concurrently for large tables). */
+    @Parallel
+    @Realtime(limit = LINEAR)
+    @SuppressWarnings("unchecked")
+    public static <E> FastTable<E> concat(FastTable<? extends E>[] tables) {
+        FractalArray<? extends E>[] arrays = new FractalArray[tables.length];
+        long[] lengths = new long[tables.length];
+        long length = 0;
+        for (int i = 0; i < tables.length; i++) {
+            arrays[i] = tables[i].array;
+            length += lengths[i] = tables[i].length;
+        }
+        if (length > Integer.MAX_VALUE) throw new UnsupportedOperationException("Table too large");
+        return new FastTable<E>(FractalArray.<E>concat(arrays, lengths), (int) length);
+    }
+
+    /** Freezes this table and returns the corresponding {@link Immutable} instance (cannot be reversed).
+     *  The elements are {@link FractalArray#compact compacted} into a contiguous array. */
+    @Realtime(limit = LINEAR)
     public final Immutable<E> freeze() {
-        array = array.unmodifiable();
+        array = array.compact();
         return new Immutable<E>(array, length);
     }
 
@@ -115,13 +137,30 @@ public class FastTable<E> extends AbstractTable<E> {
     }
 
     @Override
-    @Realtime(limit = LOG_N)
+    @Realtime(limit = LINEAR, comment = "Log(n) at both ends, O(k Log(n)) with k = min(index, size - index) otherwise")
     public final void add(int index, @Nullable E element) {
         if (index < 0 || index > length) throw new IndexOutOfBoundsException();
         array = array.insert(index, element);
         length++;
     }
 
+    @Override
+    @Realtime(limit = LINEAR)
+    public final boolean addAll(Collection<? extends E> that) {
+        if ((that instanceof FastTable) && (that != this)) return append((FastTable<? extends E>) that);
+        @SuppressWarnings("unchecked")
+        E[] elements = (E[]) that.toArray(); // Bulk copy for fast tables.
+        return addAll(elements);
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public final boolean addAll(@SuppressWarnings("unchecked") E... elements) {
+        array = array.set(length, elements, 0, elements.length);
+        length += elements.length;
+        return elements.length != 0;
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public  void clear() {
@@ -130,7 +169,7 @@ public class FastTable<E> extends AbstractTable<E> {
     }
 
     @Override
-    @Realtime(limit = LINEAR)
+    @Realtime(limit = LINEAR, comment = "Constant once cloned (large arrays become persistent)")
     public FastTable<E> clone() {
         FastTable<E> copy = (FastTable<E>) super.clone();
         copy.array = array.clone();
@@ -150,14 +189,41 @@ public class FastTable<E> extends AbstractTable<E> {
         return array.get(index);
     }
 
+    @Override
+    @Realtime(limit = LINEAR)
+    public void forEach(final Consumer<? super E> consumer) {
+        if (length == 0) return;
+        final int[] next = new int[1]; // Index of the next element to visit (holes are null elements).
+        array.forEachBlock(0, length - 1, new FractalArray.BlockConsumer() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public void accept(long index, Object[] block, int offset, int n) {
+                for (; next[0] < index; next[0]++)
+                    consumer.accept(null);
+                for (int i = offset, end = offset + n; i < end; i++)
+                    consumer.accept((E) block[i]);
+                next[0] += n;
+            }
+        });
+        for (; next[0] < length; next[0]++)
+            consumer.accept(null);
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public final FastListIterator<E> listIterator(int index) {
+        if (index < 0 || index > length) throw new IndexOutOfBoundsException();
         return new IteratorImpl<E>(array, index, length);
     }
 
     @Override
-    @Realtime(limit = LOG_N)
+    @Realtime(limit = CONSTANT)
+    public final Spliterator<E> spliterator() {
+        return new SpliteratorImpl<E>(array, 0, length);
+    }
+
+    @Override
+    @Realtime(limit = LINEAR, comment = "Log(n) at both ends, O(k Log(n)) with k = min(index, size - index) otherwise")
     public final @Nullable E remove(int index) {
         if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
         E removed = array.get(index);
@@ -175,17 +241,54 @@ public class FastTable<E> extends AbstractTable<E> {
         return previous;
     }
 
+    @Override
+    @Realtime(limit = LINEAR)
+    public final void setAll(int index, E[] elements) {
+        if ((index < 0) || (index > length - elements.length)) throw new IndexOutOfBoundsException();
+        array = array.set(index, elements, 0, elements.length);
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public final int size() {
         return length;
     }
 
-    /** List Iterator Implementation. */
+    @Override
+    @SuppressWarnings("unchecked")
+    @Realtime(limit = LINEAR)
+    public final <T> T[] toArray(T[] result) {
+        if (result.length < length)
+            result = (T[]) java.lang.reflect.Array.newInstance(result.getClass().getComponentType(), length);
+        array.get(0, result, 0, length);
+        if (result.length > length) result[length] = null; // As per Collection contract.
+        return result;
+    }
+
+    /** Appends the elements of the specified table block by block (no intermediate copy). */
+    private boolean append(FastTable<? extends E> that) {
+        final int start = length;
+        if (that.length == 0) return false;
+        that.array.forEachBlock(0, that.length - 1, new FractalArray.BlockConsumer() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public void accept(long index, Object[] block, int offset, int n) {
+                array = array.set(start + index, (E[]) block, offset, n);
+            }
+        });
+        length += that.length; // Including trailing nulls.
+        return true;
+    }
+
+    /** List Iterator Implementation (elements are read by blocks). */
     private static final class IteratorImpl<E> implements FastListIterator<E> {
+        private static final int BLOCK_SIZE = 32;
         private final FractalArray<E> array;
         private int nextIndex;
         private final int length;
+        private Object[] block; // Holds the elements from blockStart (inclusive) to blockEnd (exclusive).
+        private int blockStart;
+        private int blockEnd;
 
         public IteratorImpl(FractalArray<E> array, int nextIndex, int length) {
             this.array = array;
@@ -199,12 +302,14 @@ public class FastTable<E> extends AbstractTable<E> {
         }
 
         @Override
-        public boolean hasNext(Predicate<? super E> matching) {       
-        	E next = array.get(nextIndex);
-        	if ((next != null) && matching.test(next)) return true;
-        	long i = array.next(nextIndex, matching);
-            nextIndex = (i == 0) ? length : (int) i;
-          	return nextIndex < length;
+        @SuppressWarnings("unchecked")
+        public boolean hasNext(Predicate<? super E> matching) { // The index of the element tested is nextIndex.
+            for (; nextIndex < length; nextIndex++) {
+                if ((nextIndex < blockStart) || (nextIndex >= blockEnd)) load(nextIndex);
+                E next = (E) block[nextIndex - blockStart];
+                if ((next != null) && matching.test(next)) return true;
+            }
+            return false;
         }
 
         @Override
@@ -223,16 +328,23 @@ public class FastTable<E> extends AbstractTable<E> {
         }
 
         @Override
-        public boolean hasPrevious(Predicate<? super E> matching) {
-        	long i = array.previous(nextIndex, matching);
-        	nextIndex = (i == -1) ? 0 : (int) (i+1);
-        	return nextIndex != 0;
+        @SuppressWarnings("unchecked")
+        public boolean hasPrevious(Predicate<? super E> matching) { // The index of the element tested is nextIndex-1.
+            for (; nextIndex > 0; nextIndex--) {
+                int i = nextIndex - 1;
+                if ((i < blockStart) || (i >= blockEnd)) load(Math.max(0, i - BLOCK_SIZE + 1));
+                E previous = (E) block[i - blockStart];
+                if ((previous != null) && matching.test(previous)) return true;
+            }
+            return false;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public E next() {
             if (nextIndex >= length) throw new NoSuchElementException();
-            return array.get(nextIndex++);
+            if ((nextIndex < blockStart) || (nextIndex >= blockEnd)) load(nextIndex);
+            return (E) block[nextIndex++ - blockStart];
         }
 
         @Override
@@ -240,10 +352,12 @@ public class FastTable<E> extends AbstractTable<E> {
             return nextIndex;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public E previous() {
             if (nextIndex <= 0) throw new NoSuchElementException();
-            return array.get(--nextIndex);
+            if ((--nextIndex < blockStart) || (nextIndex >= blockEnd)) load(Math.max(0, nextIndex - BLOCK_SIZE + 1));
+            return (E) block[nextIndex - blockStart];
         }
 
         @Override
@@ -256,6 +370,70 @@ public class FastTable<E> extends AbstractTable<E> {
             throw new UnsupportedOperationException();
         }
 
+        /** Loads the block of elements starting at the specified index. */
+        private void load(int from) {
+            if (block == null) block = new Object[BLOCK_SIZE];
+            int n = Math.min(BLOCK_SIZE, length - from);
+            array.get(from, block, 0, n);
+            blockStart = from;
+            blockEnd = from + n;
+        }
+
+    }
+
+    /** Spliterator implementation (splits the index range in halves, elements are read by blocks). */
+    private static final class SpliteratorImpl<E> implements Spliterator<E> {
+        private static final int BLOCK_SIZE = 32;
+        private final FractalArray<E> array;
+        private int index; // Inclusive.
+        private final int fence; // Exclusive.
+
+        public SpliteratorImpl(FractalArray<E> array, int index, int fence) {
+            this.array = array;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEachRemaining(java.util.function.Consumer<? super E> action) {
+            if (index >= fence) return;
+            Object[] block = new Object[Math.min(BLOCK_SIZE, fence - index)];
+            while (index < fence) {
+                int n = Math.min(block.length, fence - index);
+                array.get(index, block, 0, n);
+                index += n;
+                for (int i = 0; i < n; i++)
+                    action.accept((E) block[i]);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(java.util.function.Consumer<? super E> action) {
+            if (index >= fence) return false;
+            action.accept(array.get(index++));
+            return true;
+        }
+
+        @Override
+        public SpliteratorImpl<E> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) return null;
+            SpliteratorImpl<E> prefix = new SpliteratorImpl<E>(array, index, mid);
+            index = mid;
+            return prefix;
+        }
+
     }
 
-}
\ No newline at end of file
+}
@@ -11,13 +11,17 @@ package org.javolution.util;
 import static org.javolution.annotations.Realtime.Limit.CONSTANT;
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
 import static org.javolution.annotations.Realtime.Limit.LOG_N;
+import static org.javolution.lang.MathLib.unsignedLessThan;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Parallel;
 import org.javolution.annotations.Realtime;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.CompactArrayImpl;
 import org.javolution.util.internal.FractalArrayImpl;
 
 /**
@@ -57,6 +61,30 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
 
     }
 
+    /** 
+     * Consumer of blocks of consecutive elements (bulk access).
+     */
+    public interface BlockConsumer {
+
+        /** 
+         * Accepts the elements at the indices {@code index .. index + length - 1} held by the specified block 
+         * starting at the specified offset (the block may hold {@code null} elements). The block is the array 
+         * internal storage and should neither be modified nor retained.
+         */
+        void accept(long index, Object[] block, int offset, int length);
+
+    }
+
+    /** 
+     * Merger of the elements having the same index in two fractal arrays (see {@link FractalArray#merge merge}).
+     */
+    public interface Merger<E> {
+
+        /** Returns the element to hold at the specified index in the merged array ({@code null} for none). */
+        @Nullable E merge(long index, E left, E right);
+
+    }
+
     /** 
      * Returns a new empty instance.
      */
@@ -64,12 +92,35 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
         return FractalArrayImpl.empty();
     }
 
+    /** 
+     * Returns the concatenation of the specified arrays; the elements of {@code arrays[i]} at the indices 
+     * {@code 0 .. lengths[i] - 1} are held at these indices shifted by the sum of the previous lengths.
+     * The new array is sized once, then each array copies its elements into its own range (concurrently
+     * for large arrays).
+     * 
+     * @param arrays the arrays to concatenate (not modified).
+     * @param lengths the number of indices taken from each array.
+     * @return a new array holding the concatenation.
+     */
+    @Parallel
+    @Realtime(limit = LINEAR)
+    public static <E> FractalArray<E> concat(FractalArray<? extends E>[] arrays, long[] lengths) {
+        return FractalArrayImpl.concat(arrays, lengths);
+    }
+
     /** 
      * Returns a copy of this fractal array; updates of the copy should not impact the original. 
      * 
+     * Large arrays switch to a persistent representation on their first clone (linear time): this array and 
+     * its copies then share their structure, subsequent clones are performed in constant time and updates 
+     * (of either instance) copy only the path to the elements being updated. The switch is recorded on this 
+     * array (its content is unchanged but its subsequent updates are performed on the persistent form); 
+     * insertions or deletions in the middle then move the {@code k} elements on the shortest side 
+     * in {@code O(k Log(n))}.
+     * 
      * @return a copy of this fractal array.
      */
-    @Realtime(limit = LINEAR)
+    @Realtime(limit = LINEAR, comment = "Constant once persistent (large arrays already cloned)")
     public abstract FractalArray<E> clone();
     
     /** 
@@ -167,6 +218,114 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
     @Realtime(limit = LINEAR)
     public abstract long previous(long before, @Nullable Predicate<? super E> matching);
     
+    /**
+     * Applies the specified consumer to the blocks of elements in the specified range (ascending order).
+     * Each leaf of the structure is visited once (no search from the root for each element), 
+     * ranges without elements may or may not be reported.
+     * 
+     * @param from the unsigned 64-bits index of the first element (inclusive).
+     * @param to the unsigned 64-bits index of the last element (inclusive).
+     * @param consumer the consumer of the blocks of elements.
+     */
+    @Realtime(limit = LINEAR)
+    public abstract void forEachBlock(long from, long to, BlockConsumer consumer);
+
+    /**
+     * Returns the number of non-null elements in the specified range.
+     * 
+     * @param from the unsigned 64-bits index of the first element (inclusive).
+     * @param to the unsigned 64-bits index of the last element (inclusive).
+     * @return the number of elements within the specified range ({@code 0} if {@code to < from}). 
+     */
+    @Realtime(limit = LOG_N)
+    public abstract long count(long from, long to);
+
+    /**
+     * Copies the elements in the specified range into the specified array ({@code null} for indices without 
+     * element).
+     * 
+     * @param from the unsigned 64-bits index of the first element to copy.
+     * @param dest the destination array.
+     * @param destPos the starting position in the destination array.
+     * @param length the number of elements to copy.
+     * @throws IndexOutOfBoundsException if the specified range is not within the destination array.
+     */
+    @Realtime(limit = LINEAR)
+    public void get(final long from, final Object[] dest, final int destPos, int length) {
+        if ((destPos < 0) || (length < 0) || (destPos > dest.length - length)) throw new IndexOutOfBoundsException();
+        if (length == 0) return;
+        Arrays.fill(dest, destPos, destPos + length, null);
+        forEachBlock(from, from + length - 1, new BlockConsumer() {
+            @Override
+            public void accept(long index, Object[] block, int offset, int n) {
+                System.arraycopy(block, offset, dest, destPos + (int) (index - from), n);
+            }
+        });
+    }
+
+    /**
+     * Sets the elements in the specified range from the specified array ({@code null} elements are cleared).
+     * 
+     * @param from the unsigned 64-bits index of the first element to set.
+     * @param src the source array.
+     * @param srcPos the starting position in the source array.
+     * @param length the number of elements to set.
+     * @return a new fractal array or {@code this}. 
+     * @throws IndexOutOfBoundsException if the specified range is not within the source array.
+     */
+    @Realtime(limit = LINEAR)
+    public FractalArray<E> set(long from, E[] src, int srcPos, int length) {
+        if ((srcPos < 0) || (length < 0) || (srcPos > src.length - length)) throw new IndexOutOfBoundsException();
+        FractalArray<E> array = this;
+        for (int i = 0; i < length; i++)
+            array = array.set(from + i, src[srcPos + i]);
+        return array;
+    }
+
+    /**
+     * Returns the merge of this array with the specified array in index order; neither array is modified.
+     * The elements present in only one array are kept or dropped as a whole (implementations skip or share 
+     * the portions of the arrays which do not intersect), the specified merger is called only for the indices 
+     * holding an element in both arrays.
+     * 
+     * ```java
+     * FractalArray<E> union = a.merge(b, true, true, (index, left, right) -> left);
+     * FractalArray<E> intersection = a.merge(b, false, false, (index, left, right) -> left);
+     * FractalArray<E> difference = a.merge(b, true, false, (index, left, right) -> null);
+     * ```
+     * 
+     * @param that the array to merge with.
+     * @param keepThis indicates if the elements present only in this array are kept.
+     * @param keepThat indicates if the elements present only in the specified array are kept.
+     * @param merger the merger of the elements present in both arrays.
+     * @return a new fractal array possibly sharing its structure with the arrays merged.
+     */
+    @Realtime(limit = LINEAR)
+    public FractalArray<E> merge(FractalArray<E> that, boolean keepThis, boolean keepThat, Merger<E> merger) {
+        FractalArray<E> result = empty();
+        Iterator<E> left = iterator();
+        Iterator<E> right = that.iterator();
+        long leftIndex = left.nextIndex();
+        long rightIndex = right.nextIndex();
+        while (left.hasNext() || right.hasNext()) { // Elements are set in ascending order.
+            if (!right.hasNext() || (left.hasNext() && unsignedLessThan(leftIndex, rightIndex))) {
+                E element = left.next();
+                if (keepThis) result = result.set(leftIndex, element);
+                leftIndex = left.nextIndex();
+            } else if (!left.hasNext() || unsignedLessThan(rightIndex, leftIndex)) {
+                E element = right.next();
+                if (keepThat) result = result.set(rightIndex, element);
+                rightIndex = right.nextIndex();
+            } else {
+                E merged = merger.merge(leftIndex, left.next(), right.next());
+                if (merged != null) result = result.set(leftIndex, merged);
+                leftIndex = left.nextIndex();
+                rightIndex = right.nextIndex();
+            }
+        }
+        return result;
+    }
+
     /** 
      * Returns an ascending iterator over non-null elements starting from the specified (unsigned 64-bits) index.
      * 
@@ -185,6 +344,18 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
         return new DescendingIterator<E>(this, from);
     }
 
+    /** 
+     * Returns an immutable copy of this array in a compact read-optimized layout (e.g. for reference data loaded
+     * once and then only read). Dense arrays are held in a single contiguous array, sparse arrays in an 
+     * open-addressed table with contiguous keys and values; lookups read one or two cache lines and the memory
+     * footprint is close to the raw size of the elements (and indices). Updates of the copy throw
+     * {@code UnsupportedOperationException}.
+     */  
+    @Realtime(limit = LINEAR)
+    public FractalArray<E> compact() {
+        return CompactArrayImpl.of(this);
+    }
+
     /** 
      * Returns an unmodifiable view over this array. 
      */  
@@ -198,6 +369,11 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
         return iterator(0);
     }
     
+    /** Returns the array viewed if the specified array is an unmodifiable view; the specified array otherwise. */
+    protected static <E> FractalArray<E> viewed(FractalArray<E> array) {
+        return (array instanceof Unmodifiable) ? viewed(((Unmodifiable<E>) array).target) : array;
+    }
+
     /** Ascending array iterator. */
     private static final class AscendingIterator<E> implements Iterator<E>, Predicate<E> {
         private final FractalArray<E> fractal;
@@ -377,6 +553,26 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
 		public long previous(long before, Predicate<? super E> matching) {
 	        return target.previous(before, matching);
 	 	}
+
+		@Override
+		public void forEachBlock(long from, long to, BlockConsumer consumer) {
+			target.forEachBlock(from, to, consumer);
+		}
+
+		@Override
+		public long count(long from, long to) {
+			return target.count(from, to);
+		}
+
+		@Override
+		public FractalArray<E> set(long from, E[] src, int srcPos, int length) {
+            throw new UnsupportedOperationException("Unmodifiable");
+		}
+
+		@Override
+		public FractalArray<E> merge(FractalArray<E> that, boolean keepThis, boolean keepThat, Merger<E> merger) {
+			return target.merge(that, keepThis, keepThat, merger); // Returns a new array.
+		}
        
     }
     
@@ -0,0 +1,449 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.NoSuchElementException;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.util.FastMap.EntryWithoutValue;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.function.UnaryOperator;
+
+/**
+ * High-performance map with primitive {@code int} keys; values are stored directly into a {@link FractalArray}
+ * at the index given by their key (no entry object, no key boxing for the primitive methods).
+ *
+ * Iterations are performed in ascending key order (signed). Entries returned by {@link #getEntry},
+ * {@link #entries} or their iterators are created on the fly; they are snapshots of the mapping at the time
+ * they are returned. All the map views ({@link #atomic}, {@link #shared}, {@link #unmodifiable},
+ * {@link #subMap}, {@link #keySet}, {@link #values}, ...) are supported except {@link #multi}
+ * (there is at most one value per key).
+ *
+ * ```java
+ * IntFastMap<String> reasons = new IntFastMap<String>().with(200, "OK").with(404, "Not Found");
+ * String reason = reasons.get(status); // No boxing, no entry allocation.
+ * AbstractMap<Integer, String> errors = reasons.subMap(400, 600); // Sub-map view (key order).
+ * ```
+ *
+ * @param <V> the type of values
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle </a>
+ * @version 7.0, September 13, 2015
+ * @see LongFastMap
+ */
+@Realtime
+public class IntFastMap<V> extends AbstractMap<Integer, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final Order<Integer> KEY_ORDER = new KeyOrder();
+
+    private final Equality<? super V> valuesEquality;
+    private FractalArray<Object> values; // Null values are represented by Null.VALUE
+    private int size; // Keep tracks of the size since fractal arrays are unbounded.
+
+    /** Creates a map using {@link Equality#STANDARD standard} equality for its values. */
+    public IntFastMap() {
+        this(Equality.standard());
+    }
+
+    /** Creates a map using the specified equality for its values. */
+    public IntFastMap(Equality<? super V> valuesEquality) {
+        this.valuesEquality = valuesEquality;
+        this.values = FractalArray.empty();
+    }
+
+    @Override
+    public IntFastMap<V> with(Integer key, V value) {
+        put(key, value);
+        return this;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Primitive key methods.
+    //
+
+    /**
+     * Returns the value for the specified key.
+     *
+     * @param key the key whose value is returned.
+     * @return the value for the specified key or {@code null} if none.
+     */
+    @Realtime(limit = CONSTANT)
+    public final @Nullable V get(int key) {
+        return valueOf(values.get(indexOf(key)));
+    }
+
+    /**
+     * Indicates if this map has a mapping for the specified key.
+     *
+     * @param key the key whose presence is tested.
+     * @return {@code true} if there is a mapping for the specified key; {@code false} otherwise.
+     */
+    @Realtime(limit = CONSTANT)
+    public final boolean containsKey(int key) {
+        return values.get(indexOf(key)) != null;
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key the key with which the specified value is to be associated.
+     * @param value the value (can be {@code null}).
+     * @return the previous value for the specified key or {@code null} if none.
+     */
+    @Realtime(limit = CONSTANT)
+    public final @Nullable V put(int key, @Nullable V value) {
+        long index = indexOf(key);
+        Object previous = values.get(index);
+        values = values.set(index, (value != null) ? value : Null.VALUE);
+        if (previous == null) size++;
+        return valueOf(previous);
+    }
+
+    /**
+     * Removes the mapping for the specified key.
+     *
+     * @param key the key whose mapping is removed.
+     * @return the previous value for the specified key or {@code null} if none.
+     */
+    @Realtime(limit = CONSTANT)
+    public final @Nullable V remove(int key) {
+        long index = indexOf(key);
+        Object previous = values.get(index);
+        if (previous == null) return null;
+        values = values.clear(index);
+        size--;
+        return valueOf(previous);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // AbstractMap (boxed) methods.
+    //
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final AbstractSet<Entry<Integer, V>> entries() {
+        return new EntriesImpl();
+    }
+
+    @Override
+    public final boolean containsKey(Object key) {
+        return (key instanceof Integer) && containsKey(((Integer) key).intValue());
+    }
+
+    @Override
+    public final V get(Object key) {
+        return (key instanceof Integer) ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public final V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public final V remove(Object key) {
+        return (key instanceof Integer) ? remove(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public final V putIfAbsent(Integer key, V value) {
+        long index = indexOf(key);
+        Object previous = values.get(index);
+        if (previous != null) return valueOf(previous);
+        values = values.set(index, (value != null) ? value : Null.VALUE);
+        size++;
+        return null;
+    }
+
+    @Override
+    public final boolean remove(Object key, Object value) {
+        if (!(key instanceof Integer)) return false;
+        long index = indexOf((Integer) key);
+        Object previous = values.get(index);
+        if (previous == null || !areEqual(previous, value)) return false;
+        values = values.clear(index);
+        size--;
+        return true;
+    }
+
+    @Override
+    public final boolean replace(Integer key, V oldValue, V newValue) {
+        long index = indexOf(key);
+        Object previous = values.get(index);
+        if (previous == null || !areEqual(previous, oldValue)) return false;
+        values = values.set(index, (newValue != null) ? newValue : Null.VALUE);
+        return true;
+    }
+
+    @Override
+    public final V replace(Integer key, V value) {
+        long index = indexOf(key);
+        Object previous = values.get(index);
+        if (previous == null) return null;
+        values = values.set(index, (value != null) ? value : Null.VALUE);
+        return valueOf(previous);
+    }
+
+    @Override
+    public final V put(Integer key, UnaryOperator<V> update) {
+        V previous = get(key.intValue());
+        put(key.intValue(), update.apply(previous));
+        return previous;
+    }
+
+    @Override
+    public final Entry<Integer, V> getEntry(Integer key) {
+        Object value = values.get(indexOf(key));
+        return (value != null) ? new Entry<Integer, V>(key, valueOf(value)) : null;
+    }
+
+    /** Puts the specified mapping (there is at most one entry per key) and returns the corresponding entry. */
+    @Override
+    public final Entry<Integer, V> addEntry(Integer key, V value) {
+        put(key.intValue(), value);
+        return new Entry<Integer, V>(key, value);
+    }
+
+    @Override
+    public final Entry<Integer, V> removeEntry(Integer key) {
+        long index = indexOf(key);
+        Object previous = values.get(index);
+        if (previous == null) return null;
+        values = values.clear(index);
+        size--;
+        return new Entry<Integer, V>(key, valueOf(previous));
+    }
+
+    @Override
+    public final int size() {
+        return size;
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public final void clear() {
+        values = FractalArray.empty();
+        size = 0;
+    }
+
+    @Override
+    public final Order<? super Integer> keyOrder() {
+        return KEY_ORDER;
+    }
+
+    @Override
+    public final Equality<? super V> valuesEquality() {
+        return valuesEquality;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    @Realtime(limit = LINEAR, comment = "Constant once cloned (large arrays become persistent)")
+    public IntFastMap<V> clone() {
+        IntFastMap<V> copy = (IntFastMap<V>) super.clone();
+        copy.values = values.clone();
+        return copy;
+    }
+
+    /** Returns the fractal index for the specified key (preserves the signed order). */
+    private static long indexOf(int key) {
+        return (key ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+    }
+
+    /** Returns the key for the specified fractal index. */
+    private static int keyOf(long index) {
+        return (int) index ^ Integer.MIN_VALUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V valueOf(Object stored) {
+        return (stored != Null.VALUE) ? (V) stored : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean areEqual(Object stored, Object value) {
+        return valuesEquality.areEqual(IntFastMap.<V>valueOf(stored), (V) value);
+    }
+
+    /** Stored in place of null values. */
+    private enum Null {
+        VALUE
+    }
+
+    /** The key order (signed int order). */
+    private static final class KeyOrder extends Order<Integer> {
+        private static final long serialVersionUID = IntFastMap.serialVersionUID;
+
+        @Override
+        public boolean areEqual(Integer left, Integer right) {
+            return (left == null) ? right == null : left.equals(right);
+        }
+
+        @Override
+        public int compare(Integer left, Integer right) {
+            return Integer.compare(left, right);
+        }
+
+        @Override
+        public long indexOf(Integer key) {
+            return IntFastMap.indexOf(key);
+        }
+
+    }
+
+    /** The entries order (based on the key order). */
+    private final class EntryOrder extends Order<Entry<Integer, V>> {
+        private static final long serialVersionUID = IntFastMap.serialVersionUID;
+
+        @Override
+        public boolean areEqual(Entry<Integer, V> left, Entry<Integer, V> right) {
+            if (left == right) return true;
+            if ((left == null) || (right == null)) return false;
+            if (!left.getKey().equals(right.getKey())) return false;
+            if ((left instanceof EntryWithoutValue) || (right instanceof EntryWithoutValue)) return true;
+            return valuesEquality.areEqual(left.getValue(), right.getValue());
+        }
+
+        @Override
+        public int compare(Entry<Integer, V> left, Entry<Integer, V> right) {
+            return Integer.compare(left.getKey(), right.getKey());
+        }
+
+        @Override
+        public long indexOf(Entry<Integer, V> entry) {
+            return IntFastMap.indexOf(entry.getKey());
+        }
+
+    }
+
+    /** The entries view (entries are created on the fly). */
+    private final class EntriesImpl extends AbstractSet<Entry<Integer, V>> {
+        private static final long serialVersionUID = IntFastMap.serialVersionUID;
+        private final EntryOrder order = new EntryOrder();
+
+        @Override
+        public boolean add(Entry<Integer, V> entry, boolean allowDuplicate) {
+            if (!allowDuplicate && containsKey(entry.getKey().intValue())) return false;
+            put(entry.getKey().intValue(), entry.getValue());
+            return true;
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Entry<Integer, V>> filter) {
+            int initialSize = size;
+            for (FractalArray.Iterator<Object> itr = values.iterator(); itr.hasNext();) {
+                long index = itr.nextIndex();
+                if (!filter.test(new Entry<Integer, V>(keyOf(index), IntFastMap.<V>valueOf(itr.next())))) continue;
+                values = values.clear(index);
+                size--;
+            }
+            return initialSize != size;
+        }
+
+        @Override
+        public Entry<Integer, V> getAny(Entry<Integer, V> entry) {
+            Entry<Integer, V> found = getEntry(entry.getKey());
+            return (found != null) && order.areEqual(entry, found) ? found : null;
+        }
+
+        @Override
+        public Entry<Integer, V> removeAny(Entry<Integer, V> entry) {
+            Entry<Integer, V> found = getAny(entry);
+            if (found != null) remove(found.getKey().intValue());
+            return found;
+        }
+
+        @Override
+        public Order<? super Entry<Integer, V>> order() {
+            return order;
+        }
+
+        @Override
+        public FastIterator<Entry<Integer, V>> iterator(Entry<Integer, V> low) {
+            return new IteratorImpl<V>(values, values.iterator(low != null ? indexOf(low.getKey()) : 0));
+        }
+
+        @Override
+        public FastIterator<Entry<Integer, V>> descendingIterator(Entry<Integer, V> high) {
+            return new IteratorImpl<V>(values, values.descendingIterator(high != null ? indexOf(high.getKey()) : -1));
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            IntFastMap.this.clear();
+        }
+
+        @Override
+        public AbstractSet<Entry<Integer, V>> clone() {
+            return IntFastMap.this.clone().entries();
+        }
+
+    }
+
+    /** Iterator creating entries on the fly. */
+    private static final class IteratorImpl<V> implements FastIterator<Entry<Integer, V>> {
+        private final FractalArray<Object> values;
+        private final FractalArray.Iterator<Object> itr;
+
+        private IteratorImpl(FractalArray<Object> values, FractalArray.Iterator<Object> itr) {
+            this.values = values;
+            this.itr = itr;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return itr.hasNext();
+        }
+
+        @Override
+        public boolean hasNext(final Predicate<? super Entry<Integer, V>> matching) {
+            for (; itr.hasNext(); itr.next()) {
+                long index = itr.nextIndex();
+                if (matching.test(new Entry<Integer, V>(keyOf(index), IntFastMap.<V>valueOf(values.get(index)))))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<Integer, V> next() {
+            if (!itr.hasNext()) throw new NoSuchElementException();
+            long index = itr.nextIndex();
+            return new Entry<Integer, V>(keyOf(index), IntFastMap.<V>valueOf(itr.next()));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Equality;
+import org.javolution.util.internal.table.RotatingArrayImpl;
+import org.javolution.util.internal.table.TableIteratorImpl;
+
+/**
+ * A high-performance table of primitive {@code int} values based upon a fast-rotating primitive array
+ * (no boxing, 4 bytes per element).
+ *
+ * Primitive tables support all the {@link AbstractTable} views ({@link #subTable subTable},
+ * {@link #parallel parallel}, ...) as well as the {@link java.util.Deque Deque} interface with
+ * insertions/removals at both ends performed in constant time. Insertions/removals in the middle of the table
+ * shift the elements on the shortest side, in linear time {@code O(n)} (unlike {@link FastTable} whose
+ * insertions/removals are in {@code O(log n)}). Unboxed accessors and bulk copies to/from primitive arrays
+ * should be used for numeric workloads.
+ *
+ * ```java
+ * IntTable ids = new IntTable(3, 1, 4, 1, 5);
+ * ids.addInt(0, 9); // Unboxed insertion at the head (constant time).
+ * int[] sorted = ids.toIntArray();
+ * java.util.Arrays.sort(sorted);
+ * ```
+ *
+ * Primitive tables do not support {@code null} elements ({@link NullPointerException} raised).
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 7.0, September 13, 2015
+ * @see LongTable
+ * @see DoubleTable
+ */
+public class IntTable extends AbstractTable<Integer> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int[] NONE = new int[0];
+
+    private RotatingArrayImpl array = new RotatingArrayImpl(NONE);
+
+    /** Creates an empty table. */
+    public IntTable() {
+    }
+
+    /** Creates a table holding the specified values. */
+    public IntTable(int... values) {
+        addInts(values, 0, values.length);
+    }
+
+    @Override
+    public IntTable with(Integer... elements) {
+        addAll(elements);
+        return this;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Unboxed operations.
+    //
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index the index of the value to return.
+     * @return the value at the specified position.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final int getInt(int index) {
+        return ((int[]) array.elements())[array.position(index)];
+    }
+
+    /**
+     * Replaces the value at the specified index.
+     *
+     * @param index the index of the value to replace.
+     * @param value the new value.
+     * @return the previous value at the specified position.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final int setInt(int index, int value) {
+        int[] elements = (int[]) array.elements();
+        int i = array.position(index);
+        int previous = elements[i];
+        elements[i] = value;
+        return previous;
+    }
+
+    /**
+     * Appends the specified value to the end of this table.
+     *
+     * @param value the value to append.
+     */
+    @Realtime(limit = CONSTANT, comment = "Amortized (capacity doubling)")
+    public final void addInt(int value) {
+        int index = array.append(1);
+        ((int[]) array.elements())[array.position(index)] = value;
+    }
+
+    /**
+     * Inserts the specified value at the specified position; the elements on the shortest side (head or tail)
+     * are shifted.
+     *
+     * @param index the index at which the value is inserted.
+     * @param value the value to insert.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index > size())}
+     */
+    @Realtime(limit = LINEAR, comment = "Constant time for insertions at both ends")
+    public final void addInt(int index, int value) {
+        int i = array.insert(index);
+        ((int[]) array.elements())[i] = value;
+    }
+
+    /**
+     * Removes the value at the specified position; the elements on the shortest side (head or tail) are shifted.
+     *
+     * @param index the index of the value to remove.
+     * @return the value removed.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = LINEAR, comment = "Constant time for removals at both ends")
+    public final int removeInt(int index) {
+        int removed = ((int[]) array.elements())[array.position(index)];
+        array.delete(index);
+        return removed;
+    }
+
+    /**
+     * Copies values from this table into the specified array.
+     *
+     * @param fromIndex the index of the first value to copy.
+     * @param dest the destination array.
+     * @param destPos the starting position in the destination array.
+     * @param count the number of values to copy.
+     * @throws IndexOutOfBoundsException if the specified range is not within this table or the destination array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void getInts(int fromIndex, int[] dest, int destPos, int count) {
+        array.get(fromIndex, dest, destPos, count);
+    }
+
+    /**
+     * Replaces values of this table with the values from the specified array.
+     *
+     * @param fromIndex the index of the first value to replace.
+     * @param src the source array.
+     * @param srcPos the starting position in the source array.
+     * @param count the number of values to replace.
+     * @throws IndexOutOfBoundsException if the specified range is not within this table or the source array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void setInts(int fromIndex, int[] src, int srcPos, int count) {
+        array.set(fromIndex, src, srcPos, count);
+    }
+
+    /**
+     * Appends values from the specified array to the end of this table.
+     *
+     * @param src the source array.
+     * @param srcPos the starting position in the source array.
+     * @param count the number of values to append.
+     * @throws IndexOutOfBoundsException if the specified range is not within the source array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void addInts(int[] src, int srcPos, int count) {
+        if (srcPos < 0 || count < 0 || srcPos > src.length - count) throw new IndexOutOfBoundsException();
+        array.set(array.append(count), src, srcPos, count);
+    }
+
+    /** Returns the values of this table as a new primitive array. */
+    @Realtime(limit = LINEAR)
+    public final int[] toIntArray() {
+        int[] values = new int[array.size()];
+        array.get(0, values, 0, values.length);
+        return values;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // AbstractTable (boxed) operations.
+    //
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final boolean add(Integer element) {
+        addInt(element.intValue());
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR, comment = "Constant time for insertions at both ends")
+    public final void add(int index, Integer element) {
+        addInt(index, element.intValue());
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public void clear() {
+        array.clear();
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public IntTable clone() {
+        IntTable copy = (IntTable) super.clone();
+        copy.array = array.clone();
+        return copy;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Equality<? super Integer> equality() {
+        return Equality.standard();
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final FastListIterator<Integer> listIterator(int index) {
+        if (index < 0 || index > array.size()) throw new IndexOutOfBoundsException();
+        return new TableIteratorImpl<Integer>(this, index);
+    }
+
+    @Override
+    @Realtime(limit = LINEAR, comment = "Constant time for removals at both ends")
+    public final Integer remove(int index) {
+        return removeInt(index);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Integer set(int index, Integer element) {
+        return setInt(index, element.intValue());
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final int size() {
+        return array.size();
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Equality;
+import org.javolution.util.internal.table.RotatingArrayImpl;
+import org.javolution.util.internal.table.TableIteratorImpl;
+
+/**
+ * A high-performance table of primitive {@code long} values based upon a fast-rotating primitive array
+ * (no boxing, 8 bytes per element).
+ *
+ * Primitive tables support all the {@link AbstractTable} views ({@link #subTable subTable},
+ * {@link #parallel parallel}, ...) as well as the {@link java.util.Deque Deque} interface with
+ * insertions/removals at both ends performed in constant time. Insertions/removals in the middle of the table
+ * shift the elements on the shortest side, in linear time {@code O(n)} (unlike {@link FastTable} whose
+ * insertions/removals are in {@code O(log n)}). Unboxed accessors and bulk copies to/from primitive arrays
+ * should be used for numeric workloads.
+ *
+ * ```java
+ * LongTable timestamps = new LongTable();
+ * timestamps.addLong(System.nanoTime());
+ * ...
+ * long[] window = new long[100];
+ * timestamps.getLongs(timestamps.size() - 100, window, 0, 100); // Bulk copy of the last 100 values.
+ * ```
+ *
+ * Primitive tables do not support {@code null} elements ({@link NullPointerException} raised).
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 7.0, September 13, 2015
+ * @see IntTable
+ * @see DoubleTable
+ */
+public class LongTable extends AbstractTable<Long> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final long[] NONE = new long[0];
+
+    private RotatingArrayImpl array = new RotatingArrayImpl(NONE);
+
+    /** Creates an empty table. */
+    public LongTable() {
+    }
+
+    /** Creates a table holding the specified values. */
+    public LongTable(long... values) {
+        addLongs(values, 0, values.length);
+    }
+
+    @Override
+    public LongTable with(Long... elements) {
+        addAll(elements);
+        return this;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Unboxed operations.
+    //
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index the index of the value to return.
+     * @return the value at the specified position.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final long getLong(int index) {
+        return ((long[]) array.elements())[array.position(index)];
+    }
+
+    /**
+     * Replaces the value at the specified index.
+     *
+     * @param index the index of the value to replace.
+     * @param value the new value.
+     * @return the previous value at the specified position.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final long setLong(int index, long value) {
+        long[] elements = (long[]) array.elements();
+        int i = array.position(index);
+        long previous = elements[i];
+        elements[i] = value;
+        return previous;
+    }
+
+    /**
+     * Appends the specified value to the end of this table.
+     *
+     * @param value the value to append.
+     */
+    @Realtime(limit = CONSTANT, comment = "Amortized (capacity doubling)")
+    public final void addLong(long value) {
+        int index = array.append(1);
+        ((long[]) array.elements())[array.position(index)] = value;
+    }
+
+    /**
+     * Inserts the specified value at the specified position; the elements on the shortest side (head or tail)
+     * are shifted.
+     *
+     * @param index the index at which the value is inserted.
+     * @param value the value to insert.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index > size())}
+     */
+    @Realtime(limit = LINEAR, comment = "Constant time for insertions at both ends")
+    public final void addLong(int index, long value) {
+        int i = array.insert(index);
+        ((long[]) array.elements())[i] = value;
+    }
+
+    /**
+     * Removes the value at the specified position; the elements on the shortest side (head or tail) are shifted.
+     *
+     * @param index the index of the value to remove.
+     * @return the value removed.
+     * @throws IndexOutOfBoundsException if {@code (index < 0) || (index >= size())}
+     */
+    @Realtime(limit = LINEAR, comment = "Constant time for removals at both ends")
+    public final long removeLong(int index) {
+        long removed = ((long[]) array.elements())[array.position(index)];
+        array.delete(index);
+        return removed;
+    }
+
+    /**
+     * Copies values from this table into the specified array.
+     *
+     * @param fromIndex the index of the first value to copy.
+     * @param dest the destination array.
+     * @param destPos the starting position in the destination array.
+     * @param count the number of values to copy.
+     * @throws IndexOutOfBoundsException if the specified range is not within this table or the destination array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void getLongs(int fromIndex, long[] dest, int destPos, int count) {
+        array.get(fromIndex, dest, destPos, count);
+    }
+
+    /**
+     * Replaces values of this table with the values from the specified array.
+     *
+     * @param fromIndex the index of the first value to replace.
+     * @param src the source array.
+     * @param srcPos the starting position in the source array.
+     * @param count the number of values to replace.
+     * @throws IndexOutOfBoundsException if the specified range is not within this table or the source array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void setLongs(int fromIndex, long[] src, int srcPos, int count) {
+        array.set(fromIndex, src, srcPos, count);
+    }
+
+    /**
+     * Appends values from the specified array to the end of this table.
+     *
+     * @param src the source array.
+     * @param srcPos the starting position in the source array.
+     * @param count the number of values to append.
+     * @throws IndexOutOfBoundsException if the specified range is not within the source array.
+     */
+    @Realtime(limit = LINEAR)
+    public final void addLongs(long[] src, int srcPos, int count) {
+        if (srcPos < 0 || count < 0 || srcPos > src.length - count) throw new IndexOutOfBoundsException();
+        array.set(array.append(count), src, srcPos, count);
+    }
+
+    /** Returns the values of this table as a new primitive array. */
+    @Realtime(limit = LINEAR)
+    public final long[] toLongArray() {
+        long[] values = new long[array.size()];
+        array.get(0, values, 0, values.length);
+        return values;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // AbstractTable (boxed) operations.
+    //
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final boolean add(Long element) {
+        addLong(element.longValue());
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR, comment = "Constant time for insertions at both ends")
+    public final void add(int index, Long element) {
+        addLong(index, element.longValue());
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public void clear() {
+        array.clear();
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public LongTable clone() {
+        LongTable copy = (LongTable) super.clone();
+        copy.array = array.clone();
+        return copy;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Equality<? super Long> equality() {
+        return Equality.standard();
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final FastListIterator<Long> listIterator(int index) {
+        if (index < 0 || index > array.size()) throw new IndexOutOfBoundsException();
+        return new TableIteratorImpl<Long>(this, index);
+    }
+
+    @Override
+    @Realtime(limit = LINEAR, comment = "Constant time for removals at both ends")
+    public final Long remove(int index) {
+        return removeLong(index);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Long set(int index, Long element) {
+        return setLong(index, element.longValue());
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final int size() {
+        return array.size();
+    }
+
+}
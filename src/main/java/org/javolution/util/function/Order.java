@@ -17,9 +17,14 @@ import java.util.Comparator;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.annotations.Realtime;
+import org.javolution.lang.Binary;
+import org.javolution.lang.Index;
 import org.javolution.lang.MathLib;
+import org.javolution.lang.Ternary;
 import org.javolution.util.internal.function.IdentityOrderImpl;
 import org.javolution.util.internal.function.LexicalOrderImpl;
+import org.javolution.util.internal.function.OctreeOrderImpl;
+import org.javolution.util.internal.function.QuadtreeOrderImpl;
 import org.javolution.util.internal.function.StandardOrderImpl;
 
 /**
@@ -78,26 +83,31 @@ public abstract class Order<T> implements Equality<T>, Comparator<T>, Indexer<T>
 //    	return NUMERIC;
 //    }
 //    private static final Order<Number> NUMERIC = null; // TODO
-//    
-//    
-//     /**
-//     * A two-dimensional order (index-based) preserving space locality.
-//     * 
-//     * @see <a href="http://en.wikipedia.org/wiki/Quadtree">Wikipedia: Quadtree</a>
-//     * @see #INDEX
-//     */
-//    @Realtime(limit = LOG_N)
-//    public static Order<Binary<Index, Index>> QUADTREE = null; // TODO
-//    
-//    /**
-//     * A three-dimensional order (index-based) preserving space locality.
-//     * 
-//     * @see <a href="http://en.wikipedia.org/wiki/Octree">Wikipedia: Octree</a>
-//     * @see #NUMERIC
-//     */
-//    @Realtime(limit = LOG_N)
-//    public static Order<Ternary<Index, Index, Index>> OCTREE = null; // TODO   
-//    
+    
+    /**
+     * Returns a two-dimensional order (index-based) preserving space locality; the coordinates are 
+     * 32-bits unsigned values.
+     * 
+     * @see <a href="http://en.wikipedia.org/wiki/Quadtree">Wikipedia: Quadtree</a>
+     */
+    @Realtime(limit = CONSTANT)
+    public static SpatialOrder<Binary<Index, Index>> quadtree() {
+        return QUADTREE;
+    }
+    private static final QuadtreeOrderImpl QUADTREE = new QuadtreeOrderImpl();
+    
+    /**
+     * Returns a three-dimensional order (index-based) preserving space locality; the coordinates are 
+     * 21-bits unsigned values.
+     * 
+     * @see <a href="http://en.wikipedia.org/wiki/Octree">Wikipedia: Octree</a>
+     */
+    @Realtime(limit = CONSTANT)
+    public static SpatialOrder<Ternary<Index, Index, Index>> octree() {
+        return OCTREE;
+    }
+    private static final OctreeOrderImpl OCTREE = new OctreeOrderImpl();
+    
 
     /**
      * Returns the order from the specified indexer. 
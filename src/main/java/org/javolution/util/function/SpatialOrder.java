@@ -0,0 +1,159 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.function;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.lang.MathLib.unsignedLessThan;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.MathLib;
+
+/**
+ * An order of points indexed by their Morton code (Z-order curve) preserving space locality.
+ *
+ * Points close in space have close indices; a bounding box is covered by a few ranges of indices which
+ * allows ordered collections (e.g. {@link org.javolution.util.FastSet#within FastSet.within}) to skip
+ * the indices outside the box instead of scanning them.
+ *
+ * ```java
+ * FastSet<Binary<Index, Index>> points = new FastSet<>(Order.quadtree());
+ * ...
+ * FastSet<Binary<Index, Index>> visible = points.within(topLeft, bottomRight);
+ * FastTable<Binary<Index, Index>> closest = points.nearest(location, 10);
+ * ```
+ *
+ * Two points are equal if they have the same index (same coordinates).
+ *
+ * @param <T> the type of points being ordered.
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 7.0, September 13, 2015
+ * @see <a href="http://en.wikipedia.org/wiki/Z-order_curve">Wikipedia: Z-order curve</a>
+ */
+public abstract class SpatialOrder<T> extends Order<T> {
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final int dimension;
+    private final long mask; // Bits of the first coordinate.
+    private final long maxCoordinate;
+
+    /**
+     * Creates a spatial order of the specified dimension.
+     *
+     * @param dimension the number of coordinates ({@code 2} or {@code 3}).
+     * @throws IllegalArgumentException if the dimension is not supported.
+     */
+    protected SpatialOrder(int dimension) {
+        if ((dimension != 2) && (dimension != 3)) throw new IllegalArgumentException("Two or three dimensions");
+        this.dimension = dimension;
+        this.mask = (dimension == 2) ? 0x5555555555555555L : 0x1249249249249249L;
+        this.maxCoordinate = (dimension == 2) ? 0xFFFFFFFFL : 0x1FFFFFL;
+    }
+
+    /** Returns the number of coordinates of the points. */
+    public final int dimension() {
+        return dimension;
+    }
+
+    /** Returns the largest coordinate value (unsigned), {@code 2^32 - 1} in two dimensions and
+     *  {@code 2^21 - 1} in three dimensions. */
+    public final long maxCoordinate() {
+        return maxCoordinate;
+    }
+
+    /**
+     * Returns the index (Morton code) of the point having the specified coordinates.
+     *
+     * @param coordinates the unsigned coordinates (one per dimension).
+     * @throws IllegalArgumentException if any coordinate is greater than {@link #maxCoordinate}.
+     */
+    @Realtime(limit = CONSTANT)
+    public final long index(long... coordinates) {
+        return (dimension == 2) ? MathLib.interleave(coordinates[0], coordinates[1])
+                : MathLib.interleave(coordinates[0], coordinates[1], coordinates[2]);
+    }
+
+    /** Returns the coordinate along the specified axis of the point having the specified index. */
+    @Realtime(limit = CONSTANT)
+    public final long coordinate(long index, int axis) {
+        return MathLib.deinterleave(index >>> axis, dimension);
+    }
+
+    /**
+     * Indicates if the point having the specified index is inside the box whose lower and upper corners
+     * have the specified indices (inclusive).
+     */
+    @Realtime(limit = CONSTANT)
+    public final boolean isInside(long index, long min, long max) {
+        for (int axis = 0; axis < dimension; axis++) {
+            long m = mask << axis; // Masked Morton codes are ordered as their coordinates.
+            long value = index & m;
+            if (unsignedLessThan(value, min & m) || unsignedLessThan(max & m, value)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the smallest index greater than the specified index which is inside the box whose lower and upper
+     * corners have the specified indices (BIGMIN). The specified index should be outside the box and less than
+     * the index of the upper corner.
+     *
+     * @see <a href="https://en.wikipedia.org/wiki/Z-order_curve#Use_with_one-dimensional_data_structures_for_range_searching">
+     *      Wikipedia: Z-order range searching</a>
+     */
+    @Realtime(limit = CONSTANT)
+    public final long nextInside(long index, long min, long max) {
+        long next = max;
+        for (int i = 63; i >= 0; i--) {
+            long bit = 1L << i;
+            long m = mask << (i % dimension);
+            if ((m & bit) == 0) continue; // Bit not used.
+            long below = m & (bit - 1); // Lower bits of the same coordinate.
+            boolean current = (index & bit) != 0;
+            boolean low = (min & bit) != 0;
+            boolean high = (max & bit) != 0;
+            if (low == high) {
+                if (current != low) return current ? next : min; // Past or before the whole range.
+            } else if (current) { // The lower half is behind.
+                min = (min | bit) & ~below;
+            } else { // The upper half is the next candidate.
+                next = (min | bit) & ~below;
+                max = (max & ~bit) | below;
+            }
+        }
+        return next;
+    }
+
+    /** Returns the euclidean distance between the points having the specified indices. */
+    @Realtime(limit = CONSTANT)
+    public final double distance(long index, long other) {
+        double sum = 0;
+        for (int axis = 0; axis < dimension; axis++) {
+            double delta = coordinate(index, axis) - coordinate(other, axis);
+            sum += delta * delta;
+        }
+        return MathLib.sqrt(sum);
+    }
+
+    @Override
+    public boolean areEqual(@Nullable T left, @Nullable T right) {
+        if (left == right) return true;
+        if ((left == null) || (right == null)) return false;
+        return indexOf(left) == indexOf(right);
+    }
+
+    @Override
+    public int compare(@Nullable T left, @Nullable T right) {
+        long leftIndex = indexOf(left);
+        long rightIndex = indexOf(right);
+        if (leftIndex == rightIndex) return 0;
+        return unsignedLessThan(leftIndex, rightIndex) ? -1 : 1;
+    }
+
+}
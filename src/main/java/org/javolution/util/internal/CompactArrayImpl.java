@@ -0,0 +1,306 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal;
+
+import static org.javolution.lang.MathLib.unsignedLessThan;
+
+import java.util.NoSuchElementException;
+
+import org.javolution.lang.Immutable;
+import org.javolution.util.FractalArray;
+import org.javolution.util.function.Predicate;
+
+/**
+ * An immutable fractal array in a compact read-optimized layout. Dense arrays (at most half of the indices range
+ * without element) are held in a single array indexed from the first index; sparse arrays in an open-addressed
+ * table (linear probing) whose keys and values are contiguous, the ascending order being given by the slots
+ * sorted by index. Lookups read one or two cache lines.
+ */
+public final class CompactArrayImpl<E> extends FractalArray<E> implements Immutable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int RANK_SHIFT = 6; // Dense: number of elements counted every 64 slots.
+    private final long first; // Dense: index of values[0].
+    private final Object[] values; // Dense: elements by offset; sparse: table values (null for empty slots).
+    private final long[] keys; // Sparse: table keys (null if dense).
+    private final int[] slots; // Sparse: slots in ascending index order (null if dense).
+    private final int[] ranks; // Dense: number of elements before each block of 64 slots (null if sparse).
+
+    /** Returns the compact copy of the specified array. */
+    public static <E> FractalArray<E> of(FractalArray<E> array) {
+        if (array instanceof CompactArrayImpl) return array;
+        long count = array.count(0, -1);
+        if (count > (Integer.MAX_VALUE >> 1)) throw new UnsupportedOperationException("Array too large");
+        final int n = (int) count;
+        final long[] indices = new long[n];
+        final Object[] elements = new Object[n];
+        array.forEachBlock(0, -1, new BlockConsumer() {
+            int i;
+
+            @Override
+            public void accept(long index, Object[] block, int offset, int length) {
+                for (int j = 0; j < length; j++) {
+                    Object e = block[offset + j];
+                    if (e == null) continue;
+                    indices[i] = index + j;
+                    elements[i++] = e;
+                }
+            }
+        });
+        return new CompactArrayImpl<E>(indices, elements);
+    }
+
+    private CompactArrayImpl(long[] indices, Object[] elements) {
+        int n = indices.length;
+        long span = (n == 0) ? -1 : indices[n - 1] - indices[0]; // Unsigned.
+        if ((n == 0) || unsignedLessThan(span, 2L * n)) { // Dense.
+            first = (n == 0) ? 0 : indices[0];
+            values = new Object[(int) span + 1];
+            for (int i = 0; i < n; i++)
+                values[(int) (indices[i] - first)] = elements[i];
+            ranks = new int[(values.length >>> RANK_SHIFT) + 1];
+            for (int i = 0, rank = 0; i < values.length; i++) {
+                if ((i & ((1 << RANK_SHIFT) - 1)) == 0) ranks[i >>> RANK_SHIFT] = rank;
+                if (values[i] != null) rank++;
+            }
+            keys = null;
+            slots = null;
+        } else { // Sparse (load factor 0.8).
+            first = 0;
+            int capacity = n + (n >>> 2) + 1;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            slots = new int[n];
+            for (int i = 0; i < n; i++) {
+                int slot = home(indices[i], capacity);
+                while (values[slot] != null)
+                    if (++slot == capacity) slot = 0;
+                keys[slot] = indices[i];
+                values[slot] = elements[i];
+                slots[i] = slot;
+            }
+            ranks = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E get(long index) {
+        if (keys == null) {
+            long offset = index - first;
+            return unsignedLessThan(offset, values.length) ? (E) values[(int) offset] : null;
+        }
+        for (int slot = home(index, keys.length);;) {
+            Object value = values[slot];
+            if (value == null) return null;
+            if (keys[slot] == index) return (E) value;
+            if (++slot == keys.length) slot = 0;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length() == 0; // The first and last positions hold elements.
+    }
+
+    @Override
+    public CompactArrayImpl<E> clone() {
+        return this; // Immutable.
+    }
+
+    @Override
+    public FractalArray<E> compact() {
+        return this;
+    }
+
+    @Override
+    public FractalArray<E> unmodifiable() {
+        return this;
+    }
+
+    @Override
+    public FractalArray<E> clear(long index) {
+        throw new UnsupportedOperationException("Immutable");
+    }
+
+    @Override
+    public FractalArray<E> set(long index, E element) {
+        throw new UnsupportedOperationException("Immutable");
+    }
+
+    @Override
+    public FractalArray<E> set(long from, E[] src, int srcPos, int length) {
+        throw new UnsupportedOperationException("Immutable");
+    }
+
+    @Override
+    public FractalArray<E> insert(long index, E inserted) {
+        throw new UnsupportedOperationException("Immutable");
+    }
+
+    @Override
+    public FractalArray<E> delete(long index) {
+        throw new UnsupportedOperationException("Immutable");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public long next(long after, Predicate<? super E> matching) {
+        for (int pos = positionAfter(after), n = length(); pos < n; pos++) {
+            Object value = valueAt(pos);
+            if ((value != null) && ((matching == null) || matching.test((E) value))) return indexAt(pos);
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public long previous(long before, Predicate<? super E> matching) {
+        for (int pos = positionOf(before) - 1; pos >= 0; pos--) {
+            Object value = valueAt(pos);
+            if ((value != null) && ((matching == null) || matching.test((E) value))) return indexAt(pos);
+        }
+        return -1;
+    }
+
+    @Override
+    public void forEachBlock(long from, long to, BlockConsumer consumer) {
+        if (unsignedLessThan(to, from)) return;
+        int start = positionOf(from);
+        int end = positionAfter(to);
+        if (keys == null) {
+            if (start < end) consumer.accept(first + start, values, start, end - start);
+            return;
+        }
+        for (int pos = start; pos < end; pos++) {
+            int slot = slots[pos];
+            consumer.accept(keys[slot], values, slot, 1);
+        }
+    }
+
+    @Override
+    public long count(long from, long to) {
+        if (unsignedLessThan(to, from)) return 0;
+        return countBefore(positionAfter(to)) - countBefore(positionOf(from));
+    }
+
+    @Override
+    public Iterator<E> iterator(long from) {
+        return new IteratorImpl(positionOf(from), 1);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator(long from) {
+        return new IteratorImpl(positionAfter(from) - 1, -1);
+    }
+
+    /** Returns the number of positions (including empty positions of dense arrays). */
+    private int length() {
+        return (keys == null) ? values.length : slots.length;
+    }
+
+    private long indexAt(int pos) {
+        return (keys == null) ? first + pos : keys[slots[pos]];
+    }
+
+    private Object valueAt(int pos) {
+        return (keys == null) ? values[pos] : values[slots[pos]];
+    }
+
+    /** Returns the first position whose index is greater than or equal to the specified index. */
+    private int positionOf(long index) {
+        if (keys == null) {
+            if (unsignedLessThan(index, first)) return 0;
+            long offset = index - first;
+            return unsignedLessThan(offset, values.length) ? (int) offset : values.length;
+        }
+        int low = 0;
+        int high = slots.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (unsignedLessThan(keys[slots[mid]], index)) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /** Returns the first position whose index is greater than the specified index. */
+    private int positionAfter(long index) {
+        int pos = positionOf(index);
+        return ((pos < length()) && (indexAt(pos) == index)) ? pos + 1 : pos;
+    }
+
+    /** Returns the number of elements before the specified position. */
+    private int countBefore(int pos) {
+        if (keys != null) return pos;
+        int block = pos >>> RANK_SHIFT;
+        int count = ranks[block];
+        for (int i = block << RANK_SHIFT; i < pos; i++)
+            if (values[i] != null) count++;
+        return count;
+    }
+
+    /** Returns the home slot of the specified index (Fibonacci hashing scaled to the capacity). */
+    private static int home(long index, int capacity) {
+        return (int) ((((index * 0x9E3779B97F4A7C15L) >>> 32) * capacity) >>> 32);
+    }
+
+    /** Iterator over positions (skips the empty positions of dense arrays). */
+    private final class IteratorImpl implements Iterator<E> {
+        private final int increment;
+        private int pos;
+
+        private IteratorImpl(int pos, int increment) {
+            this.pos = pos;
+            this.increment = increment;
+            skipEmpty();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (pos >= 0) && (pos < length());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            for (; hasNext(); pos += increment) {
+                Object value = valueAt(pos);
+                if ((value != null) && matching.test((E) value)) return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E next = (E) valueAt(pos);
+            pos += increment;
+            skipEmpty();
+            return next;
+        }
+
+        @Override
+        public long nextIndex() {
+            return hasNext() ? indexAt(pos) : (increment > 0) ? 0 : -1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(); // As per contract.
+        }
+
+        private void skipEmpty() {
+            while (hasNext() && (valueAt(pos) == null))
+                pos += increment;
+        }
+    }
+
+}
@@ -10,8 +10,12 @@ package org.javolution.util.internal;
 
 import static org.javolution.lang.MathLib.unsignedLessThan;
 
+import java.io.Serializable;
+
 import org.javolution.annotations.Nullable;
+import org.javolution.context.ConcurrentContext;
 import org.javolution.lang.Immutable;
+import org.javolution.lang.MathLib;
 import org.javolution.util.FractalArray;
 import org.javolution.util.function.Predicate;
 
@@ -19,11 +23,15 @@ import org.javolution.util.function.Predicate;
  * The fractal array default implementation (core class for org.javolution.util package). 
  * Each instance has a bounded capacity and returns an enclosing instance with higher capacity
  * when its capacity is reached (no resize ever).
+ * Large arrays are cloned as persistent tries sharing their nodes (updates are path-copying).
+ * Cloning a large array records its trie on the array itself: the receiver content is unchanged but all its
+ * subsequent updates are forwarded to the trie (and then share its cost).
  */
 public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 	
 	private static final long serialVersionUID = 0x700L;
 	private static final Empty<Object> EMPTY = new Empty<Object>(); // Singleton.
+	private static final int PARALLEL_THRESHOLD = 1 << 16; // Minimum number of elements to merge concurrently.
 
 
 	/** Returns the immutable empty instance. */
@@ -53,6 +61,69 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 	@Override
 	public abstract FractalArrayImpl<E> delete(long index);
 	
+	@Override
+	public FractalArrayImpl<E> set(long from, E[] src, int srcPos, int length) {
+		return (FractalArrayImpl<E>) super.set(from, src, srcPos, length);
+	}
+
+	@Override
+	public FractalArrayImpl<E> merge(FractalArray<E> other, boolean keepThis, boolean keepThat, Merger<E> merger) {
+		FractalArray<E> that = viewed(other);
+		if (!(that instanceof FractalArrayImpl)) 
+			return (FractalArrayImpl<E>) super.merge(that, keepThis, keepThat, merger);
+		if (!(this instanceof Trie) && !(that instanceof Trie)) 
+			return new FlatMerge<E>(this, (FractalArrayImpl<E>) that, keepThis, keepThat, merger).run();
+		Trie<E> left = Trie.of(this);
+		Trie<E> right = Trie.of((FractalArrayImpl<E>) that);
+		if (left == null) return keepThat ? right.clone() : FractalArrayImpl.<E>empty();
+		if (right == null) return keepThis ? left.clone() : FractalArrayImpl.<E>empty();
+		if (left.offset != right.offset) // Rotated, nodes cannot be matched.
+			return (FractalArrayImpl<E>) super.merge(that, keepThis, keepThat, merger);
+		Trie<E> merged = Trie.merge(left, right, keepThis, keepThat, merger);
+		return (merged != null) ? merged : FractalArrayImpl.<E>empty();
+	}
+
+	/** 
+	 * Returns the concatenation of the specified arrays. The destination is sized once from the number of elements 
+	 * of each array, then each array copies its elements into its own range of positions (concurrently for large 
+	 * arrays).
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> FractalArrayImpl<E> concat(FractalArray<? extends E>[] arrays, long[] lengths) {
+		long[] starts = new long[arrays.length]; // Index of the first element of each array.
+		int[] positions = new int[arrays.length]; // Position of the first element of each array.
+		long start = 0;
+		long count = 0;
+		for (int i = 0; i < arrays.length; i++) {
+			starts[i] = start;
+			positions[i] = (int) count;
+			if (lengths[i] != 0) count += arrays[i].count(0, lengths[i] - 1);
+			if (count > Integer.MAX_VALUE) throw new UnsupportedOperationException("Array too large");
+			start += lengths[i];
+		}
+		long[] indices = new long[(int) count];
+		Object[] elements = new Object[(int) count];
+		BlockCopy[] copies = new BlockCopy[arrays.length];
+		for (int i = 0; i < arrays.length; i++)
+			copies[i] = new BlockCopy(arrays[i], lengths[i], starts[i], indices, elements, positions[i]);
+		if (count < PARALLEL_THRESHOLD) {
+			for (BlockCopy copy : copies) 
+				copy.run();
+		} else {
+			ConcurrentContext ctx = ConcurrentContext.enter();
+			try {
+				for (int i = 1; i < copies.length; i++)
+					ctx.execute(copies[i]);
+				copies[0].run(); // Current thread needs to work too!
+			} finally {
+				ctx.exit(); // Waits for concurrent completion.
+			}
+		}
+		if (count == 0) return empty();
+		if (count == 1) return new Single<E>(indices[0], (E) elements[0]);
+		return new Array<E>(indices, (E[]) elements, (int) count);
+	}
+
 	/** Shifts all elements to the right **/
 	abstract FractalArrayImpl<E> shiftRight();
 
@@ -116,6 +187,24 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 			return -1;
 		}
 
+		@Override
+		public void forEachBlock(long from, long to, BlockConsumer consumer) {
+		}
+
+		@Override
+		public long count(long from, long to) {
+			return 0;
+		}
+
+		@Override
+		public FractalArrayImpl<E> set(long from, E[] src, int srcPos, int length) {
+			if ((srcPos < 0) || (length < 0) || (srcPos > src.length - length)) throw new IndexOutOfBoundsException();
+			int i = 0;
+			while ((i < length) && (src[srcPos + i] == null)) i++; // Skips leading nulls.
+			if (i == length) return this;
+			return new Single<E>(from + i, src[srcPos + i]).set(from + i + 1, src, srcPos + i + 1, length - i - 1);
+		}
+
 		@Override
 		Empty<E> shiftRight() {
 			return this;
@@ -173,22 +262,41 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 
 		@Override
 		public FractalArrayImpl<E> delete(long i) {
+			if (index == i) return empty();
 			if (unsignedLessThan(i, index)) index--; // Shift left.
-			return clear(i);
+			return this;
 		}
 
 		@Override
 		public long next(long after, Predicate<? super E> matching) {
-			if (unsignedLessThan(after, index) && matching.test(element)) return index;
+			if (unsignedLessThan(after, index) && ((matching == null) || matching.test(element))) return index;
 			return 0;
 		}
 
 		@Override
 		public long previous(long before, Predicate<? super E> matching) {
-			if (unsignedLessThan(index, before) && matching.test(element)) return index;
+			if (unsignedLessThan(index, before) && ((matching == null) || matching.test(element))) return index;
 			return -1;
 		}
 
+		@Override
+		public void forEachBlock(long from, long to, BlockConsumer consumer) {
+			if (!unsignedLessThan(index, from) && !unsignedLessThan(to, index)) 
+				consumer.accept(index, new Object[] { element }, 0, 1);
+		}
+
+		@Override
+		public long count(long from, long to) {
+			return (!unsignedLessThan(index, from) && !unsignedLessThan(to, index)) ? 1 : 0;
+		}
+
+		@Override
+		public FractalArrayImpl<E> set(long from, E[] src, int srcPos, int length) {
+			if ((length > 0) && (src[srcPos] != null) && unsignedLessThan(index, from)) // Switches to array.
+				return new Array<E>(index, element, from, src[srcPos]).set(from + 1, src, srcPos + 1, length - 1);
+			return super.set(from, src, srcPos, length);
+		}
+
 		@Override
 		Single<E> shiftRight() {
 			index++;
@@ -206,9 +314,11 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 	private static final class Array<E> extends FractalArrayImpl<E> {	
 	private static final long serialVersionUID = FractalArrayImpl.serialVersionUID;
 	    private static final int INITIAL_CAPACITY = 16;
+	    private static final int SHARING_THRESHOLD = 32; // Minimum length for clones to share their structure.
 	    private long[] indices;
 	    private E[] elements;
 	    private int length;
+	    private transient volatile Trie<E> persistent; // Built on first clone, performs all subsequent updates.
 
 		@SuppressWarnings("unchecked")
 		public Array(long i0, E e0, long i1, E e1) {
@@ -228,6 +338,21 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 			}
 		}
 
+		@SuppressWarnings("unchecked")
+		private Array(long[] indices, E[] elements, int length) {
+			int capacity = MathLib.max(length, INITIAL_CAPACITY);
+			if (indices.length > 2 * capacity) { // Trims.
+				this.indices = new long[capacity];
+				this.elements = (E[]) new Object[capacity];
+				System.arraycopy(indices, 0, this.indices, 0, length);
+				System.arraycopy(elements, 0, this.elements, 0, length);
+			} else {
+				this.indices = indices;
+				this.elements = elements;
+			}
+			this.length = length;
+		}
+
 		private Array(Array<E> that) {
 			indices = that.indices.clone();
 			elements = that.elements.clone();
@@ -236,11 +361,15 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 		
 		@Override
 		public FractalArrayImpl<E> clone() {
-			return new Array<E>(this);
+			if (length < SHARING_THRESHOLD) return new Array<E>(this);
+			Trie<E> trie = persistent;
+			if (trie == null) persistent = trie = new Trie<E>(this); // Once, this array is not updated anymore.
+			return trie.clone();
 		}
 		
 		@Override
 		public FractalArrayImpl<E> clear(long index) {
+			if (persistent != null) return persistent.clear(index);
 			int i = positionOf(index, 0, length);
 			if (i >= 0) { // Found it.
 				System.arraycopy(indices, i+1, indices, i, length - i - 1);
@@ -252,6 +381,8 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 		
 		@Override
 		public FractalArrayImpl<E> set(long index, E element) {
+			if (persistent != null) return persistent.set(index, element);
+			if (element == null) return clear(index);
 			int i = positionOf(index, 0, length);
 			if (i >= 0) { // Replace element.
 				elements[i] = element;
@@ -269,10 +400,12 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 		
 		@Override
 		public FractalArrayImpl<E> insert(long index, E inserted) {
+			if (persistent != null) return persistent.insert(index, inserted);
 			if (length >= indices.length) return upsize().insert(index, inserted);
 			int i = positionOf(index, 0, length);
 			i = (i >= 0) ? i : -i - 1;
 			for (int j=i; j < length; ++j) indices[j]++;
+			if (inserted == null) return this; // Shift only.
 			System.arraycopy(indices, i, indices, i+1, length - i);
 			System.arraycopy(elements, i, elements, i+1, length - i);
 			indices[i] = index;
@@ -283,6 +416,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 
 		@Override
 		public FractalArrayImpl<E> delete(long index) {
+			if (persistent != null) return persistent.delete(index);
 			int i = positionOf(index, 0, length);
 			if (i >= 0) { // Remove element.
 				System.arraycopy(indices, i+1, indices, i, length - i - 1);
@@ -303,6 +437,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 	
 		@Override
 		FractalArrayImpl<E> shiftRight() {
+			if (persistent != null) return persistent.shiftRight();
 			if ((length != 0) && (indices[length-1] == -1)) 
 				throw new ArithmeticException("Index Overflow");
 			for (int i=0; i < length; ++i) indices[i]++;
@@ -311,6 +446,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 
 		@Override
 		FractalArrayImpl<E> shiftLeft() {
+			if (persistent != null) return persistent.shiftLeft();
 			if ((length != 0) && (indices[0] == 0)) 
 				throw new ArithmeticException("Index Underflow");
 			for (int i=0; i < length; ++i) indices[i]--;
@@ -322,7 +458,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 			int i = positionOf(after, 0, length);
 			i = (i >= 0) ? i + 1 : -i - 1;
 			while (i < length) {
-				if (matching.test(elements[i])) return indices[i];
+				if ((matching == null) || matching.test(elements[i])) return indices[i];
 				i++;
 			}
 			return 0;
@@ -333,12 +469,56 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 			int i = positionOf(before, 0, length);
 			i = (i >= 0) ? i - 1 : -i - 2;
 			while (i >= 0) {
-				if (matching.test(elements[i])) return indices[i];
+				if ((matching == null) || matching.test(elements[i])) return indices[i];
 				i--;
 			}
 			return -1;
 		}
 	    
+		@Override
+		public void forEachBlock(long from, long to, BlockConsumer consumer) {
+			int i = positionOf(from, 0, length);
+			i = (i >= 0) ? i : -i - 1;
+			while ((i < length) && !unsignedLessThan(to, indices[i])) { // Consecutive indices form a block.
+				int start = i;
+				while ((++i < length) && (indices[i] == indices[i - 1] + 1) && !unsignedLessThan(to, indices[i])) {}
+				consumer.accept(indices[start], elements, start, i - start);
+			}
+		}
+
+		@Override
+		public long count(long from, long to) {
+			if (unsignedLessThan(to, from)) return 0;
+			int i = positionOf(from, 0, length);
+			int j = positionOf(to, 0, length);
+			return ((j >= 0) ? j + 1 : -j - 1) - ((i >= 0) ? i : -i - 1);
+		}
+
+		@Override
+		public FractalArrayImpl<E> set(long from, E[] src, int srcPos, int n) {
+			if ((srcPos < 0) || (n < 0) || (srcPos > src.length - n)) throw new IndexOutOfBoundsException();
+			if (persistent != null) return persistent.set(from, src, srcPos, n);
+			if ((n == 0) || unsignedLessThan(from + n - 1, from)) return super.set(from, src, srcPos, n); 
+			if ((length == 0) || unsignedLessThan(indices[length - 1], from)) { // Appends (nulls skipped).
+				if (length + n > indices.length) upsize(length + n);
+				for (int i = 0; i < n; i++) {
+					E e = src[srcPos + i];
+					if (e == null) continue;
+					indices[length] = from + i;
+					elements[length++] = e;
+				}
+				return this;
+			}
+			int i = positionOf(from, 0, length);
+			if ((i >= 0) && (i + n <= length) && (indices[i + n - 1] == from + n - 1)) { // Overwrites block.
+				for (int j = 0; j < n; j++)
+					if (src[srcPos + j] == null) return super.set(from, src, srcPos, n); // Clears.
+				System.arraycopy(src, srcPos, elements, i, n);
+				return this;
+			}
+			return super.set(from, src, srcPos, n);
+		}
+		
 		private int positionOf(long index, int start, int length) {
 			while (length != 0) {
 				int half = length >> 1;
@@ -355,10 +535,15 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 			return -start - 1; // Not found.	
 		}		
 		
- 		@SuppressWarnings("unchecked")
  		private FractalArrayImpl<E> upsize() {
-    		long[] indicesTmp = new long[indices.length * 2];
-    		E[] elementsTmp = (E[]) new Object[elements.length * 2];
+ 			return upsize(indices.length * 2);
+ 		}
+
+ 		@SuppressWarnings("unchecked")
+ 		private FractalArrayImpl<E> upsize(int minCapacity) {
+ 			int capacity = Integer.highestOneBit(minCapacity - 1) << 1; // Power of two.
+    		long[] indicesTmp = new long[capacity];
+    		E[] elementsTmp = (E[]) new Object[capacity];
     	    System.arraycopy(indices, 0, indicesTmp, 0, length);
      		System.arraycopy(elements, 0, elementsTmp, 0, length);
     		indices = indicesTmp;
@@ -380,6 +565,676 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
     	}
 
 	}
+
+	/** Copy of the elements of an array into a range of positions of the destination (see concat). */
+	private static final class BlockCopy implements Runnable, BlockConsumer {
+		private final FractalArray<?> src;
+		private final long length;
+		private final long start;
+		private final long[] indices;
+		private final Object[] elements;
+		private int pos;
+
+		BlockCopy(FractalArray<?> src, long length, long start, long[] indices, Object[] elements, int pos) {
+			this.src = src;
+			this.length = length;
+			this.start = start;
+			this.indices = indices;
+			this.elements = elements;
+			this.pos = pos;
+		}
+
+		@Override
+		public void run() {
+			if (length != 0) src.forEachBlock(0, length - 1, this);
+		}
+
+		@Override
+		public void accept(long index, Object[] block, int offset, int n) {
+			for (int i = 0; i < n; i++) {
+				Object e = block[offset + i];
+				if (e == null) continue;
+				indices[pos] = start + index + i;
+				elements[pos++] = e;
+			}
+		}
+	}
+
+	/** Merge of flat arrays (empty, single or array) by merging their sorted indices. */
+	private static final class FlatMerge<E> {
+		private final long[] leftIndices;
+		private final Object[] leftElements;
+		private final int leftLength;
+		private final long[] rightIndices;
+		private final Object[] rightElements;
+		private final int rightLength;
+		private final boolean keepLeft;
+		private final boolean keepRight;
+		private final Merger<E> merger;
+
+		FlatMerge(FractalArrayImpl<E> left, FractalArrayImpl<E> right, boolean keepLeft, boolean keepRight, 
+				Merger<E> merger) {
+			this.keepLeft = keepLeft;
+			this.keepRight = keepRight;
+			this.merger = merger;
+			if (left instanceof Array) {
+				Array<E> array = (Array<E>) left;
+				leftIndices = array.indices;
+				leftElements = array.elements;
+				leftLength = array.length;
+			} else if (left instanceof Single) {
+				Single<E> single = (Single<E>) left;
+				leftIndices = new long[] { single.index };
+				leftElements = new Object[] { single.element };
+				leftLength = 1;
+			} else {
+				leftIndices = new long[0];
+				leftElements = new Object[0];
+				leftLength = 0;
+			}
+			if (right instanceof Array) {
+				Array<E> array = (Array<E>) right;
+				rightIndices = array.indices;
+				rightElements = array.elements;
+				rightLength = array.length;
+			} else if (right instanceof Single) {
+				Single<E> single = (Single<E>) right;
+				rightIndices = new long[] { single.index };
+				rightElements = new Object[] { single.element };
+				rightLength = 1;
+			} else {
+				rightIndices = new long[0];
+				rightElements = new Object[0];
+				rightLength = 0;
+			}
+		}
+
+		/** Performs the merge (concurrently for large arrays). */
+		FractalArrayImpl<E> run() {
+			if (leftLength + rightLength < PARALLEL_THRESHOLD) 
+				return merge(0, leftLength, 0, rightLength).toArray();
+			final Output[] outputs;
+			ConcurrentContext ctx = ConcurrentContext.enter();
+			try { // Splits the left indices in chunks, the right indices are split at the same index values.
+				int n = MathLib.min(ctx.getConcurrency() + 1, MathLib.max(leftLength, 1));
+				outputs = new Output[n];
+				for (int c = 0; c < n; c++) {
+					final int chunk = c;
+					final int i = c * leftLength / n;
+					final int iEnd = (c + 1) * leftLength / n;
+					final int j = (c == 0) ? 0 : gallop(rightIndices, 0, rightLength, leftIndices[i]);
+					final int jEnd = (c == n - 1) ? rightLength 
+							: gallop(rightIndices, 0, rightLength, leftIndices[iEnd]);
+					ctx.execute(new Runnable() {
+						@Override
+						public void run() {
+							outputs[chunk] = merge(i, iEnd, j, jEnd);
+						}
+					});
+				}
+			} finally {
+				ctx.exit();
+			}
+			int length = 0;
+			for (Output output : outputs)
+				length += output.length;
+			Output result = new Output(length);
+			for (Output output : outputs)
+				result.append(output.indices, output.elements, 0, output.length);
+			return result.toArray();
+		}
+
+		/** Merges the specified ranges of positions. */
+		@SuppressWarnings("unchecked")
+		private Output merge(int i, int iEnd, int j, int jEnd) {
+			Output output = new Output((keepLeft ? iEnd - i : 0) + (keepRight ? jEnd - j : 0) 
+					+ MathLib.min(iEnd - i, jEnd - j));
+			while ((i < iEnd) && (j < jEnd)) {
+				long leftIndex = leftIndices[i];
+				long rightIndex = rightIndices[j];
+				if (unsignedLessThan(leftIndex, rightIndex)) { // Run of left elements only.
+					int k = gallop(leftIndices, i, iEnd, rightIndex);
+					if (keepLeft) output.append(leftIndices, leftElements, i, k - i);
+					i = k;
+				} else if (unsignedLessThan(rightIndex, leftIndex)) { // Run of right elements only.
+					int k = gallop(rightIndices, j, jEnd, leftIndex);
+					if (keepRight) output.append(rightIndices, rightElements, j, k - j);
+					j = k;
+				} else {
+					Object merged = merger.merge(leftIndex, (E) leftElements[i++], (E) rightElements[j++]);
+					if (merged != null) output.add(leftIndex, merged);
+				}
+			}
+			if (keepLeft) output.append(leftIndices, leftElements, i, iEnd - i);
+			if (keepRight) output.append(rightIndices, rightElements, j, jEnd - j);
+			return output;
+		}
+
+		/** Returns the first position in the specified range whose index is greater or equal to the key. */
+		private static int gallop(long[] indices, int from, int end, long key) {
+			if ((from >= end) || !unsignedLessThan(indices[from], key)) return from;
+			int step = 1; // Exponential search (runs are usually short).
+			while ((from + step < end) && unsignedLessThan(indices[from + step], key)) step <<= 1;
+			int low = from + (step >> 1); // Index at low is less than key.
+			int high = MathLib.min(from + step, end);
+			while (low + 1 < high) {
+				int mid = (low + high) >>> 1;
+				if (unsignedLessThan(indices[mid], key)) {
+					low = mid;
+				} else {
+					high = mid;
+				}
+			}
+			return high;
+		}
+
+		/** Sorted indices and elements merged. */
+		private static final class Output {
+			final long[] indices;
+			final Object[] elements;
+			int length;
+
+			Output(int capacity) {
+				indices = new long[capacity];
+				elements = new Object[capacity];
+			}
+
+			void add(long index, Object element) {
+				indices[length] = index;
+				elements[length++] = element;
+			}
+
+			void append(long[] srcIndices, Object[] srcElements, int pos, int n) {
+				System.arraycopy(srcIndices, pos, indices, length, n);
+				System.arraycopy(srcElements, pos, elements, length, n);
+				length += n;
+			}
+
+			@SuppressWarnings("unchecked")
+			<E> FractalArrayImpl<E> toArray() {
+				if (length == 0) return empty();
+				if (length == 1) return new Single<E>(indices[0], (E) elements[0]);
+				return new Array<E>(indices, (E[]) elements, length);
+			}
+		}
+	}
+
+	/** 
+	 * Persistent radix trie (16-ways, path compressed) holding large arrays once cloned (the original array 
+	 * forwards its subsequent updates to its own trie). Nodes are shared between clones and copied on first update 
+	 * (path-copying), clones are performed in constant time. Insertions and deletions move the {@code k} elements on
+	 * the shortest side, one removal and one put per element ({@code O(k Log(n))} time plus {@code O(k)} temporary
+	 * storage); none at both ends, the offset is updated instead.
+	 */
+	private static final class Trie<E> extends FractalArrayImpl<E> {
+		private static final long serialVersionUID = FractalArrayImpl.serialVersionUID;
+		private Node root; // Never null.
+		private long offset; // Physical index minus logical index (supports fast rotation).
+		private transient Object owner; // Nodes having the same owner can be updated in place.
+
+		private Trie(Node root, long offset) {
+			this.root = root;
+			this.offset = offset;
+		}
+
+		private Trie(Array<E> array) {
+			for (int i = 0; i < array.length; i++)
+				root = put(root, array.indices[i], array.elements[i]);
+		}
+
+		/** Returns a trie holding the elements of the specified array ({@code null} if the array is empty). */
+		static <E> Trie<E> of(FractalArrayImpl<E> array) {
+			if (array instanceof Trie) return (Trie<E>) array;
+			if (array instanceof Array) return new Trie<E>((Array<E>) array);
+			if (!(array instanceof Single)) return null;
+			Single<E> single = (Single<E>) array;
+			Trie<E> trie = new Trie<E>(null, 0);
+			trie.root = trie.put(null, single.index, single.element);
+			return trie;
+		}
+
+		/** Merges two tries having the same offset (the sub-trees not intersecting are shared with the result). */
+		static <E> Trie<E> merge(Trie<E> left, Trie<E> right, boolean keepLeft, boolean keepRight, 
+				Merger<E> merger) {
+			left.owner = null; // Shared nodes are now immutable for all instances.
+			right.owner = null;
+			Object owner = new Object();
+			Node root = merge(left.root, right.root, keepLeft, keepRight, merger, left.offset, owner);
+			if (root == null) return null;
+			Trie<E> trie = new Trie<E>(root, left.offset);
+			trie.owner = owner; // New nodes can be updated in place.
+			return trie;
+		}
+
+		@Override
+		public Trie<E> clone() {
+			owner = null; // Shared nodes are now immutable for both instances.
+			return new Trie<E>(root, offset);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E get(long index) {
+			long p = index + offset;
+			for (Node node = root; node.covers(p);) {
+				Object obj = node.slots[node.slotOf(p)];
+				if (node.shift == 0) return (E) obj;
+				if (obj == null) return null;
+				node = (Node) obj;
+			}
+			return null;
+		}
+
+		@Override
+		public FractalArrayImpl<E> clear(long index) {
+			root = remove(root, index + offset);
+			return (root != null) ? this : FractalArrayImpl.<E>empty();
+		}
+
+		@Override
+		public FractalArrayImpl<E> set(long index, E element) {
+			if (element == null) return clear(index);
+			root = put(root, index + offset, element);
+			return this;
+		}
+
+		@Override
+		public FractalArrayImpl<E> insert(long index, E inserted) {
+			if (get(-1) != null) throw new ArithmeticException("Index Overflow");
+			long below = (index == 0) ? 0 : count(0, index - 1);
+			if (below < root.count - below) { // Shifts head to the left.
+				offset--;
+				move(1, index, -1);
+			} else { // Shifts tail to the right.
+				move(index, -1, 1);
+			}
+			return set(index, inserted);
+		}
+
+		@Override
+		public FractalArrayImpl<E> delete(long index) {
+			root = remove(root, index + offset);
+			if (root == null) return FractalArrayImpl.<E>empty();
+			long below = (index == 0) ? 0 : count(0, index - 1);
+			if (below < root.count - below) { // Shifts head to the right.
+				if (index != 0) move(0, index - 1, 1);
+				offset++;
+			} else { // Shifts tail to the left.
+				if (index != -1) move(index + 1, -1, -1);
+			}
+			return this;
+		}
+
+		@Override
+		Trie<E> shiftRight() {
+			if (get(-1) != null) throw new ArithmeticException("Index Overflow");
+			offset--;
+			return this;
+		}
+
+		@Override
+		Trie<E> shiftLeft() {
+			if (get(0) != null) throw new ArithmeticException("Index Underflow");
+			offset++;
+			return this;
+		}
+
+		@Override
+		public long next(long after, Predicate<? super E> matching) {
+			if (after == -1) return 0;
+			long from = after + 1 + offset;
+			long to = offset - 1; // Physical index of the last logical index.
+			if (unsignedLessThan(to, from)) { // Wraps around.
+				long found = ascend(root, from, -1, from - 1, matching);
+				if (found != from - 1) return found - offset;
+				from = 0;
+			}
+			long found = ascend(root, from, to, to + 1, matching);
+			return (found != to + 1) ? found - offset : 0;
+		}
+
+		@Override
+		public long previous(long before, Predicate<? super E> matching) {
+			if (before == 0) return -1;
+			long from = offset;
+			long to = before - 1 + offset;
+			if (unsignedLessThan(to, from)) { // Wraps around.
+				long found = descend(root, 0, to, to + 1, matching);
+				if (found != to + 1) return found - offset;
+				to = -1;
+			}
+			long found = descend(root, from, to, from - 1, matching);
+			return (found != from - 1) ? found - offset : -1;
+		}
+
+		@Override
+		public void forEachBlock(long from, long to, BlockConsumer consumer) {
+			if (unsignedLessThan(to, from)) return;
+			long pFrom = from + offset;
+			long pTo = to + offset;
+			if (unsignedLessThan(pTo, pFrom)) { // Wraps around.
+				forEach(root, pFrom, -1, offset, consumer);
+				pFrom = 0;
+			}
+			forEach(root, pFrom, pTo, offset, consumer);
+		}
+
+		@Override
+		public long count(long from, long to) {
+			if (unsignedLessThan(to, from)) return 0;
+			long pFrom = from + offset;
+			long pTo = to + offset;
+			if (!unsignedLessThan(pTo, pFrom)) return count(root, pFrom, pTo);
+			return count(root, pFrom, -1) + count(root, 0, pTo); // Wraps around.
+		}
+
+		/** 
+		 * Moves the elements in the specified range of logical indices by the specified delta (path-copying). 
+		 * The {@code k} elements moved are first copied into temporary arrays: {@code O(k Log(n))}.
+		 */
+		private void move(long from, long to, long delta) {
+			long count = count(from, to);
+			if (count == 0) return;
+			final long[] indices = new long[(int) count];
+			final Object[] elements = new Object[(int) count];
+			forEachBlock(from, to, new BlockConsumer() {
+				int n;
+
+				@Override
+				public void accept(long index, Object[] block, int pos, int length) {
+					for (int i = 0; i < length; i++) {
+						Object e = block[pos + i];
+						if (e == null) continue;
+						indices[n] = index + i;
+						elements[n++] = e;
+					}
+				}
+			});
+			for (long index : indices)
+				root = remove(root, index + offset);
+			for (int i = 0; i < indices.length; i++)
+				root = put(root, indices[i] + delta + offset, elements[i]);
+		}
+
+		/** Returns the node to use for updates (copy of the specified node if not owned). */
+		private Node editable(Node node) {
+			if (owner == null) owner = new Object();
+			return (node.owner == owner) ? node : new Node(node, owner);
+		}
+
+		/** Sets the element at the specified physical index in the specified sub-tree. */
+		private Node put(Node node, long index, Object element) {
+			if (node == null) {
+				if (owner == null) owner = new Object();
+				Node leaf = new Node(0, index, owner);
+				leaf.slots[leaf.slotOf(index)] = element;
+				leaf.count = 1;
+				return leaf;
+			}
+			if (!node.covers(index)) { // Joins the two sub-trees.
+				Node leaf = put(null, index, element);
+				int shift = (63 - Long.numberOfLeadingZeros(node.prefix ^ index)) & ~3;
+				Node joint = new Node(shift, index, owner);
+				joint.slots[joint.slotOf(node.prefix)] = node;
+				joint.slots[joint.slotOf(index)] = leaf;
+				joint.count = node.count + 1;
+				return joint;
+			}
+			int i = node.slotOf(index);
+			if (node.shift == 0) {
+				Node leaf = editable(node);
+				if (leaf.slots[i] == null) leaf.count++;
+				leaf.slots[i] = element;
+				return leaf;
+			}
+			Node child = (Node) node.slots[i];
+			int count = (child != null) ? child.count : 0;
+			Node updated = put(child, index, element);
+			Node parent = editable(node);
+			parent.slots[i] = updated;
+			parent.count += updated.count - count;
+			return parent;
+		}
+
+		/** Clears the element at the specified physical index in the specified sub-tree (returns null if empty).*/
+		private Node remove(Node node, long index) {
+			if ((node == null) || !node.covers(index)) return node;
+			int i = node.slotOf(index);
+			Object obj = node.slots[i];
+			if (obj == null) return node;
+			if (node.shift == 0) {
+				if (node.count == 1) return null;
+				Node leaf = editable(node);
+				leaf.slots[i] = null;
+				leaf.count--;
+				return leaf;
+			}
+			Node child = (Node) obj;
+			int count = child.count;
+			Node updated = remove(child, index);
+			int removed = count - ((updated != null) ? updated.count : 0);
+			if (removed == 0) return node;
+			if (removed == node.count) return null;
+			Node parent = editable(node);
+			parent.slots[i] = updated;
+			parent.count -= removed;
+			return (updated != null) ? parent : parent.compact();
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <E> long ascend(Node node, long from, long to, long none, Predicate<? super E> matching) {
+			if (!node.intersects(from, to)) return none;
+			int shift = node.shift;
+			int first = unsignedLessThan(node.prefix, from) ? node.slotOf(from) : 0;
+			int last = unsignedLessThan(to, node.last()) ? node.slotOf(to) : 15;
+			for (int i = first; i <= last; i++) {
+				Object obj = node.slots[i];
+				if (obj == null) continue;
+				if (shift == 0) {
+					if ((matching == null) || matching.test((E) obj)) return node.prefix | i;
+				} else {
+					long found = ascend((Node) obj, from, to, none, matching);
+					if (found != none) return found;
+				}
+			}
+			return none;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <E> long descend(Node node, long from, long to, long none, Predicate<? super E> matching) {
+			if (!node.intersects(from, to)) return none;
+			int shift = node.shift;
+			int first = unsignedLessThan(node.prefix, from) ? node.slotOf(from) : 0;
+			int last = unsignedLessThan(to, node.last()) ? node.slotOf(to) : 15;
+			for (int i = last; i >= first; i--) {
+				Object obj = node.slots[i];
+				if (obj == null) continue;
+				if (shift == 0) {
+					if ((matching == null) || matching.test((E) obj)) return node.prefix | i;
+				} else {
+					long found = descend((Node) obj, from, to, none, matching);
+					if (found != none) return found;
+				}
+			}
+			return none;
+		}
+
+		private static void forEach(Node node, long from, long to, long offset, BlockConsumer consumer) {
+			if (!node.intersects(from, to)) return;
+			int first = unsignedLessThan(node.prefix, from) ? node.slotOf(from) : 0;
+			int last = unsignedLessThan(to, node.last()) ? node.slotOf(to) : 15;
+			if (node.shift == 0) {
+				consumer.accept((node.prefix | first) - offset, node.slots, first, last - first + 1);
+				return;
+			}
+			for (int i = first; i <= last; i++) {
+				Object obj = node.slots[i];
+				if (obj != null) forEach((Node) obj, from, to, offset, consumer);
+			}
+		}
+
+		/** Merges the specified sub-trees, returns {@code null} if the merged sub-tree is empty. */
+		private static <E> Node merge(Node left, Node right, boolean keepLeft, boolean keepRight, Merger<E> merger,
+				long offset, Object owner) {
+			if (left == null) return keepRight ? right : null;
+			if (right == null) return keepLeft ? left : null;
+			if ((left.shift == right.shift) && (left.prefix == right.prefix)) 
+				return mergeSlots(left, right, keepLeft, keepRight, merger, offset, owner);
+			if ((left.shift > right.shift) && left.covers(right.prefix)) 
+				return mergeSlot(left, right, false, keepLeft, keepRight, merger, offset, owner);
+			if ((right.shift > left.shift) && right.covers(left.prefix)) 
+				return mergeSlot(right, left, true, keepLeft, keepRight, merger, offset, owner);
+			if (!keepLeft) return keepRight ? right : null; // Disjoint sub-trees.
+			if (!keepRight) return left;
+			int shift = (63 - Long.numberOfLeadingZeros(left.prefix ^ right.prefix)) & ~3;
+			Node joint = new Node(shift, left.prefix, owner);
+			joint.slots[joint.slotOf(left.prefix)] = left;
+			joint.slots[joint.slotOf(right.prefix)] = right;
+			joint.count = left.count + right.count;
+			return joint;
+		}
+
+		/** Merges nodes covering the same range (large sub-trees are merged concurrently). */
+		@SuppressWarnings("unchecked")
+		private static <E> Node mergeSlots(final Node left, final Node right, final boolean keepLeft, 
+				final boolean keepRight, final Merger<E> merger, final long offset, final Object owner) {
+			final Node merged = new Node(left.shift, left.prefix, owner);
+			if (left.shift == 0) { // Leaves.
+				for (int i = 0; i < 16; i++) {
+					Object l = left.slots[i];
+					Object r = right.slots[i];
+					merged.slots[i] = (l == null) ? (keepRight ? r : null) : (r == null) ? (keepLeft ? l : null) 
+							: merger.merge((left.prefix | i) - offset, (E) l, (E) r);
+				}
+			} else if (left.count + right.count < PARALLEL_THRESHOLD) {
+				for (int i = 0; i < 16; i++)
+					merged.slots[i] = merge((Node) left.slots[i], (Node) right.slots[i], keepLeft, keepRight, merger,
+							offset, owner);
+			} else {
+				ConcurrentContext ctx = ConcurrentContext.enter();
+				try {
+					for (int i = 0; i < 16; i++) {
+						final int slot = i;
+						ctx.execute(new Runnable() {
+							@Override
+							public void run() {
+								merged.slots[slot] = merge((Node) left.slots[slot], (Node) right.slots[slot], 
+										keepLeft, keepRight, merger, offset, owner);
+							}
+						});
+					}
+				} finally {
+					ctx.exit();
+				}
+			}
+			return finish(merged, left, right);
+		}
+
+		/** Merges the specified node with a sub-tree falling within one of its slots. */
+		private static <E> Node mergeSlot(Node outer, Node inner, boolean innerIsLeft, boolean keepLeft, 
+				boolean keepRight, Merger<E> merger, long offset, Object owner) {
+			Node merged = new Node(outer.shift, outer.prefix, owner);
+			boolean keepOuter = innerIsLeft ? keepRight : keepLeft;
+			int k = outer.slotOf(inner.prefix);
+			for (int i = 0; i < 16; i++) {
+				Node child = (Node) outer.slots[i];
+				if (i == k) {
+					merged.slots[i] = innerIsLeft ? merge(inner, child, keepLeft, keepRight, merger, offset, owner) 
+							: merge(child, inner, keepLeft, keepRight, merger, offset, owner);
+				} else if (keepOuter) {
+					merged.slots[i] = child;
+				}
+			}
+			return finish(merged, outer, inner);
+		}
+
+		/** Counts the elements of the merged node, returns the equivalent operand node if any (sharing). */
+		private static Node finish(Node merged, Node left, Node right) {
+			boolean sameAsLeft = true;
+			boolean sameAsRight = (left.shift == right.shift) && (left.prefix == right.prefix);
+			for (int i = 0; i < 16; i++) {
+				Object obj = merged.slots[i];
+				if (obj == null) continue;
+				merged.count += (merged.shift == 0) ? 1 : ((Node) obj).count;
+				sameAsLeft &= (obj == left.slots[i]);
+				sameAsRight &= (obj == right.slots[i]);
+			}
+			if (merged.count == 0) return null;
+			if (sameAsLeft && (merged.count == left.count)) return left;
+			if (sameAsRight && (merged.count == right.count)) return right;
+			return (merged.shift == 0) ? merged : merged.compact();
+		}
+
+		private static long count(Node node, long from, long to) {
+			if (!node.intersects(from, to)) return 0;
+			if (!unsignedLessThan(node.prefix, from) && !unsignedLessThan(to, node.last())) return node.count;
+			long count = 0;
+			for (int i = 0; i < 16; i++) {
+				Object obj = node.slots[i];
+				if (obj == null) continue;
+				if (node.shift != 0) {
+					count += count((Node) obj, from, to);
+				} else {
+					long index = node.prefix | i;
+					if (!unsignedLessThan(index, from) && !unsignedLessThan(to, index)) count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/** Trie node, leaf nodes (shift zero) hold the elements. */
+	private static final class Node implements Serializable {
+		private static final long serialVersionUID = FractalArrayImpl.serialVersionUID;
+		final int shift; // Multiple of 4, in range 0..60
+		final long prefix; // First index covered by this node.
+		final Object[] slots;
+		int count; // Number of elements in this sub-tree.
+		transient Object owner;
+
+		Node(int shift, long index, Object owner) {
+			this.shift = shift;
+			this.prefix = (shift == 60) ? 0 : clearLowBits(index, shift + 4);
+			this.slots = new Object[16];
+			this.owner = owner;
+		}
+
+		Node(Node that, Object owner) {
+			this.shift = that.shift;
+			this.prefix = that.prefix;
+			this.slots = that.slots.clone();
+			this.count = that.count;
+			this.owner = owner;
+		}
+
+		/** Returns the last index covered by this node. */
+		long last() {
+			return (shift == 60) ? -1 : prefix + (1L << (shift + 4)) - 1;
+		}
+
+		boolean covers(long index) {
+			return (shift == 60) || ((index ^ prefix) >>> (shift + 4) == 0);
+		}
+
+		boolean intersects(long from, long to) {
+			return !unsignedLessThan(to, prefix) && !unsignedLessThan(last(), from);
+		}
+
+		int slotOf(long index) {
+			return (int) (index >>> shift) & 15;
+		}
+
+		/** Returns the single child of this node if any (path compression). */
+		Node compact() {
+			Node single = null;
+			for (Object obj : slots) {
+				if (obj == null) continue;
+				if (single != null) return this;
+				single = (Node) obj;
+			}
+			return single;
+		}
+	}
 	
 //	private static final int ARRAY_CAPACITY = 1 << LOG2_CAPACITY;
 //	private static final int MASK = ARRAY_CAPACITY - 1;
@@ -13,37 +13,44 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+import org.javolution.util.FastMap;
+import org.javolution.util.FastSet;
+import org.javolution.util.FastTable;
+import org.javolution.util.function.Supplier;
 
 /**
- * Simple and efficient read/write lock implementation giving 
- * preferences to writers. Acquiring a write lock then a read lock is 
- * supported. Writers may acquire a read lock after having the write lock
- * but the reverse would result in deadlock.
+ * Read/write lock implementation based upon a {@link StampedLock} supporting optimistic reads
+ * (no memory write for readers). The write lock is reentrant; writers may acquire a read lock after having
+ * the write lock but the reverse would result in deadlock.
+ *
+ * Optimistic reads should only be used for operations which cannot loop forever or corrupt the state
+ * of the collection if performed concurrently with an update, i.e. point lookups over the fast collections
+ * (see {@link #supportsOptimisticReads}); any other read should be {@link #readLocked locked}.
+ *
+ * ```java
+ * return lock.read(() -> inner.get(key)); // Retried under the read lock if there has been a concurrent update.
+ * ```
  */
 public final class ReadWriteLockImpl implements ReadWriteLock, Serializable {
 
     /** Read-Lock Implementation. */
     public final class ReadLock implements Lock, Serializable {
-        private static final long serialVersionUID = 0x600L; // Version.
+        private static final long serialVersionUID = 0x700L; // Version.
 
         @Override
         public void lock() {
-            try {
-                lockInterruptibly();
-            } catch (java.lang.InterruptedException e) {
-            }
+            if (writerThread == Thread.currentThread())
+                return; // Current thread has the writer lock.
+            stampedLock.readLock();
         }
 
         @Override
         public void lockInterruptibly() throws InterruptedException {
-            synchronized (ReadWriteLockImpl.this) {
-                if (writerThread == Thread.currentThread())
-                    return; // Current thread has the writer lock.
-                while ((writerThread != null) || (waitingWriters != 0)) {
-                    ReadWriteLockImpl.this.wait();
-                }
-                givenLocks++;
-            }
+            if (writerThread == Thread.currentThread())
+                return;
+            stampedLock.readLockInterruptibly();
         }
 
         @Override
@@ -53,48 +60,37 @@ public final class ReadWriteLockImpl implements ReadWriteLock, Serializable {
 
         @Override
         public boolean tryLock() {
-            throw new UnsupportedOperationException();
+            return (writerThread == Thread.currentThread()) || (stampedLock.tryReadLock() != 0);
         }
 
         @Override
         public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
-            throw new UnsupportedOperationException();
+            return (writerThread == Thread.currentThread()) || (stampedLock.tryReadLock(time, unit) != 0);
         }
 
         @Override
         public void unlock() {
-            synchronized (ReadWriteLockImpl.this) {
-                if (writerThread == Thread.currentThread())
-                    return; // Itself is the writing thread.
-                assert (givenLocks > 0);
-                givenLocks--;
-                ReadWriteLockImpl.this.notifyAll();
-            }
+            if (writerThread == Thread.currentThread())
+                return; // Itself is the writing thread.
+            if (!stampedLock.tryUnlockRead())
+                throw new IllegalMonitorStateException();
         }
     }
 
-    /** Write-Lock Implementation. */
+    /** Write-Lock Implementation (reentrant). */
     public final class WriteLock implements Lock, Serializable {
-        private static final long serialVersionUID = 0x600L; // Version.
+        private static final long serialVersionUID = 0x700L; // Version.
 
         @Override
         public void lock() {
-            try {
-                lockInterruptibly();
-            } catch (java.lang.InterruptedException e) {
-            }
+            if (reentered()) return;
+            acquired(stampedLock.writeLock());
         }
 
         @Override
         public void lockInterruptibly() throws InterruptedException {
-            synchronized (ReadWriteLockImpl.this) {
-                waitingWriters++;
-                while (givenLocks != 0) {
-                    ReadWriteLockImpl.this.wait();
-                }
-                waitingWriters--;
-                writerThread = Thread.currentThread();
-            }
+            if (reentered()) return;
+            acquired(stampedLock.writeLockInterruptibly());
         }
 
         @Override
@@ -104,29 +100,90 @@ public final class ReadWriteLockImpl implements ReadWriteLock, Serializable {
 
         @Override
         public boolean tryLock() {
-            throw new UnsupportedOperationException();
+            if (reentered()) return true;
+            long stamp = stampedLock.tryWriteLock();
+            if (stamp == 0) return false;
+            acquired(stamp);
+            return true;
         }
 
         @Override
         public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
-            throw new UnsupportedOperationException();
+            if (reentered()) return true;
+            long stamp = stampedLock.tryWriteLock(time, unit);
+            if (stamp == 0) return false;
+            acquired(stamp);
+            return true;
         }
 
         @Override
         public void unlock() {
-            synchronized (ReadWriteLockImpl.this) {
-                writerThread = null;
-                ReadWriteLockImpl.this.notifyAll();
-            }
+            if (writerThread != Thread.currentThread())
+                throw new IllegalMonitorStateException();
+            if (--writeHolds != 0) return;
+            writerThread = null;
+            stampedLock.unlockWrite(writeStamp);
+        }
+
+        private boolean reentered() {
+            if (writerThread != Thread.currentThread()) return false;
+            writeHolds++;
+            return true;
+        }
+
+        private void acquired(long stamp) {
+            writeStamp = stamp;
+            writeHolds = 1;
+            writerThread = Thread.currentThread();
         }
     }
 
-    private static final long serialVersionUID = 0x600L; // Version.
+    private static final long serialVersionUID = 0x700L; // Version.
     public final ReadLock readLock = new ReadLock();
     public final WriteLock writeLock = new WriteLock();
-    private transient int givenLocks;
-    private transient int waitingWriters;
-    private transient Thread writerThread;
+    private final StampedLock stampedLock = new StampedLock(); // Deserialized in the unlocked state.
+    private transient Thread writerThread; // Only the writer itself can see its own thread here.
+    private transient int writeHolds;
+    private transient long writeStamp;
+
+    /**
+     * Indicates if the point lookups (e.g. {@code get, contains, size}) of the specified collection can be 
+     * performed optimistically; only the fast collections themselves qualify (their lookups are bounded and
+     * do not modify their state), not their views or subclasses.
+     */
+    public static boolean supportsOptimisticReads(Object collection) {
+        Class<?> cls = collection.getClass();
+        return (cls == FastTable.class) || (cls == FastSet.class) || (cls == FastMap.class);
+    }
+
+    /**
+     * Performs the specified read operation optimistically (without lock) and returns its result if there has 
+     * been no write in between; otherwise the operation is performed again under the read lock. A runtime 
+     * exception raised by the optimistic attempt is rethrown if there has been no write in between 
+     * (inconsistent state read otherwise).
+     */
+    public <R> R read(Supplier<R> reader) {
+        long stamp = stampedLock.tryOptimisticRead(); // Zero if the write lock is held.
+        if (stamp != 0) {
+            try {
+                R result = reader.get();
+                if (stampedLock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                if (stampedLock.validate(stamp)) throw e; // Not caused by a concurrent update.
+            }
+        }
+        return readLocked(reader);
+    }
+
+    /** Performs the specified read operation under the read lock and returns its result. */
+    public <R> R readLocked(Supplier<R> reader) {
+        readLock.lock();
+        try {
+            return reader.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
 
     @Override
     public ReadLock readLock() {
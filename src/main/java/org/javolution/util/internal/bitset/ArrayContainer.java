@@ -0,0 +1,173 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import java.util.Arrays;
+
+/**
+ * A sparse chunk, the bits set are held in a sorted array (2 bytes per bit set).
+ */
+final class ArrayContainer extends Container {
+    private static final long serialVersionUID = 0x700L; // Version.
+    private char[] values;
+    private int size;
+
+    ArrayContainer(int value, Object owner) {
+        super(owner);
+        values = new char[4];
+        values[0] = (char) value;
+        size = 1;
+    }
+
+    private ArrayContainer(char[] values, int size, Object owner) {
+        super(owner);
+        this.values = values;
+        this.size = size;
+    }
+
+    /** Returns the array container for the specified bitmap having the specified cardinality. */
+    static ArrayContainer of(long[] words, int cardinality, Object owner) {
+        char[] values = new char[cardinality];
+        int n = 0;
+        for (int i = 0; i < WORDS; i++)
+            for (long w = words[i]; w != 0; w &= w - 1)
+                values[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+        return new ArrayContainer(values, n, owner);
+    }
+
+    @Override
+    int cardinality() {
+        return size;
+    }
+
+    @Override
+    boolean contains(int value) {
+        return search(value) >= 0;
+    }
+
+    @Override
+    Container add(int value) {
+        int i = search(value);
+        if (i >= 0) return this;
+        if (size == MAX_ARRAY_SIZE) return new BitmapContainer(toWords(), size, owner).add(value);
+        i = -i - 1;
+        if (size == values.length) values = Arrays.copyOf(values, Math.min(2 * size, MAX_ARRAY_SIZE));
+        System.arraycopy(values, i, values, i + 1, size - i);
+        values[i] = (char) value;
+        size++;
+        return this;
+    }
+
+    @Override
+    Container remove(int value) {
+        int i = search(value);
+        if (i < 0) return this;
+        if (size == 1) return null;
+        System.arraycopy(values, i + 1, values, i, size - i - 1);
+        size--;
+        return this;
+    }
+
+    @Override
+    int next(int from) {
+        int i = search(from);
+        if (i < 0) i = -i - 1;
+        return (i < size) ? values[i] : -1;
+    }
+
+    @Override
+    int previous(int from) {
+        int i = search(from);
+        if (i < 0) i = -i - 2;
+        return (i >= 0) ? values[i] : -1;
+    }
+
+    @Override
+    int nextClear(int from) {
+        int i = search(from);
+        if (i < 0) return from;
+        int clear = from + 1;
+        for (i++; (i < size) && (values[i] == clear); i++)
+            clear++;
+        return clear;
+    }
+
+    @Override
+    int previousClear(int from) {
+        int i = search(from);
+        if (i < 0) return from;
+        int clear = from - 1;
+        for (i--; (i >= 0) && (values[i] == clear); i--)
+            clear--;
+        return clear;
+    }
+
+    @Override
+    int last() {
+        return values[size - 1];
+    }
+
+    @Override
+    int andCardinality(long[] words, int offset) {
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            int w = offset + (values[i] >>> 6);
+            if ((w < words.length) && ((words[w] & (1L << values[i])) != 0)) sum++;
+        }
+        return sum;
+    }
+
+    @Override
+    int andCardinality(Container that) {
+        int sum = 0;
+        for (int i = 0; i < size; i++)
+            if (that.contains(values[i])) sum++;
+        return sum;
+    }
+
+    @Override
+    void orInto(long[] words, int offset) {
+        for (int i = 0; i < size; i++)
+            words[offset + (values[i] >>> 6)] |= 1L << values[i];
+    }
+
+    @Override
+    Container copy(Object owner) {
+        return new ArrayContainer(values.clone(), size, owner);
+    }
+
+    @Override
+    Container apply(int op, Container that, Object owner) {
+        if ((op != AND) && (op != AND_NOT)) return super.apply(op, that, owner);
+        char[] filtered = new char[size];
+        int n = 0;
+        for (int i = 0; i < size; i++)
+            if (that.contains(values[i]) == (op == AND)) filtered[n++] = values[i];
+        return (n != 0) ? new ArrayContainer(filtered, n, owner) : null;
+    }
+
+    /** Returns the position of the specified value or {@code -(insertion point) - 1} if not found. */
+    private int search(int value) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midValue = values[mid];
+            if (midValue < value) {
+                low = mid + 1;
+            } else if (midValue > value) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+}
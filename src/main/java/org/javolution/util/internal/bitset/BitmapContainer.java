@@ -0,0 +1,97 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+/**
+ * A dense chunk, the bits are held in a bitmap (8 KB).
+ */
+final class BitmapContainer extends Container {
+    private static final long serialVersionUID = 0x700L; // Version.
+    final long[] words;
+    private int cardinality;
+
+    BitmapContainer(long[] words, int cardinality, Object owner) {
+        super(owner);
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    boolean contains(int value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    Container add(int value) {
+        if (contains(value)) return this;
+        words[value >>> 6] |= 1L << value;
+        cardinality++;
+        return this;
+    }
+
+    @Override
+    Container remove(int value) {
+        if (!contains(value)) return this;
+        words[value >>> 6] &= ~(1L << value);
+        if (--cardinality == 0) return null;
+        if (cardinality < MAX_ARRAY_SIZE / 2) return ArrayContainer.of(words, cardinality, owner); // Hysteresis.
+        return this;
+    }
+
+    @Override
+    int next(int from) {
+        return nextSetBit(words, from);
+    }
+
+    @Override
+    int previous(int from) {
+        return previousSetBit(words, from);
+    }
+
+    @Override
+    int nextClear(int from) {
+        return nextClearBit(words, from);
+    }
+
+    @Override
+    int previousClear(int from) {
+        return previousClearBit(words, from);
+    }
+
+    @Override
+    int last() {
+        return previousSetBit(words, CHUNK_SIZE - 1);
+    }
+
+    @Override
+    int andCardinality(long[] that, int offset) {
+        int n = Math.min(WORDS, that.length - offset);
+        int sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += Long.bitCount(words[i] & that[offset + i]);
+        return sum;
+    }
+
+    @Override
+    void orInto(long[] dest, int offset) {
+        for (int i = 0; i < WORDS; i++)
+            dest[offset + i] |= words[i];
+    }
+
+    @Override
+    Container copy(Object owner) {
+        return new BitmapContainer(words.clone(), cardinality, owner);
+    }
+
+}
@@ -0,0 +1,321 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import static org.javolution.lang.MathLib.unsignedLessThan;
+import static org.javolution.util.internal.bitset.Container.AND;
+import static org.javolution.util.internal.bitset.Container.AND_NOT;
+import static org.javolution.util.internal.bitset.Container.CHUNK_SIZE;
+import static org.javolution.util.internal.bitset.Container.OR;
+import static org.javolution.util.internal.bitset.Container.WORDS;
+import static org.javolution.util.internal.bitset.Container.XOR;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.javolution.util.FractalArray;
+
+/**
+ * The compressed representation of bit-sets. The unsigned 64-bits index space is divided into chunks of 64K bits
+ * held by a (sparse) fractal array; each chunk is held by the smallest of a sorted array (sparse chunk),
+ * a bitmap (dense chunk) or a list of runs (clustered chunk). Logical operations merge the chunks in index order,
+ * chunks present in only one operand are shared (copied on write) or skipped.
+ */
+public final class CompressedBitSetImpl implements Cloneable, Serializable {
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final long LAST_CHUNK = -1L >>> 16;
+
+    private FractalArray<Container> chunks = FractalArray.empty();
+    private transient Object owner; // Containers having the same owner can be updated in place.
+
+    /** Returns the compressed bit-set holding the specified bits. */
+    public static CompressedBitSetImpl valueOf(long[] bits) {
+        CompressedBitSetImpl bitSet = new CompressedBitSetImpl();
+        for (int i = 0; i < bits.length; i += WORDS) {
+            long[] words = Arrays.copyOfRange(bits, i, i + WORDS); // Zero padded.
+            Container container = Container.of(words, bitSet.owner());
+            if (container != null) bitSet.chunks = bitSet.chunks.set(i / WORDS, container);
+        }
+        return bitSet;
+    }
+
+    /** Returns the bits of this bit-set held by the specified number of first words (minimal length). */
+    public long[] toLongArray(int maxLength) {
+        if (maxLength == 0) return new long[0];
+        long last = previous(((long) maxLength << 6) - 1);
+        if (last < 0) return new long[0];
+        int length = (int) (last >>> 6) + 1;
+        long[] bits = new long[((length - 1) / WORDS + 1) * WORDS];
+        for (FractalArray.Iterator<Container> itr = chunks.iterator(); itr.hasNext();) {
+            long key = itr.nextIndex();
+            if (key >= bits.length / WORDS) break;
+            itr.next().orInto(bits, (int) key * WORDS);
+        }
+        return Arrays.copyOf(bits, length);
+    }
+
+    /** Indicates if the specified bit is set. */
+    public boolean get(long index) {
+        Container container = chunks.get(index >>> 16);
+        return (container != null) && container.contains(low(index));
+    }
+
+    /** Sets the specified bit to the specified value, returns the previous value. */
+    public boolean set(long index, boolean value) {
+        long key = index >>> 16;
+        int low = low(index);
+        Container container = chunks.get(key);
+        if (container == null) {
+            if (value) chunks = chunks.set(key, new ArrayContainer(low, owner()));
+            return false;
+        }
+        if (container.contains(low) == value) return value;
+        Container editable = editable(container);
+        Container updated = value ? editable.add(low) : editable.remove(low);
+        if (updated != container) chunks = chunks.set(key, updated);
+        return !value;
+    }
+
+    /** Sets the bits in the specified range (to exclusive). */
+    public void set(long from, long to) {
+        apply(OR, from, to);
+    }
+
+    /** Clears the bits in the specified range (to exclusive). */
+    public void clear(long from, long to) {
+        apply(AND_NOT, from, to);
+    }
+
+    /** Flips the bits in the specified range (to exclusive). */
+    public void flip(long from, long to) {
+        apply(XOR, from, to);
+    }
+
+    /** Clears all the bits. */
+    public void clear() {
+        chunks = FractalArray.empty();
+    }
+
+    /** Indicates if no bit is set. */
+    public boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    /** Returns the number of bits set. */
+    public long cardinality() {
+        long sum = 0;
+        for (FractalArray.Iterator<Container> itr = chunks.iterator(); itr.hasNext();)
+            sum += itr.next().cardinality();
+        return sum;
+    }
+
+    /** Returns the index of the highest bit set plus one ({@code 0} if empty). */
+    public long length() {
+        return previous(-1L) + 1;
+    }
+
+    /** Returns the next bit set from the specified index (inclusive) or {@code -1} if none. */
+    public long next(long from) {
+        long key = from >>> 16;
+        Container container = chunks.get(key);
+        if (container != null) {
+            int i = container.next(low(from));
+            if (i >= 0) return (key << 16) | i;
+        }
+        if (key == LAST_CHUNK) return -1;
+        long next = chunks.next(key, null);
+        return (next != 0) ? (next << 16) | chunks.get(next).next(0) : -1;
+    }
+
+    /** Returns the previous bit set from the specified index (inclusive) or {@code -1} if none. */
+    public long previous(long from) {
+        long key = from >>> 16;
+        Container container = chunks.get(key);
+        if (container != null) {
+            int i = container.previous(low(from));
+            if (i >= 0) return (key << 16) | i;
+        }
+        long previous = chunks.previous(key, null);
+        return (previous != -1) ? (previous << 16) | chunks.get(previous).last() : -1;
+    }
+
+    /** Returns the next bit cleared from the specified index (inclusive) or {@code -1} if none. */
+    public long nextClear(long from) {
+        for (long key = from >>> 16;; key++) {
+            Container container = chunks.get(key);
+            if (container == null) return from;
+            int i = container.nextClear(low(from));
+            if (i < CHUNK_SIZE) return (key << 16) | i;
+            if (key == LAST_CHUNK) return -1;
+            from = (key + 1) << 16;
+        }
+    }
+
+    /** Returns the previous bit cleared from the specified index (inclusive) or {@code -1} if none. */
+    public long previousClear(long from) {
+        for (long key = from >>> 16;; key--) {
+            Container container = chunks.get(key);
+            if (container == null) return from;
+            int i = container.previousClear(low(from));
+            if (i >= 0) return (key << 16) | i;
+            if (key == 0) return -1;
+            from = (key << 16) - 1;
+        }
+    }
+
+    /** Performs the logical AND of this bit-set with the specified bit-set. */
+    public void and(CompressedBitSetImpl that) {
+        apply(AND, that);
+    }
+
+    /** Performs the logical OR of this bit-set with the specified bit-set. */
+    public void or(CompressedBitSetImpl that) {
+        apply(OR, that);
+    }
+
+    /** Performs the logical XOR of this bit-set with the specified bit-set. */
+    public void xor(CompressedBitSetImpl that) {
+        apply(XOR, that);
+    }
+
+    /** Performs the logical AND of this bit-set with the complement of the specified bit-set. */
+    public void andNot(CompressedBitSetImpl that) {
+        apply(AND_NOT, that);
+    }
+
+    /** Sets the bits in the specified range (to exclusive) which are not set in the specified bit-set. */
+    public void orNot(CompressedBitSetImpl that, long from, long to) {
+        if (!unsignedLessThan(from, to)) return;
+        long first = from >>> 16;
+        long last = (to - 1) >>> 16;
+        for (long key = first; key <= last; key++) {
+            int lo = (key == first) ? low(from) : 0;
+            int hi = (key == last) ? low(to - 1) + 1 : CHUNK_SIZE;
+            Container container = chunks.get(key);
+            Container other = that.chunks.get(key);
+            long[] words = (container != null) ? container.toWords() : new long[WORDS];
+            if (other != null) {
+                long[] mask = new long[WORDS]; // Range mask.
+                Container.apply(OR, mask, 0, lo, hi);
+                long[] otherWords = other.toWords();
+                for (int i = 0; i < WORDS; i++)
+                    words[i] |= mask[i] & ~otherWords[i];
+            } else {
+                Container.apply(OR, words, 0, lo, hi);
+            }
+            chunks = chunks.set(key, Container.of(words, owner()));
+        }
+    }
+
+    /** Returns the number of bits set in both this bit-set and the specified bit-set. */
+    public long andCardinality(CompressedBitSetImpl that) {
+        long sum = 0;
+        for (FractalArray.Iterator<Container> itr = chunks.iterator(); itr.hasNext();) {
+            Container other = that.chunks.get(itr.nextIndex());
+            Container container = itr.next();
+            if (other != null) sum += container.andCardinality(other);
+        }
+        return sum;
+    }
+
+    /** Returns the number of bits set in both this bit-set and the specified bits (64 bits per long). */
+    public long andCardinality(long[] bits) {
+        long chunkCount = (bits.length + WORDS - 1) / WORDS;
+        long sum = 0;
+        for (FractalArray.Iterator<Container> itr = chunks.iterator(); itr.hasNext();) {
+            long key = itr.nextIndex();
+            if (key >= chunkCount) break;
+            sum += itr.next().andCardinality(bits, (int) key * WORDS);
+        }
+        return sum;
+    }
+
+    /** Indicates if this bit-set has any bit set in common with the specified bit-set. */
+    public boolean intersects(CompressedBitSetImpl that) {
+        for (FractalArray.Iterator<Container> itr = chunks.iterator(); itr.hasNext();) {
+            Container other = that.chunks.get(itr.nextIndex());
+            Container container = itr.next();
+            if ((other != null) && (container.apply(AND, other, null) != null)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public CompressedBitSetImpl clone() {
+        try {
+            CompressedBitSetImpl copy = (CompressedBitSetImpl) super.clone();
+            owner = null; // Containers are now shared by both instances (copied on write).
+            copy.owner = null;
+            copy.chunks = chunks.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Should not happen since this class is Cloneable !");
+        }
+    }
+
+    /** Applies the specified logical operation to the bits in the specified range (to exclusive). */
+    private void apply(int op, long from, long to) {
+        if (!unsignedLessThan(from, to)) return;
+        long first = from >>> 16;
+        long last = (to - 1) >>> 16;
+        for (long key = first; key <= last; key++) { // Keys are 48-bits values.
+            Container container = chunks.get(key);
+            if ((container == null) && (op == AND_NOT)) { // Skips to the next chunk.
+                long next = chunks.next(key, null);
+                if (next == 0) break;
+                key = next - 1;
+                continue;
+            }
+            int lo = (key == first) ? low(from) : 0;
+            int hi = (key == last) ? low(to - 1) + 1 : CHUNK_SIZE;
+            Container updated;
+            if ((lo == 0) && (hi == CHUNK_SIZE) && (op != XOR)) {
+                updated = (op == OR) ? RunContainer.full(owner()) : null;
+            } else {
+                long[] words = (container != null) ? container.toWords() : new long[WORDS];
+                Container.apply(op, words, 0, lo, hi);
+                updated = Container.of(words, owner());
+            }
+            chunks = chunks.set(key, updated);
+        }
+    }
+
+    /** Applies the specified logical operation with the specified bit-set (chunks merged in index order). */
+    private void apply(final int op, CompressedBitSetImpl that) {
+        if (that == this) {
+            if ((op == XOR) || (op == AND_NOT)) clear();
+            return;
+        }
+        final Object owner = owner();
+        that.owner = null; // Shared containers are now copied on write by both instances.
+        boolean keepThis = (op != AND);
+        boolean keepThat = (op == OR) || (op == XOR);
+        chunks = chunks.merge(that.chunks, keepThis, keepThat, new FractalArray.Merger<Container>() {
+            @Override
+            public Container merge(long index, Container left, Container right) { // Can be called concurrently.
+                return left.apply(op, right, owner);
+            }
+        });
+    }
+
+    /** Returns the container to use for updates (copy of the specified container if not owned). */
+    private Container editable(Container container) {
+        return (container.owner == owner()) ? container : container.copy(owner);
+    }
+
+    private Object owner() {
+        if (owner == null) owner = new Object();
+        return owner;
+    }
+
+    private static int low(long index) {
+        return (int) index & (CHUNK_SIZE - 1);
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import java.io.Serializable;
+
+/**
+ * The bits of a 64K chunk of a compressed bit-set (sorted array, bitmap or runs).
+ * Containers are updated in place only by their owner, other bit-sets sharing a container copy it on write.
+ */
+abstract class Container implements Serializable {
+    private static final long serialVersionUID = 0x700L; // Version.
+    static final int CHUNK_SIZE = 1 << 16; // Number of bits per container.
+    static final int WORDS = CHUNK_SIZE >>> 6; // Number of words of a bitmap.
+    static final int MAX_ARRAY_SIZE = 4096; // Above, arrays are larger than bitmaps.
+    static final int AND = 0;
+    static final int OR = 1;
+    static final int XOR = 2;
+    static final int AND_NOT = 3;
+
+    transient Object owner; // The bit-set allowed to update this container in place.
+
+    Container(Object owner) {
+        this.owner = owner;
+    }
+
+    /** Returns the container for the specified bits (smallest representation) or {@code null} if empty. */
+    static Container of(long[] words, Object owner) {
+        int cardinality = 0;
+        int runs = 0;
+        long carry = 0; // Highest bit of the previous word.
+        for (int i = 0; i < WORDS; i++) {
+            long w = words[i];
+            cardinality += Long.bitCount(w);
+            runs += Long.bitCount(w & ~((w << 1) | carry)); // Bits starting a run.
+            carry = w >>> 63;
+        }
+        if (cardinality == 0) return null;
+        if (4 * runs < Math.min(2 * cardinality, 8 * WORDS)) return RunContainer.of(words, runs, cardinality, owner);
+        if (cardinality <= MAX_ARRAY_SIZE) return ArrayContainer.of(words, cardinality, owner);
+        return new BitmapContainer(words, cardinality, owner);
+    }
+
+    /** Returns the number of bits set. */
+    abstract int cardinality();
+
+    /** Indicates if the specified bit is set. */
+    abstract boolean contains(int value);
+
+    /** Sets the specified bit, returns the container holding the result (this container or a new one). */
+    abstract Container add(int value);
+
+    /** Clears the specified bit, returns the container holding the result ({@code null} if empty). */
+    abstract Container remove(int value);
+
+    /** Returns the next bit set from the specified bit (inclusive) or {@code -1} if none. */
+    abstract int next(int from);
+
+    /** Returns the previous bit set from the specified bit (inclusive) or {@code -1} if none. */
+    abstract int previous(int from);
+
+    /** Returns the next bit cleared from the specified bit (inclusive) or {@link #CHUNK_SIZE} if none. */
+    abstract int nextClear(int from);
+
+    /** Returns the previous bit cleared from the specified bit (inclusive) or {@code -1} if none. */
+    abstract int previousClear(int from);
+
+    /** Returns the highest bit set. */
+    abstract int last();
+
+    /** 
+     * Returns the number of bits set in both this container and the specified bitmap at the specified word 
+     * position (the bitmap can be shorter than the chunk).
+     */
+    abstract int andCardinality(long[] words, int offset);
+
+    /** Sets the bits of this container in the specified bitmap at the specified word position. */
+    abstract void orInto(long[] words, int offset);
+
+    /** Returns a copy of this container owned by the specified bit-set. */
+    abstract Container copy(Object owner);
+
+    /** Returns the bitmap of this container (new array). */
+    final long[] toWords() {
+        long[] words = new long[WORDS];
+        orInto(words, 0);
+        return words;
+    }
+
+    /**
+     * Returns the result of the specified logical operation between this container and the specified container
+     * (new container owned by the specified owner or {@code null} if empty).
+     */
+    Container apply(int op, Container that, Object owner) {
+        if ((op == AND) && (that instanceof ArrayContainer)) return that.apply(op, this, owner); // Filters.
+        long[] words = toWords();
+        long[] thatWords = (that instanceof BitmapContainer) ? ((BitmapContainer) that).words : that.toWords();
+        for (int i = 0; i < WORDS; i++)
+            words[i] = apply(op, words[i], thatWords[i]);
+        return of(words, owner);
+    }
+
+    /** Returns the number of bits set in both this container and the specified container. */
+    int andCardinality(Container that) {
+        if (that instanceof ArrayContainer) return that.andCardinality(this);
+        return andCardinality((that instanceof BitmapContainer) ? ((BitmapContainer) that).words : that.toWords(), 0);
+    }
+
+    /** 
+     * Applies the specified logical operation to the bits in the specified range (to exclusive) of the chunk
+     * starting at the specified word position.
+     */
+    static void apply(int op, long[] words, int offset, int from, int to) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int i = first; i <= last; i++) {
+            long mask = -1L;
+            if (i == first) mask &= -1L << from;
+            if (i == last) mask &= -1L >>> (63 - ((to - 1) & 63));
+            words[offset + i] = apply(op, words[offset + i], mask);
+        }
+    }
+
+    /** 
+     * Returns the number of bits set in the specified range (to exclusive) of the chunk starting at the specified
+     * word position (the bitmap can be shorter than the chunk).
+     */
+    static int cardinality(long[] words, int offset, int from, int to) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        int sum = 0;
+        for (int i = first; (i <= last) && (offset + i < words.length); i++) {
+            long mask = -1L;
+            if (i == first) mask &= -1L << from;
+            if (i == last) mask &= -1L >>> (63 - ((to - 1) & 63));
+            sum += Long.bitCount(words[offset + i] & mask);
+        }
+        return sum;
+    }
+
+    /** Returns the result of the specified logical operation on the specified words. */
+    static long apply(int op, long word, long mask) {
+        switch (op) {
+            case AND:
+                return word & mask;
+            case OR:
+                return word | mask;
+            case XOR:
+                return word ^ mask;
+            default:
+                return word & ~mask;
+        }
+    }
+
+    /** Returns the next bit set in the specified bitmap or {@code -1} if none. */
+    static int nextSetBit(long[] words, int from) {
+        int i = from >>> 6;
+        long w = words[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == WORDS) return -1;
+            w = words[i];
+        }
+    }
+
+    /** Returns the next bit cleared in the specified bitmap or {@link #CHUNK_SIZE} if none. */
+    static int nextClearBit(long[] words, int from) {
+        int i = from >>> 6;
+        long w = ~words[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == WORDS) return CHUNK_SIZE;
+            w = ~words[i];
+        }
+    }
+
+    /** Returns the previous bit set in the specified bitmap or {@code -1} if none. */
+    static int previousSetBit(long[] words, int from) {
+        int i = from >>> 6;
+        long w = words[i] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (w != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(w);
+            if (--i < 0) return -1;
+            w = words[i];
+        }
+    }
+
+    /** Returns the previous bit cleared in the specified bitmap or {@code -1} if none. */
+    static int previousClearBit(long[] words, int from) {
+        int i = from >>> 6;
+        long w = ~words[i] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (w != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(w);
+            if (--i < 0) return -1;
+            w = ~words[i];
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import java.util.Arrays;
+
+/**
+ * A clustered chunk, the bits set are held as sorted runs of consecutive bits (4 bytes per run).
+ */
+final class RunContainer extends Container {
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int MAX_RUNS = 2048; // Above, runs are larger than bitmaps.
+    private char[] starts;
+    private char[] lengths; // Run lengths minus one.
+    private int count; // Number of runs.
+    private int cardinality;
+
+    private RunContainer(char[] starts, char[] lengths, int count, int cardinality, Object owner) {
+        super(owner);
+        this.starts = starts;
+        this.lengths = lengths;
+        this.count = count;
+        this.cardinality = cardinality;
+    }
+
+    /** Returns a container with all its bits set. */
+    static RunContainer full(Object owner) {
+        return new RunContainer(new char[] { 0 }, new char[] { CHUNK_SIZE - 1 }, 1, CHUNK_SIZE, owner);
+    }
+
+    /** Returns the run container for the specified bitmap having the specified number of runs and cardinality. */
+    static RunContainer of(long[] words, int runs, int cardinality, Object owner) {
+        char[] starts = new char[runs];
+        char[] lengths = new char[runs];
+        int n = 0;
+        for (int start = nextSetBit(words, 0); start >= 0;) {
+            int end = nextClearBit(words, start); // Exclusive.
+            starts[n] = (char) start;
+            lengths[n++] = (char) (end - start - 1);
+            start = (end < CHUNK_SIZE) ? nextSetBit(words, end) : -1;
+        }
+        return new RunContainer(starts, lengths, n, cardinality, owner);
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    boolean contains(int value) {
+        int i = floor(value);
+        return (i >= 0) && (value <= end(i));
+    }
+
+    @Override
+    Container add(int value) {
+        int i = floor(value);
+        if ((i >= 0) && (value <= end(i))) return this;
+        boolean joinPrevious = (i >= 0) && (end(i) + 1 == value);
+        boolean joinNext = (i + 1 < count) && (starts[i + 1] == value + 1);
+        if (joinPrevious && joinNext) {
+            lengths[i] = (char) (end(i + 1) - starts[i]);
+            delete(i + 1);
+        } else if (joinPrevious) {
+            lengths[i]++;
+        } else if (joinNext) {
+            starts[i + 1]--;
+            lengths[i + 1]++;
+        } else {
+            if (count == MAX_RUNS) return new BitmapContainer(toWords(), cardinality, owner).add(value);
+            insert(i + 1, value, 0);
+        }
+        cardinality++;
+        return this;
+    }
+
+    @Override
+    Container remove(int value) {
+        int i = floor(value);
+        if ((i < 0) || (value > end(i))) return this;
+        if (cardinality == 1) return null;
+        int start = starts[i];
+        int end = end(i);
+        if (start == end) {
+            delete(i);
+        } else if (value == start) {
+            starts[i]++;
+            lengths[i]--;
+        } else if (value == end) {
+            lengths[i]--;
+        } else { // Splits the run.
+            if (count == MAX_RUNS) return new BitmapContainer(toWords(), cardinality, owner).remove(value);
+            lengths[i] = (char) (value - 1 - start);
+            insert(i + 1, value + 1, end - value - 1);
+        }
+        cardinality--;
+        return this;
+    }
+
+    @Override
+    int next(int from) {
+        int i = floor(from);
+        if ((i >= 0) && (from <= end(i))) return from;
+        return (i + 1 < count) ? starts[i + 1] : -1;
+    }
+
+    @Override
+    int previous(int from) {
+        int i = floor(from);
+        return (i >= 0) ? Math.min(from, end(i)) : -1;
+    }
+
+    @Override
+    int nextClear(int from) {
+        int i = floor(from);
+        return ((i >= 0) && (from <= end(i))) ? end(i) + 1 : from;
+    }
+
+    @Override
+    int previousClear(int from) {
+        int i = floor(from);
+        return ((i >= 0) && (from <= end(i))) ? starts[i] - 1 : from;
+    }
+
+    @Override
+    int last() {
+        return end(count - 1);
+    }
+
+    @Override
+    int andCardinality(long[] words, int offset) {
+        int sum = 0;
+        for (int i = 0; i < count; i++)
+            sum += cardinality(words, offset, starts[i], end(i) + 1);
+        return sum;
+    }
+
+    @Override
+    void orInto(long[] words, int offset) {
+        for (int i = 0; i < count; i++)
+            apply(OR, words, offset, starts[i], end(i) + 1);
+    }
+
+    @Override
+    Container copy(Object owner) {
+        return new RunContainer(starts.clone(), lengths.clone(), count, cardinality, owner);
+    }
+
+    /** Returns the last bit of the specified run. */
+    private int end(int i) {
+        return starts[i] + lengths[i];
+    }
+
+    /** Returns the last run starting at or before the specified value ({@code -1} if none). */
+    private int floor(int value) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private void insert(int i, int start, int length) {
+        if (count == starts.length) {
+            int capacity = Math.min(Math.max(4, 2 * count), MAX_RUNS);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        System.arraycopy(starts, i, starts, i + 1, count - i);
+        System.arraycopy(lengths, i, lengths, i + 1, count - i);
+        starts[i] = (char) start;
+        lengths[i] = (char) length;
+        count++;
+    }
+
+    private void delete(int i) {
+        System.arraycopy(starts, i + 1, starts, i, count - i - 1);
+        System.arraycopy(lengths, i + 1, lengths, i, count - i - 1);
+        count--;
+    }
+
+}
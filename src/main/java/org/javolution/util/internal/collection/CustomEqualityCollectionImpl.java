@@ -73,10 +73,12 @@ public final class CustomEqualityCollectionImpl<E> extends AbstractCollection<E>
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public AbstractCollection<E>[] trySplit(int n) {
-        AbstractCollection<E>[] subViews = inner.trySplit(n);
+        AbstractCollection<E>[] innerViews = inner.trySplit(n);
+        AbstractCollection<E>[] subViews = new AbstractCollection[innerViews.length]; // Inner array type may differ.
         for (int i = 0; i < subViews.length; i++)
-            subViews[i] = new CustomEqualityCollectionImpl<E>(subViews[i], equality);
+            subViews[i] = new CustomEqualityCollectionImpl<E>(innerViews[i], equality);
         return subViews;
     }
 
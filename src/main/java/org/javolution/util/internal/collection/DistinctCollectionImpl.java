@@ -22,7 +22,7 @@ import org.javolution.util.function.Predicate;
 /**
  * A view which does not iterate twice over the same elements.
  */
-public final class DistinctCollectionImpl<E> extends AbstractCollection<E> {
+public final class DistinctCollectionImpl<E> extends AbstractCollection<E> implements PipelineImpl.Stage {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractCollection<E> inner;
@@ -31,6 +31,16 @@ public final class DistinctCollectionImpl<E> extends AbstractCollection<E> {
         this.inner = inner;
     }
 
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.addDistinct(inner.equality());
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
     @Override
     public boolean add(E element) {
         return contains(element) ? false : inner.add(element);
@@ -19,7 +19,7 @@ import org.javolution.util.function.Predicate;
 /**
  * A filtered view over a collection.
  */
-public final class FilteredCollectionImpl<E> extends AbstractCollection<E> {
+public final class FilteredCollectionImpl<E> extends AbstractCollection<E> implements PipelineImpl.Stage {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final Predicate<? super E> filter;
@@ -31,6 +31,16 @@ public final class FilteredCollectionImpl<E> extends AbstractCollection<E> {
         this.filter = filter;
     }
 
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.addFilter(filter);
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
     @Override
     public boolean add(E element) {
         if (!filter.test(element))
@@ -87,10 +97,12 @@ public final class FilteredCollectionImpl<E> extends AbstractCollection<E> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public AbstractCollection<E>[] trySplit(int n) {
-        AbstractCollection<E>[] subViews = inner.trySplit(n);
+        AbstractCollection<E>[] innerViews = inner.trySplit(n);
+        AbstractCollection<E>[] subViews = new AbstractCollection[innerViews.length]; // Inner array type may differ.
         for (int i = 0; i < subViews.length; i++)
-            subViews[i] = new FilteredCollectionImpl<E>(subViews[i], filter);
+            subViews[i] = new FilteredCollectionImpl<E>(innerViews[i], filter);
         return subViews;
     }
 
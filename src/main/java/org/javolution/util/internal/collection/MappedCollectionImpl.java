@@ -17,7 +17,7 @@ import org.javolution.util.function.Predicate;
 /**
  * A mapped view over a collection.
  */
-public final class MappedCollectionImpl<E, R> extends AbstractCollection<R> {
+public final class MappedCollectionImpl<E, R> extends AbstractCollection<R> implements PipelineImpl.Stage {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractCollection<E> inner;
@@ -28,6 +28,16 @@ public final class MappedCollectionImpl<E, R> extends AbstractCollection<R> {
         this.function = function;
     }
 
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.addMapping(function);
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
     @Override
     public boolean add(R element) {
         throw new UnsupportedOperationException("New elements cannot be added to mapped views");
@@ -82,9 +92,10 @@ public final class MappedCollectionImpl<E, R> extends AbstractCollection<R> {
     @Override
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public AbstractCollection<R>[] trySplit(int n) {
-        AbstractCollection[] subViews = inner.trySplit(n);
+        AbstractCollection[] innerViews = inner.trySplit(n);
+        AbstractCollection[] subViews = new AbstractCollection[innerViews.length]; // Inner array type may differ.
         for (int i = 0; i < subViews.length; i++)
-            subViews[i] = new MappedCollectionImpl(subViews[i], function);
+            subViews[i] = new MappedCollectionImpl(innerViews[i], function);
         return subViews;
     }
 
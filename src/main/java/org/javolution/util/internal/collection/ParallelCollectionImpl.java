@@ -25,7 +25,7 @@ import org.javolution.util.function.Predicate;
 /**
  * A view to support parallel processing (methods annotated {@link Parallel}).
  */
-public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
+public final class ParallelCollectionImpl<E> extends AbstractCollection<E> implements PipelineImpl.Stage {
 
     private static final long serialVersionUID = 0x700L; // Version.
 
@@ -35,6 +35,16 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
         this.inner = inner;
     }
 
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.setParallel();
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
     @Override
     public boolean add(E element) {
         return inner.add(element);
@@ -44,14 +54,15 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
     @Override
     @Parallel
     public boolean anyMatch(Predicate<? super E> predicate) {
+        if (inner instanceof PipelineImpl.Stage) return PipelineImpl.of(this).anyMatch(predicate);
         AnyMatchRunnable<E>[] results;
         ConcurrentContext ctx = ConcurrentContext.enter();
         try {
             AbstractCollection<E>[] subViews = inner.trySplit(ctx.getConcurrency() + 1);
             results = new AnyMatchRunnable[subViews.length];
             for (int i = 1; i < subViews.length; i++)
-                ctx.execute(results[i] = new AnyMatchRunnable<E>(subViews[i], predicate));
-            (results[0] = new AnyMatchRunnable<E>(subViews[0], predicate)).run(); // Current thread needs to work too!
+                ctx.execute(results[i] = new AnyMatchRunnable<E>(subViews[i], predicate, ctx));
+            (results[0] = new AnyMatchRunnable<E>(subViews[0], predicate, ctx)).run(); // Current thread needs to work too!
         } finally {
             ctx.exit(); // Waits for concurrent completion.
         }
@@ -64,14 +75,15 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
     @Override
     @Parallel
     public E findAny() {
+        if (inner instanceof PipelineImpl.Stage) return PipelineImpl.of(this).findAny();
         AnyRunnable<E>[] results;
         ConcurrentContext ctx = ConcurrentContext.enter();
         try {
             AbstractCollection<E>[] subViews = inner.trySplit(ctx.getConcurrency() + 1);
             results = new AnyRunnable[subViews.length];
             for (int i = 1; i < subViews.length; i++)
-                ctx.execute(results[i] = new AnyRunnable<E>(subViews[i]));
-            (results[0] = new AnyRunnable<E>(subViews[0])).run(); // Current thread needs to work too!
+                ctx.execute(results[i] = new AnyRunnable<E>(subViews[i], ctx));
+            (results[0] = new AnyRunnable<E>(subViews[0], ctx)).run(); // Current thread needs to work too!
         } finally {
             ctx.exit(); // Waits for concurrent completion.
         }
@@ -95,6 +107,7 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
     @Override
     @Parallel
     public AbstractCollection<E> collect() {
+        if (inner instanceof PipelineImpl.Stage) return PipelineImpl.of(this).collect();
         CollectRunnable<E>[] results;
         ConcurrentContext ctx = ConcurrentContext.enter();
         try {
@@ -106,10 +119,10 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
         } finally {
             ctx.exit(); // Waits for concurrent completion.
         }
-        AbstractCollection<E> collection = results[0].collection;
-        for (int i = 1; i < results.length; i++)
-            collection.addAll(results[i].collection);
-        return collection;
+        AbstractCollection<E>[] partials = new AbstractCollection[results.length];
+        for (int i = 0; i < results.length; i++)
+            partials[i] = results[i].collection;
+        return merge(partials);
     }
 
     @Override
@@ -120,6 +133,10 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
     @Override
     @Parallel
     public void forEach(Consumer<? super E> consumer) {
+        if (inner instanceof PipelineImpl.Stage) { // Fused evaluation of the views chain.
+            PipelineImpl.of(this).forEach(consumer);
+            return;
+        }
         ConcurrentContext ctx = ConcurrentContext.enter();
         try {
             AbstractCollection<E>[] subViews = inner.trySplit(ctx.getConcurrency() + 1);
@@ -141,8 +158,8 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
             AbstractCollection<E>[] subViews = inner.trySplit(ctx.getConcurrency() + 1);
             results = new IsEmptyRunnable[subViews.length];
             for (int i = 1; i < subViews.length; i++)
-                ctx.execute(results[i] = new IsEmptyRunnable<E>(subViews[i]));
-            (results[0] = new IsEmptyRunnable<E>(subViews[0])).run(); // Current thread needs to work too!
+                ctx.execute(results[i] = new IsEmptyRunnable<E>(subViews[i], ctx));
+            (results[0] = new IsEmptyRunnable<E>(subViews[0], ctx)).run(); // Current thread needs to work too!
         } finally {
             ctx.exit(); // Waits for concurrent completion.
         }
@@ -165,6 +182,7 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
     @Override
     @Parallel
     public E reduce(BinaryOperator<E> operator) {
+        if (inner instanceof PipelineImpl.Stage) return PipelineImpl.of(this).reduce(operator);
         ReduceRunnable<E>[] results;
         ConcurrentContext ctx = ConcurrentContext.enter();
         try {
@@ -177,8 +195,11 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
             ctx.exit(); // Waits for concurrent completion.
         }
         E accumulator = results[0].accumulator;
-        for (int i = 1; i < results.length;)
-            accumulator = operator.apply(accumulator, results[i].accumulator);
+        for (int i = 1; i < results.length; i++) {
+            E result = results[i].accumulator;
+            if (result == null) continue; // Empty sub-view.
+            accumulator = (accumulator != null) ? operator.apply(accumulator, result) : result;
+        }
         return accumulator;
     }
 
@@ -232,33 +253,75 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
         return inner.trySplit(n);
     }
 
-    private static final class AnyMatchRunnable<E> implements Runnable {
+    /**
+     * Concatenates the specified partial results (in order). Fast tables are concatenated into a new table sized
+     * once, each partial result copying its elements into its own range concurrently (see 
+     * {@link FastTable#concat}); other collections are appended to the first one.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> AbstractCollection<E> merge(AbstractCollection<E>[] partials) {
+        FastTable<E>[] tables = new FastTable[partials.length];
+        for (int i = 0; i < partials.length; i++) {
+            if (!(partials[i] instanceof FastTable)) { 
+                for (int j = 1; j < partials.length; j++)
+                    partials[0].addAll(partials[j]);
+                return partials[0];
+            }
+            tables[i] = (FastTable<E>) partials[i];
+        }
+        return FastTable.concat(tables);
+    }
+
+    private static final class AnyMatchRunnable<E> implements Runnable, Predicate<E> {
         private final AbstractCollection<E> subView;
         private final Predicate<? super E> predicate;
+        private final ConcurrentContext ctx;
         private boolean matchFound;
 
-        private AnyMatchRunnable(AbstractCollection<E> subView, Predicate<? super E> predicate) {
+        private AnyMatchRunnable(AbstractCollection<E> subView, Predicate<? super E> predicate,
+                ConcurrentContext ctx) {
             this.subView = subView;
             this.predicate = predicate;
+            this.ctx = ctx;
         }
 
         @Override
         public void run() {
-            matchFound = subView.anyMatch(predicate);
+            subView.iterator().hasNext(this);
+        }
+
+        @Override
+        public boolean test(E param) {
+            if (ctx.isCancelled()) return true; // Found by another sub-view.
+            if (!predicate.test(param)) return false;
+            matchFound = true;
+            ctx.cancel();
+            return true;
         }
     }
 
-    private static final class AnyRunnable<E> implements Runnable {
+    private static final class AnyRunnable<E> implements Runnable, Predicate<E> {
         private final AbstractCollection<E> subView;
+        private final ConcurrentContext ctx;
         private E found;
 
-        private AnyRunnable(AbstractCollection<E> subView) {
+        private AnyRunnable(AbstractCollection<E> subView, ConcurrentContext ctx) {
             this.subView = subView;
+            this.ctx = ctx;
         }
 
         @Override
         public void run() {
-            found = subView.findAny();
+            subView.iterator().hasNext(this);
+        }
+
+        @Override
+        public boolean test(E param) {
+            if (ctx.isCancelled()) return true; // Found by another sub-view.
+            if (param == null) return false;
+            found = param;
+            ctx.cancel();
+            return true;
         }
     }
 
@@ -299,15 +362,19 @@ public final class ParallelCollectionImpl<E> extends AbstractCollection<E> {
 
     private static final class IsEmptyRunnable<E> implements Runnable {
         private final AbstractCollection<E> subView;
-        private boolean isEmpty;
+        private final ConcurrentContext ctx;
+        private boolean isEmpty = true; // Unless found otherwise.
 
-        private IsEmptyRunnable(AbstractCollection<E> subView) {
+        private IsEmptyRunnable(AbstractCollection<E> subView, ConcurrentContext ctx) {
             this.subView = subView;
+            this.ctx = ctx;
         }
 
         @Override
         public void run() {
+            if (ctx.isCancelled()) return; // Another sub-view is not empty.
             isEmpty = subView.isEmpty();
+            if (!isEmpty) ctx.cancel();
         }
     }
 
@@ -0,0 +1,383 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.collection;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.javolution.context.ConcurrentContext;
+import org.javolution.util.AbstractCollection;
+import org.javolution.util.FastSet;
+import org.javolution.util.FastTable;
+import org.javolution.util.function.BinaryOperator;
+import org.javolution.util.function.Consumer;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A pipeline planner evaluating chains of views (filtered, mapped, distinct, sorted, parallel) in a single pass.
+ *
+ * Instead of stacking one iterator per view, the stages are fused into a single loop applied to the elements
+ * of the source collection through its closure-based iterations (block iterations for tables). Sorting is a
+ * barrier: the upstream stages are evaluated into a buffer which is sorted and becomes the source of the
+ * downstream stages. When the chain includes a parallel view, the segments without distinct stage are evaluated
+ * concurrently over the sub-views of their source. Short-circuiting operations ({@link #anyMatch},
+ * {@link #findAny}) stop all the loops as soon as a match is found.
+ */
+public final class PipelineImpl<E> {
+
+    /** A view which can be appended to a pipeline. */
+    public interface Stage {
+
+        /** Returns the collection this view is based upon. */
+        AbstractCollection<?> inner();
+
+        /** Appends this view stage to the specified pipeline. */
+        void appendTo(PipelineImpl<?> pipeline);
+
+    }
+
+    private static final int FILTER = 0;
+    private static final int MAP = 1;
+    private static final int DISTINCT = 2;
+    private static final int SORTED = 3;
+
+    private final AbstractCollection<Object> source;
+    private int[] kinds = new int[4];
+    private Object[] operands = new Object[4];
+    private int length;
+    private boolean parallel;
+
+    private PipelineImpl(AbstractCollection<Object> source) {
+        this.source = source;
+    }
+
+    /** Returns the pipeline evaluating the specified view (the views stages being appended from the source). */
+    @SuppressWarnings("unchecked")
+    public static <E> PipelineImpl<E> of(AbstractCollection<E> view) {
+        int depth = 0;
+        AbstractCollection<?> source = view;
+        while (source instanceof Stage) {
+            source = ((Stage) source).inner();
+            depth++;
+        }
+        Stage[] stages = new Stage[depth];
+        AbstractCollection<?> stage = view;
+        for (int i = depth; --i >= 0;) {
+            stages[i] = (Stage) stage;
+            stage = stages[i].inner();
+        }
+        PipelineImpl<E> pipeline = new PipelineImpl<E>((AbstractCollection<Object>) source);
+        for (Stage s : stages)
+            s.appendTo(pipeline);
+        return pipeline;
+    }
+
+    /** Appends a filtering stage. */
+    public void addFilter(Predicate<?> filter) {
+        append(FILTER, filter);
+    }
+
+    /** Appends a mapping stage. */
+    public void addMapping(Function<?, ?> function) {
+        append(MAP, function);
+    }
+
+    /** Appends a stage removing duplicates according to the specified equality. */
+    public void addDistinct(Equality<?> equality) {
+        append(DISTINCT, equality);
+    }
+
+    /** Appends a sorting stage. */
+    public void addSorting(Comparator<?> cmp) {
+        append(SORTED, cmp);
+    }
+
+    /** Indicates that this pipeline should be evaluated concurrently. */
+    public void setParallel() {
+        parallel = true;
+    }
+
+    /** Applies the specified consumer to the elements output of this pipeline. */
+    public void forEach(final Consumer<? super E> consumer) {
+        evaluate(new Terminal() {
+            @Override
+            Sink newSink() {
+                return new Sink() {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    boolean accept(Object element) {
+                        consumer.accept((E) element);
+                        return false;
+                    }
+                };
+            }
+        }, false);
+    }
+
+    /** Reduces the elements output of this pipeline. */
+    public E reduce(final BinaryOperator<E> operator) {
+        final FastTable<ReduceSink<E>> sinks = new FastTable<ReduceSink<E>>();
+        evaluate(new Terminal() {
+            @Override
+            Sink newSink() {
+                ReduceSink<E> sink = new ReduceSink<E>(operator);
+                sinks.add(sink);
+                return sink;
+            }
+        }, false);
+        E accumulator = null;
+        for (ReduceSink<E> sink : sinks) { // In order.
+            E result = sink.accumulator;
+            if (result == null) continue; // Empty sub-view.
+            accumulator = (accumulator != null) ? operator.apply(accumulator, result) : result;
+        }
+        return accumulator;
+    }
+
+    /** Returns any element output of this pipeline (stops as soon as one is found). */
+    @SuppressWarnings("unchecked")
+    public E findAny() {
+        final Object[] found = new Object[1];
+        evaluate(new Terminal() {
+            @Override
+            Sink newSink() {
+                return new Sink() {
+                    @Override
+                    boolean accept(Object element) {
+                        synchronized (found) {
+                            found[0] = element;
+                        }
+                        return true;
+                    }
+                };
+            }
+        }, true);
+        synchronized (found) {
+            return (E) found[0];
+        }
+    }
+
+    /** Indicates if any element output of this pipeline matches the specified predicate (short-circuiting). */
+    public boolean anyMatch(final Predicate<? super E> predicate) {
+        final AtomicBoolean matchFound = new AtomicBoolean();
+        evaluate(new Terminal() {
+            @Override
+            Sink newSink() {
+                return new Sink() {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    boolean accept(Object element) {
+                        if (!predicate.test((E) element)) return false;
+                        matchFound.set(true);
+                        return true;
+                    }
+                };
+            }
+        }, true);
+        return matchFound.get();
+    }
+
+    /** Returns the elements output of this pipeline (in order). */
+    @SuppressWarnings("unchecked")
+    public AbstractCollection<E> collect() {
+        return (AbstractCollection<E>) (AbstractCollection<?>) evaluate(null, false);
+    }
+
+    /** Evaluates this pipeline segment by segment (sorting stages are barriers) and returns the last buffer
+     *  when the terminal is {@code null} (collection). */
+    @SuppressWarnings("unchecked")
+    private FastTable<Object> evaluate(Terminal terminal, boolean shortCircuit) {
+        AbstractCollection<Object> src = source;
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (kinds[i] != SORTED) continue;
+            FastTable<Object> buffer = collect(src, start, i);
+            Comparator<Object> cmp = (Comparator<Object>) operands[i];
+            if (parallel) {
+                buffer.parallel().sort(cmp);
+            } else {
+                buffer.sort(cmp);
+            }
+            src = buffer;
+            start = i + 1;
+        }
+        if (terminal == null) return collect(src, start, length);
+        run(src, start, length, terminal, shortCircuit);
+        return null;
+    }
+
+    /** Collects (in order) the elements output of the specified segment. */
+    @SuppressWarnings("unchecked")
+    private FastTable<Object> collect(AbstractCollection<Object> src, int from, int to) {
+        final FastTable<CollectSink> sinks = new FastTable<CollectSink>();
+        run(src, from, to, new Terminal() {
+            @Override
+            Sink newSink() {
+                CollectSink sink = new CollectSink();
+                sinks.add(sink);
+                return sink;
+            }
+        }, false);
+        if (sinks.size() == 1) return sinks.get(0).buffer;
+        FastTable<Object>[] partials = new FastTable[sinks.size()];
+        for (int i = 0; i < partials.length; i++)
+            partials[i] = sinks.get(i).buffer;
+        return (FastTable<Object>) ParallelCollectionImpl.merge(partials);
+    }
+
+    /** Runs the specified segment, concurrently if this pipeline is parallel and the segment can be split. */
+    private void run(AbstractCollection<Object> src, int from, int to, Terminal terminal, boolean shortCircuit) {
+        if (!parallel || hasDistinct(from, to)) { // Sequential.
+            new Loop(src, from, to, terminal.newSink(), null, shortCircuit).run();
+            return;
+        }
+        ConcurrentContext ctx = ConcurrentContext.enter();
+        try {
+            AbstractCollection<Object>[] subViews = src.trySplit(ctx.getConcurrency() + 1);
+            Loop first = new Loop(subViews[0], from, to, terminal.newSink(), ctx, shortCircuit);
+            for (int i = 1; i < subViews.length; i++) // Sinks are created in order.
+                ctx.execute(new Loop(subViews[i], from, to, terminal.newSink(), ctx, shortCircuit));
+            first.run(); // Current thread needs to work too!
+        } finally {
+            ctx.exit(); // Waits for concurrent completion.
+        }
+    }
+
+    private boolean hasDistinct(int from, int to) {
+        for (int i = from; i < to; i++)
+            if (kinds[i] == DISTINCT) return true;
+        return false;
+    }
+
+    private void append(int kind, Object operand) {
+        if (length == kinds.length) {
+            int[] tmpKinds = new int[length * 2];
+            System.arraycopy(kinds, 0, tmpKinds, 0, length);
+            kinds = tmpKinds;
+            Object[] tmpOperands = new Object[length * 2];
+            System.arraycopy(operands, 0, tmpOperands, 0, length);
+            operands = tmpOperands;
+        }
+        kinds[length] = kind;
+        operands[length++] = operand;
+    }
+
+    /** The fused loop of a segment over a (sub-)source. */
+    private final class Loop implements Runnable, Predicate<Object>, Consumer<Object> {
+        private final AbstractCollection<Object> src;
+        private final int from;
+        private final int to;
+        private final Sink sink;
+        private final ConcurrentContext ctx; // Null if sequential.
+        private final boolean shortCircuit;
+        private final AbstractCollection<Object>[] seen; // Distinct stages elements (null for other stages).
+
+        @SuppressWarnings("unchecked")
+        Loop(AbstractCollection<Object> src, int from, int to, Sink sink, ConcurrentContext ctx,
+                boolean shortCircuit) {
+            this.src = src;
+            this.from = from;
+            this.to = to;
+            this.sink = sink;
+            this.ctx = ctx;
+            this.shortCircuit = shortCircuit;
+            this.seen = new AbstractCollection[to];
+            for (int i = from; i < to; i++) {
+                if (kinds[i] != DISTINCT) continue;
+                Equality<Object> equality = (Equality<Object>) operands[i];
+                seen[i] = equality instanceof Order ? new FastSet<Object>((Order<Object>) equality)
+                        : new FastTable<Object>().equality(equality);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (shortCircuit) {
+                src.iterator().hasNext(this);
+            } else {
+                src.forEach(this);
+            }
+        }
+
+        @Override
+        public void accept(Object element) {
+            test(element);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean test(Object element) {
+            if (shortCircuit && (ctx != null) && ctx.isCancelled()) return true; // Another loop found it.
+            for (int i = from; i < to; i++) {
+                switch (kinds[i]) {
+                    case FILTER:
+                        if (!((Predicate<Object>) operands[i]).test(element)) return false;
+                        break;
+                    case MAP:
+                        element = ((Function<Object, Object>) operands[i]).apply(element);
+                        break;
+                    case DISTINCT:
+                        if (seen[i].contains(element)) return false;
+                        seen[i].add(element);
+                        break;
+                    default:
+                        throw new AssertionError(); // Sorting stages are barriers.
+                }
+            }
+            if (!sink.accept(element)) return false;
+            if (ctx != null) ctx.cancel(); // Stops the other loops.
+            return true;
+        }
+    }
+
+    /** Receives the elements output of a loop. */
+    private static abstract class Sink {
+
+        /** Returns {@code true} to stop the evaluation. */
+        abstract boolean accept(Object element);
+
+    }
+
+    /** Creates the sinks of the loops (one per sub-view, in order). */
+    private static abstract class Terminal {
+
+        abstract Sink newSink();
+
+    }
+
+    private static final class ReduceSink<E> extends Sink {
+        final BinaryOperator<E> operator;
+        E accumulator;
+
+        ReduceSink(BinaryOperator<E> operator) {
+            this.operator = operator;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        boolean accept(Object element) {
+            accumulator = (accumulator != null) ? operator.apply(accumulator, (E) element) : (E) element;
+            return false;
+        }
+    }
+
+    private static final class CollectSink extends Sink {
+        final FastTable<Object> buffer = new FastTable<Object>();
+
+        @Override
+        boolean accept(Object element) {
+            buffer.add(element);
+            return false;
+        }
+    }
+
+}
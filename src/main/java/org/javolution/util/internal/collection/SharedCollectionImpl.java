@@ -16,6 +16,7 @@ import org.javolution.util.function.BinaryOperator;
 import org.javolution.util.function.Consumer;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.function.Supplier;
 import org.javolution.util.internal.ReadWriteLockImpl;
 
 /**
@@ -27,15 +28,18 @@ public final class SharedCollectionImpl<E> // implements AbstractCollectionMetho
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractCollection<E> inner;
     private final ReadWriteLockImpl lock;
+    private final boolean optimistic; // Point lookups can be performed without lock.
 
     public SharedCollectionImpl(AbstractCollection<E> inner) {
         this.inner = inner;
         this.lock = new ReadWriteLockImpl();
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
     public SharedCollectionImpl(AbstractCollection<E> inner, ReadWriteLockImpl lock) {
         this.inner = inner;
         this.lock = lock;
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
     @Override
@@ -185,12 +189,7 @@ public final class SharedCollectionImpl<E> // implements AbstractCollectionMetho
 
     @Override
     public boolean isEmpty() {
-        lock.readLock.lock();
-        try {
-            return inner.isEmpty();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.isEmpty());
     }
 
     @Override
@@ -255,12 +254,7 @@ public final class SharedCollectionImpl<E> // implements AbstractCollectionMetho
 
     @Override
     public int size() {
-        lock.readLock.lock();
-        try {
-            return inner.size();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.size());
     }
 
     @Override
@@ -303,4 +297,9 @@ public final class SharedCollectionImpl<E> // implements AbstractCollectionMetho
         }
     }
 
+    /** Performs the specified lookup optimistically if supported by the inner collection. */
+    private <R> R read(Supplier<R> lookup) {
+        return optimistic ? lock.read(lookup) : lock.readLocked(lookup);
+    }
+
 }
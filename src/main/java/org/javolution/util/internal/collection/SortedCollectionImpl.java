@@ -19,7 +19,7 @@ import org.javolution.util.function.Predicate;
 /**
  * A sorted view over a collection.
  */
-public final class SortedCollectionImpl<E> extends AbstractCollection<E> {
+public final class SortedCollectionImpl<E> extends AbstractCollection<E> implements PipelineImpl.Stage {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractCollection<E> inner;
@@ -30,6 +30,16 @@ public final class SortedCollectionImpl<E> extends AbstractCollection<E> {
         this.cmp = cmp;
     }
 
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.addSorting(cmp);
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
     @Override
     public boolean add(E element) {
         return inner.add(element);
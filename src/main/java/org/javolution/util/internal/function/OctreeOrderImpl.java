@@ -0,0 +1,33 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.function;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.lang.Index;
+import org.javolution.lang.MathLib;
+import org.javolution.lang.Ternary;
+import org.javolution.util.function.SpatialOrder;
+
+/**
+ * The three-dimensional spatial order implementation (63-bits Morton code of 21-bits coordinates).
+ */
+public final class OctreeOrderImpl extends SpatialOrder<Ternary<Index, Index, Index>> {
+	private static final long serialVersionUID = 0x700L; // Version.
+
+	public OctreeOrderImpl() {
+		super(3);
+	}
+
+	@Override
+	public long indexOf(@Nullable Ternary<Index, Index, Index> point) {
+		if (point == null) return 0;
+		return MathLib.interleave(point.first().longValue(), point.second().longValue(), point.third().longValue());
+	}
+
+}
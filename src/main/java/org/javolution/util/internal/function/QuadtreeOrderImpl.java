@@ -0,0 +1,33 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.function;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.lang.Binary;
+import org.javolution.lang.Index;
+import org.javolution.lang.MathLib;
+import org.javolution.util.function.SpatialOrder;
+
+/**
+ * The two-dimensional spatial order implementation (64-bits Morton code of 32-bits coordinates).
+ */
+public final class QuadtreeOrderImpl extends SpatialOrder<Binary<Index, Index>> {
+	private static final long serialVersionUID = 0x700L; // Version.
+
+	public QuadtreeOrderImpl() {
+		super(2);
+	}
+
+	@Override
+	public long indexOf(@Nullable Binary<Index, Index> point) {
+		if (point == null) return 0;
+		return MathLib.interleave(point.first().longValue(), point.second().longValue());
+	}
+
+}
@@ -17,7 +17,7 @@ import org.javolution.util.function.Order;
 import org.javolution.util.function.UnaryOperator;
 
 /**
- * An a shared view over a map.
+ * An atomic view over a map. All updates are synchronized, reads are performed on an immutable copy.
  */
 public final class AtomicMapImpl<K, V> extends AbstractMap<K, V> {
 
@@ -148,7 +148,9 @@ public final class AtomicMapImpl<K, V> extends AbstractMap<K, V> {
 
     @Override
     public synchronized boolean replace(K key, V oldValue, V newValue) {
-        return inner.replace(key, oldValue, newValue);
+        boolean changed = inner.replace(key, oldValue, newValue);
+        if (changed) innerConst = inner.clone();
+        return changed;
     }
 
     @Override
@@ -0,0 +1,261 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.util.AbstractCache;
+import org.javolution.util.AbstractMap;
+import org.javolution.util.AbstractSet;
+import org.javolution.util.FastMap;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.UnaryOperator;
+import org.javolution.util.internal.map.EvictionPolicyImpl.Node;
+
+/**
+ * A cache view over a map. The bookkeeping (policy, statistics) is synchronized on the policy, allowing for
+ * concurrent lookups through shared views (lookups update the policy).
+ */
+public final class CacheMapImpl<K, V> extends AbstractCache<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final AbstractMap<K, V> inner;
+    private final long maxWeight;
+    private final @Nullable Function<? super Entry<K, V>, Integer> weigher;
+    private final Eviction eviction;
+    private final EvictionPolicyImpl<K, V> policy;
+    private final FastMap<K, Node<K, V>> nodes;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** Creates a cache over the specified map (the entries already in the map are considered added in
+     *  iteration order). */
+    public CacheMapImpl(AbstractMap<K, V> inner, long maxWeight,
+            @Nullable Function<? super Entry<K, V>, Integer> weigher, Eviction eviction) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("Maximum weight should be positive");
+        this.inner = inner;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.eviction = eviction;
+        this.policy = EvictionPolicyImpl.of(eviction, maxWeight, inner.keyOrder());
+        this.nodes = new FastMap<K, Node<K, V>>(inner.keyOrder());
+        for (Entry<K, V> entry : inner.entries()) {
+            Node<K, V> node = new Node<K, V>(entry, weigh(entry));
+            nodes.put(entry.getKey(), node);
+            policy.added(node);
+            weight += node.weight;
+        }
+        evict();
+    }
+
+    @Override
+    public Entry<K, V> getEntry(K key) {
+        Entry<K, V> entry = inner.getEntry(key);
+        synchronized (policy) {
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            Node<K, V> node = nodes.get(key);
+            if (node != null) policy.accessed(node);
+        }
+        return entry;
+    }
+
+    @Override
+    public Entry<K, V> addEntry(K key, V value) {
+        inner.removeEntry(key); // At most one entry per key (the previous node is detached by add).
+        return add(key, value);
+    }
+
+    /** Adds an entry for a key not in the inner map. */
+    private Entry<K, V> add(K key, V value) {
+        Entry<K, V> entry = inner.addEntry(key, value);
+        Node<K, V> node = new Node<K, V>(entry, weigh(entry));
+        synchronized (policy) {
+            Node<K, V> previous = nodes.put(key, node);
+            if (previous != null) detach(previous);
+            policy.added(node);
+            weight += node.weight;
+            evict();
+        }
+        return entry;
+    }
+
+    @Override
+    public Entry<K, V> removeEntry(K key) {
+        Entry<K, V> removed = inner.removeEntry(key);
+        if (removed == null) return null;
+        synchronized (policy) {
+            Node<K, V> node = nodes.get(key);
+            if ((node != null) && (node.entry == removed)) {
+                nodes.remove(key);
+                detach(node);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return inner.containsKey(key); // Not a lookup.
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Entry<K, V> entry = inner.getEntry(key); // Not a lookup.
+        if (entry != null) return updateValue(entry, value);
+        add(key, value);
+        return null;
+    }
+
+    @Override
+    public V put(K key, UnaryOperator<V> update) {
+        Entry<K, V> entry = inner.getEntry(key);
+        if (entry != null) return updateValue(entry, update.apply(entry.getValue()));
+        add(key, update.apply(null));
+        return null;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Entry<K, V> entry = inner.getEntry(key);
+        if (entry != null) return entry.getValue();
+        add(key, value);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        Entry<K, V> entry = inner.getEntry((K) key);
+        if ((entry == null) || !valuesEquality().areEqual(entry.getValue(), (V) value)) return false;
+        return removeEntry((K) key) != null;
+    }
+
+    @Override
+    public void clear() {
+        inner.clear();
+        synchronized (policy) {
+            nodes.clear();
+            policy.clear();
+            weight = 0;
+        }
+    }
+
+    @Override
+    public AbstractSet<Entry<K, V>> entries() {
+        return inner.entries().unmodifiable(); // Removals through the map.
+    }
+
+    @Override
+    public Order<? super K> keyOrder() {
+        return inner.keyOrder();
+    }
+
+    @Override
+    public Equality<? super V> valuesEquality() {
+        return inner.valuesEquality();
+    }
+
+    @Override
+    public CacheMapImpl<K, V> clone() {
+        return new CacheMapImpl<K, V>(inner.clone(), maxWeight, weigher, eviction);
+    }
+
+    @Override
+    public AbstractCache<K, V> concurrentCopy() {
+        return new ConcurrentCacheImpl<K, V>(this, maxWeight, weigher, eviction);
+    }
+
+    @Override
+    public Eviction eviction() {
+        return eviction;
+    }
+
+    @Override
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public long weight() {
+        synchronized (policy) {
+            return weight;
+        }
+    }
+
+    @Override
+    public long hitCount() {
+        synchronized (policy) {
+            return hits;
+        }
+    }
+
+    @Override
+    public long missCount() {
+        synchronized (policy) {
+            return misses;
+        }
+    }
+
+    @Override
+    public long evictionCount() {
+        synchronized (policy) {
+            return evictions;
+        }
+    }
+
+    @Override
+    protected V updateValue(Entry<K, V> entry, V newValue) {
+        V previous = super.updateValue(entry, newValue);
+        int newWeight = weigh(entry);
+        synchronized (policy) {
+            Node<K, V> node = nodes.get(entry.getKey());
+            if ((node != null) && (node.entry == entry)) {
+                weight += newWeight - node.weight;
+                node.reweigh(newWeight);
+                policy.accessed(node);
+                evict();
+            }
+        }
+        return previous;
+    }
+
+    /** Removes the entries selected by the policy until the weight is not exceeded (holding the lock). */
+    private void evict() {
+        while (weight > maxWeight) {
+            Node<K, V> victim = policy.victim();
+            if (victim == null) break;
+            K key = victim.entry.getKey();
+            nodes.remove(key);
+            weight -= victim.weight;
+            evictions++;
+            inner.removeEntry(key);
+        }
+    }
+
+    /** Removes the specified node from the policy (holding the lock). */
+    private void detach(Node<K, V> node) {
+        policy.removed(node);
+        weight -= node.weight;
+    }
+
+    private int weigh(Entry<K, V> entry) {
+        if (weigher == null) return 1;
+        int w = weigher.apply(entry);
+        if (w < 0) throw new IllegalArgumentException("Negative weight: " + w);
+        return w;
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.lang.MathLib;
+import org.javolution.util.AbstractCache;
+import org.javolution.util.AbstractMap;
+import org.javolution.util.AbstractSet;
+import org.javolution.util.FastMap;
+import org.javolution.util.FastSet;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.UnaryOperator;
+import org.javolution.util.internal.set.ConcurrentSetImpl;
+
+/**
+ * A concurrent cache striped over shared caches (each stripe bounded by its fraction of the maximum weight).
+ */
+public final class ConcurrentCacheImpl<K, V> extends AbstractCache<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final Order<? super K> keyOrder;
+    private final Equality<? super V> valuesEquality;
+    private final long maxWeight;
+    private final @Nullable Function<? super Entry<K, V>, Integer> weigher;
+    private final Eviction eviction;
+    private final AbstractCache<K, V>[] caches;
+    private final AbstractMap<K, V>[] stripes; // Shared views over the caches.
+
+    /** Creates a concurrent cache holding the entries of the specified map. */
+    @SuppressWarnings("unchecked")
+    public ConcurrentCacheImpl(AbstractMap<K, V> that, long maxWeight,
+            @Nullable Function<? super Entry<K, V>, Integer> weigher, Eviction eviction) {
+        this.keyOrder = that.keyOrder();
+        this.valuesEquality = that.valuesEquality();
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.eviction = eviction;
+        int n = ConcurrentSetImpl.STRIPES;
+        long stripeWeight = MathLib.max(1, (maxWeight + n - 1) / n);
+        caches = new AbstractCache[n];
+        stripes = new AbstractMap[n];
+        for (int i = 0; i < n; i++) {
+            caches[i] = new CacheMapImpl<K, V>(new FastMap<K, V>(keyOrder, valuesEquality), stripeWeight, weigher,
+                    eviction);
+            stripes[i] = caches[i].shared();
+        }
+        for (Entry<K, V> entry : that.entries())
+            stripeOf(entry.getKey()).addEntry(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public Entry<K, V> addEntry(K key, V value) {
+        return stripeOf(key).addEntry(key, value);
+    }
+
+    @Override
+    public void clear() {
+        for (AbstractMap<K, V> stripe : stripes)
+            stripe.clear();
+    }
+
+    @Override
+    public ConcurrentCacheImpl<K, V> clone() {
+        return new ConcurrentCacheImpl<K, V>(this, maxWeight, weigher, eviction);
+    }
+
+    @Override
+    public AbstractCache<K, V> concurrentCopy() {
+        return clone();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean containsKey(Object key) {
+        return stripeOf((K) key).containsKey(key);
+    }
+
+    @Override
+    public AbstractSet<Entry<K, V>> entries() {
+        FastSet<Entry<K, V>> entries = new FastSet<Entry<K, V>>(stripes[0].entries().order());
+        for (AbstractMap<K, V> stripe : stripes)
+            entries.addAll(stripe.entries()); // Snapshot of each stripe.
+        return entries.unmodifiable(); // Removals through the cache.
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        return stripeOf((K) key).get(key);
+    }
+
+    @Override
+    public Entry<K, V> getEntry(K key) {
+        return stripeOf(key).getEntry(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (AbstractMap<K, V> stripe : stripes)
+            if (!stripe.isEmpty()) return false;
+        return true;
+    }
+
+    @Override
+    public Order<? super K> keyOrder() {
+        return keyOrder;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return stripeOf(key).put(key, value);
+    }
+
+    @Override
+    public V put(K key, UnaryOperator<V> update) {
+        return stripeOf(key).put(key, update);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return stripeOf(key).putIfAbsent(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        return stripeOf((K) key).remove(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        return stripeOf((K) key).remove(key, value);
+    }
+
+    @Override
+    public Entry<K, V> removeEntry(K key) {
+        return stripeOf(key).removeEntry(key);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return stripeOf(key).replace(key, value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return stripeOf(key).replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (AbstractMap<K, V> stripe : stripes)
+            size += stripe.size();
+        return size;
+    }
+
+    @Override
+    public Equality<? super V> valuesEquality() {
+        return valuesEquality;
+    }
+
+    @Override
+    public Eviction eviction() {
+        return eviction;
+    }
+
+    @Override
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public long weight() {
+        long sum = 0;
+        for (AbstractCache<K, V> cache : caches)
+            sum += cache.weight();
+        return sum;
+    }
+
+    @Override
+    public long hitCount() {
+        long sum = 0;
+        for (AbstractCache<K, V> cache : caches)
+            sum += cache.hitCount();
+        return sum;
+    }
+
+    @Override
+    public long missCount() {
+        long sum = 0;
+        for (AbstractCache<K, V> cache : caches)
+            sum += cache.missCount();
+        return sum;
+    }
+
+    @Override
+    public long evictionCount() {
+        long sum = 0;
+        for (AbstractCache<K, V> cache : caches)
+            sum += cache.evictionCount();
+        return sum;
+    }
+
+    private AbstractMap<K, V> stripeOf(K key) {
+        return stripes[ConcurrentSetImpl.stripeOf(keyOrder.indexOf(key))];
+    }
+
+}
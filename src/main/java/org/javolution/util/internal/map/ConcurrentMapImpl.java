@@ -0,0 +1,208 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.javolution.util.AbstractMap;
+import org.javolution.util.AbstractSet;
+import org.javolution.util.FastMap;
+import org.javolution.util.FastSet;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Supplier;
+import org.javolution.util.function.UnaryOperator;
+import org.javolution.util.internal.ReadWriteLockImpl;
+import org.javolution.util.internal.set.ConcurrentSetImpl;
+
+/**
+ * A concurrent map striped over fast maps, each one guarded by its own lock (optimistic lock-free lookups,
+ * updates only lock the stripe of the key). The size is maintained atomically across stripes.
+ */
+public final class ConcurrentMapImpl<K, V> extends AbstractMap<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final Order<? super K> keyOrder;
+    private final Equality<? super V> valuesEquality;
+    private final FastMap<K, V>[] stripes; // Guarded by their lock.
+    private final ReadWriteLockImpl[] locks;
+    private final AtomicInteger size; // Updated while holding the lock of the stripe modified.
+
+    /** Creates a concurrent map holding the entries of the specified map. */
+    @SuppressWarnings("unchecked")
+    public ConcurrentMapImpl(AbstractMap<K, V> that) {
+        keyOrder = that.keyOrder();
+        valuesEquality = that.valuesEquality();
+        stripes = new FastMap[ConcurrentSetImpl.STRIPES];
+        locks = new ReadWriteLockImpl[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new FastMap<K, V>(keyOrder, valuesEquality);
+            locks[i] = new ReadWriteLockImpl();
+        }
+        int n = 0;
+        for (Entry<K, V> entry : that.entries()) {
+            FastMap<K, V> stripe = stripes[stripeOf(entry.getKey())];
+            int before = stripe.size();
+            stripe.addEntry(entry.getKey(), entry.getValue());
+            n += stripe.size() - before;
+        }
+        size = new AtomicInteger(n);
+    }
+
+    @Override
+    public Entry<K, V> addEntry(K key, V value) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.addEntry(key, value));
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < stripes.length; i++) {
+            FastMap<K, V> stripe = stripes[i];
+            update(i, () -> {
+                stripe.clear();
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public ConcurrentMapImpl<K, V> clone() {
+        return new ConcurrentMapImpl<K, V>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean containsKey(Object key) {
+        int i = stripeOf((K) key);
+        FastMap<K, V> stripe = stripes[i];
+        return locks[i].read(() -> stripe.containsKey(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public AbstractSet<Entry<K, V>> entries() {
+        FastSet<Entry<K, V>>[] entries = new FastSet[stripes.length];
+        for (int i = 0; i < stripes.length; i++)
+            entries[i] = stripes[i].entries(); // Same lock as their stripe.
+        return new ConcurrentSetImpl<Entry<K, V>>(entries[0].order(), entries, locks, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        int i = stripeOf((K) key);
+        FastMap<K, V> stripe = stripes[i];
+        return locks[i].read(() -> stripe.get(key));
+    }
+
+    @Override
+    public Entry<K, V> getEntry(K key) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return locks[i].read(() -> stripe.getEntry(key));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public Order<? super K> keyOrder() {
+        return keyOrder;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.put(key, value));
+    }
+
+    @Override
+    public V put(K key, UnaryOperator<V> update) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.put(key, update));
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.putIfAbsent(key, value));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        int i = stripeOf((K) key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.remove(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        int i = stripeOf((K) key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.remove(key, value));
+    }
+
+    @Override
+    public Entry<K, V> removeEntry(K key) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.removeEntry(key));
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.replace(key, value));
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        int i = stripeOf(key);
+        FastMap<K, V> stripe = stripes[i];
+        return update(i, () -> stripe.replace(key, oldValue, newValue));
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public Equality<? super V> valuesEquality() {
+        return valuesEquality;
+    }
+
+    private int stripeOf(K key) {
+        return ConcurrentSetImpl.stripeOf(keyOrder.indexOf(key));
+    }
+
+    /** Performs the specified update of the stripe at the specified position, maintains the total size. */
+    private <R> R update(int i, Supplier<R> update) {
+        locks[i].writeLock.lock();
+        try {
+            int before = stripes[i].size();
+            R result = update.get();
+            size.addAndGet(stripes[i].size() - before);
+            return result;
+        } finally {
+            locks[i].writeLock.unlock();
+        }
+    }
+
+}
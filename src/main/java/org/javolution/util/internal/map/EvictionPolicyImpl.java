@@ -0,0 +1,119 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import java.io.Serializable;
+
+import org.javolution.util.AbstractCache.Eviction;
+import org.javolution.util.AbstractMap.Entry;
+import org.javolution.util.function.Order;
+
+/**
+ * The bookkeeping of the entries of a cache; all operations are performed in constant time.
+ */
+abstract class EvictionPolicyImpl<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /** Returns the policy for the specified eviction. */
+    static <K, V> EvictionPolicyImpl<K, V> of(Eviction eviction, long maxWeight, Order<? super K> keyOrder) {
+        switch (eviction) {
+            case LRU:
+                return new LruPolicyImpl<K, V>();
+            case LFU:
+                return new LfuPolicyImpl<K, V>();
+            default:
+                return new TinyLfuPolicyImpl<K, V>(maxWeight, keyOrder);
+        }
+    }
+
+    /** Records a new entry. */
+    abstract void added(Node<K, V> node);
+
+    /** Records an access to the specified entry. */
+    abstract void accessed(Node<K, V> node);
+
+    /** Unlinks and returns the next entry to evict ({@code null} if none). */
+    abstract Node<K, V> victim();
+
+    /** Removes all the entries. */
+    abstract void clear();
+
+    /** Removes the specified entry. */
+    void removed(Node<K, V> node) {
+        node.queue.remove(node);
+    }
+
+    /** The bookkeeping node of a cached entry. */
+    static final class Node<K, V> implements Serializable {
+        private static final long serialVersionUID = 0x700L; // Version.
+        final Entry<K, V> entry;
+        int weight;
+        Queue<K, V> queue; // The queue holding this node.
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(Entry<K, V> entry, int weight) {
+            this.entry = entry;
+            this.weight = weight;
+        }
+
+        /** Sets the weight of this node (the weight of its queue is updated). */
+        void reweigh(int newWeight) {
+            queue.weight += newWeight - weight;
+            weight = newWeight;
+        }
+    }
+
+    /** A doubly-linked queue of nodes from the first to evict (head) to the last to evict (tail). */
+    static class Queue<K, V> implements Serializable {
+        private static final long serialVersionUID = 0x700L; // Version.
+        Node<K, V> head;
+        Node<K, V> tail;
+        long weight;
+
+        final boolean isEmpty() {
+            return head == null;
+        }
+
+        final void add(Node<K, V> node) {
+            node.queue = this;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) head = node;
+            else tail.next = node;
+            tail = node;
+            weight += node.weight;
+        }
+
+        final void remove(Node<K, V> node) {
+            if (node.previous == null) head = node.next;
+            else node.previous.next = node.next;
+            if (node.next == null) tail = node.previous;
+            else node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            node.queue = null;
+            weight -= node.weight;
+        }
+
+        final void moveToTail(Node<K, V> node) {
+            if (node == tail) return;
+            remove(node);
+            add(node);
+        }
+
+        final void clear() {
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.javolution.lang.MathLib;
+import org.javolution.util.AbstractExpiringMap;
+import org.javolution.util.AbstractMap;
+import org.javolution.util.AbstractSet;
+import org.javolution.util.FastMap;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.ReadWriteLockImpl;
+import org.javolution.util.internal.map.TimingWheelImpl.Node;
+
+/**
+ * An expiring view over a map. Lookups check the exact expiration time and record the access time,
+ * updates advance the timing wheel (removing the expired entries with the wheel resolution), explicit 
+ * expirations remove all the expired entries. The size is the size of the inner map (constant time).
+ */
+public final class ExpiringMapImpl<K, V> extends AbstractExpiringMap<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int BUCKETS_PER_DURATION = 16; // Resolution of the timing wheel.
+    private final AbstractMap<K, V> inner;
+    private final long timeToLive; // Nanoseconds.
+    private final long timeToIdle; // Nanoseconds.
+    private final Clock clock;
+    private final FastMap<K, Node<K, V>> nodes;
+    private final TimingWheelImpl<K, V> wheel;
+    private final ReadWriteLockImpl lock = new ReadWriteLockImpl(); // Shared view and sweepers.
+
+    /** Creates an expiring view over the specified map (the entries already in the map are considered added
+     *  now). */
+    public ExpiringMapImpl(AbstractMap<K, V> inner, long timeToLive, long timeToIdle, TimeUnit unit, Clock clock) {
+        if ((timeToLive < 0) || (timeToIdle < 0)) throw new IllegalArgumentException("Negative duration");
+        if ((timeToLive == 0) && (timeToIdle == 0)) throw new IllegalArgumentException("No expiration");
+        this.inner = inner;
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.timeToIdle = unit.toNanos(timeToIdle);
+        this.clock = clock;
+        this.nodes = new FastMap<K, Node<K, V>>(inner.keyOrder());
+        long shortest = (this.timeToLive == 0) ? this.timeToIdle
+                : (this.timeToIdle == 0) ? this.timeToLive : MathLib.min(this.timeToLive, this.timeToIdle);
+        long now = clock.nanoTime();
+        this.wheel = new TimingWheelImpl<K, V>(shortest / BUCKETS_PER_DURATION, now) {
+            private static final long serialVersionUID = 0x700L; // Version.
+
+            @Override
+            boolean expire(Node<K, V> node, long time) {
+                if (!isExpired(node, time)) { // Accessed or updated since scheduled.
+                    node.deadline = node.deadline(timeToLive, timeToIdle);
+                    return false;
+                }
+                K key = node.entry.getKey();
+                nodes.remove(key);
+                ExpiringMapImpl.this.inner.removeEntry(key);
+                return true;
+            }
+        };
+        for (Entry<K, V> entry : inner.entries())
+            schedule(new Node<K, V>(entry, now));
+    }
+
+    @Override
+    public Entry<K, V> getEntry(K key) {
+        Entry<K, V> entry = inner.getEntry(key);
+        if (entry == null) return null;
+        Node<K, V> node = nodes.get(key);
+        if ((node == null) || (node.entry != entry)) return entry; // Not added through this view.
+        long now = clock.nanoTime();
+        if (isExpired(node, now)) return null;
+        if (timeToIdle != 0) node.accessed = now; // Rescheduled lazily.
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean containsKey(Object key) {
+        Entry<K, V> entry = inner.getEntry((K) key);
+        if (entry == null) return false;
+        Node<K, V> node = nodes.get((K) key);
+        return (node == null) || (node.entry != entry) || !isExpired(node, clock.nanoTime()); // Not an access.
+    }
+
+    @Override
+    public Entry<K, V> addEntry(K key, V value) {
+        long now = clock.nanoTime();
+        wheel.advance(now);
+        Node<K, V> previous = nodes.get(key);
+        if (previous != null) unschedule(previous);
+        inner.removeEntry(key); // At most one entry per key (expired or not).
+        Entry<K, V> entry = inner.addEntry(key, value);
+        schedule(new Node<K, V>(entry, now));
+        return entry;
+    }
+
+    @Override
+    public Entry<K, V> removeEntry(K key) {
+        Entry<K, V> removed = inner.removeEntry(key);
+        if (removed == null) return null;
+        Node<K, V> node = nodes.get(key);
+        if ((node == null) || (node.entry != removed)) return removed;
+        unschedule(node);
+        return isExpired(node, clock.nanoTime()) ? null : removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        Entry<K, V> entry = getEntry((K) key);
+        if ((entry == null) || !valuesEquality().areEqual(entry.getValue(), (V) value)) return false;
+        return removeEntry((K) key) != null;
+    }
+
+    @Override
+    public void clear() {
+        inner.clear();
+        nodes.clear();
+        wheel.clear();
+    }
+
+    @Override
+    public int size() {
+        return inner.size(); // Expired entries not removed yet are counted.
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return inner.isEmpty();
+    }
+
+    @Override
+    public AbstractSet<Entry<K, V>> entries() {
+        return inner.entries().filter(new Predicate<Entry<K, V>>() {
+            @Override
+            public boolean test(Entry<K, V> entry) {
+                Node<K, V> node = nodes.get(entry.getKey());
+                return (node == null) || (node.entry != entry) || !isExpired(node, clock.nanoTime());
+            }
+        }).unmodifiable(); // Removals through the map.
+    }
+
+    @Override
+    public Order<? super K> keyOrder() {
+        return inner.keyOrder();
+    }
+
+    @Override
+    public Equality<? super V> valuesEquality() {
+        return inner.valuesEquality();
+    }
+
+    @Override
+    public ExpiringMapImpl<K, V> clone() {
+        return new ExpiringMapImpl<K, V>(inner.clone(), timeToLive, timeToIdle, TimeUnit.NANOSECONDS, clock);
+    }
+
+    @Override
+    public AbstractMap<K, V> shared() {
+        return new SharedMapImpl<K, V>(this, lock);
+    }
+
+    @Override
+    public long timeToLive(TimeUnit unit) {
+        return unit.convert(timeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public long timeToIdle(TimeUnit unit) {
+        return unit.convert(timeToIdle, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int expire() {
+        lock.writeLock.lock();
+        try {
+            return wheel.expire(clock.nanoTime());
+        } finally {
+            lock.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Thread sweeper(long period, TimeUnit unit) {
+        final long periodNanos = unit.toNanos(period);
+        Thread sweeper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    expire();
+                    LockSupport.parkNanos(this, periodNanos); // Returns immediately if interrupted.
+                }
+            }
+        }, "ExpiringMap-Sweeper");
+        sweeper.setDaemon(true);
+        return sweeper;
+    }
+
+    @Override
+    protected V updateValue(Entry<K, V> entry, V newValue) {
+        V previous = super.updateValue(entry, newValue);
+        Node<K, V> node = nodes.get(entry.getKey());
+        if ((node != null) && (node.entry == entry)) { // Rescheduled lazily.
+            long now = clock.nanoTime();
+            node.written = now;
+            node.accessed = now;
+        }
+        return previous;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return now - node.deadline(timeToLive, timeToIdle) >= 0;
+    }
+
+    private void schedule(Node<K, V> node) {
+        Node<K, V> previous = nodes.put(node.entry.getKey(), node);
+        if (previous != null) wheel.unschedule(previous);
+        node.deadline = node.deadline(timeToLive, timeToIdle);
+        wheel.schedule(node);
+    }
+
+    private void unschedule(Node<K, V> node) {
+        nodes.remove(node.entry.getKey());
+        wheel.unschedule(node);
+    }
+
+}
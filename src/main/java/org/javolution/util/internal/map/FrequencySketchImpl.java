@@ -0,0 +1,73 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import java.io.Serializable;
+
+import org.javolution.lang.MathLib;
+
+/**
+ * A count-min sketch of 4-bits counters (depth 4) estimating the access frequencies; all the counters are halved
+ * once the number of increments reaches ten times the number of counters per row (aging).
+ */
+final class FrequencySketchImpl implements Serializable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_LENGTH = 1 << 22;
+
+    private final long[] table; // 16 counters per word.
+    private final int sampleSize;
+    private int additions;
+
+    /** Creates a sketch for the specified maximum number of distinct elements. */
+    FrequencySketchImpl(long maximum) {
+        int length = (int) MathLib.min(MAX_LENGTH, MathLib.max(16, maximum));
+        table = new long[Integer.highestOneBit(length - 1) << 1];
+        sampleSize = 10 * table.length;
+    }
+
+    /** Returns the estimated frequency (at most 15) of the element having the specified hash. */
+    int frequency(long hash) {
+        int start = ((int) hash & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++)
+            frequency = MathLib.min(frequency, (int) (table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xF);
+        return frequency;
+    }
+
+    /** Increments the frequency of the element having the specified hash. */
+    void increment(long hash) {
+        int start = ((int) hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int shift = (start + i) << 2;
+            if (((table[index] >>> shift) & 0xF) == 0xF) continue; // Saturated.
+            table[index] += 1L << shift;
+            added = true;
+        }
+        if (added && (++additions == sampleSize)) reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++)
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        additions >>>= 1;
+    }
+
+    private int indexOf(long hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & (table.length - 1);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+/**
+ * The least frequently used eviction policy; nodes are held by frequency buckets (access ordered queues) linked
+ * in increasing frequency order, an access moves the node to the next bucket (constant time).
+ */
+final class LfuPolicyImpl<K, V> extends EvictionPolicyImpl<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final Bucket<K, V> root = new Bucket<K, V>(0); // Circular list sentinel.
+
+    @Override
+    void added(Node<K, V> node) {
+        Bucket<K, V> first = root.next;
+        if (first.frequency != 1) first = root.insert(1);
+        first.add(node);
+    }
+
+    @Override
+    void accessed(Node<K, V> node) {
+        Bucket<K, V> bucket = (Bucket<K, V>) node.queue;
+        Bucket<K, V> next = bucket.next;
+        if (next.frequency != bucket.frequency + 1) next = bucket.insert(bucket.frequency + 1);
+        bucket.remove(node);
+        next.add(node);
+        if (bucket.isEmpty()) bucket.unlink();
+    }
+
+    @Override
+    void removed(Node<K, V> node) {
+        Bucket<K, V> bucket = (Bucket<K, V>) node.queue;
+        bucket.remove(node);
+        if (bucket.isEmpty()) bucket.unlink();
+    }
+
+    @Override
+    Node<K, V> victim() {
+        Node<K, V> node = root.next.head;
+        if (node != null) removed(node);
+        return node;
+    }
+
+    @Override
+    void clear() {
+        root.next = root;
+        root.previous = root;
+    }
+
+    /** The nodes having the same frequency. */
+    private static final class Bucket<K, V> extends Queue<K, V> {
+        private static final long serialVersionUID = 0x700L; // Version.
+        final long frequency;
+        Bucket<K, V> previous = this;
+        Bucket<K, V> next = this;
+
+        Bucket(long frequency) {
+            this.frequency = frequency;
+        }
+
+        /** Inserts and returns a new bucket after this one. */
+        Bucket<K, V> insert(long frequency) {
+            Bucket<K, V> bucket = new Bucket<K, V>(frequency);
+            bucket.previous = this;
+            bucket.next = next;
+            next.previous = bucket;
+            next = bucket;
+            return bucket;
+        }
+
+        void unlink() {
+            previous.next = next;
+            next.previous = previous;
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+/**
+ * The least recently used eviction policy (single access ordered queue).
+ */
+final class LruPolicyImpl<K, V> extends EvictionPolicyImpl<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final Queue<K, V> queue = new Queue<K, V>();
+
+    @Override
+    void added(Node<K, V> node) {
+        queue.add(node);
+    }
+
+    @Override
+    void accessed(Node<K, V> node) {
+        queue.moveToTail(node);
+    }
+
+    @Override
+    Node<K, V> victim() {
+        Node<K, V> node = queue.head;
+        if (node != null) queue.remove(node);
+        return node;
+    }
+
+    @Override
+    void clear() {
+        queue.clear();
+    }
+
+}
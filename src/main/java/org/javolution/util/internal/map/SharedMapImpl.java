@@ -12,9 +12,9 @@ import java.util.Map;
 
 import org.javolution.util.AbstractMap;
 import org.javolution.util.AbstractSet;
-import org.javolution.util.FastMap;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Order;
+import org.javolution.util.function.Supplier;
 import org.javolution.util.function.UnaryOperator;
 import org.javolution.util.internal.ReadWriteLockImpl;
 import org.javolution.util.internal.set.SharedSetImpl;
@@ -27,15 +27,18 @@ public final class SharedMapImpl<K, V> extends AbstractMap<K, V> {
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractMap<K, V> inner;
     private final ReadWriteLockImpl lock;
+    private final boolean optimistic; // Point lookups can be performed without lock.
 
     public SharedMapImpl(AbstractMap<K, V> inner) {
         this.inner = inner;
         this.lock = new ReadWriteLockImpl();
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
-    public SharedMapImpl(FastMap<K, V> inner, ReadWriteLockImpl lock) {
+    public SharedMapImpl(AbstractMap<K, V> inner, ReadWriteLockImpl lock) {
         this.inner = inner;
         this.lock = lock;
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
  
@@ -66,12 +69,7 @@ public final class SharedMapImpl<K, V> extends AbstractMap<K, V> {
 
     @Override
     public boolean containsKey(Object key) {
-        lock.readLock.lock();
-        try {
-            return inner.containsKey(key);
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.containsKey(key));
     }
 
     @Override
@@ -106,22 +104,12 @@ public final class SharedMapImpl<K, V> extends AbstractMap<K, V> {
 
     @Override
     public V get(Object key) {
-        lock.readLock.lock();
-        try {
-            return inner.get(key);
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.get(key));
     }
 
     @Override
     public Entry<K, V> getEntry(K key) {
-        lock.readLock.lock();
-        try {
-            return inner.getEntry(key);
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.getEntry(key));
     }
 
     @Override
@@ -136,12 +124,7 @@ public final class SharedMapImpl<K, V> extends AbstractMap<K, V> {
 
     @Override
     public boolean isEmpty() {
-        lock.readLock.lock();
-        try {
-            return inner.isEmpty();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.isEmpty());
     }
 
     @Override
@@ -246,12 +229,7 @@ public final class SharedMapImpl<K, V> extends AbstractMap<K, V> {
 
     @Override
     public int size() {
-        lock.readLock.lock();
-        try {
-            return inner.size();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.size());
     }
 
     @Override
@@ -289,4 +267,9 @@ public final class SharedMapImpl<K, V> extends AbstractMap<K, V> {
         }
     }
 
+    /** Performs the specified lookup optimistically if supported by the inner map. */
+    private <R> R read(Supplier<R> lookup) {
+        return optimistic ? lock.read(lookup) : lock.readLocked(lookup);
+    }
+
 }
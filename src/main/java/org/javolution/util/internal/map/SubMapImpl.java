@@ -44,6 +44,54 @@ public final class SubMapImpl<K, V> extends AbstractMap<K, V> {
                 new EntryWithoutValue<>(toKey), toInclusive);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean containsKey(Object key) {
+        return inRange((K) key) && inner.containsKey(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        return inRange((K) key) ? inner.get(key) : null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (!inRange(key)) 
+            throw new UnsupportedOperationException("key out of sub-map range");
+        return inner.put(key, value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (!inRange(key)) 
+            throw new UnsupportedOperationException("key out of sub-map range");
+        return inner.putIfAbsent(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        return inRange((K) key) ? inner.remove(key) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        return inRange((K) key) && inner.remove(key, value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return inRange(key) ? inner.replace(key, value) : null;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return inRange(key) && inner.replace(key, oldValue, newValue);
+    }
+
     @Override
     public Entry<K, V> getEntry(K key) {
         if (!inRange(key)) 
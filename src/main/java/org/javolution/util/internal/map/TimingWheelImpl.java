@@ -0,0 +1,147 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import java.io.Serializable;
+
+import org.javolution.lang.MathLib;
+import org.javolution.util.AbstractMap.Entry;
+
+/**
+ * A hierarchical timing wheel (levels of 64 buckets, each level 64 times coarser than the previous one).
+ * Nodes are scheduled in constant time; when time advances, the buckets passed are processed: nodes not expired
+ * yet (e.g. accessed since scheduled) are rescheduled, possibly to a finer level.
+ */
+abstract class TimingWheelImpl<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int LEVELS = 5;
+    private static final int BUCKETS = 64;
+    private static final int BUCKET_BITS = 6;
+
+    private final int tickShift; // Duration of the finest buckets (power of two).
+    private final Node<K, V>[][] wheels; // Sentinels of the buckets (circular lists).
+    private long time;
+
+    /** Creates a wheel whose finest buckets have at most the specified duration. */
+    @SuppressWarnings("unchecked")
+    TimingWheelImpl(long resolution, long now) {
+        tickShift = 63 - Long.numberOfLeadingZeros(MathLib.max(1, resolution));
+        wheels = new Node[LEVELS][BUCKETS];
+        for (Node<K, V>[] wheel : wheels)
+            for (int i = 0; i < BUCKETS; i++)
+                wheel[i] = new Node<K, V>(null, 0);
+        clear();
+        time = now;
+    }
+
+    /** Indicates if the specified node is expired at the specified time, returns {@code false} to reschedule. */
+    abstract boolean expire(Node<K, V> node, long now);
+
+    /** Schedules the specified node at its deadline. */
+    final void schedule(Node<K, V> node) {
+        long delay = MathLib.max(0, node.deadline - time);
+        int level = 0;
+        while ((level < LEVELS - 1) && (delay >= (1L << shift(level + 1))))
+            level++;
+        long deadline = time + delay; // Overdue nodes go to the current bucket.
+        Node<K, V> sentinel = wheels[level][(int) (deadline >>> shift(level)) & (BUCKETS - 1)];
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    /** Unschedules the specified node. */
+    final void unschedule(Node<K, V> node) {
+        if (node.previous == null) return; // Not scheduled.
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+    }
+
+    /** Advances the time, returns the number of nodes expired. */
+    final int advance(long now) {
+        long previous = time;
+        time = now;
+        int count = 0;
+        for (int level = LEVELS; --level >= 0;) { // Coarse levels first (cascades to finer levels).
+            long previousTicks = previous >>> shift(level);
+            long delta = (now >>> shift(level)) - previousTicks;
+            if (delta <= 0) continue;
+            for (long i = 0, n = MathLib.min(delta, BUCKETS - 1); i <= n; i++)
+                count += process(wheels[level][(int) (previousTicks + i) & (BUCKETS - 1)], now);
+        }
+        return count;
+    }
+
+    /** Advances the time and processes the current finest bucket, returns the number of nodes expired (all the 
+     *  nodes expired at the specified time). */
+    final int expire(long now) {
+        int count = advance(now);
+        return count + process(wheels[0][(int) (now >>> shift(0)) & (BUCKETS - 1)], now);
+    }
+
+    /** Removes all the nodes. */
+    final void clear() {
+        for (Node<K, V>[] wheel : wheels)
+            for (Node<K, V> sentinel : wheel) {
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+            }
+    }
+
+    private int process(Node<K, V> sentinel, long now) {
+        Node<K, V> node = sentinel.next;
+        sentinel.previous = sentinel; // Detaches the nodes (rescheduling may use the same bucket).
+        sentinel.next = sentinel;
+        int count = 0;
+        while (node != sentinel) {
+            Node<K, V> next = node.next;
+            node.previous = null;
+            node.next = null;
+            if (expire(node, now)) count++;
+            else schedule(node);
+            node = next;
+        }
+        return count;
+    }
+
+    private int shift(int level) {
+        return MathLib.min(62, tickShift + BUCKET_BITS * level);
+    }
+
+    /** The expiration node of an entry. */
+    static final class Node<K, V> implements Serializable {
+        private static final long serialVersionUID = 0x700L; // Version.
+        final Entry<K, V> entry;
+        long written; // Time of creation or last update.
+        volatile long accessed; // Time of last access (updated by lookups).
+        long deadline; // When scheduled.
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(Entry<K, V> entry, long now) {
+            this.entry = entry;
+            this.written = now;
+            this.accessed = now;
+        }
+
+        /** Returns the expiration time for the specified durations ({@code 0} for no limit, not both). */
+        long deadline(long timeToLive, long timeToIdle) {
+            if (timeToLive == 0) return accessed + timeToIdle;
+            if (timeToIdle == 0) return written + timeToLive;
+            long expiration = written + timeToLive;
+            long idle = accessed + timeToIdle;
+            return (idle - expiration < 0) ? idle : expiration;
+        }
+    }
+
+}
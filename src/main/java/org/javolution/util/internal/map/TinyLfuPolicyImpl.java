@@ -0,0 +1,90 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import org.javolution.lang.MathLib;
+import org.javolution.util.function.Order;
+
+/**
+ * The W-TinyLFU eviction policy: an LRU admission window (1% of the weight) in front of a segmented LRU
+ * (probation and protected segments); entries leaving the window replace the probation victim only if their
+ * estimated frequency is higher.
+ */
+final class TinyLfuPolicyImpl<K, V> extends EvictionPolicyImpl<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final Queue<K, V> window = new Queue<K, V>();
+    private final Queue<K, V> probation = new Queue<K, V>();
+    private final Queue<K, V> protectedQueue = new Queue<K, V>();
+    private final FrequencySketchImpl sketch;
+    private final Order<? super K> keyOrder;
+    private final long maxWindow;
+    private final long maxProtected;
+
+    TinyLfuPolicyImpl(long maxWeight, Order<? super K> keyOrder) {
+        this.keyOrder = keyOrder;
+        this.sketch = new FrequencySketchImpl(maxWeight);
+        this.maxWindow = MathLib.max(1, maxWeight / 100);
+        this.maxProtected = (maxWeight - maxWindow) * 4 / 5;
+    }
+
+    @Override
+    void added(Node<K, V> node) {
+        sketch.increment(hashOf(node));
+        window.add(node);
+    }
+
+    @Override
+    void accessed(Node<K, V> node) {
+        sketch.increment(hashOf(node));
+        if (node.queue != probation) {
+            node.queue.moveToTail(node);
+            return;
+        }
+        probation.remove(node); // Promotion.
+        protectedQueue.add(node);
+        while (protectedQueue.weight > maxProtected) { // Demotion.
+            Node<K, V> demoted = protectedQueue.head;
+            protectedQueue.remove(demoted);
+            probation.add(demoted);
+        }
+    }
+
+    @Override
+    Node<K, V> victim() {
+        while (window.weight > maxWindow) { // Candidates for admission.
+            Node<K, V> candidate = window.head;
+            window.remove(candidate);
+            probation.add(candidate);
+        }
+        Node<K, V> victim = probation.head;
+        if (victim != null) {
+            Node<K, V> candidate = probation.tail;
+            if (sketch.frequency(hashOf(candidate)) <= sketch.frequency(hashOf(victim))) victim = candidate;
+        } else {
+            victim = !protectedQueue.isEmpty() ? protectedQueue.head : window.head;
+            if (victim == null) return null;
+        }
+        victim.queue.remove(victim);
+        return victim;
+    }
+
+    @Override
+    void clear() {
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+    }
+
+    private long hashOf(Node<K, V> node) {
+        long h = keyOrder.indexOf(node.entry.getKey()) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+}
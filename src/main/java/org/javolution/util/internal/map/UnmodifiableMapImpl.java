@@ -36,6 +36,16 @@ public final class UnmodifiableMapImpl<K, V> extends AbstractMap<K, V> {
         throw new UnsupportedOperationException(ERROR_MSG);
     }
 
+    @Override
+    public boolean containsKey(Object key) {
+        return inner.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        return inner.get(key);
+    }
+
     @Override
     public Entry<K, V> getEntry(K key) {
         return inner.getEntry(key);
@@ -0,0 +1,268 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.set;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.context.ConcurrentContext;
+import org.javolution.lang.MathLib;
+import org.javolution.util.AbstractSet;
+import org.javolution.util.FastIterator;
+import org.javolution.util.FastSet;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.function.Supplier;
+import org.javolution.util.internal.ReadWriteLockImpl;
+
+/**
+ * A concurrent set striped over fast sets, each one guarded by its own lock (optimistic lock-free lookups,
+ * updates only lock the stripe of the element). The size is maintained atomically across stripes.
+ */
+public final class ConcurrentSetImpl<E> extends AbstractSet<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /** The number of stripes (power of two, at least twice the maximum concurrency). */
+    public static final int STRIPES = MathLib.min(64,
+            Integer.highestOneBit(MathLib.max(1, ConcurrentContext.CONCURRENCY.get() + 1) * 4 - 1));
+
+    private final Order<? super E> order;
+    private final FastSet<E>[] stripes; // Guarded by their lock.
+    private final ReadWriteLockImpl[] locks;
+    private final AtomicInteger size; // Updated while holding the lock of the stripe modified.
+
+    /** Creates a concurrent set holding the elements of the specified set. */
+    @SuppressWarnings("unchecked")
+    public ConcurrentSetImpl(AbstractSet<E> that) {
+        order = that.order();
+        stripes = new FastSet[STRIPES];
+        locks = new ReadWriteLockImpl[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new FastSet<E>(order);
+            locks[i] = new ReadWriteLockImpl();
+        }
+        int n = 0;
+        for (E e : that)
+            if (stripes[stripeOf(order.indexOf(e))].add(e, true)) n++;
+        size = new AtomicInteger(n);
+    }
+
+    /**
+     * Creates a concurrent set over the specified stripes (elements distributed using {@link #stripeOf}),
+     * guarded by the specified locks and whose total size is the specified counter (e.g. entries of a
+     * concurrent map).
+     */
+    public ConcurrentSetImpl(Order<? super E> order, FastSet<E>[] stripes, ReadWriteLockImpl[] locks,
+            AtomicInteger size) {
+        this.order = order;
+        this.stripes = stripes;
+        this.locks = locks;
+        this.size = size;
+    }
+
+    /** Returns the stripe position for the specified order index. */
+    public static int stripeOf(long index) {
+        return MathLib.hash((int) (index ^ (index >>> 32))) & (STRIPES - 1);
+    }
+
+    @Override
+    public boolean add(E element) {
+        int i = stripeOf(element);
+        FastSet<E> stripe = stripes[i];
+        return update(i, () -> stripe.add(element));
+    }
+
+    @Override
+    public boolean add(E element, boolean allowDuplicate) {
+        int i = stripeOf(element);
+        FastSet<E> stripe = stripes[i];
+        return update(i, () -> stripe.add(element, allowDuplicate));
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < stripes.length; i++) {
+            FastSet<E> stripe = stripes[i];
+            update(i, () -> {
+                stripe.clear();
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public ConcurrentSetImpl<E> clone() {
+        return new ConcurrentSetImpl<E>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(Object searched) {
+        int i = stripeOf((E) searched);
+        FastSet<E> stripe = stripes[i];
+        return locks[i].read(() -> stripe.contains(searched));
+    }
+
+    @Override
+    public FastIterator<E> descendingIterator(@Nullable E high) {
+        return new IteratorImpl<E>(this, high, true);
+    }
+
+    @Override
+    public E getAny(E element) {
+        int i = stripeOf(element);
+        FastSet<E> stripe = stripes[i];
+        return locks[i].read(() -> stripe.getAny(element));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public FastIterator<E> iterator(@Nullable E low) {
+        return new IteratorImpl<E>(this, low, false);
+    }
+
+    @Override
+    public Order<? super E> order() {
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object searched) {
+        int i = stripeOf((E) searched);
+        FastSet<E> stripe = stripes[i];
+        return update(i, () -> stripe.remove(searched));
+    }
+
+    @Override
+    public E removeAny(E element) {
+        int i = stripeOf(element);
+        FastSet<E> stripe = stripes[i];
+        return update(i, () -> stripe.removeAny(element));
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        boolean changed = false;
+        for (int i = 0; i < stripes.length; i++) {
+            FastSet<E> stripe = stripes[i];
+            changed |= update(i, () -> stripe.removeIf(filter));
+        }
+        return changed;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    private int stripeOf(E element) {
+        return stripeOf(order.indexOf(element));
+    }
+
+    /** Performs the specified update of the stripe at the specified position, maintains the total size. */
+    private <R> R update(int i, Supplier<R> update) {
+        locks[i].writeLock.lock();
+        try {
+            int before = stripes[i].size();
+            R result = update.get();
+            size.addAndGet(stripes[i].size() - before);
+            return result;
+        } finally {
+            locks[i].writeLock.unlock();
+        }
+    }
+
+    /** Returns a snapshot of the stripe at the specified position. */
+    private FastSet<E> snapshot(int i) {
+        FastSet<E> stripe = stripes[i];
+        return locks[i].readLocked(() -> stripe.clone());
+    }
+
+    /** Iterator merging the (ordered) iterations of the stripes snapshots. */
+    private static final class IteratorImpl<E> implements FastIterator<E> {
+        private final ConcurrentSetImpl<E> set;
+        private final FastIterator<E>[] iterators;
+        private final boolean descending;
+        private final Object[] heads;
+        private final boolean[] pending; // Indicates if the head of the stripe iteration is valid.
+        private boolean removable;
+        private E last;
+
+        @SuppressWarnings("unchecked")
+        public IteratorImpl(ConcurrentSetImpl<E> set, E from, boolean descending) {
+            this.set = set;
+            this.descending = descending;
+            int n = set.stripes.length;
+            iterators = new FastIterator[n];
+            for (int i = 0; i < n; i++) {
+                FastSet<E> snapshot = set.snapshot(i);
+                iterators[i] = descending ? snapshot.descendingIterator(from) : snapshot.iterator(from);
+            }
+            heads = new Object[n];
+            pending = new boolean[n];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current() >= 0;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            for (int i; (i = current()) >= 0; pending[i] = false)
+                if (matching.test(head(i))) return true;
+            return false;
+        }
+
+        @Override
+        public E next() {
+            int i = current();
+            if (i < 0) throw new NoSuchElementException();
+            pending[i] = false;
+            removable = true;
+            return last = head(i);
+        }
+
+        @Override
+        public void remove() { // Iterations are over snapshots, removes from the set itself.
+            if (!removable) throw new IllegalStateException();
+            set.remove(last);
+            removable = false;
+            last = null;
+        }
+
+        /** Returns the position of the stripe holding the next element or {@code -1} if none. */
+        private int current() {
+            int next = -1;
+            for (int i = 0; i < iterators.length; i++) {
+                if (!pending[i]) {
+                    if (!iterators[i].hasNext()) continue;
+                    heads[i] = iterators[i].next();
+                    pending[i] = true;
+                }
+                if ((next < 0) || (descending ? set.order.compare(head(next), head(i)) < 0
+                        : set.order.compare(head(i), head(next)) < 0)) next = i;
+            }
+            return next;
+        }
+
+        @SuppressWarnings("unchecked")
+        private E head(int i) {
+            return (E) heads[i];
+        }
+    }
+
+}
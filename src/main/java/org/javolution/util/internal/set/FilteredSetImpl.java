@@ -12,15 +12,17 @@ import java.util.Iterator;
 
 import org.javolution.util.FastIterator;
 import org.javolution.annotations.Nullable;
+import org.javolution.util.AbstractCollection;
 import org.javolution.util.AbstractSet;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.Predicate;
 import org.javolution.util.internal.collection.FilteredCollectionImpl;
+import org.javolution.util.internal.collection.PipelineImpl;
 
 /**
  * A filtered view over a set.
  */
-public final class FilteredSetImpl<E> extends AbstractSet<E> {
+public final class FilteredSetImpl<E> extends AbstractSet<E> implements PipelineImpl.Stage {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final Predicate<? super E> filter;
@@ -31,6 +33,16 @@ public final class FilteredSetImpl<E> extends AbstractSet<E> {
         this.filter = filter;
     }
 
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.addFilter(filter);
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
     @Override
     public boolean add(E element, boolean allowDuplicate) {
         return filter.test(element) ? inner.add(element, allowDuplicate) : false;
@@ -19,6 +19,7 @@ import org.javolution.util.function.Consumer;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.function.Supplier;
 import org.javolution.util.internal.ReadWriteLockImpl;
 
 /**
@@ -30,15 +31,18 @@ public final class SharedSetImpl<E> // implements AbstractSetMethods<E> {
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractSet<E> inner;
     private final ReadWriteLockImpl lock;
+    private final boolean optimistic; // Point lookups can be performed without lock.
 
     public SharedSetImpl(AbstractSet<E> inner) {
         this.inner = inner;
         this.lock = new ReadWriteLockImpl();
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
     public SharedSetImpl(AbstractSet<E> inner, ReadWriteLockImpl lock) {
         this.inner = inner;
         this.lock = lock;
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
     @Override
@@ -123,12 +127,7 @@ public final class SharedSetImpl<E> // implements AbstractSetMethods<E> {
 
     @Override
     public boolean contains(final Object searched) {
-        lock.readLock.lock();
-        try {
-            return inner.contains(searched);
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.contains(searched));
     }
 
     @Override
@@ -183,12 +182,7 @@ public final class SharedSetImpl<E> // implements AbstractSetMethods<E> {
 
     @Override
     public boolean isEmpty() {
-        lock.readLock.lock();
-        try {
-            return inner.isEmpty();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.isEmpty());
     }
 
     @Override
@@ -299,12 +293,7 @@ public final class SharedSetImpl<E> // implements AbstractSetMethods<E> {
 
     @Override
     public int size() {
-        lock.readLock.lock();
-        try {
-            return inner.size();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.size());
     }
 
     @Override
@@ -419,12 +408,7 @@ public final class SharedSetImpl<E> // implements AbstractSetMethods<E> {
 
     @Override
     public E getAny(E element) {
-        lock.readLock.lock();
-        try {
-            return inner.getAny(element);
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.getAny(element));
     }
 
     @Override
@@ -437,4 +421,9 @@ public final class SharedSetImpl<E> // implements AbstractSetMethods<E> {
         }
     }
 
+    /** Performs the specified lookup optimistically if supported by the inner collection. */
+    private <R> R read(Supplier<R> lookup) {
+        return optimistic ? lock.read(lookup) : lock.readLocked(lookup);
+    }
+
 }
@@ -33,7 +33,7 @@ public final class SortedSetImpl<E> extends AbstractSet<E> {
     public boolean add(E element, boolean allowDuplicate) {
         int i = firstIndex(element, 0, size);
         if (!allowDuplicate && (i < size) && comparator.areEqual(element, sorted.get(i))) return false;
-        sorted.insert(i, element);
+        sorted = sorted.insert(i, element);
         size++;
         return true;
     }
@@ -41,8 +41,9 @@ public final class SortedSetImpl<E> extends AbstractSet<E> {
     @Override
     public boolean removeIf(Predicate<? super E> filter) {
         int initialSize = size;
-        for (FractalArray.Iterator<E> itr = sorted.iterator(); itr.hasNext(filter);) {
-            sorted.set(itr.nextIndex(), null);
+        for (int i = size; --i >= 0;) {
+            if (!filter.test(sorted.get(i))) continue;
+            sorted = sorted.delete(i);
             --size;
         }
         return initialSize != size;
@@ -86,17 +87,17 @@ public final class SortedSetImpl<E> extends AbstractSet<E> {
 
     @Override
     public FastIterator<E> iterator(E low) {
-        return sorted.iterator(firstIndex(low, 0, size));
+        return sorted.iterator((low != null) ? firstIndex(low, 0, size) : 0);
     }
 
     @Override
     public FastIterator<E> descendingIterator(E high) {
-        return sorted.descendingIterator(lastIndex(high, 0, size));
+        return sorted.descendingIterator((high != null) ? lastIndex(high, 0, size) : size);
     }
 
     @Override
     public boolean isEmpty() {
-        return size != 0;
+        return size == 0;
     }
 
     @Override
@@ -110,6 +111,13 @@ public final class SortedSetImpl<E> extends AbstractSet<E> {
         size = 0;
     } 
 
+    @Override
+    public SortedSetImpl<E> clone() {
+        SortedSetImpl<E> copy = (SortedSetImpl<E>) super.clone();
+        copy.sorted = sorted.clone();
+        return copy;
+    }
+
     /** Find the first position real or "would be" of the specified element in the given range. */
     private int firstIndex(E element, int start, int end) {
         if (start == end) return start;
@@ -63,8 +63,8 @@ public final class SubSetImpl<E> extends AbstractSet<E> {
         if ((from == null) || tooHigh(from))  // Starts from subset higher bound.
             from = toInclusive ? toElement : lower(toElement);
         if (fromElement == null) return inner.descendingIterator(from); // No lower bound.
-        E end = fromInclusive ? lower(toElement) : floor(toElement);
-        return new IteratorImpl<E>(inner.descendingIterator(from), end);        
+        E end = fromInclusive ? lower(fromElement) : floor(fromElement);
+        return new IteratorImpl<E>(inner.descendingIterator(from), end, order());        
     }
 
     @Override
@@ -85,7 +85,7 @@ public final class SubSetImpl<E> extends AbstractSet<E> {
             from = fromInclusive ? fromElement : higher(fromElement);
         if (toElement == null) return inner.iterator(from); // No upper bound.
         E end = toInclusive ? higher(toElement) : ceiling(toElement);
-        return new IteratorImpl<E>(inner.iterator(from), end);        
+        return new IteratorImpl<E>(inner.iterator(from), end, order());        
     }
 
     @Override
@@ -171,26 +171,31 @@ public final class SubSetImpl<E> extends AbstractSet<E> {
         return fromInclusive ? cmp > 0 : cmp >= 0;
     }
 
-    /** Iterate up to the specified end element (exclusive). */
+    /** 
+     * Iterate up to the specified end element (exclusive). Elements are compared to the end element using 
+     * the set order since they may be created on the fly (e.g. entries of primitive maps).
+     */
     private static class IteratorImpl<E> implements FastIterator<E> {
         private final FastIterator<E> itr; 
         private final E end;  
+        private final Order<? super E> order;
         private E next; 
-        private IteratorImpl(FastIterator<E> itr, E end) {
+        private IteratorImpl(FastIterator<E> itr, E end, Order<? super E> order) {
             this.itr = itr;
             this.end = end;
+            this.order = order;
             next = itr.hasNext() ? itr.next() : end;
         }
         
         @Override
         public boolean hasNext() {
-            return next != end;
+            return !isEnd(next);
         }
 
         @Override
         public boolean hasNext(final Predicate<? super E> matching) {
             while (true) {
-                if (next == end) return false;
+                if (isEnd(next)) return false;
                 if (matching.test(next)) return true;
                 next = itr.hasNext() ? itr.next() : end;
             }
@@ -198,7 +203,7 @@ public final class SubSetImpl<E> extends AbstractSet<E> {
 
         @Override
         public E next() {
-            if (next == end) throw new NoSuchElementException();
+            if (isEnd(next)) throw new NoSuchElementException();
             E current = next;
             next = itr.hasNext() ? itr.next() : end;
             return current;
@@ -208,6 +213,10 @@ public final class SubSetImpl<E> extends AbstractSet<E> {
         public void remove() {
             throw new UnsupportedOperationException();            
         }
+        
+        private boolean isEnd(E element) {
+            return (element == end) || ((end != null) && (element != null) && (order.compare(element, end) == 0));
+        }
  
     }
 
@@ -23,5 +23,9 @@ public interface AbstractTableMethods<E> extends AbstractCollectionMethods<E>, L
 
     void sort(Comparator<? super E> cmp);
 
+    void parallelSort(Comparator<? super E> cmp);
+
+    void setAll(int index, E[] elements);
+
 
 }
\ No newline at end of file
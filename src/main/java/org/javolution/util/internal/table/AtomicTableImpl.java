@@ -10,6 +10,7 @@ package org.javolution.util.internal.table;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Spliterator;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.util.AbstractCollection;
@@ -22,7 +23,9 @@ import org.javolution.util.function.Equality;
 import org.javolution.util.function.Predicate;
 
 /**
- * An atomic view over a table. All updates are synchronized, reads are performed on immutable copy.
+ * An atomic view over a table. All updates are synchronized, reads are performed on an immutable copy
+ * (fast tables copies share their structure, updates are path-copying in O(Log(n)) except for insertions or
+ * removals in the middle which move the {@code k} elements on the shortest side in O(k Log(n))).
  */
 public final class AtomicTableImpl<E> // implements AbstractTableMethods<E> {
         extends AbstractTable<E> {
@@ -172,6 +175,11 @@ public final class AtomicTableImpl<E> // implements AbstractTableMethods<E> {
         return innerConst.listIterator(index);
     }
 
+    @Override
+    public Spliterator<E> spliterator() {
+        return innerConst.spliterator();
+    }
+
      @Override
     public E peekFirst() {
         return innerConst.peekFirst();
@@ -282,6 +290,12 @@ public final class AtomicTableImpl<E> // implements AbstractTableMethods<E> {
         return result;
     }
 
+    @Override
+    public synchronized void setAll(int index, E[] elements) {
+        inner.setAll(index, elements);
+        innerConst = inner.clone();
+    }
+
     @Override
     public int size() {
         return innerConst.size();
@@ -293,6 +307,12 @@ public final class AtomicTableImpl<E> // implements AbstractTableMethods<E> {
         innerConst = inner.clone();
     }
 
+    @Override
+    public synchronized void parallelSort(Comparator<? super E> cmp) {
+        inner.parallelSort(cmp);
+        innerConst = inner.clone();
+    }
+
     @Override
     public Object[] toArray() {
         return innerConst.toArray();
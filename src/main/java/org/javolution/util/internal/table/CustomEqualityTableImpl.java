@@ -71,6 +71,11 @@ public final class CustomEqualityTableImpl<E> extends AbstractTable<E> {
         return inner.set(index, element);
     }
 
+    @Override
+    public void setAll(int index, E[] elements) {
+        inner.setAll(index, elements);
+    }
+
     @Override
     public int size() {
         return inner.size();
@@ -9,15 +9,17 @@
 package org.javolution.util.internal.table;
 
 import org.javolution.util.FastListIterator;
+import org.javolution.util.AbstractCollection;
 import org.javolution.util.AbstractTable;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Function;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.collection.PipelineImpl;
 
 /**
  * A mapped view over a table.
  */
-public final class MappedTableImpl<E, R> extends AbstractTable<R> {
+public final class MappedTableImpl<E, R> extends AbstractTable<R> implements PipelineImpl.Stage {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractTable<E> inner;
@@ -28,6 +30,16 @@ public final class MappedTableImpl<E, R> extends AbstractTable<R> {
         this.function = function;
     }
 
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.addMapping(function);
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
     @Override
     public void add(int index, R element) {
         throw new UnsupportedOperationException("New elements cannot be added to mapped views");
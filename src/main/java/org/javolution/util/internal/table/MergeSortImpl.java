@@ -0,0 +1,147 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.javolution.context.ConcurrentContext;
+import org.javolution.lang.MathLib;
+import org.javolution.util.AbstractTable;
+
+/**
+ * A stable merge sort utility class. The table elements are copied into a contiguous array, sorted by blocks
+ * (possibly {@link ConcurrentContext concurrently}), the sorted blocks are merged pairwise and the result is
+ * written back to the table in a single pass.
+ */
+public final class MergeSortImpl<E> {
+
+    /** The minimum number of elements per concurrent block. */
+    public static final int MIN_BLOCK_SIZE = 4096;
+
+    private final Comparator<? super E> comparator;
+    private final AbstractTable<E> table;
+
+    public MergeSortImpl(AbstractTable<E> table, Comparator<? super E> comparator) {
+        this.table = table;
+        this.comparator = comparator;
+    }
+
+    /** Sorts the table using the current thread only. */
+    public void sort() {
+        int size = table.size();
+        if (size < 2) return;
+        @SuppressWarnings("unchecked")
+        E[] elements = (E[]) table.toArray();
+        Arrays.sort(elements, 0, size, comparator); // Stable.
+        writeBack(elements);
+    }
+
+    /** Sorts the table concurrently (the number of blocks depends upon the current concurrency). */
+    public void parallelSort() {
+        int size = table.size();
+        if (size < 2 * MIN_BLOCK_SIZE) {
+            sort();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        E[] src = (E[]) table.toArray();
+        @SuppressWarnings("unchecked")
+        E[] dest = (E[]) new Object[size];
+        int[] bounds; // Boundaries of the sorted runs.
+        ConcurrentContext ctx = ConcurrentContext.enter();
+        try {
+            int blocks = MathLib.max(1, MathLib.min(ctx.getConcurrency() + 1, size / MIN_BLOCK_SIZE));
+            bounds = new int[blocks + 1];
+            for (int i = 0; i <= blocks; i++)
+                bounds[i] = (int) ((long) size * i / blocks);
+            for (int i = 1; i < blocks; i++)
+                ctx.execute(new SortRunnable<E>(src, bounds[i], bounds[i + 1], comparator));
+            new SortRunnable<E>(src, bounds[0], bounds[1], comparator).run(); // Current thread needs to work too!
+        } finally {
+            ctx.exit(); // Waits for concurrent completion.
+        }
+        for (int runs = bounds.length - 1; runs > 1;) { // Merges adjacent runs pairwise.
+            ctx = ConcurrentContext.enter();
+            try {
+                for (int i = 2; i < runs; i += 2)
+                    ctx.execute(new MergeRunnable<E>(src, dest, bounds[i], bounds[MathLib.min(i + 1, runs)],
+                            bounds[MathLib.min(i + 2, runs)], comparator));
+                new MergeRunnable<E>(src, dest, bounds[0], bounds[1], bounds[2], comparator).run();
+            } finally {
+                ctx.exit();
+            }
+            int merged = (runs + 1) >> 1;
+            for (int i = 0, j = 0; j <= merged; i += 2)
+                bounds[j++] = bounds[MathLib.min(i, runs)];
+            runs = merged;
+            E[] tmp = src;
+            src = dest;
+            dest = tmp;
+        }
+        writeBack(src);
+    }
+
+    /** Replaces the table elements with the specified ones (single bulk pass). */
+    private void writeBack(E[] elements) {
+        table.setAll(0, elements);
+    }
+
+    /** Merges the sorted runs [from, mid[ and [mid, to[ of src into dest (left elements first when equal). */
+    private static <E> void merge(E[] src, E[] dest, int from, int mid, int to, Comparator<? super E> cmp) {
+        int i = from, j = mid, k = from;
+        if ((mid > from) && (mid < to) && (cmp.compare(src[mid - 1], src[mid]) <= 0)) { // Already ordered.
+            System.arraycopy(src, from, dest, from, to - from);
+            return;
+        }
+        while ((i < mid) && (j < to))
+            dest[k++] = (cmp.compare(src[j], src[i]) < 0) ? src[j++] : src[i++];
+        System.arraycopy(src, i, dest, k, mid - i);
+        System.arraycopy(src, j, dest, k + mid - i, to - j);
+    }
+
+    private static final class SortRunnable<E> implements Runnable {
+        private final E[] elements;
+        private final int from, to;
+        private final Comparator<? super E> cmp;
+
+        private SortRunnable(E[] elements, int from, int to, Comparator<? super E> cmp) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.cmp = cmp;
+        }
+
+        @Override
+        public void run() {
+            Arrays.sort(elements, from, to, cmp);
+        }
+    }
+
+    private static final class MergeRunnable<E> implements Runnable {
+        private final E[] src, dest;
+        private final int from, mid, to;
+        private final Comparator<? super E> cmp;
+
+        private MergeRunnable(E[] src, E[] dest, int from, int mid, int to, Comparator<? super E> cmp) {
+            this.src = src;
+            this.dest = dest;
+            this.from = from;
+            this.mid = mid;
+            this.to = to;
+            this.cmp = cmp;
+        }
+
+        @Override
+        public void run() {
+            merge(src, dest, from, mid, to, cmp);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.javolution.util.function.Consumer;
+
+/**
+ * A multi-producer multi-consumer ring buffer (D. Vyukov's bounded queue). Each slot has a sequence number telling
+ * whether the slot is ready for the producer of a given tail or for the consumer of a given head; producers and
+ * consumers claim slots with compare-and-set on the tail/head.
+ */
+public final class MpmcRingBufferImpl<E> extends RingBufferImpl<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final AtomicLongArray sequences;
+
+    public MpmcRingBufferImpl(int capacity) {
+        super(capacity);
+        sequences = new AtomicLongArray(mask + 1);
+        for (int i = 0; i <= mask; i++)
+            sequences.set(i, i);
+    }
+
+    @Override
+    public Access access() {
+        return Access.MULTI_PRODUCER_MULTI_CONSUMER;
+    }
+
+    @Override
+    public boolean offerLast(E element) {
+        if (element == null) throw new NullPointerException();
+        while (true) {
+            long t = tail.get();
+            int i = (int) t & mask;
+            long delta = sequences.get(i) - t;
+            if (delta == 0) { // Slot free.
+                if (!tail.compareAndSet(t, t + 1)) continue;
+                buffer.lazySet(i, element);
+                sequences.lazySet(i, t + 1);
+                return true;
+            }
+            if (delta < 0) return false; // Full (slot not consumed yet).
+        }
+    }
+
+    @Override
+    public E pollFirst() {
+        while (true) {
+            long h = head.get();
+            int i = (int) h & mask;
+            long delta = sequences.get(i) - (h + 1);
+            if (delta == 0) { // Slot published.
+                if (!head.compareAndSet(h, h + 1)) continue;
+                E element = buffer.get(i);
+                buffer.lazySet(i, null);
+                sequences.lazySet(i, h + mask + 1); // Free for the next round.
+                return element;
+            }
+            if (delta < 0) return null; // Empty.
+        }
+    }
+
+    @Override
+    public E peekFirst() {
+        long h = head.get();
+        return (sequences.get((int) h & mask) == h + 1) ? buffer.get((int) h & mask) : null;
+    }
+
+    @Override
+    public int drainTo(Consumer<? super E> consumer, int maxElements) {
+        int n = 0;
+        for (E element; (n < maxElements) && ((element = pollFirst()) != null); n++)
+            consumer.accept(element); // Slots are claimed individually (concurrent consumers).
+        return n;
+    }
+
+}
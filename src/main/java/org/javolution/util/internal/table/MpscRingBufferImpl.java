@@ -0,0 +1,78 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import org.javolution.util.function.Consumer;
+
+/**
+ * A multi-producer single-consumer ring buffer. Producers claim a slot by incrementing the tail (compare-and-set)
+ * then publish their element; the consumer stops at the first slot claimed but not published yet.
+ */
+public final class MpscRingBufferImpl<E> extends RingBufferImpl<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    public MpscRingBufferImpl(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public Access access() {
+        return Access.MULTI_PRODUCER;
+    }
+
+    @Override
+    public boolean offerLast(E element) {
+        if (element == null) throw new NullPointerException();
+        long t;
+        do {
+            t = tail.get();
+            if (t - tail.cached > mask) { // Appears full.
+                tail.cached = head.get();
+                if (t - tail.cached > mask) return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        buffer.set((int) t & mask, element); // Volatile (producers may read a consumer's flag after publishing).
+        return true;
+    }
+
+    @Override
+    public E pollFirst() {
+        long h = head.get();
+        int i = (int) h & mask;
+        E element = buffer.get(i);
+        if (element == null) {
+            if (h == tail.get()) return null; // Empty.
+            while ((element = buffer.get(i)) == null) {} // Claimed, being published.
+        }
+        buffer.lazySet(i, null);
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    @Override
+    public int drainTo(Consumer<? super E> consumer, int maxElements) {
+        long h = head.get();
+        int n = 0;
+        try {
+            while (n < maxElements) {
+                int i = (int) (h + n) & mask;
+                E element = buffer.get(i);
+                if (element == null) break; // Empty or not published yet.
+                buffer.lazySet(i, null);
+                n++; // Removed even if the consumer fails.
+                consumer.accept(element);
+            }
+        } finally {
+            head.lazySet(h + n); // Once per batch.
+        }
+        return n;
+    }
+
+}
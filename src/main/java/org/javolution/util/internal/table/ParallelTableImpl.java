@@ -0,0 +1,172 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import java.util.Comparator;
+
+import org.javolution.annotations.Parallel;
+import org.javolution.util.AbstractCollection;
+import org.javolution.util.AbstractTable;
+import org.javolution.util.FastListIterator;
+import org.javolution.util.function.BinaryOperator;
+import org.javolution.util.function.Consumer;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.collection.ParallelCollectionImpl;
+import org.javolution.util.internal.collection.PipelineImpl;
+
+/**
+ * A table view to support parallel processing (methods annotated {@link Parallel}) including parallel sorting.
+ */
+public final class ParallelTableImpl<E> extends AbstractTable<E> implements PipelineImpl.Stage {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final AbstractTable<E> inner;
+    private final ParallelCollectionImpl<E> parallel;
+
+    public ParallelTableImpl(AbstractTable<E> inner) {
+        this.inner = inner;
+        this.parallel = new ParallelCollectionImpl<E>(inner);
+    }
+
+    @Override
+    public void appendTo(PipelineImpl<?> pipeline) {
+        pipeline.setParallel();
+    }
+
+    @Override
+    public AbstractCollection<?> inner() {
+        return inner;
+    }
+
+    @Override
+    public boolean add(E element) {
+        return inner.add(element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        inner.add(index, element);
+    }
+
+    @Override
+    @Parallel
+    public boolean anyMatch(Predicate<? super E> predicate) {
+        return parallel.anyMatch(predicate);
+    }
+
+    @Override
+    public void clear() {
+        inner.clear();
+    }
+
+    @Override
+    public ParallelTableImpl<E> clone() {
+        return new ParallelTableImpl<E>(inner.clone());
+    }
+
+    @Override
+    @Parallel
+    public AbstractCollection<E> collect() {
+        return parallel.collect();
+    }
+
+    @Override
+    public Equality<? super E> equality() {
+        return inner.equality();
+    }
+
+    @Override
+    @Parallel
+    public E findAny() {
+        return parallel.findAny();
+    }
+
+    @Override
+    @Parallel
+    public void forEach(Consumer<? super E> consumer) {
+        parallel.forEach(consumer);
+    }
+
+    @Override
+    public E get(int index) {
+        return inner.get(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return inner.isEmpty();
+    }
+
+    @Override
+    public FastListIterator<E> listIterator(int index) {
+        return inner.listIterator(index);
+    }
+
+    @Override
+    public ParallelTableImpl<E> parallel() {
+        return this;
+    }
+
+    @Override
+    @Parallel
+    public E reduce(BinaryOperator<E> operator) {
+        return parallel.reduce(operator);
+    }
+
+    @Override
+    public E remove(int index) {
+        return inner.remove(index);
+    }
+
+    @Override
+    @Parallel
+    public boolean removeIf(Predicate<? super E> filter) {
+        return parallel.removeIf(filter);
+    }
+
+    @Override
+    public AbstractCollection<E> sequential() {
+        return inner.sequential();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return inner.set(index, element);
+    }
+
+    @Override
+    public void setAll(int index, E[] elements) {
+        inner.setAll(index, elements);
+    }
+
+    @Override
+    public int size() {
+        return inner.size();
+    }
+
+    /** Sorts the blocks of this table concurrently, then merges them (stable). */
+    @Override
+    @Parallel
+    public void sort(Comparator<? super E> cmp) {
+        inner.parallelSort(cmp); // Atomic for thread-safe tables.
+    }
+
+    @Override
+    @Parallel
+    public void parallelSort(Comparator<? super E> cmp) {
+        inner.parallelSort(cmp);
+    }
+
+    @Override
+    public AbstractTable<E>[] trySplit(int n) {
+        return inner.trySplit(n);
+    }
+
+}
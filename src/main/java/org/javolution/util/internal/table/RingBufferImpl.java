@@ -0,0 +1,68 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.javolution.lang.MathLib;
+import org.javolution.util.AbstractQueue;
+
+/**
+ * The base class of ring buffer queues. The head and tail are ever-increasing sequences (the index in the buffer
+ * is the sequence modulo the capacity), the elements are published/cleared with ordered writes.
+ */
+abstract class RingBufferImpl<E> extends AbstractQueue<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    final AtomicReferenceArray<E> buffer;
+    final int mask;
+    final Sequence head = new Sequence(); // Next element to remove.
+    final Sequence tail = new Sequence(); // Next element to add.
+
+    RingBufferImpl(int capacity) {
+        if ((capacity <= 0) || (capacity > (1 << 30))) throw new IllegalArgumentException("Capacity: " + capacity);
+        int length = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new AtomicReferenceArray<E>(length);
+        mask = length - 1;
+    }
+
+    @Override
+    public final int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public final int size() {
+        while (true) { // Consistent head (tail read in between).
+            long h = head.get();
+            long t = tail.get();
+            if (head.get() == h) return (int) MathLib.max(0, MathLib.min(t - h, mask + 1));
+        }
+    }
+
+    @Override
+    public E peekFirst() {
+        return buffer.get((int) head.get() & mask); // Null if empty or not published yet.
+    }
+
+    @Override
+    protected E peek(int index) {
+        return buffer.get((int) (head.get() + index) & mask);
+    }
+
+    /** A sequence padded to its own cache line; the field {@code cached} holds a copy of the opposite sequence
+     *  (owned by the threads updating this sequence). */
+    static final class Sequence extends AtomicLong {
+        private static final long serialVersionUID = 0x700L; // Version.
+        volatile long cached;
+        long p1, p2, p3, p4, p5, p6; // Padding.
+    }
+
+}
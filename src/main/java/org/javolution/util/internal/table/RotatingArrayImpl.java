@@ -0,0 +1,164 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import java.io.Serializable;
+
+import org.javolution.lang.MathLib;
+
+/**
+ * The rotating primitive array of the primitive tables (capacity zero or a power of two). The elements are read
+ * and written by the tables at the {@link #position positions} of their indices and moved with
+ * {@link System#arraycopy}; insertions and removals shift the elements on the shortest side (constant time at
+ * both ends, linear time in the middle).
+ */
+public final class RotatingArrayImpl implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int INITIAL_CAPACITY = 16;
+    private final Object empty; // Zero length primitive array.
+    private Object elements; // Primitive array.
+    private int mask; // Capacity - 1.
+    private int head; // Position of the first element.
+    private int length;
+
+    /** Creates an empty rotating array of the same type as the specified zero length primitive array. */
+    public RotatingArrayImpl(Object empty) {
+        this.empty = empty;
+        clear();
+    }
+
+    /** Returns the primitive array holding the elements (changes when resized). */
+    public Object elements() {
+        return elements;
+    }
+
+    /** Returns the number of elements. */
+    public int size() {
+        return length;
+    }
+
+    /** Returns the position in the primitive array of the element at the specified index. */
+    public int position(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
+        return (head + index) & mask;
+    }
+
+    /** Opens a slot at the specified index (elements on the shortest side shifted), returns its position. */
+    public int insert(int index) {
+        if (index < 0 || index > length) throw new IndexOutOfBoundsException();
+        if (length == mask + 1) resize(length + 1);
+        if (index < (length >> 1)) { // Shifts head to the left.
+            head = (head - 1) & mask;
+            moveLeft(head + 1, index);
+        } else { // Shifts tail to the right.
+            moveRight(head + index, length - index);
+        }
+        length++;
+        return (head + index) & mask;
+    }
+
+    /** Closes the slot at the specified index (elements on the shortest side shifted). */
+    public void delete(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
+        if (index < (length >> 1)) { // Shifts head to the right.
+            moveRight(head, index);
+            head = (head + 1) & mask;
+        } else { // Shifts tail to the left.
+            moveLeft(head + index + 1, length - index - 1);
+        }
+        length--;
+    }
+
+    /** Appends the specified number of slots, returns the index of the first one. */
+    public int append(int count) {
+        if (length + count > mask + 1) resize(length + count);
+        length += count;
+        return length - count;
+    }
+
+    /** Copies the elements in the specified range into the specified primitive array. */
+    public void get(int fromIndex, Object dest, int destPos, int count) {
+        if (fromIndex < 0 || count < 0 || fromIndex > length - count) throw new IndexOutOfBoundsException();
+        if (count == 0) return;
+        int start = (head + fromIndex) & mask;
+        int first = MathLib.min(count, mask + 1 - start); // Up to the end of the primitive array.
+        System.arraycopy(elements, start, dest, destPos, first);
+        System.arraycopy(elements, 0, dest, destPos + first, count - first);
+    }
+
+    /** Replaces the elements in the specified range with the ones of the specified primitive array. */
+    public void set(int fromIndex, Object src, int srcPos, int count) {
+        if (fromIndex < 0 || count < 0 || fromIndex > length - count) throw new IndexOutOfBoundsException();
+        if (count == 0) return;
+        int start = (head + fromIndex) & mask;
+        int first = MathLib.min(count, mask + 1 - start);
+        System.arraycopy(src, srcPos, elements, start, first);
+        System.arraycopy(src, srcPos + first, elements, 0, count - first);
+    }
+
+    /** Removes all the elements (releases the primitive array). */
+    public void clear() {
+        elements = empty;
+        mask = -1;
+        head = 0;
+        length = 0;
+    }
+
+    @Override
+    public RotatingArrayImpl clone() {
+        try {
+            RotatingArrayImpl copy = (RotatingArrayImpl) super.clone();
+            copy.elements = newArray(mask + 1);
+            System.arraycopy(elements, 0, copy.elements, 0, mask + 1);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new Error("Cannot happen since cloneable.");
+        }
+    }
+
+    /** Moves the specified number of elements from the specified (unmasked) position one slot to the left. */
+    private void moveLeft(int from, int count) {
+        while (count > 0) { // Forward (the slot on the left is free).
+            int src = from & mask;
+            int dest = (from - 1) & mask;
+            int n = MathLib.min(count, mask + 1 - MathLib.max(src, dest)); // Neither wraps.
+            System.arraycopy(elements, src, elements, dest, n);
+            from += n;
+            count -= n;
+        }
+    }
+
+    /** Moves the specified number of elements from the specified (unmasked) position one slot to the right. */
+    private void moveRight(int from, int count) {
+        for (int end = from + count; count > 0;) { // Backward (the slot on the right is free).
+            int src = (end - 1) & mask; // Last element.
+            int dest = end & mask;
+            int n = MathLib.min(count, MathLib.min(src, dest) + 1); // Neither wraps.
+            System.arraycopy(elements, src - n + 1, elements, dest - n + 1, n);
+            end -= n;
+            count -= n;
+        }
+    }
+
+    /** Resizes the primitive array to hold at least the specified number of elements (head reset to zero). */
+    private void resize(int minCapacity) {
+        int capacity = MathLib.max(INITIAL_CAPACITY, Integer.highestOneBit(minCapacity - 1) << 1);
+        Object tmp = newArray(capacity);
+        get(0, tmp, 0, length);
+        elements = tmp;
+        mask = capacity - 1;
+        head = 0;
+    }
+
+    private Object newArray(int capacity) {
+        return java.lang.reflect.Array.newInstance(empty.getClass().getComponentType(), capacity);
+    }
+
+}
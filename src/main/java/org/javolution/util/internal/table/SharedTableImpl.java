@@ -10,6 +10,7 @@ package org.javolution.util.internal.table;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Spliterator;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.util.AbstractCollection;
@@ -20,6 +21,7 @@ import org.javolution.util.function.BinaryOperator;
 import org.javolution.util.function.Consumer;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.function.Supplier;
 import org.javolution.util.internal.ReadWriteLockImpl;
 
 /**
@@ -31,15 +33,18 @@ public final class SharedTableImpl<E> //implements AbstractTableMethods<E> {
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractTable<E> inner;
     private final ReadWriteLockImpl lock;
+    private final boolean optimistic; // Point lookups can be performed without lock.
 
     public SharedTableImpl(AbstractTable<E> inner) {
         this.inner = inner;
         this.lock = new ReadWriteLockImpl();
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
     private SharedTableImpl(AbstractTable<E> inner,  ReadWriteLockImpl lock) {
         this.inner = inner;
         this.lock = lock;
+        this.optimistic = ReadWriteLockImpl.supportsOptimisticReads(inner);
     }
 
     @Override
@@ -209,32 +214,17 @@ public final class SharedTableImpl<E> //implements AbstractTableMethods<E> {
 
     @Override
     public E get(int index) {
-        lock.readLock.lock();
-        try {
-            return inner.get(index);
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.get(index));
     }
 
     @Override
     public E getFirst() {
-        lock.readLock.lock();
-        try {
-            return inner.getFirst();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.getFirst());
     }
 
     @Override
     public E getLast() {
-        lock.readLock.lock();
-        try {
-            return inner.getLast();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.getLast());
     }
 
     @Override
@@ -279,22 +269,12 @@ public final class SharedTableImpl<E> //implements AbstractTableMethods<E> {
 
     @Override
     public E peekFirst() {
-        lock.readLock.lock();
-        try {
-            return inner.peekFirst();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.peekFirst());
     }
 
     @Override
     public E peekLast() {
-        lock.readLock.lock();
-        try {
-            return inner.peekLast();
-        } finally {
-            lock.readLock.unlock();
-        }
+        return read(() -> inner.peekLast());
     }
 
     @Override
@@ -428,15 +408,20 @@ public final class SharedTableImpl<E> //implements AbstractTableMethods<E> {
     }
 
     @Override
-    public int size() {
-        lock.readLock.lock();
+    public void setAll(int index, E[] elements) {
+        lock.writeLock.lock();
         try {
-            return inner.size();
+            inner.setAll(index, elements);
         } finally {
-            lock.readLock.unlock();
+            lock.writeLock.unlock();
         }
     }
 
+    @Override
+    public int size() {
+        return read(() -> inner.size());
+    }
+
     @Override
     public void sort(Comparator<? super E> cmp) {
         lock.writeLock.lock();
@@ -447,6 +432,16 @@ public final class SharedTableImpl<E> //implements AbstractTableMethods<E> {
         }
     }
 
+    @Override
+    public void parallelSort(Comparator<? super E> cmp) {
+        lock.writeLock.lock();
+        try {
+            inner.parallelSort(cmp);
+        } finally {
+            lock.writeLock.unlock();
+        }
+    }
+
     @Override
     public Object[] toArray() {
         lock.readLock.lock();
@@ -556,19 +551,24 @@ public final class SharedTableImpl<E> //implements AbstractTableMethods<E> {
 
     @Override
     public boolean isEmpty() {
+        return read(() -> inner.isEmpty());
+    }
+
+    @Override
+    public FastListIterator<E> listIterator() {
         lock.readLock.lock();
         try {
-            return inner.isEmpty();
+            return inner.clone().listIterator();
         } finally {
             lock.readLock.unlock();
         }
     }
 
     @Override
-    public FastListIterator<E> listIterator() {
+    public Spliterator<E> spliterator() {
         lock.readLock.lock();
         try {
-            return inner.clone().listIterator();
+            return inner.clone().spliterator();
         } finally {
             lock.readLock.unlock();
         }
@@ -584,5 +584,9 @@ public final class SharedTableImpl<E> //implements AbstractTableMethods<E> {
         }
     }
 
-    
-}
\ No newline at end of file
+    /** Performs the specified lookup optimistically if supported by the inner collection. */
+    private <R> R read(Supplier<R> lookup) {
+        return optimistic ? lock.read(lookup) : lock.readLocked(lookup);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import org.javolution.lang.MathLib;
+import org.javolution.util.function.Consumer;
+
+/**
+ * A single-producer single-consumer ring buffer (wait-free). Each side caches the opposite sequence and reads
+ * it again only when the queue appears full/empty.
+ */
+public final class SpscRingBufferImpl<E> extends RingBufferImpl<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    public SpscRingBufferImpl(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public Access access() {
+        return Access.SINGLE_PRODUCER;
+    }
+
+    @Override
+    public boolean offerLast(E element) {
+        if (element == null) throw new NullPointerException();
+        long t = tail.get();
+        if (t - tail.cached > mask) { // Appears full.
+            tail.cached = head.get();
+            if (t - tail.cached > mask) return false;
+        }
+        buffer.lazySet((int) t & mask, element);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    @Override
+    public E pollFirst() {
+        long h = head.get();
+        if (h >= head.cached) { // Appears empty.
+            head.cached = tail.get();
+            if (h >= head.cached) return null;
+        }
+        int i = (int) h & mask;
+        E element = buffer.get(i);
+        buffer.lazySet(i, null);
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    @Override
+    public int drainTo(Consumer<? super E> consumer, int maxElements) {
+        long h = head.get();
+        int available = (int) MathLib.min(tail.get() - h, maxElements);
+        int n = 0;
+        try {
+            while (n < available) {
+                int i = (int) (h + n) & mask;
+                E element = buffer.get(i);
+                buffer.lazySet(i, null);
+                n++; // Removed even if the consumer fails.
+                consumer.accept(element);
+            }
+        } finally {
+            head.lazySet(h + n); // Once per batch.
+        }
+        return n;
+    }
+
+}
@@ -68,7 +68,7 @@ public final class SubTableImpl<E> extends AbstractTable<E> implements List<E> {
 
     @Override
     public FastListIterator<E> listIterator(int index) {
-        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException();
+        if (index < 0 || index > size()) throw new IndexOutOfBoundsException();
         return new IteratorImpl<E>(inner.listIterator(index + fromIndex), fromIndex, toIndex);
     }
 
@@ -85,6 +85,12 @@ public final class SubTableImpl<E> extends AbstractTable<E> implements List<E> {
         return inner.set(index + fromIndex, element);
     }
 
+    @Override
+    public void setAll(int index, E[] elements) {
+        if ((index < 0) || (index > size() - elements.length)) throw new IndexOutOfBoundsException();
+        inner.setAll(index + fromIndex, elements);
+    }
+
     @Override
     public int size() {
         return toIndex - fromIndex;
@@ -118,8 +124,8 @@ public final class SubTableImpl<E> extends AbstractTable<E> implements List<E> {
 
                 @Override
                 public boolean test(E param) {
-                    return innerItr.nextIndex() < toIndex && matching.test(param);
-                }});
+                    return (innerItr.nextIndex() >= toIndex) || matching.test(param); // Stops at the range end.
+                }}) && (innerItr.nextIndex() < toIndex);
         }
 
         @Override
@@ -133,8 +139,8 @@ public final class SubTableImpl<E> extends AbstractTable<E> implements List<E> {
 
                 @Override
                 public boolean test(E param) {
-                    return innerItr.previousIndex() >= fromIndex && matching.test(param);
-                }});
+                    return (innerItr.previousIndex() < fromIndex) || matching.test(param); // Stops at the range start.
+                }}) && (innerItr.previousIndex() >= fromIndex);
         }
 
         @Override
@@ -0,0 +1,90 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import java.util.NoSuchElementException;
+
+import org.javolution.util.AbstractTable;
+import org.javolution.util.FastListIterator;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A read-only list iterator over a table accessed by index (e.g. primitive tables).
+ */
+public final class TableIteratorImpl<E> implements FastListIterator<E> {
+    private final AbstractTable<E> table;
+    private int nextIndex;
+
+    public TableIteratorImpl(AbstractTable<E> table, int nextIndex) {
+        this.table = table;
+        this.nextIndex = nextIndex;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextIndex < table.size();
+    }
+
+    @Override
+    public boolean hasNext(Predicate<? super E> matching) {
+        for (int n = table.size(); nextIndex < n; nextIndex++)
+            if (matching.test(table.get(nextIndex))) return true;
+        return false;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return nextIndex > 0;
+    }
+
+    @Override
+    public boolean hasPrevious(Predicate<? super E> matching) {
+        for (; nextIndex > 0; nextIndex--)
+            if (matching.test(table.get(nextIndex - 1))) return true;
+        return false;
+    }
+
+    @Override
+    public E next() {
+        if (nextIndex >= table.size()) throw new NoSuchElementException();
+        return table.get(nextIndex++);
+    }
+
+    @Override
+    public int nextIndex() {
+        return nextIndex;
+    }
+
+    @Override
+    public E previous() {
+        if (nextIndex <= 0) throw new NoSuchElementException();
+        return table.get(--nextIndex);
+    }
+
+    @Override
+    public int previousIndex() {
+        return nextIndex - 1;
+    }
+
+    @Override
+    public void add(E element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void set(E element) {
+        throw new UnsupportedOperationException();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.table;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.javolution.util.AbstractTable;
+
+/**
+ * A spliterator over a range of indices of a table (splits in halves, sizes are exact).
+ */
+public final class TableSpliteratorImpl<E> implements Spliterator<E> {
+
+    private final AbstractTable<E> table;
+    private int index; // Inclusive.
+    private final int fence; // Exclusive.
+
+    public TableSpliteratorImpl(AbstractTable<E> table, int index, int fence) {
+        this.table = table;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        for (int end = fence; index < end;)
+            action.accept(table.get(index++));
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        if (index >= fence) return false;
+        action.accept(table.get(index++));
+        return true;
+    }
+
+    @Override
+    public TableSpliteratorImpl<E> trySplit() {
+        int mid = (index + fence) >>> 1;
+        if (mid <= index) return null;
+        TableSpliteratorImpl<E> prefix = new TableSpliteratorImpl<E>(table, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+}
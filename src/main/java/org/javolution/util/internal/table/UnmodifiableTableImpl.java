@@ -70,6 +70,11 @@ public final class UnmodifiableTableImpl<E> extends AbstractTable<E> {
         throw new UnsupportedOperationException(ERROR_MSG);
     }
 
+    @Override
+    public void setAll(int index, E[] elements) {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
     @Override
     public int size() {
         return inner.size();
@@ -12,8 +12,8 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.util.Map;
 
-import org.javolution.util.AbstractTable;
-import org.javolution.util.FastTable;
+import org.javolution.util.AbstractQueue;
+import org.javolution.util.AbstractQueue.Access;
 import org.javolution.xml.stream.XMLInputFactory;
 import org.javolution.xml.stream.XMLStreamException;
 
@@ -22,7 +22,9 @@ import org.javolution.xml.stream.XMLStreamException;
  */
 public final class XMLInputFactoryImpl implements XMLInputFactory {
     private Map<String, String> _entities = null;
-    private AbstractTable<XMLStreamReaderImpl> _recycled = new FastTable<XMLStreamReaderImpl>().shared();
+    private static final int RECYCLED_CAPACITY = 64; // Extra readers are discarded.
+    private AbstractQueue<XMLStreamReaderImpl> _recycled = AbstractQueue.ringBuffer(RECYCLED_CAPACITY,
+            Access.MULTI_PRODUCER_MULTI_CONSUMER);
 
     // Implements XMLInputFactory abstract method.
     public XMLStreamReaderImpl createXMLStreamReader(InputStream stream)
@@ -81,11 +83,11 @@ public final class XMLInputFactoryImpl implements XMLInputFactory {
 
     /** Recycles the specified instance. */
     void recycle(XMLStreamReaderImpl reader) {
-        _recycled.addLast(reader);
+        _recycled.offer(reader);
     }
 
     private XMLStreamReaderImpl newReader() {
-        XMLStreamReaderImpl xmlReader = _recycled.pollLast();
+        XMLStreamReaderImpl xmlReader = _recycled.poll();
         if (xmlReader == null) xmlReader = new XMLStreamReaderImpl(this);
         if (_entities != null) {
             xmlReader.setEntities(_entities);
@@ -97,7 +99,7 @@ public final class XMLInputFactoryImpl implements XMLInputFactory {
     public XMLInputFactory clone() {
         try {
             XMLInputFactoryImpl clone = (XMLInputFactoryImpl) super.clone();
-            clone._recycled = new FastTable<XMLStreamReaderImpl>().shared();
+            clone._recycled = AbstractQueue.ringBuffer(RECYCLED_CAPACITY, Access.MULTI_PRODUCER_MULTI_CONSUMER);
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new Error();// Cannot happen since cloneable.
@@ -11,8 +11,8 @@ package org.javolution.xml.internal.stream;
 import java.io.OutputStream;
 import java.io.Writer;
 
-import org.javolution.util.AbstractTable;
-import org.javolution.util.FastTable;
+import org.javolution.util.AbstractQueue;
+import org.javolution.util.AbstractQueue.Access;
 import org.javolution.xml.stream.XMLOutputFactory;
 import org.javolution.xml.stream.XMLStreamException;
 
@@ -39,7 +39,9 @@ public final class XMLOutputFactoryImpl implements XMLOutputFactory {
     // Property setting.
     private String _repairingPrefix = "ns";
 
-    private AbstractTable<XMLStreamWriterImpl> _recycled = new FastTable<XMLStreamWriterImpl>().shared();
+    private static final int RECYCLED_CAPACITY = 64; // Extra writers are discarded.
+    private AbstractQueue<XMLStreamWriterImpl> _recycled = AbstractQueue.ringBuffer(RECYCLED_CAPACITY,
+            Access.MULTI_PRODUCER_MULTI_CONSUMER);
 
     // Implements XMLOutputFactory abstract method.
     public XMLStreamWriterImpl createXMLStreamWriter(OutputStream stream)
@@ -122,11 +124,11 @@ public final class XMLOutputFactoryImpl implements XMLOutputFactory {
      * Recycles the specified writer instance.
      */
     void recycle(XMLStreamWriterImpl xmlWriter) {
-        _recycled.addLast(xmlWriter);
+        _recycled.offer(xmlWriter);
     }
 
     private XMLStreamWriterImpl newWriter() {
-        XMLStreamWriterImpl xmlWriter = _recycled.pollLast();
+        XMLStreamWriterImpl xmlWriter = _recycled.poll();
         if (xmlWriter == null) xmlWriter = new XMLStreamWriterImpl(this);
         xmlWriter.setRepairingNamespaces(_isRepairingNamespaces.booleanValue());
         xmlWriter.setRepairingPrefix(_repairingPrefix);
@@ -142,7 +144,7 @@ public final class XMLOutputFactoryImpl implements XMLOutputFactory {
     public XMLOutputFactory clone() {
         try {
             XMLOutputFactoryImpl clone = (XMLOutputFactoryImpl) super.clone();
-            clone._recycled = new FastTable<XMLStreamWriterImpl>().shared();
+            clone._recycled = AbstractQueue.ringBuffer(RECYCLED_CAPACITY, Access.MULTI_PRODUCER_MULTI_CONSUMER);
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new Error();// Cannot happen since cloneable.
@@ -0,0 +1,272 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.javolution.context.internal.ConcurrentContextImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validation of the work-stealing ConcurrentContext (nested contexts).
+ */
+public class ConcurrentContextTest {
+
+	private static final ConcurrentContextImpl _root = new ConcurrentContextImpl(3);
+
+	private static final LocalContext.Parameter<Integer> FACTOR = new LocalContext.Parameter<Integer>() {
+		@Override
+		protected Integer getDefault() {
+			return 1;
+		}
+	};
+
+	@Before
+	public void init(){
+		AbstractContext.inherit(_root);
+	}
+
+	@After
+	public void cleanup(){
+		AbstractContext.inherit(null);
+	}
+
+	@Test
+	public void testNestedExecutions(){
+		assertEquals("Sum Is 499500", 499500L, sum(0, 1000));
+	}
+
+	@Test
+	public void testContextInheritance(){
+		LocalContext ctx = LocalContext.enter();
+		try {
+			ctx.supersede(FACTOR, 2);
+			assertEquals("Sum Is 999000", 999000L, sum(0, 1000));
+		} finally {
+			ctx.exit();
+		}
+	}
+
+	@Test
+	public void testErrorPropagation(){
+		final AtomicInteger completed = new AtomicInteger();
+		ConcurrentContext ctx = ConcurrentContext.enter();
+		try {
+			for (int i = 0; i < 10; i++) {
+				final int n = i;
+				ctx.execute(new Runnable() {
+					@Override
+					public void run() {
+						if (n == 5) throw new IllegalStateException("Task 5");
+						completed.incrementAndGet();
+					}
+				});
+			}
+			ctx.exit();
+			fail("Exception Expected");
+		} catch (IllegalStateException e) {
+			assertEquals("Task 5", e.getMessage());
+		}
+		assertEquals("Others Completed", 9, completed.get());
+	}
+
+	@Test
+	public void testNoConcurrency(){
+		ConcurrentContext ctx = ConcurrentContext.enter();
+		try {
+			ctx.setConcurrency(0);
+			assertEquals("Concurrency Is 0", 0, ctx.getConcurrency());
+			final Thread current = Thread.currentThread();
+			ctx.execute(new Runnable() {
+				@Override
+				public void run() {
+					assertEquals("Same Thread", current, Thread.currentThread());
+				}
+			});
+		} finally {
+			ctx.exit();
+		}
+	}
+
+	@Test
+	public void testCancellation(){
+		final AtomicInteger completed = new AtomicInteger();
+		final ConcurrentContext ctx = ConcurrentContext.enter();
+		try {
+			for (int i = 0; i < 100; i++) {
+				ctx.execute(new Runnable() {
+					@Override
+					public void run() {
+						if (completed.incrementAndGet() == 10) ctx.cancel();
+					}
+				});
+			}
+			assertTrue("Cancelled", ctx.isCancelled());
+			ConcurrentContext inner = ConcurrentContext.enter();
+			try {
+				assertTrue("Inner Cancelled", inner.isCancelled());
+			} finally {
+				inner.exit();
+			}
+		} finally {
+			ctx.exit();
+		}
+		assertTrue("Pending Executions Skipped", completed.get() < 100);
+		ConcurrentContext next = ConcurrentContext.enter();
+		try {
+			assertFalse("Next Not Cancelled", next.isCancelled());
+		} finally {
+			next.exit();
+		}
+	}
+
+	@Test
+	public void testVirtualMode() throws NoSuchMethodException{
+		final Method isVirtual = ConcurrentContextImpl.isVirtualSupported() ? Thread.class.getMethod("isVirtual") : null;
+		final AtomicInteger completed = new AtomicInteger();
+		final AtomicInteger virtualRuns = new AtomicInteger();
+		LocalContext local = LocalContext.enter();
+		try {
+			local.supersede(FACTOR, 3);
+			ConcurrentContext ctx = ConcurrentContext.enter();
+			try {
+				assertFalse("Not Virtual By Default", ctx.isVirtual());
+				ctx.setVirtual(true); // Falls back to concurrent threads if not supported.
+				assertEquals("Virtual If Supported", isVirtual != null, ctx.isVirtual());
+				for (int i = 0; i < 100; i++) {
+					ctx.execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								if ((isVirtual != null) && (Boolean) isVirtual.invoke(Thread.currentThread()))
+									virtualRuns.incrementAndGet();
+								Thread.sleep(1); // Blocking.
+							} catch (Exception e) {
+								throw new IllegalStateException(e);
+							}
+							completed.addAndGet(FACTOR.get());
+						}
+					});
+				}
+			} finally {
+				ctx.exit();
+			}
+		} finally {
+			local.exit();
+		}
+		assertEquals("All Completed", 300, completed.get());
+		assertEquals("Virtual Runs", (isVirtual != null) ? 100 : 0, virtualRuns.get());
+	}
+
+	@Test
+	public void testPriorityRestored(){
+		final Thread current = Thread.currentThread();
+		final int priority = current.getPriority();
+		final Set<Thread> workers = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+		current.setPriority(priority > Thread.MIN_PRIORITY ? priority - 1 : priority + 1);
+		ConcurrentContext ctx = ConcurrentContext.enter();
+		try {
+			for (int i = 0; i < 100; i++) {
+				ctx.execute(new Runnable() {
+					@Override
+					public void run() {
+						if (Thread.currentThread() != current) workers.add(Thread.currentThread());
+					}
+				});
+			}
+		} finally {
+			ctx.exit();
+			current.setPriority(priority);
+		}
+		for (Thread worker : workers)
+			assertEquals("Worker Priority Restored", priority, worker.getPriority());
+	}
+
+	@Test
+	public void testExitRunsOwnTasksOnly(){
+		final ThreadLocal<Boolean> running = new ThreadLocal<Boolean>();
+		final AtomicInteger nested = new AtomicInteger(); // Outer tasks run while exiting inner contexts.
+		ConcurrentContext ctx = ConcurrentContext.enter();
+		try {
+			for (int i = 0; i < 100; i++) {
+				ctx.execute(new Runnable() {
+					@Override
+					public void run() {
+						if (running.get() != null) nested.incrementAndGet();
+						running.set(Boolean.TRUE);
+						try {
+							ConcurrentContext inner = ConcurrentContext.enter();
+							try {
+								for (int j = 0; j < 3; j++) {
+									inner.execute(new Runnable() {
+										@Override
+										public void run() {
+											try {
+												Thread.sleep(1);
+											} catch (InterruptedException e) {
+												throw new IllegalStateException(e);
+											}
+										}
+									});
+								}
+							} finally {
+								inner.exit();
+							}
+						} finally {
+							running.remove();
+						}
+					}
+				});
+			}
+		} finally {
+			ctx.exit();
+		}
+		assertEquals("No Unrelated Task Run On Exit", 0, nested.get());
+	}
+
+	/** Recursive (divide and conquer) sum of the integers in the specified range. */
+	private static long sum(final int from, final int to) {
+		if (to - from <= 10) {
+			long sum = 0;
+			for (int i = from; i < to; i++) sum += i * FACTOR.get();
+			return sum;
+		}
+		final long[] results = new long[2];
+		final int half = (from + to) >>> 1;
+		ConcurrentContext ctx = ConcurrentContext.enter();
+		try {
+			ctx.execute(new Runnable() {
+				@Override
+				public void run() {
+					results[0] = sum(from, half);
+				}
+			});
+			ctx.execute(new Runnable() {
+				@Override
+				public void run() {
+					results[1] = sum(half, to);
+				}
+			});
+		} finally {
+			ctx.exit();
+		}
+		return results[0] + results[1];
+	}
+}
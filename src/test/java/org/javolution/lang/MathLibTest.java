@@ -225,6 +225,18 @@ public class MathLibTest {
 		assertEquals("Round(1.9) is 2.0", 2.0f, MathLib.round(1.9f), 1.0);
 	}
 	
+	@Test
+	public void testInterleave(){
+		long code = MathLib.interleave(0xFFFFFFFFL, 0x12345678L);
+		assertEquals("X", 0xFFFFFFFFL, MathLib.deinterleave(code, 2));
+		assertEquals("Y", 0x12345678L, MathLib.deinterleave(code >>> 1, 2));
+		code = MathLib.interleave(0x1FFFFFL, 0x12345L, 7L);
+		assertEquals("X", 0x1FFFFFL, MathLib.deinterleave(code, 3));
+		assertEquals("Y", 0x12345L, MathLib.deinterleave(code >>> 1, 3));
+		assertEquals("Z", 7L, MathLib.deinterleave(code >>> 2, 3));
+		assertEquals("Z Order", 0b1110L, MathLib.interleave(2L, 3L));
+	}
+	
 	@Test
 	public void testSqrt(){
 		assertEquals("Sqrt(9) Is 3", 3.0, MathLib.sqrt(9.0), 0.0);
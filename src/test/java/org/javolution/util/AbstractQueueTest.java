@@ -0,0 +1,123 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.javolution.util.AbstractQueue.Access;
+import org.junit.Test;
+
+public class AbstractQueueTest {
+
+	@Test
+	public void testQueue(){
+		for (Access access : Access.values()) {
+			AbstractQueue<String> queue = AbstractQueue.ringBuffer(3, access);
+			assertEquals("Capacity Is 4", 4, queue.capacity());
+			assertTrue("Empty", queue.isEmpty());
+			assertNull("Nothing To Poll", queue.poll());
+			for (int i = 0; i < 4; i++) assertTrue("Offered", queue.offer("Value" + i));
+			assertFalse("Full", queue.offer("Value4"));
+			assertEquals("Size Is 4", 4, queue.size());
+			assertEquals("First In", "Value0", queue.peek());
+			assertEquals("Indexed Access", "Value2", queue.get(2));
+			assertEquals("Iteration Order", Arrays.asList("Value0", "Value1", "Value2", "Value3"), 
+					new ArrayList<String>(queue));
+			assertEquals("First Out", "Value0", queue.poll());
+			assertEquals("Remaining Capacity Is 1", 1, queue.remainingCapacity());
+			queue.addLast("Value4"); // Wraps around.
+			final ArrayList<String> drained = new ArrayList<String>();
+			assertEquals("Two Drained", 2, queue.drainTo(str -> drained.add(str), 2));
+			assertEquals("Drained In Order", Arrays.asList("Value1", "Value2"), drained);
+			assertEquals("Two Drained", 2, queue.drainTo(str -> drained.add(str)));
+			assertEquals("Last Drained", "Value4", drained.get(3));
+			assertTrue("Drained", queue.isEmpty());
+			assertEquals("Size Is 0", 0, queue.size());
+			try {
+				queue.addFirst("Value5");
+				assertTrue("Insertions At The Tail Only", false);
+			} catch (UnsupportedOperationException e) {}
+			try {
+				queue.offer(null);
+				assertTrue("Null Elements Not Supported", false);
+			} catch (NullPointerException e) {}
+		}
+	}
+
+	@Test
+	public void testDrainFailure(){
+		AbstractQueue<Integer> queue = AbstractQueue.ringBuffer(8, Access.MULTI_PRODUCER);
+		for (int i = 0; i < 4; i++) queue.offer(i);
+		try {
+			queue.drainTo(i -> { if (i == 1) throw new IllegalStateException(); });
+		} catch (IllegalStateException e) {}
+		assertEquals("Failed Element Removed", Integer.valueOf(2), queue.poll());
+		assertEquals("Size Is 1", 1, queue.size());
+	}
+
+	@Test
+	public void testHandOff() throws InterruptedException{
+		for (Access access : Access.values()) {
+			final int producers = (access == Access.SINGLE_PRODUCER) ? 1 : 3;
+			final int consumers = (access == Access.MULTI_PRODUCER_MULTI_CONSUMER) ? 3 : 1;
+			final int count = 100000;
+			final AbstractQueue<Integer> queue = AbstractQueue.ringBuffer(64, access);
+			final AtomicInteger received = new AtomicInteger();
+			final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<String>(); // Checked below.
+			final long[] sums = new long[consumers];
+			final int[][] lastSeen = new int[consumers][producers]; // Per producer order.
+			Thread[] threads = new Thread[producers + consumers];
+			for (int p = 0; p < producers; p++) {
+				final int producer = p;
+				threads[p] = new Thread(() -> {
+					for (int i = 1; i <= count; i++) {
+						Integer value = i * producers + producer;
+						while (!queue.offer(value)) Thread.yield();
+					}
+				});
+			}
+			for (int c = 0; c < consumers; c++) {
+				final int consumer = c;
+				threads[producers + c] = new Thread(() -> {
+					while (received.get() < count * producers) {
+						int n = queue.drainTo(value -> {
+							int producer = value % producers;
+							if (value / producers <= lastSeen[consumer][producer]) 
+								failures.add(access + ": " + value + " received out of order");
+							lastSeen[consumer][producer] = value / producers;
+							sums[consumer] += value;
+						});
+						if (n == 0) Thread.yield();
+						received.addAndGet(n);
+					}
+				});
+			}
+			for (Thread thread : threads) thread.start();
+			for (Thread thread : threads) thread.join(60000);
+			for (Thread thread : threads) assertFalse("Terminated", thread.isAlive());
+			assertEquals("In Order", "[]", failures.toString());
+			long expected = 0;
+			for (int p = 0; p < producers; p++) 
+				for (int i = 1; i <= count; i++) expected += i * producers + p;
+			long sum = 0;
+			for (long s : sums) sum += s;
+			assertEquals("All Received", count * producers, received.get());
+			assertEquals("Same Elements", expected, sum);
+			assertTrue("Empty", queue.isEmpty());
+		}
+	}
+}
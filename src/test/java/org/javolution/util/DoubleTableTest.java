@@ -0,0 +1,141 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DoubleTableTest {
+
+	private DoubleTable _doubleTable;
+
+	@Before
+	public void init(){
+		_doubleTable = new DoubleTable(1.0, 2.0, 3.0);
+	}
+
+	@Test
+	public void testRandomInsertionsAndRemovals(){
+		Random rnd = new Random(0);
+		ArrayList<Double> al = new ArrayList<>();
+		DoubleTable dt = new DoubleTable();
+		for (int i = 0; i < 5000; i++) {
+			int j = rnd.nextInt(al.size() + 1);
+			double d = rnd.nextDouble();
+			al.add(j, d);
+			dt.addDouble(j, d);
+			if (rnd.nextInt(4) == 0) {
+				int k = rnd.nextInt(al.size());
+				assertEquals(al.remove(k), dt.removeDouble(k), 0.0);
+			}
+		}
+		assertEquals(al, dt);
+	}
+
+	@Test
+	public void testBothEnds(){
+		_doubleTable.addDouble(0, 0.5);
+		_doubleTable.addDouble(4, 4.5);
+		assertArrayEquals(new double[] { 0.5, 1.0, 2.0, 3.0, 4.5 }, _doubleTable.toDoubleArray(), 0.0);
+		assertEquals("First Removed", 0.5, _doubleTable.removeDouble(0), 0.0);
+		assertEquals("Last Removed", 4.5, _doubleTable.removeDouble(3), 0.0);
+		_doubleTable.addFirst(-1.0);
+		_doubleTable.addLast(9.0);
+		assertEquals("First Is -1", -1.0, _doubleTable.getDouble(0), 0.0);
+		assertEquals("Last Is 9", 9.0, _doubleTable.getDouble(4), 0.0);
+		assertEquals(Double.valueOf(-1.0), _doubleTable.pollFirst());
+		assertEquals(Double.valueOf(9.0), _doubleTable.pollLast());
+		assertArrayEquals(new double[] { 1.0, 2.0, 3.0 }, _doubleTable.toDoubleArray(), 0.0);
+	}
+
+	@Test
+	public void testWrapAround(){
+		ArrayList<Double> al = new ArrayList<>();
+		DoubleTable dt = new DoubleTable();
+		for (int i = 0; i < 10; i++) { // Head wraps around (initial capacity 16).
+			al.add(0, -i - 0.5);
+			dt.addFirst(-i - 0.5);
+			al.add(i + 0.5);
+			dt.addLast(i + 0.5);
+		}
+		assertEquals(al, dt);
+		for (int i = 0; i < 6; i++) { // Middle removals across the wrapping point.
+			assertEquals(al.remove(3), dt.removeDouble(3), 0.0);
+			assertEquals(al.remove(al.size() - 4), dt.removeDouble(dt.size() - 4), 0.0);
+		}
+		assertEquals(al, dt);
+		for (int i = 0; i < 100; i++) { // Resizes while wrapped.
+			al.add(al.size() / 2, i * 0.25);
+			dt.addDouble(dt.size() / 2, i * 0.25);
+		}
+		assertEquals(al, dt);
+	}
+
+	@Test
+	public void testBulkCopy(){
+		double[] values = new double[100];
+		for (int i = 0; i < values.length; i++) values[i] = i * 1.5;
+		_doubleTable.removeDouble(0); // Rotates.
+		_doubleTable.addFirst(1.0);
+		_doubleTable.addFirst(0.0); // Wraps around.
+		_doubleTable.addDoubles(values, 0, values.length);
+		double[] copy = new double[100];
+		_doubleTable.getDoubles(4, copy, 0, 100);
+		assertArrayEquals(values, copy, 0.0);
+		_doubleTable.setDoubles(1, new double[] { 7, 8, 9 }, 1, 2);
+		assertArrayEquals(new double[] { 0, 8, 9, 3, 0, 1.5 }, copy(_doubleTable, 0, 6), 0.0);
+		assertEquals("Table Size Is 104", 104, _doubleTable.toDoubleArray().length);
+		DoubleTable clone = _doubleTable.clone();
+		clone.setDouble(0, 42);
+		assertEquals("Clone Independent", 0.0, _doubleTable.getDouble(0), 0.0);
+	}
+
+	@Test
+	public void testNaNAndNegativeZero(){
+		_doubleTable.addDouble(Double.NaN);
+		_doubleTable.addDouble(-0.0);
+		assertTrue("Contains NaN", _doubleTable.contains(Double.NaN));
+		assertEquals("NaN Index", 3, _doubleTable.indexOf(Double.NaN));
+		assertEquals("-0.0 Index", 4, _doubleTable.indexOf(-0.0));
+		assertFalse("0.0 Is Not -0.0", _doubleTable.contains(0.0));
+		assertEquals(new DoubleTable(1.0, 2.0, 3.0, Double.NaN, -0.0), _doubleTable);
+		assertNotEquals(new DoubleTable(1.0, 2.0, 3.0, Double.NaN, 0.0), _doubleTable);
+		assertTrue("NaN Removed", _doubleTable.remove((Object) Double.NaN));
+		assertEquals("Raw Bits Kept", Double.doubleToRawLongBits(-0.0),
+				Double.doubleToRawLongBits(_doubleTable.getDouble(3)));
+	}
+
+	@Test
+	public void testViews(){
+		_doubleTable.addDoubles(new double[] { 4, 5, 6 }, 0, 3);
+		_doubleTable.subTable(1, 3).clear();
+		assertEquals(new DoubleTable(1, 4, 5, 6), _doubleTable);
+		double sum = 0;
+		for (AbstractTable<Double> split : _doubleTable.trySplit(3))
+			for (Double d : split) sum += d;
+		assertEquals("Sum Is 16", 16.0, sum, 0.0);
+		assertTrue("Unmodifiable Contains 6", _doubleTable.unmodifiable().contains(6.0));
+	}
+
+	private static double[] copy(DoubleTable table, int from, int count) {
+		double[] values = new double[count];
+		table.getDoubles(from, values, 0, count);
+		return values;
+	}
+
+}
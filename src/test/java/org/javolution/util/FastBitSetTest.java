@@ -12,6 +12,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.BitSet;
+import java.util.Random;
+
+import org.javolution.context.AbstractContext;
+import org.javolution.context.internal.ConcurrentContextImpl;
 import org.javolution.lang.Index;
 import org.javolution.util.FastBitSet;
 import org.junit.Before;
@@ -199,4 +204,212 @@ public class FastBitSetTest {
 		assertTrue("FastBitSet Is Empty", _fastBitSetAll.isEmpty());
 		assertEquals("FastBitSet Size == 0 ", 0,  _fastBitSetAll.size());
 	}
+	
+	@Test
+	public void testCompressed(){
+		Random random = new Random(17);
+		for (int density : new int[] { 1, 100, 9000, 60000 }) { // Arrays, bitmaps and runs.
+			BitSet expected = new BitSet();
+			BitSet other = new BitSet();
+			FastBitSet compressed = new FastBitSet().compress();
+			FastBitSet dense = new FastBitSet();
+			for (int i = 0; i < 4 * density; i++) {
+				int index = random.nextInt(4 << 16);
+				expected.set(index);
+				compressed.set(index);
+				int otherIndex = random.nextInt(4 << 16);
+				other.set(otherIndex);
+				dense.set(otherIndex);
+			}
+			expected.set(70000, 140000);
+			compressed.set(70000, 140000);
+			expected.clear(100, 70100);
+			compressed.clear(100, 70100);
+			expected.flip(130000, 200000);
+			compressed.flip(130000, 200000);
+			checkSame(expected, compressed);
+			
+			BitSet and = (BitSet) expected.clone(); 
+			and.and(other);
+			FastBitSet result = compressed.clone();
+			result.and(dense);
+			checkSame(and, result);
+			BitSet or = (BitSet) expected.clone(); 
+			or.or(other);
+			result = compressed.clone();
+			result.or(dense.clone().compress());
+			checkSame(or, result);
+			BitSet xor = (BitSet) expected.clone(); 
+			xor.xor(other);
+			result = compressed.clone();
+			result.xor(dense);
+			checkSame(xor, result);
+			BitSet andNot = (BitSet) expected.clone(); 
+			andNot.andNot(other);
+			result = compressed.clone();
+			result.andNot(dense);
+			checkSame(andNot, result);
+			checkSame(expected, compressed); // Copy on write.
+			assertEquals("Intersects", expected.intersects(other), compressed.intersects(dense));
+			assertEquals("Same Indices", dense, dense.clone().compress());
+		}
+		FastBitSet sparse = new FastBitSet().compress();
+		sparse.set(Integer.MAX_VALUE - 1);
+		assertEquals("Length", Integer.MAX_VALUE, sparse.length());
+		assertEquals("Next Set Bit", Integer.MAX_VALUE - 1, sparse.nextSetBit(0));
+		assertEquals("Previous Set Bit", -1, sparse.previousSetBit(Integer.MAX_VALUE - 2));
+	}
+	
+	@Test
+	public void testLongIndices(){
+		FastBitSet bitSet = new FastBitSet();
+		bitSet.set(5L);
+		assertFalse("Dense", bitSet.isCompressed());
+		long[] hashes = { 1L << 40, 0x123456789ABCDEFL, -2L, -1L }; // Unsigned (-1L is Index.MAX).
+		for (long hash : hashes)
+			bitSet.set(hash);
+		assertTrue("Compressed", bitSet.isCompressed());
+		assertEquals("Size Is 5", 5, bitSet.size());
+		assertTrue("Contains Index", bitSet.contains(Index.of(0x123456789ABCDEFL)));
+		assertTrue("Contains Max", bitSet.contains(Index.MAX));
+		assertFalse("Get", bitSet.get((1L << 40) + 1));
+		assertEquals("Next Set Bit", 1L << 40, bitSet.nextSetBit(6L));
+		assertEquals("Previous Set Bit", 0x123456789ABCDEFL, bitSet.previousSetBit((1L << 62)));
+		assertEquals("Next Clear Bit", (1L << 40) + 1, bitSet.nextClearBit(1L << 40));
+		assertEquals("Previous Clear Bit", -3L, bitSet.previousClearBit(-2L));
+		
+		FastIterator<Index> itr = bitSet.iterator();
+		assertEquals("First", Index.of(5), itr.next());
+		for (long hash : hashes)
+			assertEquals("Ascending", Index.of(hash), itr.next());
+		assertFalse("Ascending End", itr.hasNext());
+		itr = bitSet.descendingIterator();
+		for (int i = hashes.length; --i >= 0;)
+			assertEquals("Descending", Index.of(hashes[i]), itr.next());
+		assertEquals("Last", Index.of(5), itr.next());
+		assertFalse("Descending End", itr.hasNext());
+		
+		bitSet.remove(Index.MAX);
+		assertFalse("Max Removed", bitSet.get(-1L));
+		bitSet.clear(1L << 40, -1L);
+		assertEquals("Size Is 1", 1, bitSet.size());
+		bitSet.set(-100L, -1L);
+		assertEquals("Range Set", 100, bitSet.size());
+		bitSet.flip(-200L, -50L);
+		assertEquals("Range Flipped", 1 + 100 + 49, bitSet.size());
+		
+		FastBitSet dense = new FastBitSet();
+		dense.set(3);
+		dense.or(bitSet);
+		assertTrue("Large Operand", dense.isCompressed());
+		assertEquals("Union", bitSet.size() + 1, dense.size());
+		dense.and(new FastBitSet());
+		assertTrue("Empty", dense.isEmpty());
+	}
+	
+	@Test
+	public void testFusedOperations(){
+		Random random = new Random(19);
+		BitSet left = new BitSet();
+		BitSet right = new BitSet();
+		FastBitSet dense = new FastBitSet();
+		FastBitSet other = new FastBitSet();
+		for (int i = 0; i < 5000; i++) {
+			int index = random.nextInt(100000);
+			left.set(index);
+			dense.set(index);
+			index = random.nextInt(150000);
+			right.set(index);
+			other.set(index);
+		}
+		BitSet and = (BitSet) left.clone();
+		and.and(right);
+		BitSet or = (BitSet) left.clone();
+		or.or(right);
+		BitSet andNot = (BitSet) left.clone();
+		andNot.andNot(right);
+		FastBitSet compressed = dense.clone().compress();
+		for (FastBitSet bitSet : new FastBitSet[] { dense, compressed }) {
+			for (FastBitSet that : new FastBitSet[] { other, other.clone().compress() }) {
+				assertEquals("And Cardinality", and.cardinality(), bitSet.andCardinality(that));
+				assertEquals("Or Cardinality", or.cardinality(), bitSet.orCardinality(that));
+				assertEquals("And Not Cardinality", andNot.cardinality(), bitSet.andNotCardinality(that));
+				assertEquals("Long And Cardinality", and.cardinality(), bitSet.longAndCardinality(that));
+				BitSet orNot = (BitSet) left.clone();
+				BitSet not = new BitSet();
+				not.set(0, 120001);
+				not.andNot(right);
+				orNot.or(not);
+				FastBitSet result = bitSet.clone();
+				result.orNot(that, 120001);
+				checkSame(orNot, result);
+			}
+		}
+		assertEquals("Cached Cardinality", left.cardinality(), dense.cardinality());
+		assertEquals("Long Cardinality", left.cardinality(), compressed.longCardinality());
+		dense.set(200000);
+		dense.clear(200001);
+		dense.flip(200002);
+		dense.flip(200002);
+		assertEquals("Single Bit Updates", left.cardinality() + 1, dense.size());
+		dense.clear(0, 200001);
+		assertTrue("Empty", dense.isEmpty());
+	}
+	
+	@Test
+	public void testParallelOperations(){
+		Random random = new Random(23);
+		BitSet expected = new BitSet();
+		BitSet other = new BitSet();
+		FastBitSet bitSet = new FastBitSet();
+		FastBitSet that = new FastBitSet();
+		for (int i = 0; i < 100000; i++) {
+			int index = random.nextInt(1 << 23);
+			expected.set(index);
+			bitSet.set(index);
+			index = random.nextInt(1 << 23);
+			other.set(index);
+			that.set(index);
+		}
+		AbstractContext.inherit(new ConcurrentContextImpl(3));
+		try {
+			BitSet and = (BitSet) expected.clone();
+			and.and(other);
+			assertEquals("And Cardinality", and.cardinality(), bitSet.andCardinality(that));
+			FastBitSet result = bitSet.clone();
+			result.and(that);
+			checkSame(and, result);
+			BitSet xor = (BitSet) expected.clone();
+			xor.xor(other);
+			result = bitSet.clone();
+			result.xor(that);
+			checkSame(xor, result);
+			BitSet andNot = (BitSet) expected.clone();
+			andNot.andNot(other);
+			result = bitSet.clone();
+			result.andNot(that);
+			checkSame(andNot, result);
+			BitSet or = (BitSet) expected.clone();
+			or.or(other);
+			bitSet.or(that);
+			checkSame(or, bitSet);
+		} finally {
+			AbstractContext.inherit(null);
+		}
+	}
+	
+	private static void checkSame(BitSet expected, FastBitSet actual) {
+		assertEquals("Cardinality", expected.cardinality(), actual.cardinality());
+		assertEquals("Length", expected.length(), actual.length());
+		for (int i = expected.nextSetBit(0), j = actual.nextSetBit(0); i >= 0 || j >= 0; 
+				i = expected.nextSetBit(i + 1), j = actual.nextSetBit(j + 1))
+			assertEquals("Next Set Bit", i, j);
+		for (int i = 0; i < expected.length() + 2; i += 97) {
+			assertEquals("Get " + i, expected.get(i), actual.get(i));
+			assertEquals("Next Clear Bit " + i, expected.nextClearBit(i), actual.nextClearBit(i));
+			assertEquals("Previous Set Bit " + i, expected.previousSetBit(i), actual.previousSetBit(i));
+			assertEquals("Previous Clear Bit " + i, expected.previousClearBit(i), actual.previousClearBit(i));
+		}
+		assertEquals("Long Array", BitSet.valueOf(actual.toLongArray()), expected);
+	}
 }
@@ -0,0 +1,132 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.javolution.context.AbstractContext;
+import org.javolution.context.internal.ConcurrentContextImpl;
+import org.javolution.util.FastHeap.Handle;
+import org.junit.Test;
+
+public class FastHeapTest {
+
+	@Test
+	public void testPollInOrder(){
+		FastHeap<Integer> heap = new FastHeap<Integer>();
+		Random random = new Random(0);
+		ArrayList<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			int value = random.nextInt(100);
+			heap.add(value);
+			expected.add(value);
+		}
+		Collections.sort(expected);
+		assertEquals("Size Is 1000", 1000, heap.size());
+		assertEquals("Smallest First", expected.get(0), heap.peek());
+		for (Integer value : expected) assertEquals("Polled In Order", value, heap.poll());
+		assertTrue("Empty", heap.isEmpty());
+		assertNull("Nothing To Poll", heap.poll());
+	}
+
+	@Test
+	public void testHandles(){
+		FastHeap<String> heap = new FastHeap<String>(String.CASE_INSENSITIVE_ORDER);
+		Handle<String> b = heap.insert("B");
+		Handle<String> c = heap.insert("C");
+		Handle<String> d = heap.insert("D");
+		heap.insert("E");
+		heap.update(d, "A"); // Decrease key.
+		assertEquals("Decreased Key First", "A", heap.peek());
+		assertTrue("Handle Of Head", heap.peekHandle() == d);
+		heap.update(d, "F"); // Increase key.
+		assertEquals("B Is First", "B", heap.peek());
+		assertEquals("C Removed", "C", heap.remove(c));
+		assertFalse("Removed Handle Invalid", c.isValid());
+		assertEquals("Size Is 3", 3, heap.size());
+		assertEquals("B Polled", "B", heap.poll());
+		assertFalse("Polled Handle Invalid", b.isValid());
+		try {
+			heap.remove(c);
+			assertTrue("Invalid Handle Rejected", false);
+		} catch (IllegalArgumentException e) {}
+		assertEquals("E Polled", "E", heap.poll());
+		assertEquals("F Polled", "F", heap.poll());
+		assertFalse("Handle Invalid Once Polled", d.isValid());
+	}
+
+	@Test
+	public void testRandomUpdates(){
+		FastHeap<int[]> heap = new FastHeap<int[]>((x, y) -> Integer.compare(x[0], y[0]));
+		ArrayList<Handle<int[]>> handles = new ArrayList<Handle<int[]>>();
+		Random random = new Random(1);
+		for (int i = 0; i < 500; i++) handles.add(heap.insert(new int[] { random.nextInt(1000) }));
+		for (int i = 0; i < 2000; i++) {
+			Handle<int[]> handle = handles.get(random.nextInt(handles.size()));
+			if (i % 10 == 0) {
+				heap.remove(handle);
+				handles.remove(handle);
+				continue;
+			}
+			int[] element = handle.get();
+			element[0] = random.nextInt(1000); // Mutated in place.
+			heap.update(handle, element);
+		}
+		assertEquals("Size", handles.size(), heap.size());
+		int previous = Integer.MIN_VALUE;
+		while (!heap.isEmpty()) {
+			int value = heap.poll()[0];
+			assertTrue("Heap Order", value >= previous);
+			previous = value;
+		}
+	}
+
+	@Test
+	public void testTopK(){
+		FastHeap<Integer> top10 = new FastHeap<Integer>((x, y) -> x.compareTo(y), 10);
+		ArrayList<Integer> values = new ArrayList<Integer>();
+		for (int i = 0; i < 1000; i++) values.add(i);
+		Collections.shuffle(values, new Random(2));
+		for (Integer value : values) top10.add(value);
+		assertEquals("Size Is 10", 10, top10.size());
+		assertEquals("Least Retained", Integer.valueOf(990), top10.peek());
+		assertNull("Smaller Rejected", top10.insert(500));
+		assertTrue("Greater Accepted", top10.add(1000));
+		assertEquals("Least Retained", Integer.valueOf(991), top10.peek());
+	}
+
+	@Test
+	public void testParallelHeapify(){
+		AbstractContext.inherit(new ConcurrentContextImpl(4));
+		try {
+			FastTable<Integer> table = new FastTable<Integer>();
+			Random random = new Random(3);
+			for (int i = 0; i < 100000; i++) table.add(random.nextInt());
+			FastHeap<Integer> heap = new FastHeap<Integer>().with(1, 2, 3);
+			heap.addAll(table);
+			heap.removeIf(i -> i % 7 == 0);
+			table.add(1);
+			table.add(2);
+			table.add(3);
+			table.removeIf(i -> i % 7 == 0);
+			table.sort(Integer::compare);
+			assertEquals("Same Size", table.size(), heap.size());
+			for (Integer value : table) assertEquals("Polled In Order", value, heap.poll());
+		} finally {
+			AbstractContext.inherit(null);
+		}
+	}
+}
@@ -17,8 +17,15 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.javolution.lang.Binary;
+import org.javolution.lang.Index;
+import org.javolution.util.AbstractCache.Eviction;
 import org.javolution.util.FastMap;
+import org.javolution.util.function.Order;
+import org.javolution.util.internal.ReadWriteLockImpl;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -152,4 +159,425 @@ public class FastMapTest {
 		assertEquals("Size Equals 3", _fastMap.size(), 3);
 	}
 	
+	@Test
+	public void testGetAndRemoveDoNotAllocate(){
+		java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+		String[] keys = new String[1000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = "TestKey" + i;
+			_fastMap.put(keys[i], "TestValue" + i);
+		}
+		String absent = "AbsentKey";
+		int found = probe(keys, absent); // Warm-up.
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		found += probe(keys, absent);
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+		assertEquals("All Keys Found", 2 * 100 * keys.length, found);
+		// The measured pass performs 300000 lookups (100 rounds of get, containsKey and remove over 1000 keys), 
+		// 600000 with the warm-up. One allocation per lookup would be at least 4.8 MB; the 64 KB bound only 
+		// tolerates the few kilobytes the thread counter may report from JIT compilations during the measurement.
+		assertTrue("No Allocation Per Lookup (" + allocated + " bytes)", allocated < 64 * keys.length);
+	}
+	
+	private int probe(String[] keys, String absent) {
+		int found = 0;
+		for (int n = 0; n < 100; n++) {
+			for (String key : keys) {
+				if (_fastMap.get(key) != null) found++;
+				if (_fastMap.containsKey(absent) || (_fastMap.remove(absent) != null)) found--;
+			}
+		}
+		return found;
+	}
+	
+	@Test
+	public void testAtomicView(){
+		AbstractMap<String, String> atomic = _fastMap.atomic();
+		for (int i = 0; i < 1000; i++) atomic.put("TestKey" + i, "TestValue" + i);
+		for (int i = 0; i < 1000; i += 2) atomic.remove("TestKey" + i);
+		assertEquals("Size Equals 500", 500, atomic.size());
+		assertTrue("Value Replaced", atomic.replace("TestKey1", "TestValue1", "NewValue"));
+		assertEquals("NewValue", atomic.get("TestKey1"));
+		assertNull(atomic.get("TestKey2"));
+	}
+	
+	@Test
+	public void testConcurrentCopy() throws InterruptedException{
+		final AbstractMap<String, String> concurrent = _fastMap.concurrentCopy();
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			writers[t] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 1000; i++) {
+						if (concurrent.putIfAbsent("TestKey" + i, "TestValue" + i) != null) 
+							concurrent.replace("TestKey" + i, "TestValue" + i, "Replaced" + i);
+					}
+				}
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers) writer.join();
+		assertEquals("Size Equals 1000", 1000, concurrent.size());
+		assertEquals("Replaced7", concurrent.get("TestKey7"));
+		assertEquals("Original Map Unchanged", 0, _fastMap.size());
+		FastMap<String, String> expected = new FastMap<String, String>();
+		expected.putAll(concurrent);
+		assertEquals(expected, concurrent);
+		assertEquals("Same Iteration Order", expected.firstKey(), concurrent.firstKey());
+		assertTrue("Key Removed Through Key Set", concurrent.keySet().remove("TestKey7"));
+		assertFalse("Live Key Set", concurrent.containsKey("TestKey7"));
+		Iterator<AbstractMap.Entry<String, String>> entries = concurrent.entries().iterator();
+		entries.next();
+		entries.remove();
+		assertEquals("Removed Through Iterator", 998, concurrent.size());
+		_fastMap.put("Later", "Value");
+		assertFalse("Independent Copy", concurrent.containsKey("Later"));
+		concurrent.clear();
+		assertTrue("Cleared", concurrent.isEmpty());
+	}
+	
+	@Test
+	public void testSharedViewOptimisticReads() throws InterruptedException{
+		final AbstractMap<String, String> shared = _fastMap.shared();
+		for (int i = 0; i < 100; i++) shared.put("TestKey" + i, "TestValue" + i);
+		final boolean[] failed = new boolean[1];
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				for (int n = 0; n < 100000; n++) {
+					String value = shared.get("TestKey" + (n % 100));
+					if (!("TestValue" + (n % 100)).equals(value)) failed[0] = true;
+				}
+			}
+		});
+		reader.start();
+		for (int i = 100; i < 20000; i++) { // Concurrent resizing.
+			shared.put("TestKey" + i, "TestValue" + i);
+			if (i >= 150) shared.remove("TestKey" + (i - 50));
+		}
+		reader.join();
+		assertFalse("Readers See Consistent State", failed[0]);
+	}
+	
+	@Test
+	public void testSharedLockReentrancy() throws InterruptedException{
+		final ReadWriteLockImpl lock = new ReadWriteLockImpl();
+		lock.writeLock.lock();
+		assertTrue("Write Lock Reentrant", lock.writeLock.tryLock());
+		lock.readLock.lock(); // Writer can read.
+		lock.readLock.unlock();
+		final int[] reads = new int[1];
+		assertEquals("Writer Reads Under Lock", "Read", lock.read(() -> ++reads[0] == 1 ? "Read" : null));
+		assertEquals("No Optimistic Read When Writing", 1, reads[0]);
+		final boolean[] acquired = new boolean[1];
+		Thread other = new Thread(new Runnable() {
+			public void run() {
+				acquired[0] = lock.readLock.tryLock();
+			}
+		});
+		other.start();
+		other.join();
+		assertFalse("Other Thread Cannot Read", acquired[0]);
+		lock.writeLock.unlock();
+		lock.writeLock.unlock();
+		reads[0] = 0;
+		lock.read(() -> reads[0]++);
+		assertEquals("Optimistic Read Valid", 1, reads[0]);
+		reads[0] = 0;
+		lock.read(() -> {
+			if (reads[0]++ != 0) return null;
+			Thread writer = new Thread(() -> { lock.writeLock.lock(); lock.writeLock.unlock(); });
+			writer.start();
+			try {
+				writer.join();
+			} catch (InterruptedException e) {}
+			return null;
+		});
+		assertEquals("Optimistic Read Invalidated And Retried", 2, reads[0]);
+	}
+	
+	@Test
+	public void testKeySetAlgebra(){
+		FastMap<String,String> left = new FastMap<String,String>().with("A", "1").with("B", "2").with("C", "3");
+		FastMap<String,String> right = new FastMap<String,String>().with("B", "20").with("C", "30").with("D", "40");
+		FastMap<String,String> union = left.union(right);
+		assertEquals("Union Size Is 4", 4, union.size());
+		assertEquals("This Map Values Kept", "2", union.get("B"));
+		assertEquals("Other Map Entries Added", "40", union.get("D"));
+		FastMap<String,String> intersection = left.intersect(right);
+		assertEquals("Intersection Size Is 2", 2, intersection.size());
+		assertEquals("This Map Values Kept", "3", intersection.get("C"));
+		FastMap<String,String> difference = left.subtract(right);
+		assertEquals("Difference Size Is 1", 1, difference.size());
+		assertTrue("Difference Contains Key A", difference.containsKey("A"));
+		assertEquals("Operand Unchanged", 3, left.size());
+	}
+	
+	@Test
+	public void testLruCache(){
+		AbstractCache<String,String> cache = _fastMap.cache(3, Eviction.LRU);
+		cache.put("A", "1");
+		cache.put("B", "2");
+		cache.put("C", "3");
+		assertEquals("Hit", "1", cache.get("A"));
+		cache.put("D", "4");
+		assertFalse("Least Recently Used Evicted", cache.containsKey("B"));
+		assertFalse("Evicted From The Map", _fastMap.containsKey("B"));
+		assertEquals("Size Is 3", 3, cache.size());
+		assertNull("Miss", cache.get("B"));
+		assertEquals("Hit Count Is 1", 1, cache.hitCount());
+		assertEquals("Miss Count Is 1", 1, cache.missCount());
+		assertEquals("Eviction Count Is 1", 1, cache.evictionCount());
+		assertEquals("Hit Rate Is 0.5", 0.5, cache.hitRate(), 0.0);
+		cache.remove("A");
+		cache.put("E", "5");
+		assertEquals("No Eviction After Removal", 1, cache.evictionCount());
+		assertEquals("Weight Is 3", 3, cache.weight());
+	}
+	
+	@Test
+	public void testLfuCache(){
+		AbstractCache<String,String> cache = _fastMap.cache(3, Eviction.LFU);
+		cache.put("A", "1");
+		cache.put("B", "2");
+		cache.put("C", "3");
+		cache.get("A");
+		cache.get("A");
+		cache.get("C");
+		cache.put("D", "4");
+		assertFalse("Least Frequently Used Evicted", cache.containsKey("B"));
+		cache.put("E", "5");
+		assertFalse("Least Recent Among Least Frequent Evicted", cache.containsKey("D"));
+		assertTrue("Most Frequent Kept", cache.containsKey("A"));
+		assertTrue("Frequent Kept", cache.containsKey("C"));
+	}
+	
+	@Test
+	public void testTinyLfuCacheResistsScans(){
+		FastMap<Integer,Integer> map = new FastMap<Integer,Integer>();
+		AbstractCache<Integer,Integer> tinyLfu = map.cache(100, Eviction.WINDOW_TINY_LFU);
+		AbstractCache<Integer,Integer> lru = new FastMap<Integer,Integer>().cache(100, Eviction.LRU);
+		for (int n = 0; n < 10; n++) 
+			for (int i = 0; i < 50; i++) { // Hot entries.
+				if (tinyLfu.get(i) == null) tinyLfu.put(i, i);
+				if (lru.get(i) == null) lru.put(i, i);
+			}
+		for (int i = 1000; i < 2000; i++) { // Scan.
+			if (tinyLfu.get(i) == null) tinyLfu.put(i, i);
+			if (lru.get(i) == null) lru.put(i, i);
+		}
+		int tinyLfuHot = 0, lruHot = 0;
+		for (int i = 0; i < 50; i++) {
+			if (tinyLfu.containsKey(i)) tinyLfuHot++;
+			if (lru.containsKey(i)) lruHot++;
+		}
+		assertEquals("LRU Flushed By Scan", 0, lruHot);
+		assertTrue("W-TinyLFU Keeps Hot Entries: " + tinyLfuHot, tinyLfuHot >= 45);
+		assertEquals("Size Is 100", 100, tinyLfu.size());
+		assertEquals("Map Size Is 100", 100, map.size());
+	}
+	
+	@Test
+	public void testWeightedCache(){
+		for (Eviction eviction : Eviction.values()) {
+			AbstractCache<String,String> cache = new FastMap<String,String>().cache(10, 
+					entry -> entry.getValue().length(), eviction);
+			cache.put("A", "1234");
+			cache.put("B", "1234");
+			assertEquals("Weight Is 8", 8, cache.weight());
+			cache.put("C", "1234");
+			assertEquals("Evicted To Fit", 2, cache.size());
+			assertTrue("Within Max Weight", cache.weight() <= 10);
+			long weight = cache.weight();
+			boolean admitted = cache.containsKey("C"); // W-TinyLFU may reject new entries.
+			cache.put("C", "1");
+			assertEquals("Weight Updated", admitted ? weight - 3 : weight + 1, cache.weight());
+		}
+	}
+	
+	@Test
+	public void testCacheAddEntryReplacesKey(){
+		for (Eviction eviction : Eviction.values()) {
+			AbstractCache<Integer,Integer> cache = new FastMap<Integer,Integer>().cache(2, eviction);
+			cache.addEntry(1, 1);
+			cache.addEntry(1, 2);
+			assertEquals("Single Entry Per Key", 1, cache.size());
+			assertEquals("Replaced", Integer.valueOf(2), cache.get(1));
+			for (int i = 2; i <= 5; i++) cache.put(i, i);
+			assertEquals("Size Bounded (" + eviction + ")", 2, cache.size());
+			assertEquals("Weight Matches Size (" + eviction + ")", cache.size(), cache.weight());
+		}
+	}
+	
+	@Test
+	public void testConcurrentCache() throws InterruptedException{
+		for (Eviction eviction : Eviction.values()) {
+			final AbstractCache<Integer,Integer> cache = new FastMap<Integer,Integer>().cache(256, eviction)
+					.concurrentCopy();
+			final AbstractMap<Integer,Integer> shared = new FastMap<Integer,Integer>().cache(256, eviction).shared();
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++) {
+				final int seed = t;
+				threads[t] = new Thread(new Runnable() {
+					public void run() {
+						java.util.Random random = new java.util.Random(seed);
+						for (int i = 0; i < 10000; i++) {
+							int key = random.nextInt(1000);
+							if (cache.get(key) == null) cache.put(key, key);
+							if (shared.get(key) == null) shared.put(key, key);
+						}
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads) thread.join();
+			assertEquals("Lookup Count", 40000, cache.hitCount() + cache.missCount());
+			assertTrue("Bounded Size", cache.size() <= 256 + concurrentStripes());
+			assertTrue("Bounded Shared Size", shared.size() <= 256);
+			assertEquals("Weight Is Size", cache.size(), cache.weight());
+		}
+	}
+	
+	private static int concurrentStripes() {
+		return org.javolution.util.internal.set.ConcurrentSetImpl.STRIPES; // Rounding of stripes max weight.
+	}
+	
+	@Test
+	public void testTimeToLive(){
+		final long[] now = { 0 };
+		AbstractExpiringMap<String,String> map = _fastMap.expiring(100, 0, TimeUnit.NANOSECONDS, () -> now[0]);
+		map.put("A", "1");
+		now[0] = 50;
+		map.put("B", "2");
+		now[0] = 99;
+		assertEquals("A Not Expired", "1", map.get("A"));
+		now[0] = 100;
+		assertNull("A Expired", map.get("A"));
+		assertFalse("A Not Contained", map.containsKey("A"));
+		assertEquals("Expired Entries Counted Until Removed", 2, map.size());
+		assertEquals("Iteration Excludes Expired Entries", 1, map.entries().size());
+		assertEquals("A Removed", 1, map.expire());
+		assertEquals("Size Is 1", 1, map.size());
+		assertEquals("B Not Expired", "2", map.get("B"));
+		map.put("B", "3"); // Update restarts the time-to-live.
+		now[0] = 199;
+		assertEquals("B Updated", "3", map.get("B"));
+		map.put("A", "4"); // Replaces the expired entry.
+		assertEquals("A Added Again", "4", map.get("A"));
+		now[0] = 300;
+		assertEquals("Both Expired", 2, map.expire());
+		assertTrue("Removed From The Map", _fastMap.isEmpty());
+	}
+	
+	@Test
+	public void testTimeToIdle(){
+		final long[] now = { 0 };
+		AbstractExpiringMap<String,String> map = _fastMap.expiring(0, 100, TimeUnit.NANOSECONDS, () -> now[0]);
+		map.put("A", "1");
+		map.put("B", "2");
+		for (now[0] = 90; now[0] < 1000; now[0] += 90) 
+			assertEquals("A Accessed", "1", map.get("A"));
+		assertTrue("B Idle", map.containsKey("A") && !map.containsKey("B"));
+		assertEquals("B Expired", 1, map.expire());
+		assertEquals("A Kept", 1, _fastMap.size());
+		now[0] += 100;
+		assertEquals("A Expired", 1, map.expire());
+		assertEquals("Time To Idle", 100, map.timeToIdle(TimeUnit.NANOSECONDS));
+	}
+	
+	@Test
+	public void testExpiringMapAddEntryReplacesKey(){
+		final long[] now = { 0 };
+		AbstractExpiringMap<String,String> map = _fastMap.expiring(100, 0, TimeUnit.NANOSECONDS, () -> now[0]);
+		map.addEntry("A", "1");
+		now[0] = 50;
+		map.addEntry("A", "2");
+		assertEquals("Single Entry Per Key", 1, _fastMap.size());
+		assertEquals("Replaced", "2", map.get("A"));
+		now[0] = 150;
+		assertEquals("Replacement Expired", 1, map.expire());
+		assertTrue("Removed From The Map", _fastMap.isEmpty());
+		assertTrue("Not Visible", map.entries().isEmpty());
+	}
+	
+	@Test
+	public void testExpiringMapSweep(){
+		final long[] now = { 0 };
+		FastMap<Integer,Integer> inner = new FastMap<Integer,Integer>();
+		AbstractExpiringMap<Integer,Integer> map = inner.expiring(1, 0, TimeUnit.MILLISECONDS, () -> now[0]);
+		java.util.Random random = new java.util.Random(3);
+		long[] created = new long[10000];
+		for (int i = 0; i < created.length; i++) {
+			now[0] += random.nextInt(1000);
+			created[i] = now[0];
+			map.put(i, i);
+			if (i % 100 == 0) {
+				map.expire();
+				int live = 0;
+				for (int j = 0; j <= i; j++) 
+					if (now[0] - created[j] < 1000000) live++;
+				assertEquals("Live Entries", live, map.size());
+				assertEquals("Expired Entries Removed", live, inner.size());
+			}
+		}
+		now[0] += 1000000;
+		map.expire();
+		assertTrue("All Expired", inner.isEmpty());
+	}
+	
+	@Test
+	public void testExpiringMapSweeper() throws InterruptedException{
+		final long[] now = { 0 };
+		AbstractExpiringMap<String,String> map = _fastMap.expiring(1, 0, TimeUnit.SECONDS, () -> now[0]);
+		AbstractMap<String,String> shared = map.shared();
+		for (int i = 0; i < 100; i++) 
+			shared.put("Key" + i, "Value" + i);
+		Thread sweeper = map.sweeper(1, TimeUnit.MILLISECONDS);
+		assertTrue("Daemon", sweeper.isDaemon());
+		sweeper.start();
+		try {
+			now[0] = TimeUnit.SECONDS.toNanos(2);
+			for (int i = 0; (i < 5000) && (shared.size() != 0 || !_fastMap.isEmpty()); i++) 
+				Thread.sleep(1);
+			assertTrue("Swept", _fastMap.isEmpty());
+		} finally {
+			sweeper.interrupt(); // Stops the sweeper.
+		}
+		sweeper.join(5000);
+		assertFalse("Stopped", sweeper.isAlive());
+	}
+	
+	@Test
+	public void testSpatialQueries(){
+		FastMap<Binary<Index,Index>,String> cities = new FastMap<Binary<Index,Index>,String>(Order.quadtree());
+		cities.put(FastSetTest.point(10, 10), "A");
+		cities.put(FastSetTest.point(12, 11), "B");
+		cities.put(FastSetTest.point(30, 5), "C");
+		cities.put(FastSetTest.point(100, 100), "D");
+		FastMap<Binary<Index,Index>,String> inside = cities.within(FastSetTest.point(0, 0), FastSetTest.point(40, 40));
+		assertEquals("Inside Size Is 3", 3, inside.size());
+		assertFalse("Outside Key Excluded", inside.containsValue("D"));
+		FastTable<AbstractMap.Entry<Binary<Index,Index>,String>> nearest = cities.nearest(FastSetTest.point(13, 12), 2);
+		assertEquals("Nearest Size Is 2", 2, nearest.size());
+		assertEquals("Closest First", "B", nearest.get(0).getValue());
+		assertEquals("Then Second Closest", "A", nearest.get(1).getValue());
+	}
+	
+
+	@Test
+	public void testFreeze(){
+		for (int i = 0; i < 1000; i++) _fastMap.put("Key" + i, "Value" + i);
+		FastMap.Immutable<String,String> frozen = ((FastMap<String,String>) _fastMap).freeze();
+		assertEquals("Size Is 1000", 1000, frozen.size());
+		for (int i = 0; i < 1000; i++) assertEquals("Value" + i, "Value" + i, frozen.get("Key" + i));
+		assertNull("Missing Key", frozen.get("Key1000"));
+		assertTrue("Contains Key", frozen.containsKey("Key999"));
+		try {
+			frozen.put("Key1000", "Value1000");
+			assertTrue("Immutable", false);
+		} catch (UnsupportedOperationException e) {}
+	}
 }
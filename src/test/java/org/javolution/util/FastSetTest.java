@@ -12,11 +12,26 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
+import org.javolution.context.AbstractContext;
+import org.javolution.context.internal.ConcurrentContextImpl;
+import org.javolution.lang.Binary;
+import org.javolution.lang.Index;
+import org.javolution.lang.Ternary;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.SpatialOrder;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -160,4 +175,273 @@ public class FastSetTest {
 		Set<String> unmodifiableSet = _fastSet.unmodifiable();
 		unmodifiableSet.add("Test");
 	}
+	
+	@Test
+	public void testSharedViewLookupErrors(){
+		final int[] calls = new int[1];
+		AbstractSet<String> shared = new FastSet<String>(Order.valueOf((String str) -> {
+			calls[0]++;
+			if (str.isEmpty()) throw new IllegalArgumentException();
+			return str.hashCode();
+		})).shared();
+		shared.add("Test");
+		calls[0] = 0;
+		try {
+			shared.contains("");
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) { // No concurrent update, not retried.
+		}
+		assertEquals("Lookup Performed Once", 1, calls[0]);
+	}
+
+	@Test
+	public void testConcurrentCopy() throws InterruptedException{
+		_fastSet.add("Initial");
+		final AbstractSet<String> concurrent = _fastSet.concurrentCopy();
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			final int offset = t * 1000;
+			writers[t] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 1000; i++) concurrent.add("Test" + (offset + i));
+					for (int i = 0; i < 1000; i += 2) concurrent.remove("Test" + (offset + i));
+				}
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers) writer.join();
+		assertEquals("Size Is 2001", 2001, concurrent.size());
+		assertTrue("Contains Test1", concurrent.contains("Test1"));
+		assertFalse("Does Not Contain Test2", concurrent.contains("Test2"));
+		assertEquals("Original Set Unchanged", 1, _fastSet.size());
+		_fastSet.add("Later");
+		assertFalse("Independent Copy", concurrent.contains("Later"));
+		assertEquals("Atomic Size", 2001, concurrent.size());
+		FastSet<String> expected = new FastSet<String>();
+		expected.addAll(concurrent);
+		assertEquals(new FastTable<String>().with(expected.toArray(new String[0])), 
+				new FastTable<String>().with(concurrent.toArray(new String[0]))); // Same iteration order.
+	}
+
+	@Test
+	public void testSpliterator(){
+		FastSet<String> multiset = new FastSet<String>();
+		for (int i = 0; i < 1000; i++) {
+			_fastSet.add("Test" + i);
+			multiset.add("Test" + (i % 100), true); // Collisions.
+		}
+		assertEquals("Same Elements", 1000, _fastSet.parallelStream().filter(str -> str.startsWith("Test")).count());
+		assertEquals("Same Iteration Order", new FastTable<String>().with(multiset.toArray(new String[0])),
+				multiset.stream().collect(Collectors.toList()));
+		Spliterator<String> suffix = multiset.spliterator();
+		Spliterator<String> prefix = suffix.trySplit();
+		assertTrue("Sub-Sized", suffix.hasCharacteristics(Spliterator.SUBSIZED));
+		assertEquals("Sizes Are Exact", 1000, prefix.getExactSizeIfKnown() + suffix.getExactSizeIfKnown());
+		long prefixSize = prefix.getExactSizeIfKnown();
+		final int[] count = new int[1];
+		prefix.forEachRemaining(str -> count[0]++);
+		assertEquals("Prefix Size", prefixSize, count[0]);
+	}
+
+	@Test
+	public void testSetAlgebra(){
+		Order<Integer> collisions = new Order<Integer>() { // Three elements per index.
+			private static final long serialVersionUID = 0x700L;
+
+			@Override
+			public boolean areEqual(Integer left, Integer right) {
+				return (left == right) || ((left != null) && left.equals(right));
+			}
+
+			@Override
+			public int compare(Integer left, Integer right) {
+				if (left == null) return -1;
+				if (right == null) return 1;
+				return Integer.compare(left, right);
+			}
+
+			@Override
+			public long indexOf(Integer i) {
+				return (i != null) ? i / 3 : 0;
+			}
+		};
+		checkAlgebra(collisions, 100, false); // Flat arrays.
+		checkAlgebra(collisions, 10000, true); // Tries (cloned).
+		checkAlgebra(Order.<Integer>standard(), 10000, true);
+		FastSet<Integer> trie = new FastSet<Integer>().with(1, 2, 3).clone();
+		for (int i = 4; i < 100; i++) trie.add(i);
+		assertEquals("Different Orders", 96, trie.subtract(new FastSet<Integer>(collisions).with(1, 2, 3)).size());
+	}
+
+	@Test
+	public void testParallelSetAlgebra(){
+		AbstractContext.inherit(new ConcurrentContextImpl(3));
+		try {
+			FastSet<Integer> left = new FastSet<Integer>();
+			FastSet<Integer> right = new FastSet<Integer>();
+			for (int i = 0; i < 100000; i++) {
+				left.add(i);
+				right.add(i + 50000);
+			}
+			for (int i = 0; i < 2; i++) { // Flat arrays then tries.
+				assertEquals("Union Size Is 150000", 150000, left.union(right).size());
+				assertEquals("Intersection Size Is 50000", 50000, left.intersect(right).size());
+				FastSet<Integer> difference = left.subtract(right);
+				assertEquals("Difference Size Is 50000", 50000, difference.size());
+				assertTrue("Difference Contains 49999", difference.contains(49999));
+				assertFalse("Difference Does Not Contain 50000", difference.contains(50000));
+				left = left.clone();
+				right = right.clone();
+			}
+		} finally {
+			AbstractContext.inherit(null);
+		}
+	}
+
+	@Test
+	public void testFilteredView(){
+		FastSet<Integer> set = new FastSet<Integer>();
+		for (int i = 0; i < 100; i++) set.add(i);
+		AbstractSet<Integer> even = set.filter(i -> i % 2 == 0);
+		assertEquals("Size Is 50", 50, even.size());
+		int expected = 0;
+		for (Integer i : even) {
+			assertEquals("Ascending Order", expected, i.intValue());
+			expected += 2;
+		}
+		expected = 98;
+		for (Iterator<Integer> itr = even.descendingIterator(); itr.hasNext(); expected -= 2) 
+			assertEquals("Descending Order", expected, itr.next().intValue());
+		assertEquals("All Iterated", -2, expected);
+	}
+	
+	@Test
+	public void testSpatialQueries(){
+		Random random = new Random(7);
+		FastSet<Binary<Index,Index>> points = new FastSet<Binary<Index,Index>>(Order.quadtree());
+		for (int i = 0; i < 2000; i++) 
+			points.add(point(random.nextInt(1000), random.nextInt(1000)));
+		for (int n = 0; n < 20; n++) {
+			long x = random.nextInt(1000);
+			long y = random.nextInt(1000);
+			long w = random.nextInt(200);
+			long h = random.nextInt(200);
+			FastSet<Binary<Index,Index>> inside = points.within(point(x, y), point(x + w, y + h));
+			int count = 0;
+			for (Binary<Index,Index> p : points) {
+				long px = p.first().longValue();
+				long py = p.second().longValue();
+				if ((px >= x) && (px <= x + w) && (py >= y) && (py <= y + h)) {
+					count++;
+					assertTrue("Inside", inside.contains(p));
+				}
+			}
+			assertEquals("Same Count", count, inside.size());
+			Binary<Index,Index> here = point(x, y);
+			checkNearest(points, here, points.nearest(here, 10), 10);
+		}
+		assertEquals("Nearest In Small Set", 1, new FastSet<Binary<Index,Index>>(Order.quadtree())
+				.with(point(3, 4)).nearest(point(0, 0), 5).size());
+		
+		FastSet<Ternary<Index,Index,Index>> cube = new FastSet<Ternary<Index,Index,Index>>(Order.octree());
+		for (int i = 0; i < 1000; i++) 
+			cube.add(point(random.nextInt(100), random.nextInt(100), random.nextInt(100)));
+		Ternary<Index,Index,Index> center = point(50, 50, 50);
+		FastSet<Ternary<Index,Index,Index>> inside = cube.within(point(40, 40, 40), point(60, 60, 60));
+		for (Ternary<Index,Index,Index> p : cube) 
+			assertEquals("Inside", Math.abs(p.first().longValue() - 50) <= 10 && 
+				Math.abs(p.second().longValue() - 50) <= 10 && Math.abs(p.third().longValue() - 50) <= 10,
+				inside.contains(p));
+		checkNearest(cube, center, cube.nearest(center, 20), 20);
+	}
+
+	/** Checks the distances of the nearest elements against a full scan. */
+	private static <E> void checkNearest(FastSet<E> set, E point, List<E> nearest, int k) {
+		@SuppressWarnings("unchecked")
+		SpatialOrder<E> order = (SpatialOrder<E>) set.order();
+		List<Double> distances = new ArrayList<Double>();
+		for (E e : set) 
+			distances.add(order.distance(order.indexOf(point), order.indexOf(e)));
+		Collections.sort(distances);
+		assertEquals("K Nearest", Math.min(k, set.size()), nearest.size());
+		for (int i = 0; i < nearest.size(); i++) 
+			assertEquals("Distance", distances.get(i), 
+					order.distance(order.indexOf(point), order.indexOf(nearest.get(i))), 0.0);
+	}
+
+	static Binary<Index,Index> point(final long x, final long y) {
+		return new Binary<Index,Index>() {
+			public Index first() { return Index.of(x); }
+			public Index second() { return Index.of(y); }
+		};
+	}
+
+	static Ternary<Index,Index,Index> point(final long x, final long y, final long z) {
+		return new Ternary<Index,Index,Index>() {
+			public Index first() { return Index.of(x); }
+			public Index second() { return Index.of(y); }
+			public Index third() { return Index.of(z); }
+		};
+	}
+
+	/** Checks the set algebra of random sets against java.util sets. */
+	private static void checkAlgebra(Order<Integer> order, int n, boolean cloned) {
+		Random random = new Random(n);
+		FastSet<Integer> left = new FastSet<Integer>(order);
+		FastSet<Integer> right = new FastSet<Integer>(order);
+		for (int i = 0; i < n; i++) {
+			left.add(random.nextInt(2 * n));
+			right.add(random.nextInt(2 * n));
+		}
+		if (cloned) {
+			left = left.clone();
+			right = right.clone();
+		}
+		Set<Integer> union = new HashSet<Integer>(left);
+		union.addAll(right);
+		Set<Integer> intersection = new HashSet<Integer>(left);
+		intersection.retainAll(right);
+		Set<Integer> difference = new HashSet<Integer>(left);
+		difference.removeAll(right);
+		int leftSize = left.size();
+		checkEquals(union, left.union(right));
+		checkEquals(intersection, left.intersect(right));
+		checkEquals(difference, left.subtract(right));
+		checkEquals(new HashSet<Integer>(left), left.union(left)); // Shares all.
+		checkEquals(new HashSet<Integer>(), left.subtract(left));
+		assertEquals("Operand Unchanged", leftSize, left.size());
+		left.add(-1); // Structure shared with the results.
+		assertEquals("Operand Updated", leftSize + 1, left.size());
+	}
+
+	private static void checkEquals(Set<Integer> expected, FastSet<Integer> actual) {
+		assertEquals("Same Size", expected.size(), actual.size());
+		assertEquals("Same Elements", expected, new HashSet<Integer>(actual));
+		for (Integer i : expected) 
+			assertTrue("Contains " + i, actual.contains(i));
+	}
+
+	@Test
+	public void testFreeze(){
+		FastTable<Order<? super String>> orders = new FastTable<Order<? super String>>();
+		orders.add(Order.standard());
+		orders.add(Order.lexical());
+		orders.add(Order.valueOf((String str) -> str.length())); // Collisions.
+		for (Order<? super String> order : orders) {
+			FastSet<String> set = new FastSet<String>(order);
+			for (int i = 0; i < 1000; i++) set.add("Value" + i);
+			FastSet<String> expected = set.clone();
+			FastSet.Immutable<String> frozen = set.freeze();
+			assertEquals("Same Size", expected.size(), frozen.size());
+			assertEquals("Same Iteration Order", new ArrayList<String>(expected), new ArrayList<String>(frozen));
+			for (String str : expected) assertTrue("Contains " + str, frozen.contains(str));
+			assertFalse("Not Contained", frozen.contains("Value1000"));
+			assertEquals("Same Union", expected.union(new FastSet<String>(order).with("X")), 
+					frozen.union(new FastSet<String>(order).with("X")));
+			try {
+				frozen.add("X");
+				assertTrue("Immutable", false);
+			} catch (UnsupportedOperationException e) {}
+		}
+	}
 }
@@ -10,11 +10,22 @@ package org.javolution.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import org.javolution.context.AbstractContext;
+import org.javolution.context.ConcurrentContext;
+import org.javolution.context.internal.ConcurrentContextImpl;
 import org.javolution.util.FastTable;
 import org.javolution.util.FractalArray;
 import org.junit.Before;
@@ -217,4 +228,437 @@ public class FastTableTest {
 		_fastTable.remove(1);
 		assertFalse("No Longer Contains Test2", _fastTable.contains("Test2"));
 	}
+	
+	@Test
+	public void testClonesShareStructure(){
+		Random rnd = new Random(0);
+		ArrayList<Integer> al = new ArrayList<>();
+		FastTable<Integer> ft = new FastTable<>();
+		for (int i = 0; i < 1000; i++) ft.add(i);
+		for (int i = 0; i < 1000; i++) al.add(i);
+		FastTable<Integer> snapshot = ft.clone();
+		ArrayList<Integer> expected = new ArrayList<>(al);
+		for (int i = 0; i < 2000; i++) {
+			int j = rnd.nextInt(al.size() + 1);
+			switch (rnd.nextInt(4)) {
+			case 0:
+				al.add(j, i);
+				ft.add(j, i);
+				break;
+			case 1:
+				if (j < al.size()) assertEquals(al.remove(j), ft.remove(j));
+				break;
+			case 2:
+				if (j < al.size()) assertEquals(al.set(j, i), ft.set(j, i));
+				break;
+			default:
+				al.add(0, i); // Deque operations.
+				ft.addFirst(i);
+				assertEquals(al.remove(al.size() - 1), ft.removeLast());
+			}
+			if (i % 100 == 0) {
+				assertEquals(expected, snapshot);
+				snapshot = ft.clone();
+				expected = new ArrayList<>(al);
+			}
+		}
+		assertEquals(al, ft);
+		assertEquals(expected, snapshot);
+	}
+	
+	@Test
+	public void testShiftsOnClones(){
+		FastTable<Integer> original = new FastTable<>();
+		for (int i = 0; i < 1000; i++) original.add(i);
+		ArrayList<Integer> expected = new ArrayList<>(original);
+		FastTable<Integer> copy = original.clone(); // Persistent.
+		FastTable<Integer> copyOfCopy = copy.clone(); // Shares its structure with the copy.
+		ArrayList<Integer> al = new ArrayList<>(expected);
+		Random rnd = new Random(5);
+		for (int i = 0; i < 500; i++) {
+			int j = rnd.nextInt(al.size());
+			if (i % 2 == 0) {
+				al.add(j, -i);
+				copy.add(j, -i);
+			} else {
+				assertEquals("Removed", al.remove(j), copy.remove(j));
+			}
+		}
+		assertEquals("Shifted Copy", al, copy);
+		assertEquals("Original Unchanged", expected, original);
+		assertEquals("Copy Of Copy Unchanged", expected, copyOfCopy);
+		copyOfCopy.add(500, -1);
+		copyOfCopy.remove(0);
+		assertEquals("Copy Unchanged", al, copy);
+		original.add(10, -1); // The original is persistent too (shares its structure with its copies).
+		original.remove(990);
+		original.addFirst(-2);
+		expected.add(10, -1);
+		expected.remove(990);
+		expected.add(0, -2);
+		assertEquals("Original Updated", expected, original);
+		assertEquals("Copy Still Unchanged", al, copy);
+	}
+
+	@Test
+	public void testAtomicSnapshots(){
+		AbstractTable<String> atomic = _fastTable.atomic();
+		for (int i = 0; i < 100; i++) atomic.add("Value" + i);
+		FastIterator<String> itr = atomic.iterator();
+		atomic.remove(0);
+		atomic.add(0, "Test0");
+		assertEquals("Iteration On Snapshot", "Test1", itr.next());
+		assertEquals("Test0", atomic.get(0));
+		assertEquals("Table Size Is 103", 103, _fastTable.size());
+	}
+
+	@Test
+	public void testSortIsStable(){
+		FastTable<Integer> table = new FastTable<Integer>();
+		for (int i = 0; i < 5000; i++) table.add(i); // Sorted input (quick sort worst case).
+		Comparator<Integer> byTens = new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Integer.compare(a / 10, b / 10);
+			}
+		};
+		table.sort(byTens.reversed());
+		assertEquals("First Is 4990", Integer.valueOf(4990), table.get(0));
+		assertEquals("Equal Elements Keep Their Order", Integer.valueOf(4991), table.get(1));
+		assertEquals("Last Is 9", Integer.valueOf(9), table.get(4999));
+	}
+
+	@Test
+	public void testParallelSort(){
+		Random rnd = new Random(0);
+		FastTable<Integer> table = new FastTable<Integer>();
+		ArrayList<Integer> al = new ArrayList<>();
+		for (int i = 0; i < 50000; i++) {
+			Integer n = rnd.nextInt(1000);
+			table.add(n);
+			al.add(n);
+		}
+		ConcurrentContext ctx = ConcurrentContext.enter();
+		try {
+			ctx.setConcurrency(4);
+			table.parallel().sort(Comparator.<Integer>naturalOrder());
+		} finally {
+			ctx.exit();
+		}
+		Collections.sort(al);
+		assertEquals(al, table);
+		AbstractTable<Integer> tail = table.subTable(49990, 50000);
+		assertFalse("Iterator At End", tail.listIterator(10).hasNext());
+		tail.sort(Comparator.<Integer>reverseOrder());
+		assertEquals("Sub Table Sorted", Integer.valueOf(999), tail.getFirst());
+	}
+
+	@Test
+	public void testSharedParallelSort() throws InterruptedException{
+		Random rnd = new Random(0);
+		final AbstractTable<Integer> shared = new FastTable<Integer>().shared();
+		long sum = 0;
+		for (int i = 0; i < 50000; i++) {
+			int n = rnd.nextInt(1000);
+			shared.add(n);
+			sum += n;
+		}
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				for (int i = 0; i < 2000; i++) {
+					shared.addFirst(-1); // Shifts the elements being sorted.
+					Thread.yield();
+				}
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) shared.parallel().sort(Comparator.<Integer>naturalOrder());
+		writer.join();
+		assertEquals("No Write Lost", 52000, shared.size());
+		long actual = 0;
+		for (Integer n : shared) actual += n;
+		assertEquals("Same Elements", sum - 2000, actual);
+	}
+
+	@Test
+	public void testSetAll(){
+		FastTable<String> table = new FastTable<String>();
+		for (int i = 0; i < 10; i++) table.add("Element" + i);
+		table.subTable(2, 8).setAll(1, new String[] { "A", null, "B" });
+		assertEquals("Replaced", "A", table.get(3));
+		assertNull("Replaced By Null", table.get(4));
+		assertEquals("Replaced", "B", table.get(5));
+		assertEquals("Not Replaced", "Element6", table.get(6));
+		assertEquals("Size Unchanged", 10, table.size());
+		try {
+			table.setAll(8, new String[] { "C", "D", "E" });
+			fail("IndexOutOfBoundsException Expected");
+		} catch (IndexOutOfBoundsException e) {
+			assertEquals("Not Modified", "Element8", table.get(8));
+		}
+	}
+
+	@Test
+	public void testParallelFilteredCollect(){
+		for (int i = 0; i < 100; i++) _fastTable.add("Value" + i);
+		AbstractCollection<String> values = _fastTable.filter(str -> str.startsWith("Value")).parallel().collect();
+		assertEquals("Collected Size Is 100", 100, values.size());
+	}
+
+	@Test
+	public void testFusedPipeline(){
+		for (int i = 0; i < 1000; i++) _fastTable.add("Value" + (i % 300));
+		AbstractCollection<Integer> view = _fastTable.filter(str -> str.startsWith("Value"))
+				.map(str -> Integer.valueOf(str.substring(5))).distinct().sorted().filter(n -> n % 2 == 0);
+		ArrayList<Integer> expected = new ArrayList<>();
+		for (Integer n : view) expected.add(n); // Iterators stack.
+		assertEquals("150 Even Values", 150, expected.size());
+		assertEquals("Same Collect", expected, new ArrayList<>(view.collect()));
+		assertEquals("Same Reduce", Integer.valueOf(298), view.max(Comparator.<Integer>naturalOrder()));
+		assertEquals("First Found", Integer.valueOf(0), view.findAny());
+		AbstractContext.inherit(new ConcurrentContextImpl(3));
+		try {
+			AbstractCollection<Integer> parallel = view.parallel();
+			assertEquals("Same Parallel Collect", expected, new ArrayList<>(parallel.collect()));
+			assertEquals("Same Parallel Reduce", Integer.valueOf(22350), parallel.reduce((a, b) -> a + b));
+			AbstractCollection<Integer> lengths = _fastTable.parallel().map(str -> str.length());
+			final AtomicInteger sum = new AtomicInteger();
+			lengths.forEach(n -> sum.addAndGet(n));
+			assertEquals("Same Parallel ForEach", (int) lengths.reduce((a, b) -> a + b), sum.get());
+		} finally {
+			AbstractContext.inherit(null);
+		}
+	}
+
+	@Test
+	public void testConcat(){
+		FastTable<String> tail = new FastTable<String>();
+		for (int i = 0; i < 1000; i++) tail.add((i % 7 == 0) ? null : "Value" + i);
+		tail.add(null);
+		tail = tail.clone(); // Copies of large tables share their structure.
+		ArrayList<String> expected = new ArrayList<>(_fastTable);
+		expected.addAll(tail);
+		assertTrue("Modified", _fastTable.addAll(tail));
+		assertEquals("Size Is 1004", 1004, _fastTable.size());
+		assertEquals(expected, _fastTable);
+		assertFalse("Not Modified", _fastTable.addAll(new FastTable<String>()));
+		_fastTable.addAll(_fastTable);
+		assertEquals("Size Is 2008", 2008, _fastTable.size());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testConcatRanges(){
+		AbstractContext.inherit(new ConcurrentContextImpl(3));
+		try {
+			FastTable<Integer>[] tables = new FastTable[4];
+			long[] starts = new long[tables.length];
+			long count = 0;
+			for (int i = 0, start = 0; i < tables.length; i++) {
+				tables[i] = new FastTable<Integer>();
+				for (int j = 0; j < 30000 + i; j++) tables[i].add((j % 5 == 0) ? null : i); // Holes.
+				tables[i].add(null); // Trailing null shifts the next range.
+				if (i == 1) tables[i] = tables[i].clone(); // Structural sharing.
+				starts[i] = start;
+				start += tables[i].size();
+				for (Integer e : tables[i]) if (e != null) count++;
+			}
+			tables[2].set(5, 2); // Fills a hole.
+			count++;
+			FastTable<Integer> concat = FastTable.concat(tables);
+			assertEquals("Size", starts[3] + tables[3].size(), concat.size());
+			for (Integer e : concat) if (e != null) count--;
+			assertEquals("No Element Lost Or Copied Twice", 0, count);
+			for (int i = 0; i < tables.length; i++)
+				for (int j = 0; j < tables[i].size(); j++)
+					assertEquals("Own Range", tables[i].get(j), concat.get((int) (starts[i] + j)));
+			FractalArray<Integer> array = FractalArray.<Integer>empty().set(0, 0).set(5, 5).set(10, 10);
+			FractalArray<Integer>[] arrays = new FractalArray[] { array, array };
+			FractalArray<Integer> joined = FractalArray.concat(arrays, new long[] { 6, 11 });
+			assertEquals("Beyond Length Excluded", 5, joined.count(0, -1));
+			assertNull("Beyond Length Excluded", joined.get(10));
+			assertEquals("Shifted", Integer.valueOf(0), joined.get(6));
+			assertEquals("Shifted", Integer.valueOf(10), joined.get(16));
+			assertEquals("Shifted", Integer.valueOf(5), joined.get(11));
+		} finally {
+			AbstractContext.inherit(null);
+		}
+	}
+
+	@Test
+	public void testParallelCollectMerge(){
+		for (int i = 0; i < 10000; i++) _fastTable.add("Value" + i);
+		AbstractContext.inherit(new ConcurrentContextImpl(3));
+		try {
+			assertEquals("Same Order", _fastTable, _fastTable.parallel().collect());
+			ArrayList<String> expected = new ArrayList<>();
+			for (String str : _fastTable) if (str.endsWith("7")) expected.add(str);
+			assertEquals("Same Filtered Order", expected,
+					new ArrayList<>(_fastTable.filter(str -> str.endsWith("7")).parallel().collect()));
+		} finally {
+			AbstractContext.inherit(null);
+		}
+	}
+
+	@Test
+	public void testParallelSearch(){
+		for (int i = 0; i < 10000; i++) _fastTable.add("Value" + i);
+		AbstractContext.inherit(new ConcurrentContextImpl(3));
+		try {
+			AbstractTable<String> parallel = _fastTable.parallel();
+			assertTrue("Match Found", parallel.anyMatch(str -> str.endsWith("99")));
+			assertFalse("No Match", parallel.anyMatch(str -> str.isEmpty()));
+			assertTrue("Found Any", _fastTable.contains(parallel.findAny()));
+			assertFalse("Not Empty", parallel.isEmpty());
+			assertTrue("Empty", new FastTable<String>().parallel().isEmpty());
+		} finally {
+			AbstractContext.inherit(null);
+		}
+	}
+
+	@Test
+	public void testShortCircuitPipeline(){
+		for (int i = 0; i < 1000; i++) _fastTable.add("Value" + i);
+		final AtomicInteger evaluated = new AtomicInteger();
+		AbstractCollection<Integer> view = _fastTable.map(str -> {
+			evaluated.incrementAndGet();
+			return str.length();
+		});
+		assertTrue("Match Found", view.anyMatch(n -> n == 5));
+		assertEquals("Stops At First Match", 1, evaluated.get());
+		assertFalse("No Match", view.anyMatch(n -> n > 10));
+		assertEquals("All Evaluated", 1 + _fastTable.size(), evaluated.get());
+	}
+
+	@Test
+	public void testBulkAccessWithNulls(){
+		Random rnd = new Random(0);
+		FastTable<Integer> table = new FastTable<Integer>();
+		ArrayList<Integer> al = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Integer n = (rnd.nextInt(5) == 0) ? null : rnd.nextInt();
+			switch (rnd.nextInt(4)) {
+				case 0:
+					Integer[] block = new Integer[] { n, null, n };
+					table.addAll(block);
+					al.addAll(Arrays.asList(block));
+					break;
+				case 1:
+					int j = rnd.nextInt(al.size() + 1);
+					table.add(j, n);
+					al.add(j, n);
+					break;
+				case 2:
+					if (al.isEmpty()) break;
+					int k = rnd.nextInt(al.size());
+					table.remove(k);
+					al.remove(k);
+					break;
+				default:
+					table.add(n);
+					al.add(n);
+			}
+		}
+		assertEquals(al, table);
+		assertTrue("Same Array", Arrays.equals(al.toArray(), table.toArray(new Integer[0])));
+		ArrayList<Integer> iterated = new ArrayList<>();
+		for (Integer n : table.clone()) iterated.add(n);
+		assertEquals(al, iterated);
+		final ArrayList<Integer> visited = new ArrayList<>();
+		table.forEach(n -> visited.add(n));
+		assertEquals("ForEach Visits Nulls", al, visited);
+	}
+
+	@Test
+	public void testForEachWithNulls(){
+		FastTable<String> table = new FastTable<String>();
+		table.addAll(Arrays.asList(null, "a", null, "c", null));
+		final ArrayList<String> visited = new ArrayList<>();
+		table.forEach(str -> visited.add(str));
+		assertEquals(Arrays.asList(null, "a", null, "c", null), visited);
+	}
+
+	@Test
+	public void testForEachBlock(){
+		FractalArray<Integer> array = FractalArray.empty();
+		for (int i = 0; i < 100; i++) array = array.set(i * 2, i);
+		final int[] count = new int[1];
+		array.forEachBlock(10, 19, new FractalArray.BlockConsumer() {
+			@Override
+			public void accept(long index, Object[] block, int offset, int length) {
+				for (int i = 0; i < length; i++) {
+					assertEquals("Element At Index", Integer.valueOf((int) (index + i) / 2), block[offset + i]);
+					count[0]++;
+				}
+			}
+		});
+		assertEquals("Count Is 5", 5, count[0]);
+	}
+
+	@Test
+	public void testSpliterator(){
+		for (int i = 0; i < 1000; i++) _fastTable.add((i % 10 == 0) ? null : "Value" + i);
+		assertEquals("Nulls Included", 100, _fastTable.parallelStream().filter(str -> str == null).count());
+		assertEquals("Same Order", _fastTable, _fastTable.parallelStream().collect(Collectors.toList()));
+		assertEquals("Sub Table Order", _fastTable.subTable(10, 20), 
+				_fastTable.subTable(10, 20).stream().collect(Collectors.toList()));
+		Spliterator<String> suffix = _fastTable.spliterator();
+		Spliterator<String> prefix = suffix.trySplit();
+		assertTrue("Sub-Sized", prefix.hasCharacteristics(Spliterator.SUBSIZED));
+		assertEquals("Prefix Is Half", _fastTable.size() / 2, prefix.getExactSizeIfKnown());
+		assertEquals("Sizes Are Exact", _fastTable.size(), prefix.getExactSizeIfKnown() + suffix.getExactSizeIfKnown());
+	}
+
+	@Test
+	public void testCompactArray(){
+		Random random = new Random(4);
+		for (int density : new int[] { 1, 3, 1000 }) { // Dense, dense with holes, sparse.
+			FractalArray<Integer> array = FractalArray.empty();
+			for (int i = 0; i < 1000; i++) {
+				long index = (density == 1) ? i + 100 : (density == 3) ? 2 * i + random.nextInt(2) : random.nextLong();
+				array = array.set(index, i);
+			}
+			FractalArray<Integer> compact = array.compact();
+			assertEquals("Same Count", array.count(0, -1), compact.count(0, -1));
+			FractalArray.Iterator<Integer> expected = array.iterator();
+			FractalArray.Iterator<Integer> actual = compact.iterator();
+			while (expected.hasNext()) {
+				long index = expected.nextIndex();
+				assertEquals("Same Index", index, actual.nextIndex());
+				assertEquals("Same Element", expected.next(), actual.next());
+				assertEquals("Lookup", array.get(index), compact.get(index));
+				assertEquals("Next", array.next(index, null), compact.next(index, null));
+				assertEquals("Previous", array.previous(index, null), compact.previous(index, null));
+				assertEquals("Count Before", array.count(0, index), compact.count(0, index));
+				assertEquals("Miss", array.get(index + 1), compact.get(index + 1));
+			}
+			assertFalse("Same Length", actual.hasNext());
+			assertEquals("Descending", array.descendingIterator(-1).next(), compact.descendingIterator(-1).next());
+			final long[] sum = new long[1];
+			compact.forEachBlock(0, -1, (index, block, offset, length) -> {
+				for (int i = offset; i < offset + length; i++) if (block[i] != null) sum[0] += (Integer) block[i];
+			});
+			assertEquals("Block Sum", 999 * 1000 / 2, sum[0]);
+			try {
+				compact.set(0, 0);
+				assertTrue("Immutable", false);
+			} catch (UnsupportedOperationException e) {}
+		}
+	}
+
+	@Test
+	public void testFreeze(){
+		FastTable<String> table = new FastTable<String>().with("A", null, "C");
+		for (int i = 0; i < 100; i++) table.add("Value" + i);
+		FastTable<String> expected = table.clone();
+		FastTable.Immutable<String> frozen = table.freeze();
+		assertEquals("Same Elements", expected, frozen);
+		assertNull("Null Element", frozen.get(1));
+		assertEquals("Size Is 103", 103, frozen.size());
+		assertEquals("Sub Table", expected.subTable(50, 60), frozen.subTable(50, 60));
+		assertEquals("Descending", "Value99", frozen.descendingIterator().next());
+		try {
+			frozen.add("D");
+			assertTrue("Immutable", false);
+		} catch (UnsupportedOperationException e) {}
+	}
 }
@@ -0,0 +1,124 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IntTableTest {
+
+	private IntTable _intTable;
+
+	@Before
+	public void init(){
+		_intTable = new IntTable(1, 2, 3);
+	}
+
+	@Test
+	public void testRandomInsertionsAndRemovals(){
+		Random rnd = new Random(0);
+		ArrayList<Integer> al = new ArrayList<>();
+		IntTable it = new IntTable();
+		for (int i = 0; i < 5000; i++) {
+			int j = rnd.nextInt(al.size() + 1);
+			int n = rnd.nextInt();
+			al.add(j, n);
+			it.addInt(j, n);
+			if (rnd.nextInt(4) == 0) {
+				int k = rnd.nextInt(al.size());
+				assertEquals(al.remove(k).intValue(), it.removeInt(k));
+			}
+		}
+		assertEquals(al, it);
+	}
+
+	@Test
+	public void testBothEnds(){
+		_intTable.addInt(0, 0);
+		_intTable.addInt(4, 4);
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, _intTable.toIntArray());
+		assertEquals("First Removed", 0, _intTable.removeInt(0));
+		assertEquals("Last Removed", 4, _intTable.removeInt(3));
+		_intTable.addFirst(-1);
+		_intTable.addLast(9);
+		assertEquals("First Is -1", -1, _intTable.getInt(0));
+		assertEquals("Last Is 9", 9, _intTable.getInt(4));
+		assertEquals(Integer.valueOf(-1), _intTable.pollFirst());
+		assertEquals(Integer.valueOf(9), _intTable.pollLast());
+		assertArrayEquals(new int[] { 1, 2, 3 }, _intTable.toIntArray());
+	}
+
+	@Test
+	public void testWrapAround(){
+		ArrayList<Integer> al = new ArrayList<>();
+		IntTable it = new IntTable();
+		for (int i = 0; i < 10; i++) { // Head wraps around (initial capacity 16).
+			al.add(0, -i);
+			it.addFirst(-i);
+			al.add(i);
+			it.addLast(i);
+		}
+		assertEquals(al, it);
+		for (int i = 0; i < 6; i++) { // Middle removals across the wrapping point.
+			assertEquals(al.remove(3).intValue(), it.removeInt(3));
+			assertEquals(al.remove(al.size() - 4).intValue(), it.removeInt(it.size() - 4));
+		}
+		assertEquals(al, it);
+		for (int i = 0; i < 100; i++) { // Resizes while wrapped.
+			al.add(al.size() / 2, i);
+			it.addInt(it.size() / 2, i);
+		}
+		assertEquals(al, it);
+	}
+
+	@Test
+	public void testBulkCopy(){
+		int[] values = new int[100];
+		for (int i = 0; i < values.length; i++) values[i] = i * 3;
+		_intTable.removeInt(0); // Rotates.
+		_intTable.addFirst(1);
+		_intTable.addFirst(0); // Wraps around.
+		_intTable.addInts(values, 0, values.length);
+		int[] copy = new int[100];
+		_intTable.getInts(4, copy, 0, 100);
+		assertArrayEquals(values, copy);
+		_intTable.setInts(1, new int[] { 7, 8, 9 }, 1, 2);
+		assertArrayEquals(new int[] { 0, 8, 9, 3, 0, 3 }, copy(_intTable, 0, 6));
+		assertEquals("Table Size Is 104", 104, _intTable.toIntArray().length);
+		IntTable clone = _intTable.clone();
+		clone.setInt(0, 42);
+		assertEquals("Clone Independent", 0, _intTable.getInt(0));
+	}
+
+	@Test
+	public void testViews(){
+		_intTable.addInts(new int[] { 4, 5, 6 }, 0, 3);
+		_intTable.subTable(1, 3).clear();
+		assertEquals(new IntTable(1, 4, 5, 6), _intTable);
+		int sum = 0;
+		for (AbstractTable<Integer> split : _intTable.trySplit(3))
+			for (Integer i : split) sum += i;
+		assertEquals("Sum Is 16", 16, sum);
+		assertTrue("Unmodifiable Contains 6", _intTable.unmodifiable().contains(6));
+	}
+
+	private static int[] copy(IntTable table, int from, int count) {
+		int[] values = new int[count];
+		table.getInts(from, values, 0, count);
+		return values;
+	}
+
+}
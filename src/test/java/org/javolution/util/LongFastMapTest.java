@@ -0,0 +1,92 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongFastMapTest {
+
+	private LongFastMap<String> _longMap;
+
+	@Before
+	public void init(){
+		_longMap = new LongFastMap<String>();
+		_longMap.put(3L, "Three");
+		_longMap.put(-1L, "MinusOne");
+		_longMap.put(Long.MAX_VALUE, "Max");
+		_longMap.put(1L, null);
+	}
+
+	@Test
+	public void testPrimitiveOperations(){
+		assertEquals("Size Is 4", 4, _longMap.size());
+		assertEquals("Three", _longMap.get(3L));
+		assertTrue("Contains Key With Null Value", _longMap.containsKey(1L));
+		assertNull(_longMap.get(1L));
+		assertEquals("Three", _longMap.put(3L, "Trois"));
+		assertEquals("Trois", _longMap.remove(3L));
+		assertFalse("Key 3 Removed", _longMap.containsKey(3L));
+		assertEquals("Size Is 3", 3, _longMap.size());
+	}
+
+	@Test
+	public void testKeyOrder(){
+		assertEquals(Arrays.asList(-1L, 1L, 3L, Long.MAX_VALUE), new FastTable<Long>().with(_longMap.keySet().toArray(new Long[0])));
+		assertEquals("First Key Is -1", Long.valueOf(-1), _longMap.firstKey());
+		assertEquals("Last Key Is Max", Long.valueOf(Long.MAX_VALUE), _longMap.lastKey());
+	}
+
+	@Test
+	public void testSameAsTreeMap(){
+		TreeMap<Long, String> treeMap = new TreeMap<Long, String>(_longMap);
+		assertEquals(treeMap, _longMap);
+		Map<Long, String> subMap = _longMap.subMap(0L, 10L);
+		assertEquals(treeMap.subMap(0L, 10L), subMap);
+		subMap.put(5L, "Five");
+		assertEquals("Five", _longMap.get(5L));
+		subMap.put(5L, "Cinq");
+		assertEquals("Cinq", _longMap.get(5L));
+	}
+
+	@Test
+	public void testViews(){
+		_longMap.values().removeIf(v -> v == null);
+		assertFalse("Null Value Removed", _longMap.containsKey(1L));
+		_longMap.keySet().remove(-1L);
+		assertEquals("Size Is 2", 2, _longMap.size());
+		AbstractMap<Long, String> atomic = _longMap.atomic();
+		atomic.put(7L, "Seven");
+		assertEquals("Seven", atomic.get(7L));
+		AbstractMap<Long, String> shared = _longMap.shared();
+		shared.remove(7L);
+		assertNull(shared.get(7L));
+		assertEquals("Three", _longMap.unmodifiable().get(3L));
+		assertEquals("Unmodifiable Size Is 2", 2, _longMap.unmodifiable().entrySet().size());
+	}
+
+	@Test
+	public void testIntFastMap(){
+		IntFastMap<String> intMap = new IntFastMap<String>().with(404, "Not Found").with(-5, "Negative").with(200, "OK");
+		assertEquals("OK", intMap.get(200));
+		assertEquals(Arrays.asList(-5, 200, 404), new FastTable<Integer>().with(intMap.keySet().toArray(new Integer[0])));
+		assertEquals("Sub Map Size Is 1", 1, intMap.subMap(400, 600).size());
+		assertEquals("Not Found", intMap.remove(404));
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongTableTest {
+
+	private LongTable _longTable;
+
+	@Before
+	public void init(){
+		_longTable = new LongTable(1, 2, 3);
+	}
+
+	@Test
+	public void testRandomInsertionsAndRemovals(){
+		Random rnd = new Random(0);
+		ArrayList<Long> al = new ArrayList<>();
+		LongTable lt = new LongTable();
+		for (int i = 0; i < 5000; i++) {
+			int j = rnd.nextInt(al.size() + 1);
+			long n = rnd.nextLong();
+			al.add(j, n);
+			lt.addLong(j, n);
+			if (rnd.nextInt(4) == 0) {
+				int k = rnd.nextInt(al.size());
+				assertEquals(al.remove(k).longValue(), lt.removeLong(k));
+			}
+		}
+		assertEquals(al, lt);
+	}
+
+	@Test
+	public void testDeque(){
+		_longTable.addFirst(0L);
+		_longTable.addLast(4L);
+		assertEquals("First Is 0", 0L, _longTable.getLong(0));
+		assertEquals("Last Is 4", 4L, _longTable.getLong(4));
+		assertEquals(Long.valueOf(0), _longTable.pollFirst());
+		assertEquals(Long.valueOf(4), _longTable.pollLast());
+		assertEquals("Table Size Is 3", 3, _longTable.size());
+	}
+
+	@Test
+	public void testBulkCopy(){
+		long[] values = new long[100];
+		for (int i = 0; i < values.length; i++) values[i] = i * 3L;
+		_longTable.removeLong(0); // Rotates.
+		_longTable.addLongs(values, 0, values.length);
+		long[] copy = new long[100];
+		_longTable.getLongs(2, copy, 0, 100);
+		assertArrayEquals(values, copy);
+		_longTable.setLongs(0, new long[] { 7, 8 }, 0, 2);
+		assertEquals("First Is 7", 7L, _longTable.getLong(0));
+		assertEquals("Table Size Is 102", 102, _longTable.toLongArray().length);
+	}
+
+	@Test
+	public void testViews(){
+		_longTable.addLongs(new long[] { 4, 5, 6 }, 0, 3);
+		_longTable.subTable(1, 3).clear();
+		assertEquals(new LongTable(1, 4, 5, 6), _longTable);
+		long sum = 0;
+		for (AbstractTable<Long> split : _longTable.trySplit(3))
+			for (Long l : split) sum += l;
+		assertEquals("Sum Is 16", 16L, sum);
+		assertTrue("Unmodifiable Contains 6", _longTable.unmodifiable().contains(6L));
+	}
+
+	@Test
+	public void testIntAndDoubleTables(){
+		IntTable it = new IntTable(3, 1, 4);
+		it.addInt(0, 9);
+		assertArrayEquals(new int[] { 9, 3, 1, 4 }, it.toIntArray());
+		DoubleTable dt = new DoubleTable(0.5, 1.5);
+		dt.removeDouble(0);
+		assertEquals(1.5, dt.getDouble(0), 0.0);
+	}
+
+}
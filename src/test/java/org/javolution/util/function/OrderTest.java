@@ -10,6 +10,8 @@ package org.javolution.util.function;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Random;
+
 import org.javolution.util.function.Order;
 import org.junit.Before;
 import org.junit.Test;
@@ -20,6 +22,30 @@ public class OrderTest {
 	public void init(){
 	}
 	
+	@Test
+	public void testNextInside(){
+		Random random = new Random(5);
+		for (SpatialOrder<?> spatial : new SpatialOrder<?>[] { Order.quadtree(), Order.octree() }) {
+			int dim = spatial.dimension();
+			for (int n = 0; n < 20; n++) {
+				long[] lower = new long[dim];
+				long[] upper = new long[dim];
+				for (int axis = 0; axis < dim; axis++) {
+					lower[axis] = random.nextInt(8);
+					upper[axis] = lower[axis] + random.nextInt(8);
+				}
+				long min = spatial.index(lower);
+				long max = spatial.index(upper);
+				long expected = max;
+				for (long index = max; --index >= min;) { // Brute force.
+					if (spatial.isInside(index + 1, min, max)) expected = index + 1;
+					if (!spatial.isInside(index, min, max)) 
+						assertEquals("Next Inside", expected, spatial.nextInside(index, min, max));
+				}
+			}
+		}
+	}
+	
 	@Test
 	public void testLexical(){
 		boolean b = Order.lexical().areEqual("Toto", "ToTo");